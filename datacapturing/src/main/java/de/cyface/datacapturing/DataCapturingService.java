@@ -23,12 +23,15 @@ import static de.cyface.persistence.model.MeasurementStatus.FINISHED;
 import static de.cyface.persistence.model.MeasurementStatus.OPEN;
 import static de.cyface.persistence.model.MeasurementStatus.PAUSED;
 import static de.cyface.synchronization.BundlesExtrasCodes.AUTHORITY_ID;
+import static de.cyface.synchronization.BundlesExtrasCodes.COMPRESS_AT_CAPTURE;
 import static de.cyface.synchronization.BundlesExtrasCodes.DISTANCE_CALCULATION_STRATEGY_ID;
 import static de.cyface.synchronization.BundlesExtrasCodes.EVENT_HANDLING_STRATEGY_ID;
 import static de.cyface.synchronization.BundlesExtrasCodes.LOCATION_CLEANING_STRATEGY_ID;
 import static de.cyface.synchronization.BundlesExtrasCodes.MEASUREMENT_ID;
+import static de.cyface.synchronization.BundlesExtrasCodes.OVERFLOW_POLICY;
 import static de.cyface.synchronization.BundlesExtrasCodes.SENSOR_FREQUENCY;
 import static de.cyface.synchronization.BundlesExtrasCodes.STOPPED_SUCCESSFULLY;
+import static de.cyface.synchronization.BundlesExtrasCodes.WRITER_QUEUE_CAPACITY;
 
 import java.lang.ref.WeakReference;
 import java.util.Collection;
@@ -69,6 +72,7 @@ import de.cyface.datacapturing.exception.MissingPermissionException;
 import de.cyface.datacapturing.exception.SetupException;
 import de.cyface.datacapturing.model.CapturedData;
 import de.cyface.datacapturing.persistence.CapturingPersistenceBehaviour;
+import de.cyface.datacapturing.persistence.OverflowPolicy;
 import de.cyface.datacapturing.ui.Reason;
 import de.cyface.datacapturing.ui.UIListener;
 import de.cyface.persistence.DefaultPersistenceBehaviour;
@@ -82,6 +86,7 @@ import de.cyface.persistence.model.GeoLocation;
 import de.cyface.persistence.model.Measurement;
 import de.cyface.persistence.model.MeasurementStatus;
 import de.cyface.persistence.model.Modality;
+import de.cyface.persistence.serialization.MeasurementSerializer;
 import de.cyface.synchronization.ConnectionStatusListener;
 import de.cyface.synchronization.ConnectionStatusReceiver;
 import de.cyface.synchronization.SyncService;
@@ -104,7 +109,7 @@ import de.cyface.utils.Validate;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 18.0.3
+ * @version 18.5.0
  * @since 1.0.0
  */
 public abstract class DataCapturingService {
@@ -165,6 +170,15 @@ public abstract class DataCapturingService {
      * stop.
      */
     private final Lock lifecycleLock;
+    /**
+     * The {@link MeasurementStatus} to set when the {@link DataCapturingBackgroundService} acknowledged that it stopped
+     * or {@code null} if no stop or pause is pending. Access must be protected by the {@link #lifecycleLock}.
+     * <p>
+     * The status is not set when the stop intent is sent, as the background service writes its buffered data when it
+     * shuts down. Else, a {@link MeasurementStatus#FINISHED} {@code Measurement} could still change while it's
+     * synchronized.
+     */
+    private MeasurementStatus statusAfterStop;
     /**
      * The identifier used to qualify measurements from this capturing service with the server receiving the
      * measurements. This needs to be world wide unique.
@@ -204,6 +218,23 @@ public abstract class DataCapturingService {
      * usually uses a frequency sightly higher than this value, e.g.: 101-103/s for 100 Hz.
      */
     private final int sensorFrequency;
+    /**
+     * The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} used for the {@code Point3d}s of new
+     * {@link Measurement}s.
+     */
+    private volatile short persistenceFileFormatVersion = MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION;
+    /**
+     * {@code true} if the {@code Point3d}s are compressed while they are captured.
+     */
+    private volatile boolean compressAtCapture;
+    /**
+     * The maximal number of batches of {@code Point3d}s waiting to be written while capturing.
+     */
+    private volatile int writerQueueCapacity = CapturingPersistenceBehaviour.DEFAULT_WRITER_QUEUE_CAPACITY;
+    /**
+     * The {@link OverflowPolicy} applied when the storage does not keep up with the capturing.
+     */
+    private volatile OverflowPolicy overflowPolicy = CapturingPersistenceBehaviour.DEFAULT_OVERFLOW_POLICY;
 
     /**
      * Creates a new completely initialized {@link DataCapturingService}.
@@ -347,6 +378,9 @@ public abstract class DataCapturingService {
      * The provided <code>finishedHandler</code> is called after the <code>DataCapturingBackgroundService</code> has
      * successfully shutdown.
      * <p>
+     * The {@link MeasurementStatus} is only updated when the <code>DataCapturingBackgroundService</code> has written
+     * its buffered data and acknowledged the shutdown, right before the <code>finishedHandler</code> is called.
+     * <p>
      * ATTENTION: It seems to be possible, that the service stopped signal is never received. Under these circumstances
      * your handle might wait forever. You might want to consider using some timeout mechanism to prevent your app from
      * being caught in an infinite "loop".
@@ -377,8 +411,10 @@ public abstract class DataCapturingService {
             persistenceLayer.logEvent(Event.EventType.LIFECYCLE_STOP, currentlyCapturedMeasurement);
 
             if (stopService(finishedHandler)) {
-                persistenceLayer.getPersistenceBehaviour().updateRecentMeasurement(FINISHED);
+                // Set when the background service wrote its buffered data, see onServiceStopped()
+                statusAfterStop = FINISHED;
             } else {
+                statusAfterStop = null;
                 handleStopFailed(currentlyCapturedMeasurement);
             }
         } finally {
@@ -394,6 +430,9 @@ public abstract class DataCapturingService {
      * The provided <code>finishedHandler</code> is called after the <code>DataCapturingBackgroundService</code> has
      * successfully shutdown.
      * <p>
+     * The {@link MeasurementStatus} is only updated when the <code>DataCapturingBackgroundService</code> has written
+     * its buffered data and acknowledged the shutdown, right before the <code>finishedHandler</code> is called.
+     * <p>
      * ATTENTION: It seems to be possible, that the service stopped signal is never received. Under these circumstances
      * your handle might wait forever. You might want to consider using some timeout mechanism to prevent your app from
      * being caught in an infinite "loop".
@@ -420,8 +459,10 @@ public abstract class DataCapturingService {
             persistenceLayer.logEvent(Event.EventType.LIFECYCLE_PAUSE, currentlyCapturedMeasurement);
 
             if (stopService(finishedHandler)) {
-                persistenceLayer.getPersistenceBehaviour().updateRecentMeasurement(PAUSED);
+                // Set when the background service wrote its buffered data, see onServiceStopped()
+                statusAfterStop = PAUSED;
             } else {
+                statusAfterStop = null;
                 handlePauseFailed(currentlyCapturedMeasurement);
             }
         } finally {
@@ -478,6 +519,10 @@ public abstract class DataCapturingService {
                 throw new MissingPermissionException();
             }
 
+            if (statusAfterStop != null) {
+                Log.w(TAG, "Ignoring resume() as the background service did not acknowledge the pause yet.");
+                return;
+            }
             // Ignore resume if there are no paused measurements (wrong life-cycle call which we support #MOV-460)
             if (!persistenceLayer.hasMeasurement(MeasurementStatus.PAUSED)) {
                 Log.w(TAG, "Ignoring resume() as there is no paused measurement.");
@@ -601,6 +646,80 @@ public abstract class DataCapturingService {
         return deviceIdentifier;
     }
 
+    /**
+     * Selects the format in which the {@code Point3d}s of the {@link Measurement}s started after this call are
+     * persisted. Resumed {@code Measurement}s keep the format they were started with.
+     *
+     * @param persistenceFileFormatVersion The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} to use,
+     *            e.g. {@link MeasurementSerializer#BLOCK_PERSISTENCE_FILE_FORMAT_VERSION} to store the timestamps as
+     *            differences
+     */
+    @SuppressWarnings({"unused", "RedundantSuppression"}) // used by sdk implementing apps
+    public void setPersistenceFileFormatVersion(final short persistenceFileFormatVersion) {
+        Validate.isTrue(MeasurementSerializer.isSupported(persistenceFileFormatVersion),
+                "Unsupported persistence file format version: " + persistenceFileFormatVersion);
+        this.persistenceFileFormatVersion = persistenceFileFormatVersion;
+    }
+
+    /**
+     * Selects whether the {@code Point3d}s of the {@link Measurement}s started or resumed after this call are
+     * compressed in batches while they are captured, in addition to being persisted.
+     * <p>
+     * This moves most of the compression work from the synchronization to the capturing: The transfer file is then
+     * assembled by appending the already compressed batches. {@code Point3d}s captured without this mode, e.g. before
+     * a {@code Measurement} was resumed with it, are compressed by the synchronization as before.
+     *
+     * @param compressAtCapture {@code true} to compress the {@code Point3d}s while capturing
+     */
+    @SuppressWarnings({"unused", "RedundantSuppression"}) // used by sdk implementing apps
+    public void setCompressAtCapture(final boolean compressAtCapture) {
+        this.compressAtCapture = compressAtCapture;
+    }
+
+    /**
+     * Configures how the {@code Point3d}s of the {@link Measurement}s started or resumed after this call are queued
+     * while they wait to be written.
+     * <p>
+     * The batches are written by one thread in the order they were captured. When the storage does not keep up and
+     * {@code capacity} batches are waiting, the {@code overflowPolicy} is applied. By default the batches are merged,
+     * see {@link CapturingPersistenceBehaviour#DEFAULT_OVERFLOW_POLICY}. {@link OverflowPolicy#BLOCK} delays the
+     * location thread, which then drops sensor values when it does not take them in time.
+     *
+     * @param capacity The maximal number of batches waiting to be written, about one batch per second is captured
+     * @param overflowPolicy The {@link OverflowPolicy} applied when the queue is full
+     */
+    @SuppressWarnings({"unused", "RedundantSuppression"}) // used by sdk implementing apps
+    public void setWriterQueue(final int capacity, @NonNull final OverflowPolicy overflowPolicy) {
+        Validate.isTrue(capacity > 0);
+        this.writerQueueCapacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Selects whether the synchronization writes the {@link Measurement}s directly to the upload request while they
+     * are serialized and compressed, instead of writing them to temp files first.
+     * <p>
+     * This avoids the disk I/O and the free space required for the temp files. The data is then uploaded with chunked
+     * transfer encoding. If the server responds that it requires the length of the request up front, the
+     * synchronization falls back to temp files.
+     *
+     * @param streamingUpload {@code true} to upload without temp files
+     */
+    @SuppressWarnings({"unused", "RedundantSuppression"}) // used by sdk implementing apps
+    public void setStreamingUpload(final boolean streamingUpload) {
+        final Context context = getContext();
+        if (context == null) {
+            Log.w(TAG, "Context is null, ignoring streaming upload setting.");
+            return;
+        }
+        final SharedPreferences.Editor sharedPreferencesEditor = PreferenceManager.getDefaultSharedPreferences(context)
+                .edit();
+        sharedPreferencesEditor.putBoolean(SyncService.SYNC_STREAMING_UPLOAD_SETTINGS_KEY, streamingUpload);
+        if (!sharedPreferencesEditor.commit()) {
+            throw new IllegalStateException("Unable to write preferences!");
+        }
+    }
+
     /**
      * Schedules data synchronization for right now. This does not mean synchronization is going to start immediately.
      * The Android system still decides when it is convenient.
@@ -744,6 +863,9 @@ public abstract class DataCapturingService {
         startIntent.putExtra(DISTANCE_CALCULATION_STRATEGY_ID, distanceCalculationStrategy);
         startIntent.putExtra(LOCATION_CLEANING_STRATEGY_ID, locationCleaningStrategy);
         startIntent.putExtra(SENSOR_FREQUENCY, sensorFrequency);
+        startIntent.putExtra(COMPRESS_AT_CAPTURE, compressAtCapture);
+        startIntent.putExtra(WRITER_QUEUE_CAPACITY, writerQueueCapacity);
+        startIntent.putExtra(OVERFLOW_POLICY, overflowPolicy.name());
 
         final ComponentName serviceComponentName;
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
@@ -794,6 +916,28 @@ public abstract class DataCapturingService {
         return serviceWasActive;
     }
 
+    /**
+     * Sets the {@link #statusAfterStop} when the {@link DataCapturingBackgroundService} acknowledged that it stopped.
+     * <p>
+     * The background service writes its buffered {@code GeoLocation}s, distance and {@code Point3d}s before it sends
+     * this acknowledgement, so the {@code Measurement} does not change after it's {@link MeasurementStatus#FINISHED}.
+     */
+    private void onServiceStopped() {
+        lifecycleLock.lock();
+        try {
+            if (statusAfterStop == null) {
+                Log.d(TAG, "onServiceStopped: No pending status update.");
+                return;
+            }
+            persistenceLayer.getPersistenceBehaviour().updateRecentMeasurement(statusAfterStop);
+        } catch (final NoSuchMeasurementException | CursorIsNullException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            statusAfterStop = null;
+            lifecycleLock.unlock();
+        }
+    }
+
     /**
      * This message is sent to the {@link ShutDownFinishedHandler} to inform callers that the async stop
      * command was executed.
@@ -878,7 +1022,7 @@ public abstract class DataCapturingService {
         Validate.isTrue(!hasOpenMeasurements, "There is a dead OPEN measurement!");
         Validate.isTrue(!hasPausedMeasurements, "There is a dead PAUSED measurement or wrong life-cycle call.");
 
-        return persistenceLayer.newMeasurement(modality);
+        return persistenceLayer.newMeasurement(modality, persistenceFileFormatVersion);
     }
 
     /**
@@ -1135,7 +1279,7 @@ public abstract class DataCapturingService {
      *
      * @author Klemens Muthmann
      * @author Armin Schnabel
-     * @version 2.0.0
+     * @version 2.1.0
      * @since 2.0.0
      */
     private static class FromServiceMessageHandler extends Handler {
@@ -1249,6 +1393,9 @@ public abstract class DataCapturingService {
                     // IPC to the background service this must always be true.
                     Validate.isTrue(stoppedSuccessfully);
 
+                    // The background service wrote its buffered data, so the measurement can be paused or finished
+                    dataCapturingService.onServiceStopped();
+
                     // Inform interested parties
                     dataCapturingService.sendServiceStoppedBroadcast(context, measurementId, true);
                     break;
@@ -24,8 +24,7 @@ import static de.cyface.utils.TestEnvironment.isEmulator;
 import java.io.Closeable;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Vector;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
@@ -44,17 +43,21 @@ import androidx.annotation.NonNull;
 
 import de.cyface.datacapturing.exception.DataCapturingException;
 import de.cyface.datacapturing.model.CapturedData;
+import de.cyface.datacapturing.model.Point3dBuffer;
 import de.cyface.persistence.model.GeoLocation;
-import de.cyface.persistence.model.Point3d;
 import de.cyface.utils.Validate;
 
 /**
  * Implements the data capturing functionality for Cyface. This class implements the SensorEventListener to listen to
  * acceleration sensor events as well as the LocationListener to listen to location updates.
+ * <p>
+ * The sensor values are handed over from the sensor thread to the location thread via a lock-free
+ * {@link SensorValueRing}. The location thread passes them on to the {@link CapturingProcessListener}s, so the sensor
+ * thread never waits for the location handling or the persistence.
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 3.1.0
+ * @version 4.1.0
  * @since 1.0.0
  */
 public abstract class CapturingProcess implements SensorEventListener, LocationListener, Closeable {
@@ -72,17 +75,46 @@ public abstract class CapturingProcess implements SensorEventListener, LocationL
      */
     private final int delayBetweenSensorEventsInMicroseconds;
     /**
-     * Cache for captured but not yet processed points from the accelerometer.
+     * The number of values each sensor buffer can hold before it grows, enough for one second at 200 Hz.
      */
-    private final List<Point3d> accelerations;
+    private static final int INITIAL_SENSOR_BUFFER_CAPACITY = 256;
     /**
-     * Cache for captured but not yet processed points from the gyroscope.
+     * The number of sensor values the {@link #sensorValues} can hold, about 13 seconds of all three sensors at 200 Hz.
      */
-    private final List<Point3d> rotations;
+    private static final int SENSOR_VALUE_RING_CAPACITY = 8_192;
     /**
-     * Cache for captured but not yet processed points from the compass.
+     * Captured but not yet processed points of all sensors, written by the sensor thread and read by the location
+     * thread.
      */
-    private final List<Point3d> directions;
+    private final SensorValueRing sensorValues;
+    /**
+     * The points from the accelerometer collected by the location thread to be handed off.
+     */
+    private final Point3dBuffer accelerations;
+    /**
+     * The points from the gyroscope collected by the location thread to be handed off.
+     */
+    private final Point3dBuffer rotations;
+    /**
+     * The points from the compass collected by the location thread to be handed off.
+     */
+    private final Point3dBuffer directions;
+    /**
+     * The number of {@link SensorValueRing#dropped()} values which were already logged.
+     */
+    private long loggedDroppedSensorValues;
+    /**
+     * Runs on the location thread to hand off the captured sensor values without a location.
+     */
+    private final Runnable handOffWithoutLocation;
+    /**
+     * {@code true} while {@link #handOffWithoutLocation} is posted but did not start yet.
+     */
+    private final AtomicBoolean handOffWithoutLocationPosted;
+    /**
+     * The <code>Handler</code> of the location thread, used to hand off the sensor values when there is no location.
+     */
+    private final Handler locationEventHandler;
     /**
      * A <code>List</code> of listeners we need to inform about captured data.
      */
@@ -150,9 +182,17 @@ public abstract class CapturingProcess implements SensorEventListener, LocationL
         Validate.notNull("Illegal argument: locationEventHandlerThread was null!", locationEventHandlerThread);
         Validate.notNull("Illegal argument: sensorEventHandlerThread was null!", sensorEventHandlerThread);
 
-        this.accelerations = new Vector<>(30);
-        this.rotations = new Vector<>(30);
-        this.directions = new Vector<>(30);
+        this.sensorValues = new SensorValueRing(SENSOR_VALUE_RING_CAPACITY);
+        this.accelerations = new Point3dBuffer(INITIAL_SENSOR_BUFFER_CAPACITY);
+        this.rotations = new Point3dBuffer(INITIAL_SENSOR_BUFFER_CAPACITY);
+        this.directions = new Point3dBuffer(INITIAL_SENSOR_BUFFER_CAPACITY);
+        this.handOffWithoutLocationPosted = new AtomicBoolean(false);
+        this.handOffWithoutLocation = new Runnable() {
+            @Override
+            public void run() {
+                handOffSensorValuesWithoutLocation();
+            }
+        };
         this.listener = new HashSet<>();
         this.locationManager = locationManager;
         this.sensorService = sensorService;
@@ -162,6 +202,7 @@ public abstract class CapturingProcess implements SensorEventListener, LocationL
         this.delayBetweenSensorEventsInMicroseconds = 1_000_000 / sensorFrequency;
 
         locationEventHandlerThread.start();
+        this.locationEventHandler = new Handler(locationEventHandlerThread.getLooper());
         this.locationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER, 0L, 0f, this,
                 locationEventHandlerThread.getLooper());
 
@@ -201,20 +242,21 @@ public abstract class CapturingProcess implements SensorEventListener, LocationL
                 Log.d(TAG, "Emulator detected, Accuracy overwritten to: " + locationAccuracyMeters);
             }
 
-            synchronized (this) {
+            final CapturedData capturedData = handOffSensorValues();
+            try {
                 for (final CapturingProcessListener listener : this.listener) {
                     listener.onLocationCaptured(
                             // The Android Location contains the accuracy in meters. GeoLocation uses cm.
                             new GeoLocation(latitude, longitude, locationTime, speed, locationAccuracyMeters * 100));
                     try {
-                        listener.onDataCaptured(new CapturedData(accelerations, rotations, directions));
+                        listener.onDataCaptured(capturedData);
                     } catch (DataCapturingException e) {
                         throw new IllegalStateException(e);
                     }
                 }
-                accelerations.clear();
-                rotations.clear();
-                directions.clear();
+            } finally {
+                // Listeners which keep the data retained it
+                capturedData.release();
             }
         }
     }
@@ -235,49 +277,97 @@ public abstract class CapturingProcess implements SensorEventListener, LocationL
     }
 
     /**
-     * See {@link SensorEventListener#onSensorChanged(SensorEvent)}. Since this method runs in a separate thread it
-     * needs to be synchronized with this object, so that transmitting the captured data and clearing the cache in
-     * {@link #onLocationChanged(Location)} does not interfere with the same calls in this method.
+     * See {@link SensorEventListener#onSensorChanged(SensorEvent)}. This method runs on the sensor thread and only
+     * publishes the values to the {@link SensorValueRing}. It does not wait for the location thread which reads them in
+     * {@link #onLocationChanged(Location)}.
      *
      * @param event See {@link SensorEventListener#onSensorChanged(SensorEvent)}
      */
     @Override
-    public synchronized void onSensorChanged(final @NonNull SensorEvent event) {
+    public void onSensorChanged(final @NonNull SensorEvent event) {
         if (eventTimeOffsetMillis == null) {
             eventTimeOffsetMillis = eventTimeOffset(event.timestamp);
         }
         long thisSensorEventTime = event.timestamp / 1_000_000L + eventTimeOffsetMillis;
 
-        // Notify client about sensor update & bulkInsert data into database even without location fix
-        if (!locationStatusHandler.hasLocationFix() && (lastNoGeoLocationFixUpdateTime == 0
-                || (thisSensorEventTime - lastNoGeoLocationFixUpdateTime > 1_000))) {
-            try {
-                for (CapturingProcessListener listener : this.listener) {
-                    CapturedData capturedData = new CapturedData(accelerations, rotations, directions);
-                    listener.onDataCaptured(capturedData);
-                }
+        // Get sensor values from event
+        // The type is compared as looking up the default sensors allocates an iterator for each event
+        final int type = event.sensor.getType();
+        switch (type) {
+            case Sensor.TYPE_ACCELEROMETER:
+                // Check if there are irregular gaps between sensor events (e.g. no location fix or data loss)
+                logIrregularSensorValues(thisSensorEventTime);
+                // fall through
+            case Sensor.TYPE_GYROSCOPE:
+            case Sensor.TYPE_MAGNETIC_FIELD:
+                sensorValues.offer(type, event.values[0], event.values[1], event.values[2], thisSensorEventTime);
+                break;
+            default:
+                // Only the sensors registered above are expected
+                break;
+        }
 
-                accelerations.clear();
-                rotations.clear();
-                directions.clear();
+        // Notify client about sensor update & bulkInsert data into database even without location fix, or when the
+        // location thread did not pick up the values for a while
+        final boolean noFixHandOffRequired = !locationStatusHandler.hasLocationFix()
+                && (lastNoGeoLocationFixUpdateTime == 0
+                        || (thisSensorEventTime - lastNoGeoLocationFixUpdateTime > 1_000));
+        if (noFixHandOffRequired || sensorValues.size() >= sensorValues.capacity() / 2) {
+            if (handOffWithoutLocationPosted.compareAndSet(false, true)) {
+                locationEventHandler.post(handOffWithoutLocation);
+            }
+            if (noFixHandOffRequired) {
                 lastNoGeoLocationFixUpdateTime = thisSensorEventTime;
-            } catch (SecurityException | DataCapturingException e) {
-                throw new IllegalStateException(e);
             }
         }
+    }
 
-        // Get sensor values from event
-        if (event.sensor.equals(sensorService.getDefaultSensor(Sensor.TYPE_ACCELEROMETER))) {
-            // Check if there are irregular gaps between sensor events (e.g. no location fix or data loss)
-            logIrregularSensorValues(thisSensorEventTime);
-            saveSensorValue(event, accelerations);
-        } else if (event.sensor.equals(sensorService.getDefaultSensor(Sensor.TYPE_GYROSCOPE))) {
-            saveSensorValue(event, rotations);
-        } else if (event.sensor.equals(sensorService.getDefaultSensor(Sensor.TYPE_MAGNETIC_FIELD))) {
-            saveSensorValue(event, directions);
+    /**
+     * @return The number of sensor values dropped so far as the location thread did not keep up
+     */
+    long getDroppedSensorValues() {
+        return sensorValues.dropped();
+    }
+
+    /**
+     * Passes the sensor values captured since the last hand off on to the listeners without a location. Runs on the
+     * location thread.
+     */
+    private void handOffSensorValuesWithoutLocation() {
+        handOffWithoutLocationPosted.set(false);
+        final CapturedData capturedData = handOffSensorValues();
+        try {
+            for (final CapturingProcessListener listener : this.listener) {
+                listener.onDataCaptured(capturedData);
+            }
+        } catch (final DataCapturingException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            // Listeners which keep the data retained it
+            capturedData.release();
         }
     }
 
+    /**
+     * Takes the sensor values published by the sensor thread from the {@link SensorValueRing} and hands them over to a
+     * {@link CapturedData} object without copying them.
+     * <p>
+     * Must only be called on the location thread, as it is the only consumer of the {@code SensorValueRing}.
+     *
+     * @return The sensor values captured since the last hand off. The caller must release it.
+     */
+    private CapturedData handOffSensorValues() {
+        sensorValues.drainTo(accelerations, rotations, directions);
+        final long dropped = sensorValues.dropped();
+        if (dropped != loggedDroppedSensorValues) {
+            Log.w(TAG, "Dropped " + (dropped - loggedDroppedSensorValues)
+                    + " sensor values as the location thread did not keep up.");
+            loggedDroppedSensorValues = dropped;
+        }
+
+        return new CapturedData(accelerations.toBatch(), rotations.toBatch(), directions.toBatch());
+    }
+
     /**
      * Calculates the static offset (ms) which needs to be added to the `event.time` (ns) in order
      * to calculate the Unix timestamp of the event.
@@ -373,20 +463,6 @@ public abstract class CapturingProcess implements SensorEventListener, LocationL
         locationEventHandlerThread.quitSafely();
     }
 
-    /**
-     * Saves a captured {@code SensorEvent} to the local in memory storage for that point.
-     * as different vendors and Android versions store different timestamps in the event.ts
-     * (e.g. uptimeNano, sysTimeNano) we use an offset from the first sample captures to get the same timestamp format.
-     *
-     * @param event The Android {@code SensorEvent} to store.
-     * @param storage The storage to store the {@code SensorEvent} to.
-     */
-    private void saveSensorValue(final SensorEvent event, final List<Point3d> storage) {
-        Point3d dataPoint = new Point3d(event.values[0], event.values[1], event.values[2],
-                event.timestamp / 1_000_000L + eventTimeOffsetMillis);
-        storage.add(dataPoint);
-    }
-
     /**
      * Registers the provided <code>Sensor</code> with this object as a listener, if the sensor is not
      * <code>null</code>. If the sensor is <code>null</code> nothing will happen.
@@ -12,7 +12,7 @@ import de.cyface.persistence.model.GeoLocation;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 5.0.3
+ * @version 5.1.0
  * @since 1.0.0
  */
 public interface CapturingProcessListener {
@@ -26,6 +26,9 @@ public interface CapturingProcessListener {
     /**
      * Transmits the accelerations, rotations and directions captured in intervals of approximately one geo
      * location fix or one second if no fix occurs..
+     * <p>
+     * The data is only valid during this call. Listeners which keep it must {@link CapturedData#retain()} it and
+     * {@link CapturedData#release()} it when done.
      *
      * @param data The data captured covering a list of accelerations, rotations and directions.
      */
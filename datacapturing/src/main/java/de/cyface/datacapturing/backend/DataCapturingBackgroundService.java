@@ -21,17 +21,18 @@ package de.cyface.datacapturing.backend;
 import static android.content.pm.ServiceInfo.FOREGROUND_SERVICE_TYPE_MANIFEST;
 import static de.cyface.datacapturing.Constants.BACKGROUND_TAG;
 import static de.cyface.synchronization.BundlesExtrasCodes.AUTHORITY_ID;
+import static de.cyface.synchronization.BundlesExtrasCodes.COMPRESS_AT_CAPTURE;
 import static de.cyface.synchronization.BundlesExtrasCodes.DISTANCE_CALCULATION_STRATEGY_ID;
 import static de.cyface.synchronization.BundlesExtrasCodes.EVENT_HANDLING_STRATEGY_ID;
 import static de.cyface.synchronization.BundlesExtrasCodes.LOCATION_CLEANING_STRATEGY_ID;
 import static de.cyface.synchronization.BundlesExtrasCodes.MEASUREMENT_ID;
+import static de.cyface.synchronization.BundlesExtrasCodes.OVERFLOW_POLICY;
 import static de.cyface.synchronization.BundlesExtrasCodes.STOPPED_SUCCESSFULLY;
+import static de.cyface.synchronization.BundlesExtrasCodes.WRITER_QUEUE_CAPACITY;
 import static de.cyface.utils.DiskConsumption.spaceAvailable;
 
 import java.lang.ref.WeakReference;
-import java.util.Collections;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 import android.annotation.SuppressLint;
@@ -63,6 +64,7 @@ import de.cyface.datacapturing.MessageCodes;
 import de.cyface.datacapturing.StartUpFinishedHandler;
 import de.cyface.datacapturing.model.CapturedData;
 import de.cyface.datacapturing.persistence.CapturingPersistenceBehaviour;
+import de.cyface.datacapturing.persistence.OverflowPolicy;
 import de.cyface.datacapturing.persistence.WritingDataCompletedCallback;
 import de.cyface.persistence.DistanceCalculationStrategy;
 import de.cyface.persistence.LocationCleaningStrategy;
@@ -71,7 +73,6 @@ import de.cyface.persistence.PersistenceBehaviour;
 import de.cyface.persistence.PersistenceLayer;
 import de.cyface.persistence.model.GeoLocation;
 import de.cyface.persistence.model.Measurement;
-import de.cyface.persistence.model.Point3d;
 import de.cyface.persistence.serialization.MeasurementSerializer;
 import de.cyface.synchronization.BundlesExtrasCodes;
 import de.cyface.utils.CursorIsNullException;
@@ -87,7 +88,7 @@ import de.cyface.utils.Validate;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 7.1.3
+ * @version 7.5.1
  * @since 2.0.0
  */
 public class DataCapturingBackgroundService extends Service implements CapturingProcessListener {
@@ -99,8 +100,11 @@ public class DataCapturingBackgroundService extends Service implements Capturing
     /**
      * The maximum size of captured data transmitted to clients of this service in one call. If there are more captured
      * points they are split into multiple messages.
+     * <p>
+     * A point is parcelled with 20 bytes, so a message of three sensors takes about 60 KB. This is less than the 800
+     * points per message took with 28 bytes per point, before the points were parcelled as primitive arrays.
      */
-    final static int MAXIMUM_CAPTURED_DATA_MESSAGE_SIZE = 800;
+    final static int MAXIMUM_CAPTURED_DATA_MESSAGE_SIZE = 1_000;
     /**
      * The Cyface notification identifier used to display system notification while the service is running. This needs
      * to be unique for the whole app, so we chose a very unlikely one.
@@ -304,6 +308,12 @@ public class DataCapturingBackgroundService extends Service implements Capturing
         }
         final String authority = intent.getCharSequenceExtra(AUTHORITY_ID).toString();
         capturingBehaviour = new CapturingPersistenceBehaviour();
+        capturingBehaviour.setCompressAtCapture(intent.getBooleanExtra(COMPRESS_AT_CAPTURE, false));
+        final String overflowPolicy = intent.getStringExtra(OVERFLOW_POLICY);
+        capturingBehaviour.setWriterQueue(
+                intent.getIntExtra(WRITER_QUEUE_CAPACITY, CapturingPersistenceBehaviour.DEFAULT_WRITER_QUEUE_CAPACITY),
+                overflowPolicy == null ? CapturingPersistenceBehaviour.DEFAULT_OVERFLOW_POLICY
+                        : OverflowPolicy.valueOf(overflowPolicy));
         persistenceLayer = new PersistenceLayer<>(this, this.getContentResolver(), authority, capturingBehaviour);
 
         // Loads EventHandlingStrategy
@@ -336,10 +346,12 @@ public class DataCapturingBackgroundService extends Service implements Capturing
             final Measurement measurement = persistenceLayer.loadMeasurement(currentMeasurementIdentifier);
             lastDistance = measurement.getDistance();
 
-            // Ensure we resume measurements with a known file format version
+            // Ensure we resume measurements with a known file format version. Measurements of a previous supported
+            // version are continued in their version as their files cannot contain mixed formats.
             final short persistenceFileFormatVersion = measurement.getFileFormatVersion();
-            Validate.isTrue(persistenceFileFormatVersion == MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION,
-                    "Resume a measurement of a previous persistence file format version is not yet supported!");
+            Validate.isTrue(MeasurementSerializer.isSupported(persistenceFileFormatVersion),
+                    "Resume a measurement of an unsupported persistence file format version: "
+                            + persistenceFileFormatVersion);
         } catch (final CursorIsNullException e) {
             // because onStartCommand is called by Android so we can't throw soft exception.
             throw new IllegalStateException(e);
@@ -431,14 +443,12 @@ public class DataCapturingBackgroundService extends Service implements Capturing
 
     @Override
     public void onDataCaptured(final @NonNull CapturedData data) {
-        final List<Point3d> accelerations = data.getAccelerations();
-        final List<Point3d> rotations = data.getRotations();
-        final List<Point3d> directions = data.getDirections();
-        final int iterationSize = Math.max(accelerations.size(), Math.max(directions.size(), rotations.size()));
+        final int iterationSize = data.maxSize();
         for (int i = 0; i < iterationSize; i += MAXIMUM_CAPTURED_DATA_MESSAGE_SIZE) {
 
-            final CapturedData dataSublist = new CapturedData(sampleSubList(accelerations, i),
-                    sampleSubList(rotations, i), sampleSubList(directions, i));
+            // The slices are views on the captured values, which are parcelled synchronously as the caller runs in
+            // another process, and retained by the persistence until they are written
+            final CapturedData dataSublist = data.slice(i, i + MAXIMUM_CAPTURED_DATA_MESSAGE_SIZE);
             informCaller(MessageCodes.DATA_CAPTURED, dataSublist);
             capturingBehaviour.storeData(dataSublist, currentMeasurementIdentifier, new WritingDataCompletedCallback() {
                 @Override
@@ -449,19 +459,6 @@ public class DataCapturingBackgroundService extends Service implements Capturing
         }
     }
 
-    /**
-     * Extracts a subset of maximal {@code MAXIMUM_CAPTURED_DATA_MESSAGE_SIZE} elements of captured data.
-     *
-     * @param completeList The {@link List<Point3d>} to extract a subset from
-     * @param fromIndex The low endpoint (inclusive) of the subList
-     * @return The extracted sublist
-     */
-    private @NonNull List<Point3d> sampleSubList(final @NonNull List<Point3d> completeList, final int fromIndex) {
-        final int endIndex = fromIndex + MAXIMUM_CAPTURED_DATA_MESSAGE_SIZE;
-        final int toIndex = Math.min(endIndex, completeList.size());
-        return (fromIndex >= toIndex) ? Collections.<Point3d> emptyList() : completeList.subList(fromIndex, toIndex);
-    }
-
     @Override
     public void onLocationCaptured(@NonNull final GeoLocation newLocation) {
 
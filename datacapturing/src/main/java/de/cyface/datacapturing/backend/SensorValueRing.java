@@ -0,0 +1,200 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.backend;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.hardware.Sensor;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.datacapturing.model.Point3dBuffer;
+import de.cyface.utils.Validate;
+
+/**
+ * A lock-free ring buffer which hands the values of the {@link Sensor}s over from the thread receiving the sensor
+ * events to the thread passing them on to the {@link CapturingProcessListener}s.
+ * <p>
+ * The values are stored in preallocated primitive arrays. Exactly one thread may call {@link #offer}, the producer,
+ * and exactly one thread may call {@link #drainTo}, the consumer. Each of them only writes its own index and publishes
+ * it with release semantics, so neither of them waits for the other.
+ * <p>
+ * When the consumer does not keep up and the ring is full, new values are dropped and counted, as the producer must
+ * not wait.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+final class SensorValueRing {
+
+    /**
+     * The number of values the ring can hold.
+     */
+    private final int capacity;
+    /**
+     * Maps the ever increasing indices to positions in the arrays, as the {@link #capacity} is a power of two.
+     */
+    private final int mask;
+    /**
+     * The {@link Sensor} type of each value.
+     */
+    private final int[] types;
+    /**
+     * The timestamp of each value in milliseconds since 1970.
+     */
+    private final long[] timestamps;
+    /**
+     * The x component of each value.
+     */
+    private final float[] xs;
+    /**
+     * The y component of each value.
+     */
+    private final float[] ys;
+    /**
+     * The z component of each value.
+     */
+    private final float[] zs;
+    /**
+     * The index of the next value to read. Only written by the consumer.
+     */
+    private final AtomicLong head;
+    /**
+     * The index of the next value to write. Only written by the producer.
+     */
+    private final AtomicLong tail;
+    /**
+     * The number of values dropped as the ring was full. Only written by the producer.
+     */
+    private final AtomicLong dropped;
+    /**
+     * The last {@link #head} read by the producer, so it only reads the shared index when the ring seems to be full.
+     */
+    private long cachedHead;
+
+    /**
+     * Creates a new empty ring.
+     *
+     * @param capacity The number of values the ring can hold, a power of two
+     */
+    SensorValueRing(final int capacity) {
+        Validate.isTrue(capacity > 0 && Integer.bitCount(capacity) == 1);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.types = new int[capacity];
+        this.timestamps = new long[capacity];
+        this.xs = new float[capacity];
+        this.ys = new float[capacity];
+        this.zs = new float[capacity];
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+        this.dropped = new AtomicLong();
+    }
+
+    /**
+     * Appends a value to the ring. Must only be called by the producer.
+     *
+     * @param type The {@link Sensor} type which captured the value
+     * @param x The x component of the value
+     * @param y The y component of the value
+     * @param z The z component of the value
+     * @param timestamp The timestamp of the value in milliseconds since 1970
+     * @return {@code true} if the value was added, {@code false} if it was dropped as the ring was full
+     */
+    boolean offer(final int type, final float x, final float y, final float z, final long timestamp) {
+        final long index = tail.get();
+        if (index - cachedHead >= capacity) {
+            cachedHead = head.get();
+            if (index - cachedHead >= capacity) {
+                dropped.lazySet(dropped.get() + 1);
+                return false;
+            }
+        }
+        final int position = (int)index & mask;
+        types[position] = type;
+        timestamps[position] = timestamp;
+        xs[position] = x;
+        ys[position] = y;
+        zs[position] = z;
+        // Publishes the value written above to the consumer
+        tail.lazySet(index + 1);
+        return true;
+    }
+
+    /**
+     * Moves all values offered so far to the buffer of their {@link Sensor} type, in the order they were offered. Must
+     * only be called by the consumer.
+     *
+     * @param accelerations The buffer for the values of {@link Sensor#TYPE_ACCELEROMETER}
+     * @param rotations The buffer for the values of {@link Sensor#TYPE_GYROSCOPE}
+     * @param directions The buffer for the values of {@link Sensor#TYPE_MAGNETIC_FIELD}
+     * @return The number of values moved
+     */
+    int drainTo(@NonNull final Point3dBuffer accelerations, @NonNull final Point3dBuffer rotations,
+            @NonNull final Point3dBuffer directions) {
+        final long start = head.get();
+        final long end = tail.get();
+        for (long index = start; index < end; index++) {
+            final int position = (int)index & mask;
+            final Point3dBuffer buffer;
+            switch (types[position]) {
+                case Sensor.TYPE_ACCELEROMETER:
+                    buffer = accelerations;
+                    break;
+                case Sensor.TYPE_GYROSCOPE:
+                    buffer = rotations;
+                    break;
+                case Sensor.TYPE_MAGNETIC_FIELD:
+                    buffer = directions;
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported sensor type: " + types[position]);
+            }
+            buffer.add(xs[position], ys[position], zs[position], timestamps[position]);
+        }
+        // Releases the positions read above to the producer
+        head.lazySet(end);
+        return (int)(end - start);
+    }
+
+    /**
+     * @return The number of values which were offered but not yet drained. This is a snapshot which may be outdated
+     *         as soon as it is returned.
+     */
+    int size() {
+        // Read first, as the head never passes the tail
+        final long start = head.get();
+        return (int)(tail.get() - start);
+    }
+
+    /**
+     * @return The number of values the ring can hold
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of values dropped so far as the ring was full
+     */
+    long dropped() {
+        return dropped.get();
+    }
+}
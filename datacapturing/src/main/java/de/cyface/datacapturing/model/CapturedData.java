@@ -1,7 +1,5 @@
 package de.cyface.datacapturing.model;
 
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
 import android.os.Parcel;
@@ -11,24 +9,31 @@ import de.cyface.persistence.model.Point3d;
 
 /**
  * Immutable data handling object for captured data.
+ * <p>
+ * The values are held in {@link Point3dBatch}es which are shared instead of copied, e.g. between the IPC and the
+ * persistence. Whoever keeps a {@code CapturedData} beyond the call it received it in must {@link #retain()} it and
+ * {@link #release()} it when done, see {@link Point3dBatch}.
+ * <p>
+ * The values are parcelled as primitive arrays. The {@code Point3d}s are only created when the receiver accesses them.
  *
  * @author Klemens Muthmann
- * @version 3.0.3
+ * @author Armin Schnabel
+ * @version 4.1.0
  * @since 1.0.0
  */
 public final class CapturedData implements Parcelable {
     /**
      * All accelerations captured since the last position was captured.
      */
-    private final List<Point3d> accelerations;
+    private final Point3dBatch accelerations;
     /**
      * All rotations captured since the last position was captured.
      */
-    private final List<Point3d> rotations;
+    private final Point3dBatch rotations;
     /**
      * All directions captured since the last position was captured.
      */
-    private final List<Point3d> directions;
+    private final Point3dBatch directions;
 
     /**
      * Creates a new captured data object from the provided data. The lists are copied and thus may be changed after
@@ -47,30 +52,110 @@ public final class CapturedData implements Parcelable {
      */
     public CapturedData(final @NonNull List<Point3d> accelerations, final @NonNull List<Point3d> rotations,
                         final @NonNull List<Point3d> directions) {
-        this.accelerations = new LinkedList<>(accelerations);
-        this.rotations = new LinkedList<>(rotations);
-        this.directions = new LinkedList<>(directions);
+        this.accelerations = Point3dBatch.of(accelerations);
+        this.rotations = Point3dBatch.of(rotations);
+        this.directions = Point3dBatch.of(directions);
     }
 
     /**
-     * @return All accelerations captured since the last position was captured.
+     * Creates a new captured data object from the provided batches without copying their values. The references held
+     * by the caller are passed on to this object, i.e. they are released via {@link #release()}.
+     *
+     * @param accelerations The raw acceleration values as points in a 3D space.
+     *            The batch contains all captured values since the last GNSS fix.
+     * @param rotations The raw rotational acceleration values as returned by the gyroscope.
+     *            The batch contains all captured values since the last GNSS fix.
+     * @param directions The intensity of the earth's magnetic field on each of the three axis in space.
+     *            The batch contains all captured values since the last GNSS fix.
+     */
+    public CapturedData(final @NonNull Point3dBatch accelerations, final @NonNull Point3dBatch rotations,
+                        final @NonNull Point3dBatch directions) {
+        this.accelerations = accelerations;
+        this.rotations = rotations;
+        this.directions = directions;
+    }
+
+    /**
+     * @return All accelerations captured since the last position was captured, as unmodifiable view.
      */
     public List<Point3d> getAccelerations() {
-        return Collections.unmodifiableList(accelerations);
+        return accelerations.asList();
     }
 
     /**
-     * @return All rotations captured since the last position was captured.
+     * @return All rotations captured since the last position was captured, as unmodifiable view.
      */
     public List<Point3d> getRotations() {
-        return Collections.unmodifiableList(rotations);
+        return rotations.asList();
     }
 
     /**
-     * @return All directions captured since the last position was captured.
+     * @return All directions captured since the last position was captured, as unmodifiable view.
      */
     public List<Point3d> getDirections() {
-        return Collections.unmodifiableList(directions);
+        return directions.asList();
+    }
+
+    /**
+     * @return All accelerations captured since the last position was captured.
+     */
+    public Point3dBatch getAccelerationBatch() {
+        return accelerations;
+    }
+
+    /**
+     * @return All rotations captured since the last position was captured.
+     */
+    public Point3dBatch getRotationBatch() {
+        return rotations;
+    }
+
+    /**
+     * @return All directions captured since the last position was captured.
+     */
+    public Point3dBatch getDirectionBatch() {
+        return directions;
+    }
+
+    /**
+     * @return The maximal number of values captured by one of the sensors.
+     */
+    public int maxSize() {
+        return Math.max(accelerations.size(), Math.max(rotations.size(), directions.size()));
+    }
+
+    /**
+     * Returns a view of a part of the values of each sensor, without copying them. The view shares the references of
+     * this object.
+     *
+     * @param fromIndex The index of the first value of each sensor, clipped to the number of values of that sensor.
+     * @param toIndex The index after the last value of each sensor, clipped to the number of values of that sensor.
+     * @return The view.
+     */
+    public CapturedData slice(final int fromIndex, final int toIndex) {
+        return new CapturedData(accelerations.slice(fromIndex, toIndex), rotations.slice(fromIndex, toIndex),
+                directions.slice(fromIndex, toIndex));
+    }
+
+    /**
+     * Adds a reference to the values of this object, so they are not reused until {@link #release()} is called.
+     *
+     * @return This object, for chaining.
+     */
+    public CapturedData retain() {
+        accelerations.retain();
+        rotations.retain();
+        directions.retain();
+        return this;
+    }
+
+    /**
+     * Removes a reference from the values of this object. When the last reference is released, they may be reused.
+     */
+    public void release() {
+        accelerations.release();
+        rotations.release();
+        directions.release();
     }
 
     /*
@@ -83,9 +168,9 @@ public final class CapturedData implements Parcelable {
      * @param in Serialized form of a <code>CapturedData</code> object.
      */
     protected CapturedData(Parcel in) {
-        accelerations = in.createTypedArrayList(Point3d.CREATOR);
-        rotations = in.createTypedArrayList(Point3d.CREATOR);
-        directions = in.createTypedArrayList(Point3d.CREATOR);
+        accelerations = Point3dBatch.createFromParcel(in);
+        rotations = Point3dBatch.createFromParcel(in);
+        directions = Point3dBatch.createFromParcel(in);
     }
 
     /**
@@ -110,9 +195,9 @@ public final class CapturedData implements Parcelable {
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        dest.writeTypedList(accelerations);
-        dest.writeTypedList(rotations);
-        dest.writeTypedList(directions);
+        accelerations.writeToParcel(dest);
+        rotations.writeToParcel(dest);
+        directions.writeToParcel(dest);
     }
 
     /*
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.model;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.Nullable;
+
+import de.cyface.utils.Validate;
+
+/**
+ * The primitive arrays holding the values of a {@link Point3dBuffer} and of the {@link Point3dBatch}es created from
+ * it, together with the number of references held to the {@code Point3dBatch}es.
+ * <p>
+ * When the last reference is released, the arrays are returned to the pool of the {@code Point3dBuffer} to be filled
+ * again. Arrays without a pool are left to the garbage collector.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+final class Point3dArrays {
+
+    /**
+     * The timestamps of the values in milliseconds since 1970.
+     */
+    final long[] timestamps;
+    /**
+     * The x components of the values.
+     */
+    final float[] xs;
+    /**
+     * The y components of the values.
+     */
+    final float[] ys;
+    /**
+     * The z components of the values.
+     */
+    final float[] zs;
+    /**
+     * The pool to return these arrays to when they are not referenced anymore or {@code null} if they are not pooled.
+     */
+    @Nullable
+    private final BlockingQueue<Point3dArrays> pool;
+    /**
+     * The number of references held to these arrays.
+     */
+    private final AtomicInteger references;
+
+    /**
+     * Creates new arrays which are not referenced yet.
+     *
+     * @param capacity The number of values the arrays can hold
+     * @param pool The pool to return the arrays to when they are not referenced anymore or {@code null} if they are
+     *            not pooled
+     */
+    Point3dArrays(final int capacity, @Nullable final BlockingQueue<Point3dArrays> pool) {
+        this(new long[capacity], new float[capacity], new float[capacity], new float[capacity], pool);
+    }
+
+    /**
+     * Wraps existing arrays which are not referenced yet.
+     *
+     * @param timestamps The timestamps of the values in milliseconds since 1970
+     * @param xs The x components of the values
+     * @param ys The y components of the values
+     * @param zs The z components of the values
+     * @param pool The pool to return the arrays to when they are not referenced anymore or {@code null} if they are
+     *            not pooled
+     */
+    Point3dArrays(final long[] timestamps, final float[] xs, final float[] ys, final float[] zs,
+            @Nullable final BlockingQueue<Point3dArrays> pool) {
+        this.timestamps = timestamps;
+        this.xs = xs;
+        this.ys = ys;
+        this.zs = zs;
+        this.pool = pool;
+        this.references = new AtomicInteger();
+    }
+
+    /**
+     * @return The number of values the arrays can hold
+     */
+    int capacity() {
+        return timestamps.length;
+    }
+
+    /**
+     * Marks the arrays as referenced once, when the first {@link Point3dBatch} is created from them.
+     */
+    void acquire() {
+        references.set(1);
+    }
+
+    /**
+     * Adds a reference to the arrays. Does nothing if the arrays are not pooled.
+     */
+    void retain() {
+        if (pool == null) {
+            return;
+        }
+        final int previous = references.getAndIncrement();
+        Validate.isTrue(previous > 0, "Batch was already released");
+    }
+
+    /**
+     * Removes a reference from the arrays and returns them to the pool when it was the last one. Does nothing if the
+     * arrays are not pooled.
+     */
+    void release() {
+        if (pool == null) {
+            return;
+        }
+        final int remaining = references.decrementAndGet();
+        Validate.isTrue(remaining >= 0, "Batch was released too often");
+        if (remaining == 0) {
+            // Left to the garbage collector if the pool is full
+            pool.offer(this);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import android.os.Parcel;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.persistence.model.Point3d;
+import de.cyface.persistence.serialization.Point3dFileAppender;
+import de.cyface.utils.Validate;
+
+/**
+ * An immutable sequence of {@link Point3d} values of one sensor, backed by primitive arrays.
+ * <p>
+ * Batches are passed on without copying their values: {@link #slice(int, int)} and {@link #asList()} return views of
+ * the same arrays. The batches created by a {@link Point3dBuffer} are reference counted, as their arrays are reused
+ * once no batch references them anymore. Whoever keeps a batch or one of its views beyond the call it received it in
+ * must {@link #retain()} it and {@link #release()} it when done. A batch must not be accessed after it was released.
+ * Batches created via {@link #of(List)} are not pooled, for them both methods do nothing.
+ * <p>
+ * Batches are parcelled as parallel primitive arrays, see {@link #writeToParcel(Parcel)}.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 6.2.0
+ */
+public final class Point3dBatch {
+
+    /**
+     * A batch without values.
+     */
+    private static final Point3dBatch EMPTY = new Point3dBatch(new Point3dArrays(0, null), 0, 0);
+    /**
+     * The arrays holding the values, shared by all views of a batch.
+     */
+    private final Point3dArrays arrays;
+    /**
+     * The index of the first value of this batch in the {@link #arrays}.
+     */
+    private final int offset;
+    /**
+     * The number of values in this batch.
+     */
+    private final int size;
+
+    /**
+     * Creates a view of the provided arrays.
+     *
+     * @param arrays The arrays holding the values
+     * @param offset The index of the first value of this batch in the {@code arrays}
+     * @param size The number of values in this batch
+     */
+    Point3dBatch(@NonNull final Point3dArrays arrays, final int offset, final int size) {
+        Validate.isTrue(offset >= 0 && size >= 0 && offset + size <= arrays.capacity());
+        this.arrays = arrays;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * Copies the provided points into a new batch which is not pooled.
+     *
+     * @param points The points to copy
+     * @return The new batch
+     */
+    @NonNull
+    public static Point3dBatch of(@NonNull final List<Point3d> points) {
+        if (points.isEmpty()) {
+            return EMPTY;
+        }
+        final Point3dArrays arrays = new Point3dArrays(points.size(), null);
+        int index = 0;
+        for (final Point3d point : points) {
+            arrays.timestamps[index] = point.getTimestamp();
+            arrays.xs[index] = point.getX();
+            arrays.ys[index] = point.getY();
+            arrays.zs[index] = point.getZ();
+            index++;
+        }
+        return new Point3dBatch(arrays, 0, index);
+    }
+
+    /**
+     * Reads a batch written by {@link #writeToParcel(Parcel)}. The batch is not pooled and the {@link Point3d}s are
+     * only created when they are accessed.
+     *
+     * @param in The {@code Parcel} to read from
+     * @return The new batch
+     */
+    @NonNull
+    static Point3dBatch createFromParcel(@NonNull final Parcel in) {
+        final long[] timestamps = in.createLongArray();
+        final float[] xs = in.createFloatArray();
+        final float[] ys = in.createFloatArray();
+        final float[] zs = in.createFloatArray();
+        Validate.isTrue(timestamps != null && xs != null && ys != null && zs != null);
+        Validate.isTrue(xs.length == timestamps.length && ys.length == timestamps.length
+                && zs.length == timestamps.length);
+        if (timestamps.length == 0) {
+            return EMPTY;
+        }
+        return new Point3dBatch(new Point3dArrays(timestamps, xs, ys, zs, null), 0, timestamps.length);
+    }
+
+    /**
+     * @return A batch without values
+     */
+    @NonNull
+    public static Point3dBatch empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return The number of values in this batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index The index of the value in this batch
+     * @return The timestamp of the value in milliseconds since 1970
+     */
+    public long getTimestamp(final int index) {
+        return arrays.timestamps[position(index)];
+    }
+
+    /**
+     * @param index The index of the value in this batch
+     * @return The x component of the value
+     */
+    public float getX(final int index) {
+        return arrays.xs[position(index)];
+    }
+
+    /**
+     * @param index The index of the value in this batch
+     * @return The y component of the value
+     */
+    public float getY(final int index) {
+        return arrays.ys[position(index)];
+    }
+
+    /**
+     * @param index The index of the value in this batch
+     * @return The z component of the value
+     */
+    public float getZ(final int index) {
+        return arrays.zs[position(index)];
+    }
+
+    /**
+     * Returns a view of a part of this batch. The view shares the values and the references of this batch.
+     *
+     * @param fromIndex The index of the first value of the view, clipped to the size of this batch
+     * @param toIndex The index after the last value of the view, clipped to the size of this batch
+     * @return The view, which may be empty
+     */
+    @NonNull
+    public Point3dBatch slice(final int fromIndex, final int toIndex) {
+        Validate.isTrue(fromIndex >= 0 && fromIndex <= toIndex);
+        final int from = Math.min(fromIndex, size);
+        final int to = Math.min(toIndex, size);
+        if (from == 0 && to == size) {
+            return this;
+        }
+        return new Point3dBatch(arrays, offset + from, to - from);
+    }
+
+    /**
+     * Appends the values of this batch to a file without creating a {@link Point3d} per value.
+     *
+     * @param appender The appender of the file to write the values to
+     */
+    public void appendTo(@NonNull final Point3dFileAppender appender) {
+        appender.append(arrays.timestamps, arrays.xs, arrays.ys, arrays.zs, offset, size);
+    }
+
+    /**
+     * Returns an unmodifiable view of this batch as {@code List}. The {@link Point3d}s are created when they are
+     * accessed.
+     *
+     * @return The view
+     */
+    @NonNull
+    public List<Point3d> asList() {
+        return new ListView();
+    }
+
+    /**
+     * Adds a reference to this batch, so its values are not reused until {@link #release()} is called.
+     *
+     * @return This batch, for chaining
+     */
+    @NonNull
+    public Point3dBatch retain() {
+        arrays.retain();
+        return this;
+    }
+
+    /**
+     * Removes a reference from this batch. When the last reference is released, its values may be reused.
+     */
+    public void release() {
+        arrays.release();
+    }
+
+    /**
+     * Writes the values of this batch as four parallel primitive arrays instead of one {@code Parcelable} per value.
+     * <p>
+     * The layout is the one of {@link Parcel#writeLongArray(long[])} and {@link Parcel#writeFloatArray(float[])},
+     * which write the values one by one as well. This way the range of this view is not copied into new arrays.
+     *
+     * @param dest The {@code Parcel} to write to
+     */
+    void writeToParcel(@NonNull final Parcel dest) {
+        dest.writeInt(size);
+        for (int i = offset; i < offset + size; i++) {
+            dest.writeLong(arrays.timestamps[i]);
+        }
+        writeFloats(dest, arrays.xs);
+        writeFloats(dest, arrays.ys);
+        writeFloats(dest, arrays.zs);
+    }
+
+    /**
+     * Writes the range of this view of one component in the layout of {@link Parcel#writeFloatArray(float[])}.
+     *
+     * @param dest The {@code Parcel} to write to
+     * @param values The array of the component
+     */
+    private void writeFloats(@NonNull final Parcel dest, @NonNull final float[] values) {
+        dest.writeInt(size);
+        for (int i = offset; i < offset + size; i++) {
+            dest.writeFloat(values[i]);
+        }
+    }
+
+    /**
+     * @param index The index of a value in this batch
+     * @return The index of the value in the {@link #arrays}
+     */
+    private int position(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of batch of size " + size);
+        }
+        return offset + index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        final Point3dBatch that = (Point3dBatch)o;
+        if (size != that.size)
+            return false;
+        for (int i = 0; i < size; i++) {
+            if (getTimestamp(i) != that.getTimestamp(i) || Float.compare(getX(i), that.getX(i)) != 0
+                    || Float.compare(getY(i), that.getY(i)) != 0 || Float.compare(getZ(i), that.getZ(i)) != 0)
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = size;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + (int)(getTimestamp(i) ^ (getTimestamp(i) >>> 32));
+            result = 31 * result + Float.floatToIntBits(getX(i));
+            result = 31 * result + Float.floatToIntBits(getY(i));
+            result = 31 * result + Float.floatToIntBits(getZ(i));
+        }
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "Point3dBatch{" + "size=" + size + '}';
+    }
+
+    /**
+     * The unmodifiable {@code List} view returned by {@link #asList()}.
+     */
+    private final class ListView extends AbstractList<Point3d> implements RandomAccess {
+
+        @Override
+        public Point3d get(final int index) {
+            final int position = position(index);
+            return new Point3d(arrays.xs[position], arrays.ys[position], arrays.zs[position],
+                    arrays.timestamps[position]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
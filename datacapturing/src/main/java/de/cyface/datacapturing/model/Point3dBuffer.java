@@ -0,0 +1,164 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.persistence.model.Point3d;
+import de.cyface.utils.Validate;
+
+/**
+ * Stores captured {@link Point3d} values of one sensor in preallocated primitive arrays, one array per component,
+ * instead of one {@code Point3d} object per sensor event.
+ * <p>
+ * The arrays grow when a batch exceeds them and are kept when the buffer is cleared. Once they reached the size of
+ * the batches, adding values does not allocate memory. The values are handed over without copying them via
+ * {@link #toBatch()}. The buffer continues with arrays released by earlier batches, if there are any.
+ * <p>
+ * This class is not thread-safe. The {@link Point3dBatch}es created by it may be released on any thread.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 6.2.0
+ */
+public final class Point3dBuffer {
+
+    /**
+     * The number of released arrays kept to be reused, enough for the batches handed off while the last batches are
+     * still being written.
+     */
+    private static final int POOL_SIZE = 4;
+    /**
+     * The arrays released by the {@link Point3dBatch}es created by this buffer, ready to be reused.
+     */
+    private final BlockingQueue<Point3dArrays> pool;
+    /**
+     * The arrays holding the buffered values.
+     */
+    private Point3dArrays arrays;
+    /**
+     * The number of buffered values.
+     */
+    private int size;
+
+    /**
+     * Creates a new empty buffer.
+     *
+     * @param initialCapacity The number of values the buffer can hold before it grows
+     */
+    public Point3dBuffer(final int initialCapacity) {
+        Validate.isTrue(initialCapacity > 0);
+        this.pool = new ArrayBlockingQueue<>(POOL_SIZE);
+        this.arrays = new Point3dArrays(initialCapacity, pool);
+    }
+
+    /**
+     * Appends a value to the buffer.
+     *
+     * @param x The x component of the value
+     * @param y The y component of the value
+     * @param z The z component of the value
+     * @param timestamp The timestamp of the value in milliseconds since 1970
+     */
+    public void add(final float x, final float y, final float z, final long timestamp) {
+        if (size == arrays.capacity()) {
+            grow();
+        }
+        arrays.timestamps[size] = timestamp;
+        arrays.xs[size] = x;
+        arrays.ys[size] = y;
+        arrays.zs[size] = z;
+        size++;
+    }
+
+    /**
+     * @return The number of buffered values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of values the buffer can hold before it grows
+     */
+    public int capacity() {
+        return arrays.capacity();
+    }
+
+    /**
+     * Removes all values from the buffer, keeping its capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Hands the buffered values over to a new {@link Point3dBatch} without copying them and empties the buffer.
+     * <p>
+     * The batch holds one reference which must be released. The buffer continues with arrays of the same capacity,
+     * reused from a released batch if possible.
+     *
+     * @return The batch with the buffered values in the order they were added
+     */
+    @NonNull
+    public Point3dBatch toBatch() {
+        if (size == 0) {
+            return Point3dBatch.empty();
+        }
+        arrays.acquire();
+        final Point3dBatch batch = new Point3dBatch(arrays, 0, size);
+
+        final int capacity = arrays.capacity();
+        Point3dArrays next = pool.poll();
+        while (next != null && next.capacity() < capacity) {
+            // Arrays smaller than the batches are not reused
+            next = pool.poll();
+        }
+        arrays = next != null ? next : new Point3dArrays(capacity, pool);
+        size = 0;
+        return batch;
+    }
+
+    /**
+     * @return A new list with a {@link Point3d} for each buffered value in the order they were added
+     */
+    @NonNull
+    public List<Point3d> toList() {
+        final List<Point3d> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            points.add(new Point3d(arrays.xs[i], arrays.ys[i], arrays.zs[i], arrays.timestamps[i]));
+        }
+        return points;
+    }
+
+    /**
+     * Doubles the capacity of the buffer.
+     */
+    private void grow() {
+        final int capacity = 2 * arrays.capacity();
+        arrays = new Point3dArrays(Arrays.copyOf(arrays.timestamps, capacity), Arrays.copyOf(arrays.xs, capacity),
+                Arrays.copyOf(arrays.ys, capacity), Arrays.copyOf(arrays.zs, capacity), pool);
+    }
+}
@@ -5,7 +5,7 @@ import static de.cyface.datacapturing.Constants.BACKGROUND_TAG;
 import android.util.Log;
 import androidx.annotation.NonNull;
 import de.cyface.datacapturing.model.CapturedData;
-import de.cyface.persistence.serialization.Point3dFile;
+import de.cyface.persistence.serialization.Point3dFileAppender;
 
 /**
  * A class responsible for writing captured sensor data to the underlying persistence layer.
@@ -15,7 +15,7 @@ import de.cyface.persistence.serialization.Point3dFile;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 4.0.1
+ * @version 4.1.1
  * @since 1.0.0
  */
 public class CapturedDataWriter implements Runnable {
@@ -29,17 +29,17 @@ public class CapturedDataWriter implements Runnable {
      */
     private final CapturedData data;
     /**
-     * The {@link Point3dFile} to write acceleration points to.
+     * The {@link Point3dFileAppender} to write acceleration points to.
      */
-    private final Point3dFile accelerationsFile;
+    private final Point3dFileAppender accelerationsFile;
     /**
-     * The {@link Point3dFile} to write rotation points to.
+     * The {@link Point3dFileAppender} to write rotation points to.
      */
-    private final Point3dFile rotationsFile;
+    private final Point3dFileAppender rotationsFile;
     /**
-     * The {@link Point3dFile} to write direction points to.
+     * The {@link Point3dFileAppender} to write direction points to.
      */
-    private final Point3dFile directionsFile;
+    private final Point3dFileAppender directionsFile;
     /**
      * Callback which is called after writing data has finished.
      */
@@ -49,13 +49,13 @@ public class CapturedDataWriter implements Runnable {
      * Creates a new completely initialized writer for captured data.
      *
      * @param data The data to write.
-     * @param accelerationsFile The file to write the data to.
-     * @param rotationsFile The file to write the data to.
-     * @param directionsFile The file to write the data to.
+     * @param accelerationsFile The appender of the file to write the data to.
+     * @param rotationsFile The appender of the file to write the data to.
+     * @param directionsFile The appender of the file to write the data to.
      * @param callback Callback which is called after writing data has finished.
      */
-    CapturedDataWriter(final @NonNull CapturedData data, @NonNull final Point3dFile accelerationsFile,
-            @NonNull final Point3dFile rotationsFile, @NonNull final Point3dFile directionsFile,
+    CapturedDataWriter(final @NonNull CapturedData data, @NonNull final Point3dFileAppender accelerationsFile,
+            @NonNull final Point3dFileAppender rotationsFile, @NonNull final Point3dFileAppender directionsFile,
             final @NonNull WritingDataCompletedCallback callback) {
         this.data = data;
         this.accelerationsFile = accelerationsFile;
@@ -73,11 +73,11 @@ public class CapturedDataWriter implements Runnable {
      */
     private void writeCapturedData() {
 
-        Log.d(TAG, "appending " + data.getAccelerations().size() + "/" + data.getRotations().size() + "/"
-                + data.getDirections().size() + " A/R/MPs on: " + Thread.currentThread().getName());
-        accelerationsFile.append(data.getAccelerations());
-        rotationsFile.append(data.getRotations());
-        directionsFile.append(data.getDirections());
+        Log.d(TAG, "appending " + data.getAccelerationBatch().size() + "/" + data.getRotationBatch().size() + "/"
+                + data.getDirectionBatch().size() + " A/R/MPs on: " + Thread.currentThread().getName());
+        data.getAccelerationBatch().appendTo(accelerationsFile);
+        data.getRotationBatch().appendTo(rotationsFile);
+        data.getDirectionBatch().appendTo(directionsFile);
     }
 
     @Override
@@ -0,0 +1,587 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.persistence;
+
+import static de.cyface.datacapturing.Constants.BACKGROUND_TAG;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.datacapturing.model.CapturedData;
+import de.cyface.persistence.model.Point3d;
+import de.cyface.persistence.serialization.Point3dFileAppender;
+import de.cyface.utils.Validate;
+
+/**
+ * Writes the {@link CapturedData} of one {@code Measurement} to its {@link Point3dFileAppender}s on a single dedicated
+ * thread, in the order the data was added.
+ * <p>
+ * The data waiting to be written is kept in a bounded queue. When the queue is full, the {@link OverflowPolicy}
+ * decides whether the capturing thread waits, the data is merged into the last queued batch or dropped. Merged data is
+ * chained instead of copied and a batch holds at most {@link #MAX_COALESCED_DATA} {@code CapturedData}, so the memory
+ * used by the queued data is bounded for all policies.
+ * <p>
+ * The queue depth and the write latency, i.e. the time from adding a batch until it was written, are recorded and
+ * can be read while capturing.
+ * <p>
+ * The queue holds a reference to each {@code CapturedData} added, see {@link CapturedData#retain()}, which it releases
+ * when the data was written or discarded. The callbacks of discarded data are called as well, e.g. for the batches
+ * which were not written before {@link #close(long)} timed out.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 6.2.0
+ */
+public final class CapturedDataWriterQueue {
+
+    /**
+     * The tag used to identify Logcat messages from this class.
+     */
+    private static final String TAG = BACKGROUND_TAG;
+    /**
+     * The maximal number of {@link CapturedData} merged into one batch by {@link OverflowPolicy#COALESCE}. When the
+     * last batch is full, the data is dropped like with {@link OverflowPolicy#DROP}. With the
+     * {@link CapturingPersistenceBehaviour#DEFAULT_WRITER_QUEUE_CAPACITY} the queue holds about two minutes of data.
+     */
+    static final int MAX_COALESCED_DATA = 8;
+    /**
+     * The maximal number of batches waiting to be written.
+     */
+    private final int capacity;
+    /**
+     * What to do with a batch when the queue is full.
+     */
+    private final OverflowPolicy overflowPolicy;
+    /**
+     * The {@link Point3dFileAppender} to write acceleration points to.
+     */
+    private final Point3dFileAppender accelerationsFile;
+    /**
+     * The {@link Point3dFileAppender} to write rotation points to.
+     */
+    private final Point3dFileAppender rotationsFile;
+    /**
+     * The {@link Point3dFileAppender} to write direction points to.
+     */
+    private final Point3dFileAppender directionsFile;
+    /**
+     * The batches waiting to be written, the oldest first. Access must be guarded by the {@link #lock}.
+     */
+    private final ArrayDeque<Batch> queue;
+    /**
+     * Guards the {@link #queue}, the state and the statistics of this object.
+     */
+    private final ReentrantLock lock;
+    /**
+     * Signalled when a batch was added to the {@link #queue} or this object was closed.
+     */
+    private final Condition notEmpty;
+    /**
+     * Signalled when a batch was taken from the {@link #queue} or this object was closed.
+     */
+    private final Condition notFull;
+    /**
+     * The thread which writes the batches.
+     */
+    private final Thread writerThread;
+    /**
+     * {@code true} after {@link #close(long)} was called. No new batches are accepted then.
+     */
+    private boolean closed;
+    /**
+     * {@code true} after {@link #close(long)} timed out. The writer then stops after the current batch and the
+     * remaining batches are discarded.
+     */
+    private volatile boolean abandoned;
+    /**
+     * The maximal number of batches which were waiting to be written at once.
+     */
+    private int maxDepth;
+    /**
+     * The number of batches written.
+     */
+    private long writtenBatches;
+    /**
+     * The number of batches merged into another batch because of {@link OverflowPolicy#COALESCE}.
+     */
+    private long coalescedBatches;
+    /**
+     * The number of batches dropped because of {@link OverflowPolicy#DROP}.
+     */
+    private long droppedBatches;
+    /**
+     * The number of {@link Point3d}s in the {@link #droppedBatches}.
+     */
+    private long droppedPoints;
+    /**
+     * The sum of the write latencies of all {@link #writtenBatches} in milliseconds.
+     */
+    private long totalWriteLatencyMillis;
+    /**
+     * The maximal write latency of a batch in milliseconds.
+     */
+    private long maxWriteLatencyMillis;
+
+    /**
+     * Creates a new completely initialized {@link CapturedDataWriterQueue} and starts its writer thread.
+     *
+     * @param capacity The maximal number of batches waiting to be written
+     * @param overflowPolicy What to do with a batch when the queue is full
+     * @param accelerationsFile The appender of the file to write the acceleration points to
+     * @param rotationsFile The appender of the file to write the rotation points to
+     * @param directionsFile The appender of the file to write the direction points to
+     * @param measurementIdentifier The id of the {@code Measurement} the data belongs to, used to name the thread
+     */
+    CapturedDataWriterQueue(final int capacity, @NonNull final OverflowPolicy overflowPolicy,
+            @NonNull final Point3dFileAppender accelerationsFile, @NonNull final Point3dFileAppender rotationsFile,
+            @NonNull final Point3dFileAppender directionsFile, final long measurementIdentifier) {
+        Validate.isTrue(capacity > 0);
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.accelerationsFile = accelerationsFile;
+        this.rotationsFile = rotationsFile;
+        this.directionsFile = directionsFile;
+        this.queue = new ArrayDeque<>(capacity);
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    writeBatches();
+                } finally {
+                    discardQueuedBatches();
+                }
+            }
+        }, "CapturedDataWriter-" + measurementIdentifier);
+        writerThread.start();
+    }
+
+    /**
+     * Adds the provided {@link CapturedData} to the queue of data to be written.
+     * <p>
+     * When the queue is full, the {@link OverflowPolicy} is applied. The {@code callback} is also called when the data
+     * is dropped or when this queue is already closed, in which case the data is not written.
+     *
+     * @param data The data to write. The queue takes over one reference to it, which the caller must have retained.
+     * @param callback Callback which is called after writing the data has finished
+     */
+    void add(@NonNull final CapturedData data, @NonNull final WritingDataCompletedCallback callback) {
+        final Batch batch = new Batch(data, callback, SystemClock.elapsedRealtime());
+        final boolean accepted;
+        lock.lock();
+        try {
+            accepted = offer(batch);
+        } finally {
+            lock.unlock();
+        }
+        if (!accepted) {
+            data.release();
+            callback.writingDataCompleted();
+        }
+    }
+
+    /**
+     * Adds a batch to the {@link #queue}, applying the {@link #overflowPolicy} if it is full. Must be called while
+     * holding the {@link #lock}.
+     *
+     * @param batch The batch to add
+     * @return {@code true} if the batch will be written, {@code false} if it was dropped
+     */
+    private boolean offer(@NonNull final Batch batch) {
+        if (queue.size() >= capacity && !closed) {
+            switch (overflowPolicy) {
+                case BLOCK:
+                    try {
+                        while (queue.size() >= capacity && !closed) {
+                            notFull.await();
+                        }
+                    } catch (final InterruptedException e) {
+                        // The caller passed its reference on to this queue
+                        batch.release();
+                        throw new IllegalStateException(e);
+                    }
+                    break;
+                case COALESCE:
+                    if (queue.getLast().append(batch)) {
+                        coalescedBatches++;
+                        return true;
+                    }
+                    return drop(batch);
+                case DROP:
+                    return drop(batch);
+                default:
+                    throw new IllegalArgumentException("Unsupported overflow policy: " + overflowPolicy);
+            }
+        }
+        if (closed) {
+            Log.w(TAG, "Writer already closed, ignoring batch of " + batch.size() + " points.");
+            return false;
+        }
+        queue.addLast(batch);
+        maxDepth = Math.max(maxDepth, queue.size());
+        notEmpty.signal();
+        return true;
+    }
+
+    /**
+     * Counts a batch which is not written because the queue is full. Must be called while holding the {@link #lock}.
+     *
+     * @param batch The batch to drop
+     * @return {@code false} as the batch will not be written
+     */
+    private boolean drop(@NonNull final Batch batch) {
+        droppedBatches++;
+        droppedPoints += batch.size();
+        Log.w(TAG, "Dropped batch of " + batch.size() + " points, " + droppedBatches + " in total.");
+        return false;
+    }
+
+    /**
+     * Writes the queued batches in the order they were added until this queue is closed and all batches are written
+     * or the writer thread is interrupted.
+     */
+    private void writeBatches() {
+        while (!abandoned) {
+            final Batch batch;
+            lock.lock();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    notEmpty.await();
+                }
+                if (queue.isEmpty()) {
+                    return;
+                }
+                batch = queue.removeFirst();
+                notFull.signal();
+            } catch (final InterruptedException e) {
+                Log.w(TAG, "Writer interrupted, " + queue.size() + " batches were not written.");
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                batch.write(accelerationsFile, rotationsFile, directionsFile);
+            } catch (final RuntimeException e) {
+                // The following batches are still written to keep the files consistent with the captured data
+                Log.e(TAG, "Unable to write batch of " + batch.size() + " points.", e);
+            } finally {
+                batch.release();
+            }
+
+            final long latencyMillis = SystemClock.elapsedRealtime() - batch.addedTime;
+            lock.lock();
+            try {
+                writtenBatches++;
+                totalWriteLatencyMillis += latencyMillis;
+                maxWriteLatencyMillis = Math.max(maxWriteLatencyMillis, latencyMillis);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting new batches and waits until the queued batches are written. If this takes longer than the
+     * provided timeout, the writer thread is interrupted and the remaining batches are not written.
+     *
+     * @param timeoutMillis The maximal time to wait for the queued batches in milliseconds
+     */
+    void close(final long timeoutMillis) {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writerThread.join(timeoutMillis);
+            if (writerThread.isAlive()) {
+                abandoned = true;
+                writerThread.interrupt();
+                writerThread.join(TimeUnit.SECONDS.toMillis(1));
+            }
+        } catch (final InterruptedException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            // In case the writer is still stuck in a write. Each batch is only taken from the queue once.
+            discardQueuedBatches();
+        }
+        Log.i(TAG, toString());
+    }
+
+    /**
+     * Takes all batches from the {@link #queue} without writing them, releases their data, counts them as dropped and
+     * calls their callbacks, so nobody waits for them.
+     */
+    private void discardQueuedBatches() {
+        final List<Batch> discarded;
+        lock.lock();
+        try {
+            discarded = new ArrayList<>(queue);
+            queue.clear();
+            for (final Batch batch : discarded) {
+                droppedBatches++;
+                droppedPoints += batch.size();
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (!discarded.isEmpty()) {
+            Log.w(TAG, "Discarded " + discarded.size() + " batches which were not written.");
+        }
+        for (final Batch batch : discarded) {
+            batch.discard();
+        }
+    }
+
+    /**
+     * @return The number of batches currently waiting to be written
+     */
+    public int getDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The maximal number of batches which were waiting to be written at once
+     */
+    public int getMaxDepth() {
+        lock.lock();
+        try {
+            return maxDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of batches written, counting coalesced batches once
+     */
+    public long getWrittenBatches() {
+        lock.lock();
+        try {
+            return writtenBatches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of batches merged into another batch because of {@link OverflowPolicy#COALESCE}
+     */
+    public long getCoalescedBatches() {
+        lock.lock();
+        try {
+            return coalescedBatches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of batches dropped because of {@link OverflowPolicy#DROP}, because the last batch was full
+     *         with {@link OverflowPolicy#COALESCE} or because they were not written before {@link #close(long)} timed
+     *         out
+     */
+    public long getDroppedBatches() {
+        lock.lock();
+        try {
+            return droppedBatches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of {@link Point3d}s of all sensors in the dropped batches
+     */
+    public long getDroppedPoints() {
+        lock.lock();
+        try {
+            return droppedPoints;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The average time in milliseconds from adding a batch until it was written or {@code 0} if no batch was
+     *         written yet
+     */
+    public long getAverageWriteLatencyMillis() {
+        lock.lock();
+        try {
+            return writtenBatches == 0 ? 0L : totalWriteLatencyMillis / writtenBatches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The maximal time in milliseconds from adding a batch until it was written
+     */
+    public long getMaxWriteLatencyMillis() {
+        lock.lock();
+        try {
+            return maxWriteLatencyMillis;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return "CapturedDataWriterQueue{" + "capacity=" + capacity + ", overflowPolicy=" + overflowPolicy
+                    + ", depth=" + queue.size() + ", maxDepth=" + maxDepth + ", writtenBatches=" + writtenBatches
+                    + ", coalescedBatches=" + coalescedBatches + ", droppedBatches=" + droppedBatches
+                    + ", droppedPoints=" + droppedPoints + ", maxWriteLatencyMillis=" + maxWriteLatencyMillis + '}';
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The {@link CapturedData} added at once or merged by {@link OverflowPolicy#COALESCE} and the callbacks to call
+     * after it was written.
+     */
+    private static final class Batch {
+
+        /**
+         * The data to write, in the order it was added. The data of merged batches is appended without copying it.
+         */
+        private final List<CapturedData> data;
+        /**
+         * The callbacks of all batches merged into this batch, in the order they were added.
+         */
+        private final List<WritingDataCompletedCallback> callbacks;
+        /**
+         * The {@link SystemClock#elapsedRealtime()} when the oldest data of this batch was added.
+         */
+        private final long addedTime;
+
+        /**
+         * @param data The data to write
+         * @param callback Callback which is called after writing the data has finished
+         * @param addedTime The {@link SystemClock#elapsedRealtime()} when the data was added
+         */
+        Batch(@NonNull final CapturedData data, @NonNull final WritingDataCompletedCallback callback,
+                final long addedTime) {
+            this.data = new ArrayList<>(1);
+            this.data.add(data);
+            this.callbacks = new ArrayList<>(1);
+            this.callbacks.add(callback);
+            this.addedTime = addedTime;
+        }
+
+        /**
+         * Appends the data and callbacks of the {@code next} batch to this batch, unless this batch would hold more
+         * than {@link #MAX_COALESCED_DATA} {@code CapturedData} then.
+         *
+         * @param next The batch added after this batch
+         * @return {@code true} if the {@code next} batch was appended, {@code false} if this batch is full
+         */
+        boolean append(@NonNull final Batch next) {
+            if (data.size() + next.data.size() > MAX_COALESCED_DATA) {
+                return false;
+            }
+            data.addAll(next.data);
+            callbacks.addAll(next.callbacks);
+            return true;
+        }
+
+        /**
+         * Writes the data of this batch in order and calls all its callbacks, also if writing failed.
+         *
+         * @param accelerationsFile The appender of the file to write the acceleration points to
+         * @param rotationsFile The appender of the file to write the rotation points to
+         * @param directionsFile The appender of the file to write the direction points to
+         */
+        void write(@NonNull final Point3dFileAppender accelerationsFile,
+                @NonNull final Point3dFileAppender rotationsFile, @NonNull final Point3dFileAppender directionsFile) {
+            try {
+                for (final CapturedData part : data) {
+                    new CapturedDataWriter(part, accelerationsFile, rotationsFile, directionsFile,
+                            new WritingDataCompletedCallback() {
+                                @Override
+                                public void writingDataCompleted() {
+                                    // The callbacks are called once after all data of this batch was written
+                                }
+                            }).run();
+                }
+            } finally {
+                for (final WritingDataCompletedCallback callback : callbacks) {
+                    callback.writingDataCompleted();
+                }
+            }
+        }
+
+        /**
+         * Releases the data of this batch without writing it and calls all its callbacks.
+         */
+        void discard() {
+            release();
+            for (final WritingDataCompletedCallback callback : callbacks) {
+                callback.writingDataCompleted();
+            }
+        }
+
+        /**
+         * Releases the data of this batch, see {@link CapturedData#release()}.
+         */
+        void release() {
+            for (final CapturedData part : data) {
+                part.release();
+            }
+        }
+
+        /**
+         * @return The number of {@link Point3d}s of all sensors in this batch
+         */
+        int size() {
+            int size = 0;
+            for (final CapturedData part : data) {
+                size += part.getAccelerationBatch().size() + part.getRotationBatch().size()
+                        + part.getDirectionBatch().size();
+            }
+            return size;
+        }
+    }
+}
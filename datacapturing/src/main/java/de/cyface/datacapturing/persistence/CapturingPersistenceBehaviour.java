@@ -3,15 +3,21 @@ package de.cyface.datacapturing.persistence;
 import static de.cyface.datacapturing.Constants.TAG;
 import static de.cyface.persistence.model.MeasurementStatus.FINISHED;
 
-import java.util.concurrent.ExecutorService;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import android.content.ContentProvider;
 import android.content.ContentValues;
+import android.content.Context;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import de.cyface.datacapturing.model.CapturedData;
 import de.cyface.persistence.Constants;
@@ -22,23 +28,131 @@ import de.cyface.persistence.PersistenceLayer;
 import de.cyface.persistence.model.GeoLocation;
 import de.cyface.persistence.model.Measurement;
 import de.cyface.persistence.model.MeasurementStatus;
+import de.cyface.persistence.serialization.CompressedPoint3dFile;
 import de.cyface.persistence.serialization.Point3dFile;
+import de.cyface.persistence.serialization.Point3dFileAppender;
 import de.cyface.utils.CursorIsNullException;
 import de.cyface.utils.Validate;
 
 /**
  * This {@link PersistenceBehaviour} is used when a {@link PersistenceLayer} is used to capture a {@link Measurement}s.
+ * <p>
+ * {@link GeoLocation}s are buffered and written in one transaction via
+ * {@link android.content.ContentResolver#bulkInsert} when either the buffer is full, the oldest buffered
+ * {@code GeoLocation} is older than the flush interval, the {@code PersistenceLayer} loads tracks or the capturing is
+ * paused or stopped. This way each fix does not pay for its own {@code ContentProvider} call, SQLite transaction and
+ * file sync. When the process is killed, at most one buffer of {@code GeoLocation}s is lost.
+ * <p>
+ * The flush interval is also enforced by a timer, so the buffer is written even if no further fix arrives. This matters
+ * for readers in other processes, e.g. the synchronization or the UI, which cannot trigger a flush of this buffer.
+ * They see the {@code GeoLocation}s of the current {@code Measurement} with a delay of at most the flush interval.
+ * <p>
+ * The {@link Measurement#getDistance()} is kept in memory in the same way and checkpointed to the database when the
+ * checkpoint interval elapsed and on each {@link #flush()}. When the capturing is resumed after the process was killed,
+ * the distance continues from the last checkpoint.
+ * <p>
+ * The {@link de.cyface.persistence.model.Point3d}s are appended to their files through a
+ * {@link Point3dFileAppender} per sensor which keeps the file open until {@link #shutdown()}. The files are written in
+ * the persistence file format version stored for the {@code Measurement}, so resumed measurements keep their format.
+ * If enabled via {@link #setCompressAtCapture(boolean)}, they are also compressed while capturing. The
+ * {@link CapturedData} is written by a single thread per {@code Measurement} in the order it was stored, see
+ * {@link CapturedDataWriterQueue}.
  *
  * @author Armin Schnabel
- * @version 2.0.3
+ * @version 2.6.6
  * @since 3.0.0
  */
 public class CapturingPersistenceBehaviour implements PersistenceBehaviour {
 
     /**
-     * A threadPool to execute operations on their own background threads.
+     * The default number of {@link GeoLocation}s which are buffered before they are written to the database.
      */
-    private ExecutorService threadPool;
+    public final static int DEFAULT_LOCATION_BUFFER_SIZE = 10;
+    /**
+     * The default maximal time in milliseconds a {@link GeoLocation} is buffered before it's written to the database.
+     */
+    public final static long DEFAULT_LOCATION_FLUSH_INTERVAL_MILLIS = 10_000L;
+    /**
+     * The default maximal time in milliseconds a distance update is kept in memory before it's written to the database.
+     */
+    public final static long DEFAULT_DISTANCE_CHECKPOINT_INTERVAL_MILLIS = 10_000L;
+    /**
+     * The default maximal number of {@link CapturedData} batches waiting to be written, about 16 seconds of data.
+     */
+    public final static int DEFAULT_WRITER_QUEUE_CAPACITY = 16;
+    /**
+     * The default {@link OverflowPolicy} applied when the writer queue is full.
+     * <p>
+     * {@link #storeData(CapturedData, long, WritingDataCompletedCallback)} is called on the location thread, which
+     * also drains the sensor values. {@link OverflowPolicy#BLOCK} would stall it on a slow storage, so the sensor
+     * values are dropped when their ring is full. Thus, the batches are merged instead, which keeps the location thread
+     * running. The merged batches are bounded, so the data is dropped when the storage does not keep up for about two
+     * minutes.
+     */
+    public final static OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.COALESCE;
+    /**
+     * The maximal time in milliseconds to wait on {@link #shutdown()} for the queued {@code CapturedData} to be
+     * written.
+     */
+    private final static long WRITER_SHUTDOWN_TIMEOUT_MILLIS = 1_000L;
+    /**
+     * The number of {@link GeoLocation}s which are buffered before they are written to the database.
+     */
+    private final int locationBufferSize;
+    /**
+     * The maximal time in milliseconds a {@link GeoLocation} is buffered before it's written to the database.
+     */
+    private final long locationFlushIntervalMillis;
+    /**
+     * The {@link GeoLocation}s which are not yet written to the database. Access must be synchronized on this list.
+     */
+    private final List<ContentValues> locationBuffer;
+    /**
+     * Held while buffered {@link GeoLocation}s are taken from the {@link #locationBuffer} and inserted, so concurrent
+     * flushes insert their batches in order and a flush only returns after all batches taken before were inserted.
+     */
+    private final Object locationFlushLock = new Object();
+    /**
+     * Writes the {@link #locationBuffer} when the flush interval elapsed without a new {@link GeoLocation}. Created
+     * when the first {@code GeoLocation} is buffered and stopped on {@link #shutdown()}.
+     */
+    private ScheduledExecutorService locationFlushTimer;
+    /**
+     * {@code true} after the {@link #locationFlushTimer} was stopped on {@link #shutdown()}. Access must be
+     * synchronized on the {@link #locationBuffer}.
+     */
+    private boolean locationFlushTimerStopped;
+    /**
+     * The {@link SystemClock#elapsedRealtime()} when the oldest {@link GeoLocation} in {@link #locationBuffer} was
+     * buffered.
+     */
+    private long oldestBufferedLocationTime;
+    /**
+     * The maximal time in milliseconds a distance update is kept in memory before it's written to the database.
+     */
+    private final long distanceCheckpointIntervalMillis;
+    /**
+     * The latest {@link Measurement#getDistance()} which is not yet written to the database or {@code null} if the
+     * database is up to date. Access must be synchronized on {@code this}.
+     */
+    private Double pendingDistance;
+    /**
+     * The id of the {@link Measurement} the {@link #pendingDistance} belongs to.
+     */
+    private long pendingDistanceMeasurementIdentifier;
+    /**
+     * The {@link SystemClock#elapsedRealtime()} when the oldest not yet checkpointed distance update was received.
+     */
+    private long oldestPendingDistanceTime;
+    /**
+     * Writes the {@link CapturedData} of the current {@link Measurement} to the {@code Point3d} files. This is
+     * {@code null} until the files are opened.
+     */
+    private volatile CapturedDataWriterQueue writerQueue;
+    /**
+     * {@code true} after {@link #shutdown()} was called. No new {@link CapturedData} is accepted then.
+     */
+    private volatile boolean stopped;
     /**
      * Caching the current {@link Measurement}, so we do not need to ask the database each time we require the
      * current measurement. This is <code>null</code> if there is no running measurement or if we lost the
@@ -48,24 +162,115 @@ public class CapturingPersistenceBehaviour implements PersistenceBehaviour {
     /**
      * The file to write the acceleration points to.
      */
-    private Point3dFile accelerationsFile;
+    private volatile Point3dFileAppender accelerationsFile;
     /**
      * The file to write the rotation points to.
      */
-    private Point3dFile rotationsFile;
+    private volatile Point3dFileAppender rotationsFile;
     /**
      * The file to write the direction points to.
      */
-    private Point3dFile directionsFile;
+    private volatile Point3dFileAppender directionsFile;
+    /**
+     * {@code true} if the {@code Point3d}s are compressed into {@link CompressedPoint3dFile}s while capturing.
+     */
+    private volatile boolean compressAtCapture;
+    /**
+     * The maximal number of {@link CapturedData} batches waiting to be written.
+     */
+    private volatile int writerQueueCapacity = DEFAULT_WRITER_QUEUE_CAPACITY;
+    /**
+     * The {@link OverflowPolicy} applied when the writer queue is full.
+     */
+    private volatile OverflowPolicy overflowPolicy = DEFAULT_OVERFLOW_POLICY;
     /**
      * A reference to the {@link PersistenceLayer} which implements this behaviour to access it's methods.
      */
     private PersistenceLayer persistenceLayer;
 
+    /**
+     * Creates a new completely initialized {@link CapturingPersistenceBehaviour} which buffers
+     * {@link #DEFAULT_LOCATION_BUFFER_SIZE} {@link GeoLocation}s for at most
+     * {@link #DEFAULT_LOCATION_FLUSH_INTERVAL_MILLIS} and checkpoints the distance every
+     * {@link #DEFAULT_DISTANCE_CHECKPOINT_INTERVAL_MILLIS}.
+     */
+    public CapturingPersistenceBehaviour() {
+        this(DEFAULT_LOCATION_BUFFER_SIZE, DEFAULT_LOCATION_FLUSH_INTERVAL_MILLIS,
+                DEFAULT_DISTANCE_CHECKPOINT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a new completely initialized {@link CapturingPersistenceBehaviour} which checkpoints the distance every
+     * {@link #DEFAULT_DISTANCE_CHECKPOINT_INTERVAL_MILLIS}.
+     *
+     * @param locationBufferSize The number of {@link GeoLocation}s which are buffered before they are written to the
+     *            database. Use {@code 1} to write each {@code GeoLocation} directly.
+     * @param locationFlushIntervalMillis The maximal time in milliseconds a {@code GeoLocation} is buffered before it's
+     *            written to the database. This is enforced by a timer, so it also applies when no further
+     *            {@code GeoLocation} is stored.
+     */
+    public CapturingPersistenceBehaviour(final int locationBufferSize, final long locationFlushIntervalMillis) {
+        this(locationBufferSize, locationFlushIntervalMillis, DEFAULT_DISTANCE_CHECKPOINT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a new completely initialized {@link CapturingPersistenceBehaviour}.
+     *
+     * @param locationBufferSize The number of {@link GeoLocation}s which are buffered before they are written to the
+     *            database. Use {@code 1} to write each {@code GeoLocation} directly.
+     * @param locationFlushIntervalMillis The maximal time in milliseconds a {@code GeoLocation} is buffered before it's
+     *            written to the database. This is enforced by a timer, so it also applies when no further
+     *            {@code GeoLocation} is stored.
+     * @param distanceCheckpointIntervalMillis The maximal time in milliseconds a distance update is kept in memory
+     *            before it's written to the database. This is checked when the next distance update is received. Use
+     *            {@code 0} to write each update directly.
+     */
+    public CapturingPersistenceBehaviour(final int locationBufferSize, final long locationFlushIntervalMillis,
+            final long distanceCheckpointIntervalMillis) {
+        Validate.isTrue(locationBufferSize > 0);
+        Validate.isTrue(locationFlushIntervalMillis >= 0L);
+        Validate.isTrue(distanceCheckpointIntervalMillis >= 0L);
+        this.locationBufferSize = locationBufferSize;
+        this.locationFlushIntervalMillis = locationFlushIntervalMillis;
+        this.distanceCheckpointIntervalMillis = distanceCheckpointIntervalMillis;
+        this.locationBuffer = new ArrayList<>(locationBufferSize);
+    }
+
+    /**
+     * Selects whether the {@code Point3d}s are compressed into {@link CompressedPoint3dFile}s while capturing. This is
+     * applied when the files are opened, i.e. when the first data of a {@link Measurement} is stored.
+     *
+     * @param compressAtCapture {@code true} to compress the {@code Point3d}s while capturing
+     */
+    public void setCompressAtCapture(final boolean compressAtCapture) {
+        this.compressAtCapture = compressAtCapture;
+    }
+
+    /**
+     * Configures the queue of {@link CapturedData} waiting to be written. This is applied when the files are opened,
+     * i.e. when the first data of a {@link Measurement} is stored.
+     *
+     * @param capacity The maximal number of batches waiting to be written
+     * @param overflowPolicy The {@link OverflowPolicy} applied when the queue is full
+     */
+    public void setWriterQueue(final int capacity, @NonNull final OverflowPolicy overflowPolicy) {
+        Validate.isTrue(capacity > 0);
+        this.writerQueueCapacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * @return The queue of {@link CapturedData} waiting to be written, e.g. to read its depth and write latency, or
+     *         {@code null} if no data was stored yet
+     */
+    @Nullable
+    public CapturedDataWriterQueue getWriterQueue() {
+        return writerQueue;
+    }
+
     @Override
     public void onStart(@NonNull final PersistenceLayer persistenceLayer) {
         this.persistenceLayer = persistenceLayer;
-        this.threadPool = Executors.newCachedThreadPool();
     }
 
     @Override
@@ -75,45 +280,43 @@ public class CapturingPersistenceBehaviour implements PersistenceBehaviour {
 
     @Override
     public void shutdown() {
-        if (threadPool != null) {
-            try {
-                threadPool.shutdown();
-                threadPool.awaitTermination(1, TimeUnit.SECONDS);
-                threadPool.shutdownNow();
-            } catch (InterruptedException e) {
-                throw new IllegalStateException(e);
+        synchronized (locationBuffer) {
+            locationFlushTimerStopped = true;
+            if (locationFlushTimer != null) {
+                locationFlushTimer.shutdownNow();
             }
         }
+        flush();
+        stopped = true;
+        if (writerQueue != null) {
+            writerQueue.close(WRITER_SHUTDOWN_TIMEOUT_MILLIS);
+        }
+        // Closed after the writer finished to include the data it appended after the flush
+        closePoint3dFiles();
     }
 
     /**
      * Saves the provided {@link CapturedData} to the local persistent storage of the device.
+     * <p>
+     * The data is written asynchronously, after the data stored before. When the writer queue is full, the configured
+     * {@link OverflowPolicy} is applied, see {@link #setWriterQueue(int, OverflowPolicy)}. The data is retained until
+     * it is written, so the caller may release it after this call.
      *
      * @param data The data to store.
      * @param measurementIdentifier The id of the {@link Measurement} to store the data to.
+     * @param callback Callback which is called after writing the data has finished.
      */
     public void storeData(final @NonNull CapturedData data, final long measurementIdentifier,
             final @NonNull WritingDataCompletedCallback callback) {
-        if (threadPool.isShutdown()) {
+        if (stopped) {
             return;
         }
         if (accelerationsFile == null) {
-            accelerationsFile = new Point3dFile(persistenceLayer.getContext(), measurementIdentifier,
-                    Point3dFile.ACCELERATIONS_FOLDER_NAME, Point3dFile.ACCELERATIONS_FILE_EXTENSION);
-        }
-        if (rotationsFile == null) {
-            rotationsFile = new Point3dFile(persistenceLayer.getContext(), measurementIdentifier,
-                    Point3dFile.ROTATIONS_FOLDER_NAME, Point3dFile.ROTATION_FILE_EXTENSION);
+            openPoint3dFiles(measurementIdentifier);
         }
-        if (directionsFile == null) {
-            directionsFile = new Point3dFile(persistenceLayer.getContext(), measurementIdentifier,
-                    Point3dFile.DIRECTIONS_FOLDER_NAME, Point3dFile.DIRECTION_FILE_EXTENSION);
-        }
-
-        final CapturedDataWriter writer = new CapturedDataWriter(data, accelerationsFile, rotationsFile, directionsFile,
-                callback);
 
-        threadPool.submit(writer);
+        // The data is shared with the capturing and only valid until it is released by the writer
+        writerQueue.add(data.retain(), callback);
     }
 
     /**
@@ -132,7 +335,167 @@ public class CapturingPersistenceBehaviour implements PersistenceBehaviour {
         values.put(GeoLocationsTable.COLUMN_SPEED, location.getSpeed());
         values.put(GeoLocationsTable.COLUMN_MEASUREMENT_FK, measurementIdentifier);
 
-        persistenceLayer.getResolver().insert(persistenceLayer.getGeoLocationsUri(), values);
+        final boolean flushRequired;
+        synchronized (locationBuffer) {
+            final long now = SystemClock.elapsedRealtime();
+            final boolean wasEmpty = locationBuffer.isEmpty();
+            if (wasEmpty) {
+                oldestBufferedLocationTime = now;
+            }
+            locationBuffer.add(values);
+            flushRequired = locationBuffer.size() >= locationBufferSize
+                    || now - oldestBufferedLocationTime >= locationFlushIntervalMillis;
+            if (wasEmpty && !flushRequired && !locationFlushTimerStopped) {
+                scheduleLocationFlush();
+            }
+        }
+        if (flushRequired) {
+            // Only the locations, the Point3d files and the distance follow their own flush policies
+            flushLocations();
+        }
+    }
+
+    /**
+     * Schedules a flush of the {@link #locationBuffer} when the flush interval of the oldest buffered
+     * {@link GeoLocation} elapsed. Must be called while synchronized on the {@code locationBuffer}.
+     */
+    private void scheduleLocationFlush() {
+        if (locationFlushTimer == null) {
+            locationFlushTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "LocationFlushTimer");
+                    // Must not keep the process alive
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        locationFlushTimer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // Flushes newer locations early if the buffer was written and refilled since, which is fine
+                    flushLocations();
+                } catch (final RuntimeException e) {
+                    // Thrown away by the executor otherwise. The locations are written with the next flush.
+                    Log.e(TAG, "Unable to flush buffered locations.", e);
+                }
+            }
+        }, locationFlushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes all buffered {@link GeoLocation}s to the database in one transaction, checkpoints the distance and writes
+     * the buffered {@code Point3d}s to their files.
+     * <p>
+     * This is called automatically when tracks are loaded in this process, the {@link MeasurementStatus} is updated
+     * and on {@link #shutdown()}. When the location buffer is full or its flush interval elapsed, only the
+     * {@code GeoLocation}s are written, so the {@code Point3d}s and the distance are still written according to the
+     * flush policy of the {@link Point3dFileAppender}s and the distance checkpoint interval.
+     */
+    @Override
+    public void flush() {
+        flushLocations();
+        flushPoint3dFiles();
+        try {
+            checkpointDistance();
+        } catch (final NoSuchMeasurementException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes all buffered {@link GeoLocation}s to the database in one transaction.
+     * <p>
+     * The {@link #locationFlushLock} is held until the {@code GeoLocation}s are inserted, so batches taken by
+     * concurrent flushes are inserted in the order they were taken. New {@code GeoLocation}s can still be buffered
+     * meanwhile.
+     */
+    private void flushLocations() {
+        synchronized (locationFlushLock) {
+            final ContentValues[] values;
+            synchronized (locationBuffer) {
+                if (locationBuffer.isEmpty()) {
+                    return;
+                }
+                values = locationBuffer.toArray(new ContentValues[0]);
+                locationBuffer.clear();
+            }
+
+            final int inserted = persistenceLayer.getResolver().bulkInsert(persistenceLayer.getGeoLocationsUri(),
+                    values);
+            Validate.isTrue(inserted == values.length, "Unable to store all buffered locations");
+        }
+    }
+
+    /**
+     * Opens the {@link Point3dFileAppender}s for the {@code Point3d}s of a {@link Measurement}.
+     *
+     * @param measurementIdentifier The id of the {@code Measurement} to store the data to.
+     */
+    private void openPoint3dFiles(final long measurementIdentifier) {
+        final Measurement measurement;
+        try {
+            measurement = persistenceLayer.loadMeasurement(measurementIdentifier);
+        } catch (final CursorIsNullException e) {
+            throw new IllegalStateException(e);
+        }
+        Validate.notNull("Unable to load measurement " + measurementIdentifier, measurement);
+        final short persistenceFileFormatVersion = measurement.getFileFormatVersion();
+        final Context context = persistenceLayer.getContext();
+        rotationsFile = new Point3dFileAppender(new Point3dFile(context, measurementIdentifier,
+                Point3dFile.ROTATIONS_FOLDER_NAME, Point3dFile.ROTATION_FILE_EXTENSION, persistenceFileFormatVersion),
+                compressAtCapture);
+        directionsFile = new Point3dFileAppender(new Point3dFile(context, measurementIdentifier,
+                Point3dFile.DIRECTIONS_FOLDER_NAME, Point3dFile.DIRECTION_FILE_EXTENSION,
+                persistenceFileFormatVersion), compressAtCapture);
+        final Point3dFileAppender accelerationsFile = new Point3dFileAppender(new Point3dFile(context,
+                measurementIdentifier, Point3dFile.ACCELERATIONS_FOLDER_NAME,
+                Point3dFile.ACCELERATIONS_FILE_EXTENSION, persistenceFileFormatVersion), compressAtCapture);
+        writerQueue = new CapturedDataWriterQueue(writerQueueCapacity, overflowPolicy, accelerationsFile,
+                rotationsFile, directionsFile, measurementIdentifier);
+        // Assigned last as it marks the files as opened
+        this.accelerationsFile = accelerationsFile;
+    }
+
+    /**
+     * Writes the buffered {@code Point3d}s of all opened {@link Point3dFileAppender}s to their files.
+     */
+    private void flushPoint3dFiles() {
+        for (final Point3dFileAppender appender : new Point3dFileAppender[] {accelerationsFile, rotationsFile,
+                directionsFile}) {
+            if (appender != null) {
+                appender.flush();
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered {@code Point3d}s of all opened {@link Point3dFileAppender}s to their files and closes them.
+     */
+    private void closePoint3dFiles() {
+        for (final Point3dFileAppender appender : new Point3dFileAppender[] {accelerationsFile, rotationsFile,
+                directionsFile}) {
+            if (appender != null) {
+                appender.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the {@link #pendingDistance} to the database, if there is one.
+     *
+     * @throws NoSuchMeasurementException When the {@code Measurement} of the pending distance does not exist anymore.
+     */
+    private void checkpointDistance() throws NoSuchMeasurementException {
+        synchronized (this) {
+            if (pendingDistance == null) {
+                return;
+            }
+            persistenceLayer.setDistance(pendingDistanceMeasurementIdentifier, pendingDistance);
+            pendingDistance = null;
+        }
     }
 
     /**
@@ -214,6 +577,10 @@ public class CapturingPersistenceBehaviour implements PersistenceBehaviour {
                 throw new IllegalArgumentException("No supported newState: " + newStatus);
         }
 
+        // This only writes data buffered by this process. The capturing process writes its data on shutdown, before
+        // the DataCapturingService sets the status, see DataCapturingService#onServiceStopped()
+        flush();
+
         Log.d(TAG, "Updating recent measurement to: " + newStatus);
         synchronized (this) {
             try {
@@ -227,7 +594,10 @@ public class CapturingPersistenceBehaviour implements PersistenceBehaviour {
     }
 
     /**
-     * Updates the {@link Measurement#getDistance()} entry of the currently captured {@link Measurement}.
+     * Updates the {@link Measurement#getDistance()} of the currently captured {@link Measurement}.
+     * <p>
+     * The distance is kept in memory and only written to the database when the checkpoint interval elapsed or on
+     * {@link #flush()}, i.e. the database is only accessed once per interval instead of once per {@link GeoLocation}.
      *
      * @param newDistance The new distance value to be stored.
      * @throws NoSuchMeasurementException When there was no currently captured {@code Measurement}.
@@ -236,10 +606,22 @@ public class CapturingPersistenceBehaviour implements PersistenceBehaviour {
     public void updateDistance(final double newDistance) throws NoSuchMeasurementException, CursorIsNullException {
         Validate.isTrue(newDistance >= 0.0);
 
-        final long currentlyCapturedMeasurementId = loadCurrentlyCapturedMeasurement().getIdentifier();
-
+        final boolean checkpointRequired;
         synchronized (this) {
-            persistenceLayer.setDistance(currentlyCapturedMeasurementId, newDistance);
+            if (currentMeasurementIdentifier == null) {
+                refreshIdentifierOfCurrentlyCapturedMeasurement();
+            }
+
+            final long now = SystemClock.elapsedRealtime();
+            if (pendingDistance == null) {
+                oldestPendingDistanceTime = now;
+            }
+            pendingDistance = newDistance;
+            pendingDistanceMeasurementIdentifier = currentMeasurementIdentifier;
+            checkpointRequired = now - oldestPendingDistanceTime >= distanceCheckpointIntervalMillis;
+        }
+        if (checkpointRequired) {
+            checkpointDistance();
         }
     }
 }
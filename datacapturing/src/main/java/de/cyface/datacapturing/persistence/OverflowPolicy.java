@@ -0,0 +1,51 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.persistence;
+
+import de.cyface.datacapturing.model.CapturedData;
+
+/**
+ * Defines what the {@link CapturedDataWriterQueue} does with {@link CapturedData} when its queue is full, i.e. when
+ * the storage is slower than the sensors for a longer time.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+public enum OverflowPolicy {
+    /**
+     * The capturing thread waits until the writer took a batch from the queue. No data is lost while waiting, but the
+     * capturing thread is the location thread, which also takes the sensor values from the ring they are published to
+     * by the sensor thread. While it waits, locations are delayed and sensor values are dropped once the ring is full,
+     * see {@code CapturingProcess#getDroppedSensorValues()}.
+     */
+    BLOCK,
+    /**
+     * The batch is merged into the last batch in the queue without copying its data. The capturing thread does not
+     * wait. To bound the memory used by the queued data, a batch holds at most
+     * {@code CapturedDataWriterQueue#MAX_COALESCED_DATA} {@link CapturedData}. Further batches are dropped like with
+     * {@link #DROP} until the writer took a batch from the queue.
+     */
+    COALESCE,
+    /**
+     * The batch is dropped and counted in {@link CapturedDataWriterQueue#getDroppedBatches()} and
+     * {@link CapturedDataWriterQueue#getDroppedPoints()}. The capturing thread does not wait.
+     */
+    DROP
+}
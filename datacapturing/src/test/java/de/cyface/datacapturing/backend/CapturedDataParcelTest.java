@@ -0,0 +1,224 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.backend;
+
+import static de.cyface.datacapturing.Constants.TAG;
+import static de.cyface.datacapturing.backend.DataCapturingBackgroundService.MAXIMUM_CAPTURED_DATA_MESSAGE_SIZE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.os.Build;
+import android.os.Parcel;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.datacapturing.model.CapturedData;
+import de.cyface.datacapturing.model.Point3dBatch;
+import de.cyface.datacapturing.model.Point3dBuffer;
+import de.cyface.persistence.model.Point3d;
+
+/**
+ * Tests that {@link CapturedData} is parcelled as primitive arrays and compares the parcel size and the time to
+ * marshal and unmarshal it with the former encoding as one {@link Point3d} {@code Parcelable} per value.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class CapturedDataParcelTest {
+
+    /**
+     * The number of points per sensor and message before the points were parcelled as primitive arrays.
+     */
+    private final static int FORMER_MESSAGE_SIZE = 800;
+    /**
+     * The number of times each encoding is marshalled and unmarshalled to measure the time.
+     */
+    private final static int ITERATIONS = 200;
+
+    /**
+     * Tests that a slice, which is a view inside of the captured arrays, is parcelled with its values only.
+     */
+    @Test
+    public void testParcel_slice() {
+
+        // Arrange
+        final CapturedData data = new CapturedData(generateBatch(100, 0), generateBatch(50, 1_000),
+                Point3dBatch.empty());
+        final CapturedData slice = data.slice(30, 80);
+
+        // Act
+        final CapturedData unparcelled = unparcel(slice);
+
+        // Assert
+        assertThat(unparcelled, is(equalTo(slice)));
+        assertThat(unparcelled.getAccelerations().size(), is(equalTo(50)));
+        assertThat(unparcelled.getAccelerations().get(0).getTimestamp(), is(equalTo(30L)));
+        assertThat(unparcelled.getRotations().size(), is(equalTo(20)));
+        assertThat(unparcelled.getRotations().get(19).getX(), is(equalTo(1_049.0f)));
+        assertThat(unparcelled.getDirections().size(), is(equalTo(0)));
+    }
+
+    /**
+     * Compares the primitive array encoding of a message with the maximal number of points with the former encoding
+     * and checks that the message is not larger than the largest message was before.
+     */
+    @Test
+    public void testParcel_comparedToParcelablePerPoint() {
+
+        // Arrange
+        final CapturedData data = generateData(MAXIMUM_CAPTURED_DATA_MESSAGE_SIZE);
+        final CapturedData formerMessage = generateData(FORMER_MESSAGE_SIZE);
+
+        // Act
+        final int packedSize = packedSize(data);
+        final int perPointSize = perPointSize(data);
+        final int formerMaximumSize = perPointSize(formerMessage);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            unparcel(data).getAccelerations().get(0);
+        }
+        final long packedNanos = (System.nanoTime() - start) / ITERATIONS;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            unparcelPerPoint(data).get(0);
+        }
+        final long perPointNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        // Assert
+        Log.i(TAG, "Primitive arrays: " + packedSize + " bytes, " + packedNanos / 1_000L + " us to marshal and "
+                + "unmarshal " + MAXIMUM_CAPTURED_DATA_MESSAGE_SIZE + " points per sensor.");
+        Log.i(TAG, "Parcelable per point: " + perPointSize + " bytes, " + perPointNanos / 1_000L + " us, "
+                + formerMaximumSize + " bytes for " + FORMER_MESSAGE_SIZE + " points per sensor.");
+        assertThat(packedSize, is(lessThan(perPointSize)));
+        assertThat(packedSize, is(lessThanOrEqualTo(formerMaximumSize)));
+    }
+
+    /**
+     * @param data The data to parcel
+     * @return A new object read from the {@code Parcel} the {@code data} was written to
+     */
+    private static CapturedData unparcel(@NonNull final CapturedData data) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            data.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return CapturedData.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Parcels the data like it was parcelled before the points were parcelled as primitive arrays.
+     *
+     * @param data The data to parcel
+     * @return The accelerations read from the {@code Parcel} the {@code data} was written to
+     */
+    private static List<Point3d> unparcelPerPoint(@NonNull final CapturedData data) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            writePerPoint(data, parcel);
+            parcel.setDataPosition(0);
+            final List<Point3d> accelerations = parcel.createTypedArrayList(Point3d.CREATOR);
+            parcel.createTypedArrayList(Point3d.CREATOR);
+            parcel.createTypedArrayList(Point3d.CREATOR);
+            return accelerations;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * @param data The data to parcel
+     * @return The number of bytes the {@code data} takes in a {@code Parcel}
+     */
+    private static int packedSize(@NonNull final CapturedData data) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            data.writeToParcel(parcel, 0);
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * @param data The data to parcel
+     * @return The number of bytes the {@code data} took in a {@code Parcel} with one {@code Parcelable} per point
+     */
+    private static int perPointSize(@NonNull final CapturedData data) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            writePerPoint(data, parcel);
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Writes the data like it was written before the points were parcelled as primitive arrays.
+     *
+     * @param data The data to write
+     * @param parcel The {@code Parcel} to write to
+     */
+    private static void writePerPoint(@NonNull final CapturedData data, @NonNull final Parcel parcel) {
+        parcel.writeTypedList(data.getAccelerations());
+        parcel.writeTypedList(data.getRotations());
+        parcel.writeTypedList(data.getDirections());
+    }
+
+    /**
+     * @param size The number of points per sensor
+     * @return Data with the provided number of points for each sensor
+     */
+    private static CapturedData generateData(final int size) {
+        return new CapturedData(generateBatch(size, 0), generateBatch(size, size), generateBatch(size, 2 * size));
+    }
+
+    /**
+     * @param size The number of points
+     * @param first The timestamp and x component of the first point
+     * @return A batch with consecutive timestamps and x components
+     */
+    private static Point3dBatch generateBatch(final int size, final int first) {
+        final Point3dBuffer buffer = new Point3dBuffer(size);
+        for (int i = first; i < first + size; i++) {
+            buffer.add(i, -i, 9.81f, i);
+        }
+        return buffer.toBatch();
+    }
+}
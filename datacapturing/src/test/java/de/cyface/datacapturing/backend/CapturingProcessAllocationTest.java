@@ -0,0 +1,290 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.backend;
+
+import static de.cyface.datacapturing.Constants.TAG;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorManager;
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.Build;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.datacapturing.model.CapturedData;
+import de.cyface.persistence.model.GeoLocation;
+import de.cyface.persistence.model.Point3d;
+
+/**
+ * Tests that the {@link CapturingProcess} stores sensor values without allocating memory for each
+ * {@link SensorEvent} once its buffers reached the size of the batches handed off with each location.
+ * <p>
+ * The allocated bytes are measured per thread via {@link com.sun.management.ThreadMXBean}. Real {@link Sensor} and
+ * {@code SensorEvent} objects are used, as calls to mocks allocate memory themselves.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class CapturingProcessAllocationTest {
+
+    /**
+     * The number of events per sensor between two locations, i.e. 200 Hz sensors and 1 Hz locations.
+     */
+    private final static int EVENTS_PER_LOCATION = 200;
+    /**
+     * The number of locations captured before the allocations are measured, to reach the steady state.
+     */
+    private final static int WARM_UP_LOCATIONS = 100;
+    /**
+     * The number of locations over which the allocated bytes of the sensor events are averaged.
+     */
+    private final static int MEASURED_LOCATIONS = 100;
+    /**
+     * The time between two sensor events in nanoseconds.
+     */
+    private final static long EVENT_INTERVAL_NANOS = 5_000_000L;
+    /**
+     * We require Mockito to avoid calling Android system functions. This rule is responsible for the initialization of
+     * the Spies and Mocks.
+     */
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+    /**
+     * A mock <code>SensorManager</code> for a real Android <code>SensorManager</code>.
+     */
+    @Mock
+    private SensorManager sensorManager;
+    /**
+     * A mock <code>LocationManager</code> for a real Android <code>LocationManager</code>.
+     */
+    @Mock
+    private LocationManager locationManager;
+    /**
+     * A mock for the thread handling occurrence of new geo locations.
+     */
+    @Mock
+    private HandlerThread geoLocationEventHandlerThread;
+    /**
+     * A mock for the thread handling the occurrence of new sensor values.
+     */
+    @Mock
+    private HandlerThread sensorEventHandlerThread;
+    /**
+     * The data handed off by the object of the class under test.
+     */
+    private List<CapturedData> capturedData;
+    /**
+     * An object of the class under test.
+     */
+    private CapturingProcess oocut;
+    /**
+     * One reused event for each sensor type, in the order of {@link #SENSOR_TYPES}.
+     */
+    private SensorEvent[] events;
+    /**
+     * The sensor types which are captured.
+     */
+    private final static int[] SENSOR_TYPES = new int[] {Sensor.TYPE_ACCELEROMETER, Sensor.TYPE_GYROSCOPE,
+            Sensor.TYPE_MAGNETIC_FIELD};
+    /**
+     * The timestamp of the next sensor event in nanoseconds.
+     */
+    private long nextEventTimestamp;
+
+    @Before
+    public void setUp() {
+        when(geoLocationEventHandlerThread.getLooper()).thenReturn(Looper.getMainLooper());
+        when(sensorEventHandlerThread.getLooper()).thenReturn(Looper.getMainLooper());
+        oocut = new GeoLocationCapturingProcess(locationManager, sensorManager,
+                new GeoLocationDeviceStatusHandler(locationManager) {
+                    @Override
+                    void shutdown() {
+                        // Nothing to do
+                    }
+
+                    @Override
+                    boolean hasLocationFix() {
+                        return true;
+                    }
+                }, geoLocationEventHandlerThread, sensorEventHandlerThread, 200);
+        capturedData = new ArrayList<>();
+        oocut.addCapturingProcessListener(new CapturingProcessListener() {
+            @Override
+            public void onLocationCaptured(@NonNull final GeoLocation location) {
+                // Nothing to do
+            }
+
+            @Override
+            public void onDataCaptured(@NonNull final CapturedData data) {
+                // The data is only valid during the call unless it is retained
+                capturedData.add(data.retain());
+            }
+
+            @Override
+            public void onLocationFix() {
+                // Nothing to do
+            }
+
+            @Override
+            public void onLocationFixLost() {
+                // Nothing to do
+            }
+        });
+
+        events = new SensorEvent[SENSOR_TYPES.length];
+        for (int i = 0; i < SENSOR_TYPES.length; i++) {
+            events[i] = sensorEvent(SENSOR_TYPES[i], 0.1f * (i + 1), -0.2f * (i + 1), 9.81f);
+        }
+        nextEventTimestamp = System.currentTimeMillis() * 1_000_000L;
+    }
+
+    /**
+     * Tests that storing sensor values allocates nothing per event and that the values are handed off completely.
+     */
+    @Test
+    public void testOnSensorChanged_allocatesNothingPerEvent() {
+
+        // Arrange
+        for (int i = 0; i < WARM_UP_LOCATIONS; i++) {
+            captureSensorEvents();
+            oocut.onLocationChanged(new Location(LocationManager.GPS_PROVIDER));
+        }
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean)ManagementFactory
+                .getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+
+        // Act
+        long allocated = 0L;
+        for (int i = 0; i < MEASURED_LOCATIONS; i++) {
+            final long start = threadMXBean.getThreadAllocatedBytes(threadId);
+            captureSensorEvents();
+            allocated += threadMXBean.getThreadAllocatedBytes(threadId) - start;
+            oocut.onLocationChanged(new Location(LocationManager.GPS_PROVIDER));
+        }
+
+        // Assert
+        final long measuredEvents = (long)MEASURED_LOCATIONS * EVENTS_PER_LOCATION * SENSOR_TYPES.length;
+        final long bytesPerEvent = allocated / measuredEvents;
+        Log.i(TAG, "Sensor events: " + bytesPerEvent + " bytes allocated per event (" + allocated + " in total)");
+        assertThat(bytesPerEvent, is(equalTo(0L)));
+
+        assertThat(capturedData, hasSize(WARM_UP_LOCATIONS + MEASURED_LOCATIONS));
+        final CapturedData lastData = capturedData.get(capturedData.size() - 1);
+        assertHandedOff(lastData.getAccelerations(), events[0]);
+        assertHandedOff(lastData.getRotations(), events[1]);
+        assertHandedOff(lastData.getDirections(), events[2]);
+        // The buffers are reused, which must not change data which was already handed off
+        assertHandedOff(capturedData.get(0).getAccelerations(), events[0]);
+    }
+
+    /**
+     * Passes {@link #EVENTS_PER_LOCATION} events of each sensor type to the object of the class under test.
+     */
+    private void captureSensorEvents() {
+        for (int i = 0; i < EVENTS_PER_LOCATION; i++) {
+            for (final SensorEvent event : events) {
+                event.timestamp = nextEventTimestamp;
+                oocut.onSensorChanged(event);
+            }
+            nextEventTimestamp += EVENT_INTERVAL_NANOS;
+        }
+    }
+
+    /**
+     * Checks that a batch contains one point for each event of its sensor, in the order they were captured.
+     *
+     * @param points The handed off points of one sensor
+     * @param event The reused event of that sensor
+     */
+    private void assertHandedOff(@NonNull final List<Point3d> points, @NonNull final SensorEvent event) {
+        assertThat(points, hasSize(EVENTS_PER_LOCATION));
+        for (int i = 0; i < points.size(); i++) {
+            final Point3d point = points.get(i);
+            assertThat(point.getX(), is(equalTo(event.values[0])));
+            assertThat(point.getY(), is(equalTo(event.values[1])));
+            assertThat(point.getZ(), is(equalTo(event.values[2])));
+            if (i > 0) {
+                assertThat(point.getTimestamp() - points.get(i - 1).getTimestamp(),
+                        is(equalTo(EVENT_INTERVAL_NANOS / 1_000_000L)));
+            }
+        }
+    }
+
+    /**
+     * Creates a real {@code SensorEvent}, as the constructors of {@code Sensor} and {@code SensorEvent} are hidden.
+     *
+     * @param type The type of the {@link Sensor} which captured the event
+     * @param x The x value of the event
+     * @param y The y value of the event
+     * @param z The z value of the event
+     * @return The created event
+     */
+    private SensorEvent sensorEvent(final int type, final float x, final float y, final float z) {
+        try {
+            final Constructor<Sensor> sensorConstructor = Sensor.class.getDeclaredConstructor();
+            sensorConstructor.setAccessible(true);
+            final Sensor sensor = sensorConstructor.newInstance();
+            final Field typeField = Sensor.class.getDeclaredField("mType");
+            typeField.setAccessible(true);
+            typeField.setInt(sensor, type);
+
+            final Constructor<SensorEvent> eventConstructor = SensorEvent.class.getDeclaredConstructor(int.class);
+            eventConstructor.setAccessible(true);
+            final SensorEvent event = eventConstructor.newInstance(3);
+            event.sensor = sensor;
+            event.values[0] = x;
+            event.values[1] = y;
+            event.values[2] = z;
+            return event;
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
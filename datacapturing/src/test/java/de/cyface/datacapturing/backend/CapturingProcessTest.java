@@ -23,12 +23,14 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -51,6 +53,7 @@ import androidx.annotation.NonNull;
 
 import de.cyface.datacapturing.model.CapturedData;
 import de.cyface.persistence.model.GeoLocation;
+import de.cyface.persistence.model.Point3d;
 import de.cyface.utils.Validate;
 
 /**
@@ -58,7 +61,7 @@ import de.cyface.utils.Validate;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 1.0.4
+ * @version 1.1.1
  * @since 2.0.0
  */
 public class CapturingProcessTest {
@@ -113,7 +116,7 @@ public class CapturingProcessTest {
                 }, geoLocationEventHandlerThread, sensorEventHandlerThread, 100);
         testListener = new TestCapturingProcessListener();
         oocut.addCapturingProcessListener(testListener);
-        final Sensor accelerometer = initSensor("accelerometer");
+        final Sensor accelerometer = initSensor("accelerometer", Sensor.TYPE_ACCELEROMETER);
         when(sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER)).thenReturn(accelerometer);
     }
 
@@ -145,6 +148,73 @@ public class CapturingProcessTest {
         assertThat(testListener.getCapturedLocations(), Matchers.hasSize(2));
     }
 
+    /**
+     * Drives the sensor thread and the location thread at maximum rate and checks that each sensor value is either
+     * handed off exactly once and in order or counted as dropped.
+     */
+    @Test(timeout = 60_000L)
+    public void testSensorAndLocationThreadConcurrently() throws InterruptedException {
+
+        // Arrange
+        final int events = 100_000;
+        final int handOffs = 10_000;
+        // Stub-only mocks do not record their invocations, which would fill the memory
+        final Sensor accelerometer = mock(Sensor.class, withSettings().stubOnly());
+        when(accelerometer.getType()).thenReturn(Sensor.TYPE_ACCELEROMETER);
+        final SensorEvent sensorEvent = createSensorEvent(accelerometer, 0.0f, 0.0f, 0.0f, 0L);
+        final Location location = mock(Location.class, withSettings().stubOnly());
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread sensorThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 1; i <= events; i++) {
+                        sensorEvent.timestamp = i * 1_000_000L;
+                        sensorEvent.values[0] = i;
+                        oocut.onSensorChanged(sensorEvent);
+                    }
+                } catch (final Throwable e) {
+                    failure.set(e);
+                }
+            }
+        });
+        final Thread locationThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < handOffs; i++) {
+                        oocut.onLocationChanged(location);
+                    }
+                } catch (final Throwable e) {
+                    failure.set(e);
+                }
+            }
+        });
+
+        // Act
+        sensorThread.start();
+        locationThread.start();
+        sensorThread.join();
+        locationThread.join();
+        // Hands off the remaining values on the location thread, which is the test thread from now on
+        oocut.onLocationChanged(location);
+
+        // Assert
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        int handedOff = 0;
+        float lastValue = 0.0f;
+        for (final CapturedData data : testListener.getCapturedData()) {
+            for (final Point3d point : data.getAccelerations()) {
+                assertThat(point.getX() > lastValue, is(equalTo(true)));
+                lastValue = point.getX();
+                handedOff++;
+            }
+        }
+        assertThat(handedOff + oocut.getDroppedSensorValues(), is(equalTo((long)events)));
+    }
+
     /**
      * Tests that the correct `eventTimeOffset` is calculated for known `event.time` implementations.
      */
@@ -206,16 +276,18 @@ public class CapturingProcessTest {
      * Initializes a sensor with the provided type and name.
      *
      * @param name The name of the sensor
+     * @param type The type of the sensor, e.g. {@link Sensor#TYPE_ACCELEROMETER}
      * @return The newly initialized <code>Sensor</code>.
      */
     @SuppressWarnings("SameParameterValue") // we probably want to implement this for other sensors too
     @NonNull
-    private Sensor initSensor(@NonNull final String name) {
+    private Sensor initSensor(@NonNull final String name, final int type) {
         Validate.notEmpty(name);
 
         Sensor sensor = Mockito.mock(Sensor.class);
         when(sensor.getName()).thenReturn(name);
         when(sensor.getVendor()).thenReturn("Cyface");
+        when(sensor.getType()).thenReturn(type);
         return sensor;
     }
 
@@ -225,7 +297,7 @@ public class CapturingProcessTest {
      *
      * @author Klemens Muthmann
      * @author Armin Schnabel
-     * @version 2.0.0
+     * @version 2.0.1
      * @since 2.0.0
      */
     private static class TestCapturingProcessListener implements CapturingProcessListener {
@@ -247,7 +319,8 @@ public class CapturingProcessTest {
 
         @Override
         public void onDataCaptured(@NonNull CapturedData data) {
-            capturedData.add(data);
+            // The data is only valid during the call unless it is retained
+            capturedData.add(data.retain());
         }
 
         @Override
@@ -226,7 +226,7 @@ public class DataCapturingLocalTest {
         // Call test method.
         oocut.onDataCaptured(data);
 
-        // 1247*2 / 800 = 3,1 --> 4
+        // 1247*2 / 1000 = 2,5 --> 3
         int times = Math.max(accelerationsSize, Math.max(rotationsSize, directionsSize))
                 / DataCapturingBackgroundService.MAXIMUM_CAPTURED_DATA_MESSAGE_SIZE;
         int remainder = Math.max(accelerationsSize, Math.max(rotationsSize, directionsSize))
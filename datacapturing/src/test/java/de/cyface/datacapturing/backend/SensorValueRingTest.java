@@ -0,0 +1,165 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.backend;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import android.hardware.Sensor;
+
+import de.cyface.datacapturing.model.Point3dBuffer;
+import de.cyface.persistence.model.Point3d;
+
+/**
+ * Tests that the {@link SensorValueRing} hands over all values from one producer thread to one consumer thread
+ * without losing, duplicating or reordering any of them.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+public class SensorValueRingTest {
+
+    /**
+     * The sensor types the values are offered for, in turn.
+     */
+    private final static int[] SENSOR_TYPES = new int[] {Sensor.TYPE_ACCELEROMETER, Sensor.TYPE_GYROSCOPE,
+            Sensor.TYPE_MAGNETIC_FIELD};
+    /**
+     * The number of values offered by the producer. Small enough to be represented exactly as {@code float}.
+     */
+    private final static int VALUES = 600_000;
+    /**
+     * A small capacity so the ring wraps around and runs full many times.
+     */
+    private final static int CAPACITY = 256;
+
+    /**
+     * Drives the producer and the consumer at maximum rate on two threads. The producer offers each value again until
+     * it was accepted, so every value must arrive exactly once and in order.
+     */
+    @Test(timeout = 60_000L)
+    public void testOfferAndDrain_concurrently() throws InterruptedException {
+
+        // Arrange
+        final SensorValueRing oocut = new SensorValueRing(CAPACITY);
+        final AtomicLong rejectedOffers = new AtomicLong();
+        final AtomicReference<Throwable> consumerFailure = new AtomicReference<>();
+        final Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long rejected = 0L;
+                for (int i = 0; i < VALUES; i++) {
+                    while (!oocut.offer(SENSOR_TYPES[i % SENSOR_TYPES.length], i, -i, 0.5f * i, i)) {
+                        rejected++;
+                        Thread.yield();
+                    }
+                }
+                rejectedOffers.set(rejected);
+            }
+        });
+        final long[] nextExpected = new long[] {0L, 1L, 2L};
+        final Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final Point3dBuffer accelerations = new Point3dBuffer(CAPACITY);
+                    final Point3dBuffer rotations = new Point3dBuffer(CAPACITY);
+                    final Point3dBuffer directions = new Point3dBuffer(CAPACITY);
+                    long drained = 0L;
+                    while (drained < VALUES) {
+                        drained += oocut.drainTo(accelerations, rotations, directions);
+                        check(accelerations, nextExpected, 0);
+                        check(rotations, nextExpected, 1);
+                        check(directions, nextExpected, 2);
+                    }
+                } catch (final Throwable e) {
+                    consumerFailure.set(e);
+                }
+            }
+        });
+
+        // Act
+        consumer.start();
+        producer.start();
+        producer.join();
+        consumer.join();
+
+        // Assert
+        if (consumerFailure.get() != null) {
+            throw new AssertionError(consumerFailure.get());
+        }
+        assertThat(nextExpected[0], is(equalTo((long)VALUES)));
+        assertThat(nextExpected[1], is(equalTo((long)VALUES + 1)));
+        assertThat(nextExpected[2], is(equalTo((long)VALUES + 2)));
+        assertThat(oocut.size(), is(equalTo(0)));
+        // Each rejected offer is counted as dropped value
+        assertThat(oocut.dropped(), is(equalTo(rejectedOffers.get())));
+    }
+
+    /**
+     * Tests that values are dropped and counted when the ring is full.
+     */
+    @Test
+    public void testOffer_whenFull() {
+
+        // Arrange
+        final SensorValueRing oocut = new SensorValueRing(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(oocut.offer(Sensor.TYPE_ACCELEROMETER, i, i, i, i), is(equalTo(true)));
+        }
+
+        // Act
+        final boolean accepted = oocut.offer(Sensor.TYPE_ACCELEROMETER, 4, 4, 4, 4);
+
+        // Assert
+        assertThat(accepted, is(equalTo(false)));
+        assertThat(oocut.dropped(), is(equalTo(1L)));
+        final Point3dBuffer accelerations = new Point3dBuffer(4);
+        assertThat(oocut.drainTo(accelerations, new Point3dBuffer(1), new Point3dBuffer(1)), is(equalTo(4)));
+        assertThat(accelerations.toList().get(3).getTimestamp(), is(equalTo(3L)));
+        assertThat(oocut.offer(Sensor.TYPE_ACCELEROMETER, 4, 4, 4, 4), is(equalTo(true)));
+    }
+
+    /**
+     * Checks that the buffer contains the values of one sensor type in the order they were offered and clears it.
+     *
+     * @param buffer The buffer the values were drained to
+     * @param nextExpected The next expected value for each sensor type, updated by this method
+     * @param sensorIndex The index of the sensor type in {@link #SENSOR_TYPES}
+     */
+    private static void check(final Point3dBuffer buffer, final long[] nextExpected, final int sensorIndex) {
+        final List<Point3d> points = buffer.toList();
+        for (final Point3d point : points) {
+            final long expected = nextExpected[sensorIndex];
+            assertThat(point.getTimestamp(), is(equalTo(expected)));
+            assertThat(point.getX(), is(equalTo((float)expected)));
+            assertThat(point.getY(), is(equalTo((float)-expected)));
+            nextExpected[sensorIndex] = expected + SENSOR_TYPES.length;
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import de.cyface.persistence.model.Point3d;
+
+/**
+ * Tests that {@link Point3dBatch}es share the values of a {@link Point3dBuffer} without copying them and that the
+ * arrays are only reused after all references were released.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+public class Point3dBatchTest {
+
+    /**
+     * The number of values added to the buffer per batch.
+     */
+    private final static int VALUES = 10;
+
+    /**
+     * Tests that slices are views on the values of the batch and are clipped to its size.
+     */
+    @Test
+    public void testSlice() {
+
+        // Arrange
+        final Point3dBatch batch = fill(new Point3dBuffer(VALUES), 0).toBatch();
+
+        // Act
+        final Point3dBatch slice = batch.slice(4, 8);
+        final Point3dBatch clipped = batch.slice(8, 8 + VALUES);
+        final Point3dBatch outside = batch.slice(VALUES + 1, VALUES + 5);
+
+        // Assert
+        assertThat(slice.size(), is(equalTo(4)));
+        assertThat(slice.getTimestamp(0), is(equalTo(4L)));
+        assertThat(slice.getX(3), is(equalTo(7.0f)));
+        assertThat(slice.slice(1, 2).getTimestamp(0), is(equalTo(5L)));
+        assertThat(clipped.size(), is(equalTo(2)));
+        assertThat(clipped.asList().get(1).getTimestamp(), is(equalTo(9L)));
+        assertThat(outside.size(), is(equalTo(0)));
+        assertThat(batch.slice(0, VALUES), is(equalTo(batch)));
+    }
+
+    /**
+     * Tests that the arrays of a batch are not reused while a slice of it is retained, e.g. by the persistence, and are
+     * reused by the buffer after the last reference was released.
+     */
+    @Test
+    public void testRelease_reusesArraysAfterLastReference() {
+
+        // Arrange
+        final Point3dBuffer oocut = new Point3dBuffer(VALUES);
+        final Point3dBatch first = fill(oocut, 0).toBatch();
+        final Point3dBatch retainedSlice = first.slice(0, 5).retain();
+        first.release();
+        final List<Point3d> expected = fill(new Point3dBuffer(VALUES), 0).toList();
+
+        // Act
+        fill(oocut, 100).toBatch().release();
+        fill(oocut, 200).toBatch().release();
+
+        // Assert
+        assertThat(retainedSlice.asList(), is(equalTo(expected.subList(0, 5))));
+
+        // Act
+        retainedSlice.release();
+        // The arrays of the first batch are queued for reuse behind the arrays released before
+        fill(oocut, 300).toBatch();
+        fill(oocut, 400).toBatch();
+        fill(oocut, 500);
+
+        // Assert
+        // The released batch is only read to check that its arrays were reused
+        assertThat(first.getTimestamp(0), is(equalTo(500L)));
+    }
+
+    /**
+     * Tests that {@link CapturedData} slices all sensors the same way and shares their values.
+     */
+    @Test
+    public void testCapturedDataSlice() {
+
+        // Arrange
+        final CapturedData data = new CapturedData(fill(new Point3dBuffer(VALUES), 0).toBatch(),
+                fill(new Point3dBuffer(VALUES), 100).toBatch(), Point3dBatch.empty());
+
+        // Act
+        final CapturedData slice = data.slice(6, 12);
+
+        // Assert
+        assertThat(data.maxSize(), is(equalTo(VALUES)));
+        assertThat(slice.getAccelerations().size(), is(equalTo(4)));
+        assertThat(slice.getRotations().get(0).getTimestamp(), is(equalTo(106L)));
+        assertThat(slice.getDirections().size(), is(equalTo(0)));
+        assertThat(slice, is(equalTo(new CapturedData(data.getAccelerations().subList(6, VALUES),
+                data.getRotations().subList(6, VALUES), data.getDirections()))));
+    }
+
+    /**
+     * Adds {@link #VALUES} values with consecutive timestamps and x components to the buffer.
+     *
+     * @param buffer The buffer to add the values to
+     * @param first The timestamp and x component of the first value
+     * @return The buffer, for chaining
+     */
+    private static Point3dBuffer fill(final Point3dBuffer buffer, final int first) {
+        for (int i = first; i < first + VALUES; i++) {
+            buffer.add(i, -i, 0.5f * i, i);
+        }
+        return buffer;
+    }
+}
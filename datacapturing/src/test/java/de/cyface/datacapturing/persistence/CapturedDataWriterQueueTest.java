@@ -0,0 +1,393 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.persistence;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.datacapturing.model.CapturedData;
+import de.cyface.persistence.model.Point3d;
+import de.cyface.persistence.serialization.Point3dFileAppender;
+
+/**
+ * Tests that the {@link CapturedDataWriterQueue} writes the batches of each file in the order they were added and
+ * applies its {@link OverflowPolicy} when the queue is full.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class CapturedDataWriterQueueTest {
+
+    /**
+     * We require Mockito to avoid calling Android system functions. This rule is responsible for the initialization of
+     * the Spies and Mocks.
+     */
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+    /**
+     * Mocking the appender to collect the written acceleration points.
+     */
+    @Mock
+    private Point3dFileAppender mockAccelerationsFile;
+    /**
+     * Mocking the appender to collect the written rotation points.
+     */
+    @Mock
+    private Point3dFileAppender mockRotationsFile;
+    /**
+     * Mocking the appender to collect the written direction points.
+     */
+    @Mock
+    private Point3dFileAppender mockDirectionsFile;
+    /**
+     * The acceleration points in the order they were written.
+     */
+    private List<Point3d> writtenAccelerations;
+    /**
+     * The rotation points in the order they were written.
+     */
+    private List<Point3d> writtenRotations;
+    /**
+     * The direction points in the order they were written.
+     */
+    private List<Point3d> writtenDirections;
+    /**
+     * Counted down before the writer appends the first accelerations, to hold the writer.
+     */
+    private CountDownLatch writerReleased;
+    /**
+     * The number of {@link WritingDataCompletedCallback}s called.
+     */
+    private AtomicInteger completedCallbacks;
+    /**
+     * The number of points per sensor in each batch.
+     */
+    private final static int POINTS_PER_BATCH = 10;
+    /**
+     * The capacity of the queue of the object of the class under test.
+     */
+    private final static int CAPACITY = 4;
+    /**
+     * The id of the measurement the test data belongs to.
+     */
+    private final static long MEASUREMENT_ID = 1L;
+
+    @Before
+    public void setUp() {
+        writtenAccelerations = Collections.synchronizedList(new ArrayList<Point3d>());
+        writtenRotations = Collections.synchronizedList(new ArrayList<Point3d>());
+        writtenDirections = Collections.synchronizedList(new ArrayList<Point3d>());
+        writerReleased = new CountDownLatch(0);
+        completedCallbacks = new AtomicInteger();
+        doAnswer(collectInto(writtenAccelerations, true)).when(mockAccelerationsFile).append(any(long[].class),
+                any(float[].class), any(float[].class), any(float[].class), anyInt(), anyInt());
+        doAnswer(collectInto(writtenRotations, false)).when(mockRotationsFile).append(any(long[].class),
+                any(float[].class), any(float[].class), any(float[].class), anyInt(), anyInt());
+        doAnswer(collectInto(writtenDirections, false)).when(mockDirectionsFile).append(any(long[].class),
+                any(float[].class), any(float[].class), any(float[].class), anyInt(), anyInt());
+    }
+
+    /**
+     * Tests that the batches are written in the order they were added when the capturing waits for the writer.
+     */
+    @Test
+    public void testAdd_withBlock_writesInOrder() {
+
+        // Arrange
+        final CapturedDataWriterQueue oocut = newQueue(OverflowPolicy.BLOCK);
+        final int batches = 200;
+
+        // Act
+        for (int i = 0; i < batches; i++) {
+            oocut.add(batch(i), callback());
+        }
+        oocut.close(TimeUnit.SECONDS.toMillis(10));
+
+        // Assert
+        assertThat(oocut.getMaxDepth(), is(lessThanOrEqualTo(CAPACITY)));
+        assertThat(oocut.getWrittenBatches(), is(equalTo((long)batches)));
+        assertThat(oocut.getDepth(), is(equalTo(0)));
+        assertThat(completedCallbacks.get(), is(equalTo(batches)));
+        assertWrittenInOrder(batches);
+    }
+
+    /**
+     * Tests that batches added to a full queue are merged into the last queued batch without losing or reordering
+     * points.
+     */
+    @Test
+    public void testAdd_withCoalesce_mergesIntoLastBatch() throws InterruptedException {
+
+        // Arrange
+        final CapturedDataWriterQueue oocut = newQueue(OverflowPolicy.COALESCE);
+        final int batches = 1 + CAPACITY + 5;
+        holdWriter(oocut);
+
+        // Act
+        for (int i = 1; i < batches; i++) {
+            oocut.add(batch(i), callback());
+        }
+        final int depth = oocut.getDepth();
+        writerReleased.countDown();
+        oocut.close(TimeUnit.SECONDS.toMillis(10));
+
+        // Assert
+        assertThat(depth, is(equalTo(CAPACITY)));
+        assertThat(oocut.getCoalescedBatches(), is(equalTo(5L)));
+        assertThat(oocut.getWrittenBatches(), is(equalTo((long)batches - 5)));
+        assertThat(completedCallbacks.get(), is(equalTo(batches)));
+        assertWrittenInOrder(batches);
+    }
+
+    /**
+     * Tests that batches are dropped instead of merged when the last queued batch holds
+     * {@link CapturedDataWriterQueue#MAX_COALESCED_DATA} batches, so the memory used by the queue is bounded.
+     */
+    @Test
+    public void testAdd_withCoalesce_dropsWhenLastBatchIsFull() throws InterruptedException {
+
+        // Arrange
+        final CapturedDataWriterQueue oocut = newQueue(OverflowPolicy.COALESCE);
+        final int coalesced = CapturedDataWriterQueue.MAX_COALESCED_DATA - 1;
+        final int batches = 1 + CAPACITY + coalesced + 3;
+        holdWriter(oocut);
+
+        // Act
+        for (int i = 1; i < batches; i++) {
+            oocut.add(batch(i), callback());
+        }
+        writerReleased.countDown();
+        oocut.close(TimeUnit.SECONDS.toMillis(10));
+
+        // Assert
+        assertThat(oocut.getCoalescedBatches(), is(equalTo((long)coalesced)));
+        assertThat(oocut.getDroppedBatches(), is(equalTo(3L)));
+        assertThat(oocut.getDroppedPoints(), is(equalTo(3L * 3 * POINTS_PER_BATCH)));
+        assertThat(oocut.getWrittenBatches(), is(equalTo((long)CAPACITY + 1)));
+        assertThat(completedCallbacks.get(), is(equalTo(batches)));
+        assertWrittenInOrder(batches - 3);
+    }
+
+    /**
+     * Tests that batches added to a full queue are dropped and counted while the queued batches are written in order.
+     */
+    @Test
+    public void testAdd_withDrop_countsDroppedBatches() throws InterruptedException {
+
+        // Arrange
+        final CapturedDataWriterQueue oocut = newQueue(OverflowPolicy.DROP);
+        final int batches = 1 + CAPACITY + 5;
+        holdWriter(oocut);
+
+        // Act
+        for (int i = 1; i < batches; i++) {
+            oocut.add(batch(i), callback());
+        }
+        writerReleased.countDown();
+        oocut.close(TimeUnit.SECONDS.toMillis(10));
+
+        // Assert
+        assertThat(oocut.getDroppedBatches(), is(equalTo(5L)));
+        assertThat(oocut.getDroppedPoints(), is(equalTo(5L * 3 * POINTS_PER_BATCH)));
+        assertThat(oocut.getWrittenBatches(), is(equalTo((long)batches - 5)));
+        // The callbacks of dropped batches are called as well, so nobody waits for them
+        assertThat(completedCallbacks.get(), is(equalTo(batches)));
+        assertWrittenInOrder(batches - 5);
+    }
+
+    /**
+     * Tests that batches added after the queue was closed are not written.
+     */
+    @Test
+    public void testAdd_afterClose_isIgnored() {
+
+        // Arrange
+        final CapturedDataWriterQueue oocut = newQueue(OverflowPolicy.BLOCK);
+        oocut.add(batch(0), callback());
+        oocut.close(TimeUnit.SECONDS.toMillis(10));
+
+        // Act
+        oocut.add(batch(1), callback());
+
+        // Assert
+        assertThat(oocut.getWrittenBatches(), is(equalTo(1L)));
+        assertThat(completedCallbacks.get(), is(equalTo(2)));
+        assertWrittenInOrder(1);
+    }
+
+    /**
+     * Tests that the batches which were not written when {@code #close(long)} timed out are discarded and their
+     * callbacks are called, so nobody waits for them.
+     */
+    @Test
+    public void testClose_afterTimeout_discardsQueuedBatches() throws InterruptedException {
+
+        // Arrange
+        final CapturedDataWriterQueue oocut = newQueue(OverflowPolicy.BLOCK);
+        holdWriter(oocut);
+        for (int i = 1; i < CAPACITY; i++) {
+            oocut.add(batch(i), callback());
+        }
+
+        // Act
+        // The held writer is interrupted as it does not finish within the timeout
+        oocut.close(100L);
+
+        // Assert
+        assertThat(oocut.getDepth(), is(equalTo(0)));
+        assertThat(oocut.getWrittenBatches(), is(equalTo(1L)));
+        assertThat(oocut.getDroppedBatches(), is(equalTo((long)CAPACITY - 1)));
+        assertThat(completedCallbacks.get(), is(equalTo(CAPACITY)));
+        assertThat(writtenAccelerations.size(), is(equalTo(0)));
+    }
+
+    /**
+     * @param overflowPolicy The {@link OverflowPolicy} of the queue
+     * @return A new object of the class under test
+     */
+    private CapturedDataWriterQueue newQueue(@NonNull final OverflowPolicy overflowPolicy) {
+        return new CapturedDataWriterQueue(CAPACITY, overflowPolicy, mockAccelerationsFile, mockRotationsFile,
+                mockDirectionsFile, MEASUREMENT_ID);
+    }
+
+    /**
+     * Adds the first batch and waits until the writer took it from the queue and is held before writing it, so that
+     * the following batches fill the queue.
+     *
+     * @param oocut The object of the class under test
+     */
+    private void holdWriter(@NonNull final CapturedDataWriterQueue oocut) throws InterruptedException {
+        writerReleased = new CountDownLatch(1);
+        oocut.add(batch(0), callback());
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (oocut.getDepth() != 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1L);
+        }
+        assertThat(oocut.getDepth(), is(equalTo(0)));
+    }
+
+    /**
+     * @param points The list to add the appended points to
+     * @param hold {@code true} if the append should wait for {@link #writerReleased}
+     * @return An {@code Answer} collecting the appended points
+     */
+    private Answer<Void> collectInto(@NonNull final List<Point3d> points, final boolean hold) {
+        return new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                if (hold) {
+                    try {
+                        assertThat(writerReleased.await(10, TimeUnit.SECONDS), is(equalTo(true)));
+                    } catch (final InterruptedException e) {
+                        // Like an interrupted write to a file channel
+                        throw new IllegalStateException(e);
+                    }
+                }
+                final long[] timestamps = invocation.getArgument(0);
+                final float[] xs = invocation.getArgument(1);
+                final float[] ys = invocation.getArgument(2);
+                final float[] zs = invocation.getArgument(3);
+                final int offset = invocation.getArgument(4);
+                final int count = invocation.getArgument(5);
+                for (int i = offset; i < offset + count; i++) {
+                    points.add(new Point3d(xs[i], ys[i], zs[i], timestamps[i]));
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * @return A callback which counts its calls in {@link #completedCallbacks}
+     */
+    private WritingDataCompletedCallback callback() {
+        return new WritingDataCompletedCallback() {
+            @Override
+            public void writingDataCompleted() {
+                completedCallbacks.incrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * @param index The index of the batch, used to generate its timestamps
+     * @return A batch with {@link #POINTS_PER_BATCH} points per sensor and increasing timestamps
+     */
+    private CapturedData batch(final int index) {
+        final List<Point3d> accelerations = new ArrayList<>(POINTS_PER_BATCH);
+        final List<Point3d> rotations = new ArrayList<>(POINTS_PER_BATCH);
+        final List<Point3d> directions = new ArrayList<>(POINTS_PER_BATCH);
+        for (int i = 0; i < POINTS_PER_BATCH; i++) {
+            final long timestamp = (long)index * POINTS_PER_BATCH + i;
+            accelerations.add(new Point3d(1.0f, 0.0f, 0.0f, timestamp));
+            rotations.add(new Point3d(0.0f, 1.0f, 0.0f, timestamp));
+            directions.add(new Point3d(0.0f, 0.0f, 1.0f, timestamp));
+        }
+        return new CapturedData(accelerations, rotations, directions);
+    }
+
+    /**
+     * Checks that each file received the points of the provided number of batches with strictly increasing
+     * timestamps, i.e. that no batch was reordered.
+     *
+     * @param batches The number of batches expected in each file
+     */
+    private void assertWrittenInOrder(final int batches) {
+        for (final List<Point3d> points : Arrays.asList(writtenAccelerations, writtenRotations, writtenDirections)) {
+            assertThat(points.size(), is(equalTo(batches * POINTS_PER_BATCH)));
+            for (int i = 1; i < points.size(); i++) {
+                assertThat(points.get(i).getTimestamp() > points.get(i - 1).getTimestamp(), is(equalTo(true)));
+            }
+        }
+    }
+}
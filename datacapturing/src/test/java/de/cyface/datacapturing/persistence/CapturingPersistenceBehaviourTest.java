@@ -0,0 +1,401 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.persistence;
+
+import static de.cyface.testutils.SharedTestUtils.generateGeoLocation;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.net.Uri;
+import android.os.Build;
+
+import de.cyface.persistence.GeoLocationsTable;
+import de.cyface.persistence.NoSuchMeasurementException;
+import de.cyface.persistence.PersistenceLayer;
+import de.cyface.persistence.model.GeoLocation;
+import de.cyface.utils.CursorIsNullException;
+
+/**
+ * Tests that the {@link CapturingPersistenceBehaviour} buffers {@link GeoLocation}s and writes them in batches
+ * without losing or reordering any of them and that the distance is checkpointed instead of written on each update.
+ *
+ * @author Armin Schnabel
+ * @version 1.3.0
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.O_MR1) // To be able to execute tests with Java 8 (instead of 9)
+public class CapturingPersistenceBehaviourTest {
+
+    /**
+     * We require Mockito to avoid calling Android system functions. This rule is responsible for the initialization of
+     * the Spies and Mocks.
+     */
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+    /**
+     * Mocking the persistence layer to avoid calling Android system functions.
+     */
+    @Mock
+    private PersistenceLayer<CapturingPersistenceBehaviour> mockPersistence;
+    /**
+     * Mocking the resolver to collect the inserted {@link GeoLocation}s.
+     */
+    @Mock
+    private ContentResolver mockResolver;
+    /**
+     * The batches of {@link GeoLocation}s written via {@link ContentResolver#bulkInsert(Uri, ContentValues[])}.
+     */
+    private List<ContentValues[]> insertedBatches;
+    /**
+     * The buffer size used by the object of the class under test.
+     */
+    private final static int LOCATION_BUFFER_SIZE = 10;
+    /**
+     * The id of the measurement to store the test data to.
+     */
+    private final static long MEASUREMENT_ID = 1L;
+    /**
+     * The {@link Uri} of the {@link GeoLocationsTable}.
+     */
+    private final Uri geoLocationsUri = Uri.parse("content://de.cyface.test/locations");
+
+    @Before
+    public void setUp() {
+        // Synchronized as the timer inserts on its own thread
+        insertedBatches = Collections.synchronizedList(new ArrayList<ContentValues[]>());
+        when(mockPersistence.getResolver()).thenReturn(mockResolver);
+        when(mockPersistence.getGeoLocationsUri()).thenReturn(geoLocationsUri);
+        when(mockResolver.bulkInsert(eq(geoLocationsUri), any(ContentValues[].class)))
+                .thenAnswer(new Answer<Integer>() {
+                    @Override
+                    public Integer answer(final InvocationOnMock invocation) {
+                        final ContentValues[] values = invocation.getArgument(1);
+                        insertedBatches.add(values);
+                        return values.length;
+                    }
+                });
+    }
+
+    /**
+     * Tests that {@code GeoLocation}s are written in one batch as soon as the buffer is full.
+     */
+    @Test
+    public void testStoreLocation_flushesWhenBufferIsFull() {
+
+        // Arrange
+        final CapturingPersistenceBehaviour oocut = new CapturingPersistenceBehaviour(LOCATION_BUFFER_SIZE,
+                Long.MAX_VALUE);
+        oocut.onStart(mockPersistence);
+
+        // Act
+        for (int i = 0; i < LOCATION_BUFFER_SIZE * 2 + 5; i++) {
+            oocut.storeLocation(generateGeoLocation(i), MEASUREMENT_ID);
+        }
+
+        // Assert
+        assertThat(insertedBatches.size(), is(equalTo(2)));
+        assertThat(insertedBatches.get(0).length, is(equalTo(LOCATION_BUFFER_SIZE)));
+        assertThat(insertedBatches.get(1).length, is(equalTo(LOCATION_BUFFER_SIZE)));
+        assertOrdered(0);
+        verify(mockResolver, never()).insert(any(Uri.class), any(ContentValues.class));
+    }
+
+    /**
+     * Tests that {@code GeoLocation}s which do not fill the buffer are written on {@code #flush()}, e.g. before tracks
+     * are loaded, and on {@code #shutdown()}.
+     */
+    @Test
+    public void testFlushAndShutdown_writeRemainingLocations() {
+
+        // Arrange
+        final CapturingPersistenceBehaviour oocut = new CapturingPersistenceBehaviour(LOCATION_BUFFER_SIZE,
+                Long.MAX_VALUE);
+        oocut.onStart(mockPersistence);
+        oocut.storeLocation(generateGeoLocation(0), MEASUREMENT_ID);
+        oocut.storeLocation(generateGeoLocation(1), MEASUREMENT_ID);
+        assertThat(insertedBatches.size(), is(equalTo(0)));
+
+        // Act
+        oocut.flush();
+        oocut.flush(); // An empty buffer must not lead to an insert
+        oocut.storeLocation(generateGeoLocation(2), MEASUREMENT_ID);
+        oocut.shutdown();
+
+        // Assert
+        assertThat(insertedBatches.size(), is(equalTo(2)));
+        assertThat(insertedBatches.get(0).length, is(equalTo(2)));
+        assertThat(insertedBatches.get(1).length, is(equalTo(1)));
+        assertOrdered(0);
+        assertThat(insertedBatches.get(0)[0].getAsLong(GeoLocationsTable.COLUMN_MEASUREMENT_FK),
+                is(equalTo(MEASUREMENT_ID)));
+    }
+
+    /**
+     * Tests that each {@code GeoLocation} is written directly when the flush interval is {@code 0}.
+     */
+    @Test
+    public void testStoreLocation_flushesWhenIntervalElapsed() {
+
+        // Arrange
+        final CapturingPersistenceBehaviour oocut = new CapturingPersistenceBehaviour(LOCATION_BUFFER_SIZE, 0L);
+        oocut.onStart(mockPersistence);
+
+        // Act
+        oocut.storeLocation(generateGeoLocation(0), MEASUREMENT_ID);
+        oocut.storeLocation(generateGeoLocation(1), MEASUREMENT_ID);
+
+        // Assert
+        assertThat(insertedBatches.size(), is(equalTo(2)));
+        assertOrdered(0);
+    }
+
+    /**
+     * Tests that buffered {@code GeoLocation}s are written when the flush interval elapsed, even if no further
+     * {@code GeoLocation} is stored. Readers in other processes rely on this as they cannot trigger a flush.
+     */
+    @Test(timeout = 10_000L)
+    public void testStoreLocation_flushesByTimerWithoutNewLocation() throws InterruptedException {
+
+        // Arrange
+        final CapturingPersistenceBehaviour oocut = new CapturingPersistenceBehaviour(LOCATION_BUFFER_SIZE, 100L);
+        oocut.onStart(mockPersistence);
+
+        // Act
+        oocut.storeLocation(generateGeoLocation(0), MEASUREMENT_ID);
+        oocut.storeLocation(generateGeoLocation(1), MEASUREMENT_ID);
+        while (insertedBatches.isEmpty()) {
+            Thread.sleep(10L);
+        }
+
+        // Assert
+        assertThat(insertedBatches.size(), is(equalTo(1)));
+        assertThat(insertedBatches.get(0).length, is(equalTo(2)));
+        assertOrdered(0);
+        oocut.shutdown();
+    }
+
+    /**
+     * Tests that a {@code #flush()} only returns after a batch taken by a concurrent flush was inserted and that both
+     * batches are inserted in the order they were taken.
+     */
+    @Test(timeout = 10_000L)
+    public void testFlush_waitsForConcurrentInsert() throws InterruptedException {
+
+        // Arrange
+        final CountDownLatch firstInsertStarted = new CountDownLatch(1);
+        final CountDownLatch firstInsertReleased = new CountDownLatch(1);
+        when(mockResolver.bulkInsert(eq(geoLocationsUri), any(ContentValues[].class)))
+                .thenAnswer(new Answer<Integer>() {
+                    @Override
+                    public Integer answer(final InvocationOnMock invocation) throws InterruptedException {
+                        final ContentValues[] values = invocation.getArgument(1);
+                        if (firstInsertStarted.getCount() > 0) {
+                            firstInsertStarted.countDown();
+                            firstInsertReleased.await();
+                        }
+                        insertedBatches.add(values);
+                        return values.length;
+                    }
+                });
+        final CapturingPersistenceBehaviour oocut = new CapturingPersistenceBehaviour(LOCATION_BUFFER_SIZE,
+                Long.MAX_VALUE);
+        oocut.onStart(mockPersistence);
+        final Thread firstFlush = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < LOCATION_BUFFER_SIZE; i++) {
+                    oocut.storeLocation(generateGeoLocation(i), MEASUREMENT_ID);
+                }
+            }
+        });
+        firstFlush.start();
+        firstInsertStarted.await();
+
+        // Act
+        final AtomicBoolean secondFlushReturned = new AtomicBoolean();
+        final Thread secondFlush = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                oocut.storeLocation(generateGeoLocation(LOCATION_BUFFER_SIZE), MEASUREMENT_ID);
+                oocut.flush();
+                secondFlushReturned.set(true);
+            }
+        });
+        secondFlush.start();
+        secondFlush.join(200L);
+        final boolean returnedBeforeFirstInsert = secondFlushReturned.get();
+        firstInsertReleased.countDown();
+        firstFlush.join();
+        secondFlush.join();
+
+        // Assert
+        assertThat(returnedBeforeFirstInsert, is(equalTo(false)));
+        assertThat(insertedBatches.size(), is(equalTo(2)));
+        assertThat(insertedBatches.get(0).length, is(equalTo(LOCATION_BUFFER_SIZE)));
+        assertThat(insertedBatches.get(1).length, is(equalTo(1)));
+        assertOrdered(0);
+    }
+
+    /**
+     * Tests that distance updates are kept in memory and only the latest one is written on {@code #flush()}.
+     */
+    @Test
+    public void testUpdateDistance_checkpointsOnFlush() throws NoSuchMeasurementException, CursorIsNullException {
+
+        // Arrange
+        final CapturingPersistenceBehaviour oocut = new CapturingPersistenceBehaviour(LOCATION_BUFFER_SIZE,
+                Long.MAX_VALUE, Long.MAX_VALUE);
+        oocut.onStart(mockPersistence);
+        oocut.onNewMeasurement(MEASUREMENT_ID);
+
+        // Act
+        oocut.updateDistance(1.0);
+        oocut.updateDistance(2.0);
+        oocut.updateDistance(3.0);
+        verify(mockPersistence, never()).setDistance(eq(MEASUREMENT_ID), anyDouble());
+        oocut.flush();
+        oocut.flush(); // Without a new update the distance must not be written again
+
+        // Assert
+        verify(mockPersistence, times(1)).setDistance(MEASUREMENT_ID, 3.0);
+        verify(mockPersistence, times(1)).setDistance(eq(MEASUREMENT_ID), anyDouble());
+    }
+
+    /**
+     * Tests that a full location buffer only writes the {@code GeoLocation}s and does not checkpoint the distance
+     * before its checkpoint interval elapsed.
+     */
+    @Test
+    public void testStoreLocation_keepsDistanceCheckpointInterval()
+            throws NoSuchMeasurementException, CursorIsNullException {
+
+        // Arrange
+        final CapturingPersistenceBehaviour oocut = new CapturingPersistenceBehaviour(LOCATION_BUFFER_SIZE,
+                Long.MAX_VALUE, Long.MAX_VALUE);
+        oocut.onStart(mockPersistence);
+        oocut.onNewMeasurement(MEASUREMENT_ID);
+        oocut.updateDistance(1.0);
+
+        // Act
+        for (int i = 0; i < LOCATION_BUFFER_SIZE; i++) {
+            oocut.storeLocation(generateGeoLocation(i), MEASUREMENT_ID);
+        }
+
+        // Assert
+        assertThat(insertedBatches.size(), is(equalTo(1)));
+        verify(mockPersistence, never()).setDistance(eq(MEASUREMENT_ID), anyDouble());
+    }
+
+    /**
+     * Tests that the pending distance is written before the {@code Measurement} is paused or stopped and when the
+     * capturing process shuts down.
+     */
+    @Test
+    public void testUpdateDistance_checkpointsOnShutdown() throws NoSuchMeasurementException, CursorIsNullException {
+
+        // Arrange
+        final CapturingPersistenceBehaviour oocut = new CapturingPersistenceBehaviour(LOCATION_BUFFER_SIZE,
+                Long.MAX_VALUE, Long.MAX_VALUE);
+        oocut.onStart(mockPersistence);
+        oocut.onNewMeasurement(MEASUREMENT_ID);
+        oocut.updateDistance(5.0);
+
+        // Act
+        oocut.shutdown();
+
+        // Assert
+        verify(mockPersistence, times(1)).setDistance(MEASUREMENT_ID, 5.0);
+    }
+
+    /**
+     * Tests that each distance update is written directly when the checkpoint interval is {@code 0} and that the
+     * {@code GeoLocation}s are written before the distance which is based on them.
+     */
+    @Test
+    public void testUpdateDistance_checkpointsWhenIntervalElapsed()
+            throws NoSuchMeasurementException, CursorIsNullException {
+
+        // Arrange
+        final CapturingPersistenceBehaviour oocut = new CapturingPersistenceBehaviour(LOCATION_BUFFER_SIZE,
+                Long.MAX_VALUE, 0L);
+        oocut.onStart(mockPersistence);
+        oocut.onNewMeasurement(MEASUREMENT_ID);
+
+        // Act
+        oocut.updateDistance(1.0);
+        oocut.updateDistance(2.0);
+        oocut.storeLocation(generateGeoLocation(0), MEASUREMENT_ID);
+        oocut.flush();
+
+        // Assert
+        final InOrder inOrder = inOrder(mockPersistence, mockResolver);
+        inOrder.verify(mockPersistence).setDistance(MEASUREMENT_ID, 1.0);
+        inOrder.verify(mockPersistence).setDistance(MEASUREMENT_ID, 2.0);
+        inOrder.verify(mockResolver).bulkInsert(eq(geoLocationsUri), any(ContentValues[].class));
+        verify(mockPersistence, times(2)).setDistance(eq(MEASUREMENT_ID), anyDouble());
+    }
+
+    /**
+     * Checks that the inserted {@code GeoLocation}s were generated with increasing distances in the order they were
+     * stored, i.e. that no {@code GeoLocation} was lost or reordered.
+     *
+     * @param firstDistance The distance from base of the first stored {@code GeoLocation}
+     */
+    private void assertOrdered(@SuppressWarnings("SameParameterValue") final int firstDistance) {
+        int expectedDistance = firstDistance;
+        for (final ContentValues[] batch : insertedBatches) {
+            for (final ContentValues values : batch) {
+                final GeoLocation expected = generateGeoLocation(expectedDistance++);
+                assertThat(values.getAsLong(GeoLocationsTable.COLUMN_GEOLOCATION_TIME),
+                        is(equalTo(expected.getTimestamp())));
+            }
+        }
+    }
+}
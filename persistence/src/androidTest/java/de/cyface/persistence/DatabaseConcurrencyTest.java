@@ -0,0 +1,193 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import static de.cyface.persistence.Constants.TAG;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+/**
+ * Tests that a long read, like the synchronization loading a whole measurement, does not stall the inserts of the
+ * capturing when write-ahead logging is enabled via the {@link DatabaseConfiguration}.
+ * <p>
+ * This is an instrumented test as the SQLite implementation used by Robolectric serializes all database operations.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseConcurrencyTest {
+
+    /**
+     * The number of {@code GeoLocation}s in the database, read by the long read.
+     */
+    private final static int ROWS = 100_000;
+    /**
+     * The id of the measurement to store the test data to.
+     */
+    private final static long MEASUREMENT_ID = 1L;
+    /**
+     * The time in milliseconds to wait after the long read started before the insert is executed.
+     */
+    private final static long READ_HEAD_START_MILLIS = 100L;
+    /**
+     * The file of the database used for the test.
+     */
+    private File databaseFile;
+    /**
+     * The database used for the test.
+     */
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        databaseFile = context.getDatabasePath("concurrency_test");
+        SQLiteDatabase.deleteDatabase(databaseFile);
+    }
+
+    @After
+    public void tearDown() {
+        if (db != null) {
+            db.close();
+        }
+        SQLiteDatabase.deleteDatabase(databaseFile);
+    }
+
+    /**
+     * Tests that an insert is executed while a long read is running.
+     */
+    @Test
+    public void testInsertDuringLongRead_withWriteAheadLogging() throws InterruptedException {
+
+        // Arrange
+        open(new DatabaseConfiguration(true, "NORMAL", null, null));
+
+        // Act
+        final long[] durations = insertDuringLongRead();
+
+        // Assert
+        final long readMillis = durations[0];
+        final long insertMillis = durations[1];
+        Log.i(TAG, "WAL: long read took " + readMillis + " ms, insert took " + insertMillis + " ms");
+        assertThat(db.isWriteAheadLoggingEnabled(), is(equalTo(true)));
+        assertThat("Insert stalled by the long read", insertMillis < (readMillis - READ_HEAD_START_MILLIS) / 2,
+                is(equalTo(true)));
+    }
+
+    /**
+     * Logs the insert latency during a long read with rollback journaling to compare it with the test above.
+     * <p>
+     * Nothing is asserted about the duration as this is the behaviour write-ahead logging is enabled to avoid.
+     */
+    @Test
+    public void testInsertDuringLongRead_withRollbackJournal() throws InterruptedException {
+
+        // Arrange
+        open(DatabaseConfiguration.defaults());
+
+        // Act
+        final long[] durations = insertDuringLongRead();
+
+        // Assert
+        Log.i(TAG, "Rollback journal: long read took " + durations[0] + " ms, insert took " + durations[1] + " ms");
+        assertThat(db.isWriteAheadLoggingEnabled(), is(equalTo(false)));
+    }
+
+    /**
+     * Opens the test database the same way the {@link DatabaseHelper} configures and creates the productive one.
+     *
+     * @param configuration The {@link DatabaseConfiguration} to apply
+     */
+    private void open(@NonNull final DatabaseConfiguration configuration) {
+        final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        final DatabaseHelper helper = new DatabaseHelper(context, configuration);
+        db = SQLiteDatabase.openOrCreateDatabase(databaseFile, null);
+        helper.onConfigure(db);
+        helper.onCreate(db);
+        db.execSQL("WITH RECURSIVE counter(x) AS (SELECT 0 UNION ALL SELECT x + 1 FROM counter LIMIT " + ROWS
+                + ") INSERT INTO locations (gps_time, lat, lon, speed, accuracy, measurement_fk) "
+                + "SELECT 1551431485000 + x, 51.05210394, 13.72873203, 0.0, 1179, " + MEASUREMENT_ID
+                + " FROM counter;");
+    }
+
+    /**
+     * Starts a long read on a background thread and inserts one {@code GeoLocation} while the read is running.
+     *
+     * @return The duration of the read and of the insert in milliseconds
+     */
+    private long[] insertDuringLongRead() throws InterruptedException {
+        final CountDownLatch readStarted = new CountDownLatch(1);
+        final AtomicLong readMillis = new AtomicLong();
+        final Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final long start = System.currentTimeMillis();
+                readStarted.countDown();
+                // A self-join keeps one read transaction open for the whole statement
+                try (final Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM locations a JOIN locations b ON "
+                        + "b.measurement_fk = a.measurement_fk AND b.gps_time >= a.gps_time "
+                        + "AND b.gps_time < a.gps_time + 100 WHERE a.measurement_fk = ?",
+                        new String[] {String.valueOf(MEASUREMENT_ID)})) {
+                    cursor.moveToFirst();
+                }
+                readMillis.set(System.currentTimeMillis() - start);
+            }
+        });
+        reader.start();
+        assertThat(readStarted.await(10, TimeUnit.SECONDS), is(equalTo(true)));
+        Thread.sleep(READ_HEAD_START_MILLIS);
+
+        final long insertStart = System.currentTimeMillis();
+        final ContentValues values = new ContentValues();
+        values.put(GeoLocationsTable.COLUMN_GEOLOCATION_TIME, 1551431485000L + ROWS);
+        values.put(GeoLocationsTable.COLUMN_LAT, 51.05210394);
+        values.put(GeoLocationsTable.COLUMN_LON, 13.72873203);
+        values.put(GeoLocationsTable.COLUMN_SPEED, 0.0);
+        values.put(GeoLocationsTable.COLUMN_ACCURACY, 1179);
+        values.put(GeoLocationsTable.COLUMN_MEASUREMENT_FK, MEASUREMENT_ID);
+        assertThat(db.insert(GeoLocationsTable.URI_PATH, null, values) != -1L, is(equalTo(true)));
+        final long insertMillis = System.currentTimeMillis() - insertStart;
+
+        reader.join();
+        return new long[] {readMillis.get(), insertMillis};
+    }
+}
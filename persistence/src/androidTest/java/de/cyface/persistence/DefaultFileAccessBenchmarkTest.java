@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import static de.cyface.persistence.Constants.TAG;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+/**
+ * Compares the throughput of {@link DefaultFileAccess#transferTo} with the copy loop of
+ * {@link DefaultFileAccess#writeToOutputStream} on a device, on a file of the size of the {@code Point3d}s of a long
+ * measurement.
+ * <p>
+ * The throughput is only logged as it depends on the device and its storage.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class DefaultFileAccessBenchmarkTest {
+
+    /**
+     * The size of the file copied by the benchmark, about the size of the three {@code Point3d} files of a six hour
+     * measurement captured with 100 Hz in the legacy format.
+     */
+    private final static int BENCHMARK_FILE_SIZE = 200 * 1024 * 1024;
+    /**
+     * A folder which is deleted after each test.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    /**
+     * The object of the class under test.
+     */
+    private final DefaultFileAccess oocut = new DefaultFileAccess();
+
+    /**
+     * Compares the throughput of the copy loop with the transfer into the channel of a temp file.
+     */
+    @Test
+    @LargeTest
+    @Ignore("Because this is a very large test which does not need to be executed each time")
+    public void testBenchmark() throws IOException {
+
+        // Arrange
+        final File file = writeFile(BENCHMARK_FILE_SIZE);
+        final File copied = folder.newFile("copied");
+        final File transferred = folder.newFile("transferred");
+
+        // Act
+        final long copyStart = System.nanoTime();
+        try (final BufferedOutputStream outputStream = new BufferedOutputStream(new FileOutputStream(copied))) {
+            oocut.writeToOutputStream(file, outputStream);
+        }
+        final long copyNanos = System.nanoTime() - copyStart;
+        final long transferStart = System.nanoTime();
+        try (final FileOutputStream outputStream = new FileOutputStream(transferred)) {
+            oocut.transferTo(file, 0L, file.length(), outputStream.getChannel());
+        }
+        final long transferNanos = System.nanoTime() - transferStart;
+
+        // Assert
+        assertThat(copied.length(), is(equalTo((long)BENCHMARK_FILE_SIZE)));
+        assertThat(transferred.length(), is(equalTo((long)BENCHMARK_FILE_SIZE)));
+        assertThat(contentEquals(file, transferred), is(equalTo(true)));
+        Log.i(TAG, String.format("Copying %s: copy loop %.0f MB/s, transferTo %.0f MB/s",
+                DefaultFileAccess.humanReadableByteCount(BENCHMARK_FILE_SIZE, true),
+                BENCHMARK_FILE_SIZE / 1_000_000.0 / (copyNanos / 1_000_000_000.0),
+                BENCHMARK_FILE_SIZE / 1_000_000.0 / (transferNanos / 1_000_000_000.0)));
+    }
+
+    /**
+     * @param size The number of bytes to write
+     * @return A file with random content of the provided size
+     */
+    private File writeFile(final int size) throws IOException {
+        final File file = folder.newFile();
+        final Random random = new Random(1L);
+        final byte[] chunk = new byte[1024 * 1024];
+        try (final FileOutputStream outputStream = new FileOutputStream(file)) {
+            for (int written = 0; written < size; written += chunk.length) {
+                random.nextBytes(chunk);
+                outputStream.write(chunk, 0, Math.min(chunk.length, size - written));
+            }
+        }
+        return file;
+    }
+
+    /**
+     * @param expected The file with the expected content
+     * @param actual The file to compare
+     * @return {@code true} if both files have the same content
+     */
+    private boolean contentEquals(@NonNull final File expected, @NonNull final File actual) throws IOException {
+        try (final DataInputStream expectedStream = new DataInputStream(new FileInputStream(expected));
+                final DataInputStream actualStream = new DataInputStream(new FileInputStream(actual))) {
+            final byte[] expectedChunk = new byte[64 * 1024];
+            final byte[] actualChunk = new byte[expectedChunk.length];
+            for (long remaining = expected.length(); remaining > 0; remaining -= expectedChunk.length) {
+                final int length = (int)Math.min(expectedChunk.length, remaining);
+                expectedStream.readFully(expectedChunk, 0, length);
+                actualStream.readFully(actualChunk, 0, length);
+                if (!Arrays.equals(expectedChunk, actualChunk)) {
+                    return false;
+                }
+            }
+            return actualStream.read() == -1;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import static de.cyface.persistence.Constants.TAG;
+import static de.cyface.persistence.DatabaseTestUtils.count;
+import static de.cyface.persistence.DatabaseTestUtils.createDatabase;
+import static de.cyface.persistence.DatabaseTestUtils.geoLocation;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import de.cyface.persistence.model.GeoLocation;
+
+/**
+ * Compares the throughput of the compiled statement path of
+ * {@link AbstractCyfaceMeasurementTable#insertBatch(SQLiteDatabase, List)} with inserting each {@link ContentValues}
+ * via {@link SQLiteDatabase#insert} on a device.
+ * <p>
+ * The throughput is only logged as it depends on the device.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class InsertBatchBenchmarkTest {
+
+    /**
+     * The number of {@link GeoLocation}s inserted per benchmark run.
+     */
+    private final static int ROWS = 50_000;
+    /**
+     * The id of the measurement to store the test data to.
+     */
+    private final static long MEASUREMENT_ID = 1L;
+    /**
+     * The database used for the test.
+     */
+    private SQLiteDatabase db;
+    /**
+     * The object of the class under test.
+     */
+    private GeoLocationsTable oocut;
+
+    @Before
+    public void setUp() {
+        db = createDatabase(InstrumentationRegistry.getInstrumentation().getTargetContext());
+        oocut = new GeoLocationsTable();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    /**
+     * Compares the rows per second of the compiled statement path with the {@code ContentValues} path.
+     */
+    @Test
+    public void testInsertBatchThroughput() {
+
+        // Arrange
+        final List<ContentValues> values = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            values.add(geoLocation(i, MEASUREMENT_ID));
+        }
+
+        // Act
+        final long contentValuesNanos = insertWithContentValues(values);
+        db.execSQL("DELETE FROM " + GeoLocationsTable.URI_PATH);
+        final long compiledStatementNanos = insertWithCompiledStatement(values);
+
+        // Assert
+        assertThat(count(db, GeoLocationsTable.URI_PATH), is(equalTo((long)ROWS)));
+        Log.i(TAG, String.format("ContentValues path: %.0f rows/s, compiled statement path: %.0f rows/s",
+                ROWS / (contentValuesNanos / 1_000_000_000.0), ROWS / (compiledStatementNanos / 1_000_000_000.0)));
+    }
+
+    /**
+     * Inserts the rows like {@code insertBatch} did before it used a compiled statement.
+     *
+     * @param values The rows to insert
+     * @return The time in nanoseconds it took to insert the rows
+     */
+    private long insertWithContentValues(@NonNull final List<ContentValues> values) {
+        final long start = System.nanoTime();
+        db.beginTransaction();
+        try {
+            for (final ContentValues row : values) {
+                oocut.insertRow(db, row);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * @param values The rows to insert
+     * @return The time in nanoseconds it took to insert the rows
+     */
+    private long insertWithCompiledStatement(@NonNull final List<ContentValues> values) {
+        final long start = System.nanoTime();
+        oocut.insertBatch(db, values);
+        return System.nanoTime() - start;
+    }
+}
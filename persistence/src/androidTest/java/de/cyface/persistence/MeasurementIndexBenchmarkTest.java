@@ -0,0 +1,165 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import static de.cyface.persistence.Constants.TAG;
+import static de.cyface.persistence.DatabaseTestUtils.createDatabase;
+import static de.cyface.persistence.DatabaseTestUtils.insertEvents;
+import static de.cyface.persistence.DatabaseTestUtils.insertGeoLocations;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import de.cyface.persistence.model.Event;
+import de.cyface.persistence.model.GeoLocation;
+import de.cyface.persistence.model.Measurement;
+
+/**
+ * Benchmarks the queries which load the {@link GeoLocation}s and {@link Event}s of one {@link Measurement} on a device
+ * while the tables grow, to make sure the indices added in {@link DatabaseHelper} version 17 keep the query time flat.
+ * <p>
+ * The query time is only logged for each table size as it depends on the device. That the queries use the indices is
+ * tested by the {@code MeasurementIndexTest}.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class MeasurementIndexBenchmarkTest {
+
+    /**
+     * The number of rows stored per {@link Measurement}, which is about 3 hours of capturing with 1 Hz.
+     */
+    private final static int ROWS_PER_MEASUREMENT = 10_000;
+    /**
+     * The table sizes to benchmark, i.e. the number of rows in the table when the queries are executed.
+     */
+    private final static int[] TABLE_SIZES = {10_000, 100_000, 1_000_000};
+    /**
+     * The number of times each query is executed per table size. The median is reported.
+     */
+    private final static int REPETITIONS = 5;
+    /**
+     * The database used for the benchmark.
+     */
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        db = createDatabase(InstrumentationRegistry.getInstrumentation().getTargetContext());
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    /**
+     * Loads the {@code GeoLocation}s of the latest {@code Measurement} while the table grows.
+     */
+    @Test
+    @LargeTest
+    @Ignore("Because this is a very large test which does not need to be executed each time")
+    public void testLoadGeoLocationsOfMeasurement() {
+        final String query = "SELECT * FROM " + GeoLocationsTable.URI_PATH + " WHERE "
+                + GeoLocationsTable.COLUMN_MEASUREMENT_FK + " = ? ORDER BY " + GeoLocationsTable.COLUMN_GEOLOCATION_TIME
+                + " ASC";
+
+        int rows = 0;
+        for (final int tableSize : TABLE_SIZES) {
+            // Arrange
+            insertGeoLocations(db, rows, tableSize - rows, ROWS_PER_MEASUREMENT);
+            rows = tableSize;
+            final long measurementId = tableSize / ROWS_PER_MEASUREMENT;
+
+            // Act
+            final long medianNanos = medianQueryTime(query, measurementId);
+
+            Log.i(TAG, String.format("Loading %d GeoLocations from a table with %d rows took %.2f ms",
+                    ROWS_PER_MEASUREMENT, tableSize, medianNanos / 1_000_000.0));
+        }
+    }
+
+    /**
+     * Loads the {@code Event}s of the latest {@code Measurement} while the table grows.
+     */
+    @Test
+    @LargeTest
+    @Ignore("Because this is a very large test which does not need to be executed each time")
+    public void testLoadEventsOfMeasurement() {
+        final String query = "SELECT * FROM " + EventTable.URI_PATH + " WHERE " + EventTable.COLUMN_MEASUREMENT_FK
+                + " = ? ORDER BY " + EventTable.COLUMN_TIMESTAMP + " ASC";
+
+        int rows = 0;
+        for (final int tableSize : TABLE_SIZES) {
+            // Arrange
+            insertEvents(db, rows, tableSize - rows, ROWS_PER_MEASUREMENT);
+            rows = tableSize;
+            final long measurementId = tableSize / ROWS_PER_MEASUREMENT;
+
+            // Act
+            final long medianNanos = medianQueryTime(query, measurementId);
+
+            Log.i(TAG, String.format("Loading %d Events from a table with %d rows took %.2f ms", ROWS_PER_MEASUREMENT,
+                    tableSize, medianNanos / 1_000_000.0));
+        }
+    }
+
+    /**
+     * Executes a query {@link #REPETITIONS} times and iterates over all returned rows.
+     *
+     * @param query The query to execute with the {@code Measurement} id as only argument
+     * @param measurementId The id of the {@code Measurement} to load
+     * @return The median time in nanoseconds it took to execute the query and to iterate the result
+     */
+    private long medianQueryTime(@NonNull final String query, final long measurementId) {
+        final long[] durations = new long[REPETITIONS];
+        for (int i = 0; i < REPETITIONS; i++) {
+            final long start = System.nanoTime();
+            try (final Cursor cursor = db.rawQuery(query, new String[] {String.valueOf(measurementId)})) {
+                int loaded = 0;
+                while (cursor.moveToNext()) {
+                    loaded++;
+                }
+                assertThat(loaded, is(equalTo(ROWS_PER_MEASUREMENT)));
+            }
+            durations[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(durations);
+        return durations[REPETITIONS / 2];
+    }
+}
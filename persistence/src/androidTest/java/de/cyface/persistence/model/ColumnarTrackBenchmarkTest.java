@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.model;
+
+import static de.cyface.persistence.Constants.TAG;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+/**
+ * Compares the memory usage and iteration speed of a {@link ColumnarTrack} with a {@link Track} holding the same
+ * {@link GeoLocation}s on a device.
+ * <p>
+ * The results are only logged as the heap and timing depend on the device.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class ColumnarTrackBenchmarkTest {
+
+    /**
+     * The number of {@link GeoLocation}s used for the benchmarks, about 14 hours captured at 1 Hz.
+     */
+    private final static int LOCATIONS = 50_000;
+    /**
+     * The number of iterations over the {@code GeoLocation}s to measure.
+     */
+    private final static int ITERATIONS = 20;
+
+    /**
+     * Logs the heap used by a {@code Track} and a {@code ColumnarTrack} holding the same {@code GeoLocation}s.
+     */
+    @Test
+    public void testMemory() {
+
+        // Act
+        final long trackBytes;
+        final long columnarTrackBytes;
+        final Track track;
+        final ColumnarTrack columnarTrack;
+        long before = usedMemory();
+        track = track(LOCATIONS);
+        trackBytes = usedMemory() - before;
+        before = usedMemory();
+        columnarTrack = ColumnarTrack.from(track);
+        columnarTrackBytes = usedMemory() - before;
+
+        // Assert
+        assertThat(columnarTrack.size(), is(equalTo(track.getGeoLocations().size())));
+        Log.i(TAG, String.format("Track: %.1f bytes per location, ColumnarTrack: %.1f bytes per location",
+                trackBytes / (double)LOCATIONS, columnarTrackBytes / (double)LOCATIONS));
+    }
+
+    /**
+     * Compares the time it takes to calculate the average speed of a {@code Track} and a {@code ColumnarTrack}.
+     */
+    @Test
+    public void testIteration() {
+
+        // Arrange
+        final Track track = track(LOCATIONS);
+        final List<GeoLocation> locations = track.getGeoLocations();
+        final ColumnarTrack columnarTrack = ColumnarTrack.from(track);
+
+        // Act
+        double trackSum = 0.0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (final GeoLocation location : locations) {
+                trackSum += location.getSpeed();
+            }
+        }
+        final long trackNanos = System.nanoTime() - start;
+        double columnarTrackSum = 0.0;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (int j = 0; j < columnarTrack.size(); j++) {
+                columnarTrackSum += columnarTrack.getSpeed(j);
+            }
+        }
+        final long columnarTrackNanos = System.nanoTime() - start;
+
+        // Assert
+        assertThat(columnarTrackSum, is(equalTo(trackSum)));
+        Log.i(TAG, String.format("Track: %.1f ns per location, ColumnarTrack: %.1f ns per location",
+                trackNanos / (double)(LOCATIONS * ITERATIONS), columnarTrackNanos / (double)(LOCATIONS * ITERATIONS)));
+    }
+
+    /**
+     * @param locations The number of {@code GeoLocation}s to add
+     * @return A {@code Track} with the provided number of {@code GeoLocation}s
+     */
+    @NonNull
+    private Track track(final int locations) {
+        final Track track = new Track();
+        for (int i = 0; i < locations; i++) {
+            track.add(new GeoLocation(51.0 + i * 0.00001, 13.7 + i * 0.00001, 1_000_000_000L + i * 1_000L,
+                    (i % 100) / 10.0, 5.0f + i % 20));
+        }
+        return track;
+    }
+
+    /**
+     * @return The heap currently used after a garbage collection was requested
+     */
+    private long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.Constants.TAG;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY;
+import static de.cyface.persistence.serialization.MeasurementSerializer.LEGACY_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.testutils.SharedTestUtils.generateNoisyPoint3ds;
+import static de.cyface.testutils.SharedTestUtils.inflate;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import de.cyface.persistence.model.Point3d;
+
+/**
+ * Compares the time the synchronization spends to compress the {@link Point3d}s of a long {@code Measurement} with and
+ * without compressing them into a {@link CompressedPoint3dFile} while capturing on a device.
+ * <p>
+ * The durations are only logged as they depend on the device.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class CompressedPoint3dFileBenchmarkTest {
+
+    /**
+     * A folder which is deleted after each test.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Compares the CPU and wall-clock time the synchronization spends to compress the accelerations of a one hour
+     * {@code Measurement} captured with 100 Hz, with and without compressing them while capturing.
+     */
+    @Test
+    @LargeTest
+    @Ignore("Because this is a very large test which does not need to be executed each time")
+    public void testBenchmark() throws IOException, DataFormatException {
+
+        // Arrange
+        final List<Point3d> points = generateNoisyPoint3ds(100 * 60 * 60, new Random(1L));
+        final File file = folder.newFile("test.cyfa");
+        final Point3dFileAppender appender = new Point3dFileAppender(file, PERSISTENCE_FILE_FORMAT_VERSION,
+                Point3dFileAppender.DEFAULT_BUFFER_SIZE, Long.MAX_VALUE, true);
+        long cpuStart = Debug.threadCpuTimeNanos();
+        for (int i = 0; i < points.size(); i += 100) {
+            // Batches as delivered by the sensors
+            appender.append(points.subList(i, Math.min(i + 100, points.size())));
+        }
+        appender.close();
+        final long captureCpuNanos = Debug.threadCpuTimeNanos() - cpuStart;
+        final File compressedFile = CompressedPoint3dFile.getFile(file);
+
+        // Act
+        final ByteArrayOutputStream recompressed = new ByteArrayOutputStream();
+        cpuStart = Debug.threadCpuTimeNanos();
+        long start = System.nanoTime();
+        try (final SegmentedDeflaterOutputStream outputStream = new SegmentedDeflaterOutputStream(recompressed)) {
+            MeasurementSerializer.writeInTransferFormat(file, PERSISTENCE_FILE_FORMAT_VERSION, outputStream);
+        }
+        final long syncNanos = System.nanoTime() - start;
+        final long syncCpuNanos = Debug.threadCpuTimeNanos() - cpuStart;
+
+        final ByteArrayOutputStream precompressed = new ByteArrayOutputStream();
+        cpuStart = Debug.threadCpuTimeNanos();
+        start = System.nanoTime();
+        try (final SegmentedDeflaterOutputStream outputStream = new SegmentedDeflaterOutputStream(precompressed)) {
+            outputStream.writeCompressedSegments(compressedFile);
+        }
+        final long precompressedSyncNanos = System.nanoTime() - start;
+        final long precompressedSyncCpuNanos = Debug.threadCpuTimeNanos() - cpuStart;
+
+        // Assert
+        final int transferSize = points.size() * BYTES_IN_ONE_POINT_3D_ENTRY;
+        final byte[] expected = MeasurementSerializer.serialize(points, LEGACY_PERSISTENCE_FILE_FORMAT_VERSION);
+        assertThat(inflate(recompressed.toByteArray(), transferSize), is(equalTo(expected)));
+        assertThat(inflate(precompressed.toByteArray(), transferSize), is(equalTo(expected)));
+        Log.i(TAG, String.format("Compressed at sync: %d ms wall-clock, %d ms CPU, %d bytes. "
+                + "Compressed at capture: %d ms wall-clock, %d ms CPU at sync, %d ms CPU while capturing, %d bytes.",
+                syncNanos / 1_000_000, syncCpuNanos / 1_000_000, recompressed.size(),
+                precompressedSyncNanos / 1_000_000, precompressedSyncCpuNanos / 1_000_000,
+                captureCpuNanos / 1_000_000, precompressed.size()));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.Constants.TAG;
+import static de.cyface.persistence.DatabaseTestUtils.createDatabase;
+import static de.cyface.persistence.DatabaseTestUtils.insertGeoLocations;
+import static de.cyface.persistence.DatabaseTestUtils.queryGeoLocations;
+import static de.cyface.persistence.DatabaseTestUtils.serializeWithColumnLookups;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_GEO_LOCATION_ENTRY;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import de.cyface.persistence.GeoLocationRowMapper;
+
+/**
+ * Compares the throughput of the serialization of the {@code GeoLocation}s of a large {@code Measurement} via the
+ * {@link GeoLocationRowMapper} with resolving the column indices for each row on a device.
+ * <p>
+ * That both paths produce the same bytes is tested by the {@code GeoLocationSerializationTest}.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class GeoLocationSerializationBenchmarkTest {
+
+    /**
+     * The number of {@code GeoLocation}s serialized per benchmark run, about 28 hours captured at 1 Hz.
+     */
+    private final static int ROWS = 100_000;
+    /**
+     * The database used for the test.
+     */
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        db = createDatabase(InstrumentationRegistry.getInstrumentation().getTargetContext());
+        insertGeoLocations(db, 0, ROWS, ROWS);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    /**
+     * Logs the throughput of both paths.
+     */
+    @Test
+    public void testSerializeGeoLocations() {
+
+        // Act
+        final byte[] legacy;
+        final long legacyNanos;
+        try (final Cursor cursor = queryGeoLocations(db)) {
+            final long start = System.nanoTime();
+            legacy = serializeWithColumnLookups(cursor);
+            legacyNanos = System.nanoTime() - start;
+        }
+        final byte[] serialized;
+        final long rowMapperNanos;
+        try (final Cursor cursor = queryGeoLocations(db)) {
+            final long start = System.nanoTime();
+            serialized = MeasurementSerializer.serializeGeoLocations(cursor);
+            rowMapperNanos = System.nanoTime() - start;
+        }
+
+        // Assert
+        assertThat(serialized.length, is(equalTo(ROWS * BYTES_IN_ONE_GEO_LOCATION_ENTRY)));
+        assertThat(serialized, is(equalTo(legacy)));
+        Log.i(TAG, String.format("Column lookup per row: %.0f rows/s, GeoLocationRowMapper: %.0f rows/s",
+                ROWS / (legacyNanos / 1_000_000_000.0), ROWS / (rowMapperNanos / 1_000_000_000.0)));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.Constants.TAG;
+import static de.cyface.persistence.serialization.MeasurementSerializer.LEGACY_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.testutils.SharedTestUtils.generateNoisyPoint3ds;
+import static de.cyface.testutils.SharedTestUtils.inflate;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DataFormatException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+/**
+ * Compares the throughput and compressed size of the single threaded compression with the
+ * {@link ParallelDeflaterOutputStream} on different numbers of threads on a device.
+ * <p>
+ * The throughput is only logged as it depends on the device.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class ParallelDeflaterOutputStreamBenchmarkTest {
+
+    /**
+     * Compares the throughput and compressed size of the single threaded compression with the parallel compression on
+     * different numbers of threads.
+     */
+    @Test
+    public void testBenchmark() throws IOException, DataFormatException {
+
+        // Arrange
+        final byte[] data = transferLayout(500_000);
+        final int cores = Runtime.getRuntime().availableProcessors();
+
+        // Act & Assert
+        final ByteArrayOutputStream serial = new ByteArrayOutputStream();
+        long start = System.nanoTime();
+        try (final SegmentedDeflaterOutputStream outputStream = new SegmentedDeflaterOutputStream(serial)) {
+            outputStream.write(data);
+        }
+        log("Single Deflater", data.length, System.nanoTime() - start, serial.size());
+        assertThat(inflate(serial.toByteArray(), data.length), is(equalTo(data)));
+
+        for (final int threads : new int[] {1, 2, 4, cores}) {
+            final ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                final ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+                start = System.nanoTime();
+                try (final SegmentedDeflaterOutputStream outputStream = new SegmentedDeflaterOutputStream(parallel,
+                        pool, threads)) {
+                    outputStream.write(data);
+                }
+                log(threads + " thread(s) of " + cores + " cores", data.length, System.nanoTime() - start,
+                        parallel.size());
+                assertThat(inflate(parallel.toByteArray(), data.length), is(equalTo(data)));
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * @param name The name of the compression
+     * @param size The number of uncompressed bytes
+     * @param nanos The duration of the compression
+     * @param compressedSize The number of compressed bytes
+     */
+    private void log(@NonNull final String name, final int size, final long nanos, final int compressedSize) {
+        Log.i(TAG, String.format("%s: %.1f MB/s, ratio %.3f", name, size / (nanos / 1_000.0),
+                compressedSize / (double)size));
+    }
+
+    /**
+     * @param count The number of points to generate
+     * @return The generated points in the layout of the {@link MeasurementSerializer#TRANSFER_FILE_FORMAT_VERSION}
+     */
+    private byte[] transferLayout(final int count) {
+        return MeasurementSerializer.serialize(generateNoisyPoint3ds(count, new Random(1L)),
+                LEGACY_PERSISTENCE_FILE_FORMAT_VERSION);
+    }
+}
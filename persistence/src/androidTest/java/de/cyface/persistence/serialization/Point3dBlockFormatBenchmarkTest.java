@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.Constants.TAG;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BLOCK_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import de.cyface.persistence.model.Point3d;
+
+/**
+ * Compares the size and throughput of the {@link Point3dBlockFormat} with the fixed size
+ * {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} on a device.
+ * <p>
+ * The sizes and throughput are only logged as the timing depends on the device.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class Point3dBlockFormatBenchmarkTest {
+
+    /**
+     * The duration of the synthetic sensor streams in seconds.
+     */
+    private final static int STREAM_SECONDS = 600;
+    /**
+     * The number of times each stream is encoded and decoded to measure the throughput.
+     */
+    private final static int RUNS = 5;
+
+    /**
+     * Compares the bytes per sample and the encode and decode throughput of both formats for sensor streams with
+     * 50, 100 and 200 Hz.
+     */
+    @Test
+    public void testBenchmark() {
+        for (final int frequency : new int[] {50, 100, 200}) {
+
+            // Arrange
+            final List<Point3d> points = stream(frequency, STREAM_SECONDS * frequency, new Random(frequency));
+
+            // Act
+            byte[] fixed = null;
+            byte[] blocks = null;
+            List<Point3d> fixedDecoded = null;
+            List<Point3d> blocksDecoded = null;
+            long fixedEncodeNanos = 0L;
+            long blocksEncodeNanos = 0L;
+            long fixedDecodeNanos = 0L;
+            long blocksDecodeNanos = 0L;
+            for (int run = 0; run < RUNS; run++) {
+                long start = System.nanoTime();
+                fixed = MeasurementSerializer.serialize(points, PERSISTENCE_FILE_FORMAT_VERSION);
+                fixedEncodeNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                blocks = MeasurementSerializer.serialize(points, BLOCK_PERSISTENCE_FILE_FORMAT_VERSION);
+                blocksEncodeNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                fixedDecoded = decodeFixed(fixed);
+                fixedDecodeNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                blocksDecoded = Point3dBlockFormat.decode(ByteBuffer.wrap(blocks));
+                blocksDecodeNanos += System.nanoTime() - start;
+            }
+
+            // Assert
+            assertEqual(fixedDecoded, points);
+            assertEqual(blocksDecoded, points);
+            final double samples = (double)points.size() * RUNS;
+            Log.i(TAG, String.format("%d Hz: fixed %.2f bytes/sample, encode %.0f samples/s, decode %.0f samples/s; "
+                    + "blocks %.2f bytes/sample, encode %.0f samples/s, decode %.0f samples/s", frequency,
+                    fixed.length / (double)points.size(), samples / (fixedEncodeNanos / 1_000_000_000.0),
+                    samples / (fixedDecodeNanos / 1_000_000_000.0), blocks.length / (double)points.size(),
+                    samples / (blocksEncodeNanos / 1_000_000_000.0),
+                    samples / (blocksDecodeNanos / 1_000_000_000.0)));
+        }
+    }
+
+    /**
+     * Generates a synthetic accelerometer stream with the timestamp jitter and occasional gaps of real sensor data.
+     *
+     * @param frequency The sensor frequency in Hz
+     * @param count The number of points to generate
+     * @param random The source of the noise
+     * @return The generated points
+     */
+    private List<Point3d> stream(final int frequency, final int count, @NonNull final Random random) {
+        final List<Point3d> points = new ArrayList<>(count);
+        final double periodMillis = 1_000.0 / frequency;
+        double time = 1_551_431_485_000.0;
+        for (int i = 0; i < count; i++) {
+            // Jitter of up to 20 % of the period and a gap of 100 ms every 1000 samples
+            time += periodMillis * (0.9 + 0.2 * random.nextDouble()) + (i % 1_000 == 999 ? 100.0 : 0.0);
+            points.add(new Point3d((float)(random.nextGaussian() * 0.5), (float)(random.nextGaussian() * 0.5),
+                    (float)(9.81 + random.nextGaussian() * 0.5), (long)time));
+        }
+        return points;
+    }
+
+    /**
+     * Decodes the fixed size format like a reader of the whole file would.
+     *
+     * @param bytes The serialized points
+     * @return The decoded points
+     */
+    private List<Point3d> decodeFixed(@NonNull final byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final List<Point3d> points = new ArrayList<>(
+                bytes.length / MeasurementSerializer.BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY);
+        while (buffer.hasRemaining()) {
+            final long timestamp = buffer.getLong();
+            points.add(new Point3d(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), timestamp));
+        }
+        return points;
+    }
+
+    /**
+     * Asserts that the points are bit-wise equal.
+     *
+     * @param actual The decoded points
+     * @param expected The encoded points
+     */
+    private void assertEqual(final List<Point3d> actual, final List<Point3d> expected) {
+        assertThat(actual.size(), is(equalTo(expected.size())));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getTimestamp(), is(equalTo(expected.get(i).getTimestamp())));
+            assertThat(Float.floatToRawIntBits(actual.get(i).getX()),
+                    is(equalTo(Float.floatToRawIntBits(expected.get(i).getX()))));
+            assertThat(Float.floatToRawIntBits(actual.get(i).getY()),
+                    is(equalTo(Float.floatToRawIntBits(expected.get(i).getY()))));
+            assertThat(Float.floatToRawIntBits(actual.get(i).getZ()),
+                    is(equalTo(Float.floatToRawIntBits(expected.get(i).getZ()))));
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package de.cyface.persistence;
 
+import static de.cyface.persistence.Constants.TAG;
+
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -7,14 +9,17 @@ import java.util.Set;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
 
 /**
  * Abstract base class for all Cyface measurement tables implementing common functionality.
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 1.1.1
+ * @version 1.2.0
  * @since 1.0.0
  */
 public abstract class AbstractCyfaceMeasurementTable implements CyfaceMeasurementTable {
@@ -47,23 +52,118 @@ public abstract class AbstractCyfaceMeasurementTable implements CyfaceMeasuremen
         return database.insert(getName(), null, values);
     }
 
+    /**
+     * Inserts all rows in one transaction using one compiled {@link SQLiteStatement} which is reused for all rows with
+     * the same columns. In contrast to {@link #insertRow(SQLiteDatabase, ContentValues)} this avoids to build and
+     * compile the SQL statement for each row.
+     * <p>
+     * As with {@link SQLiteDatabase#insert(String, String, ContentValues)} a row which cannot be inserted is logged and
+     * its identifier is set to {@code -1} while the other rows are still inserted.
+     */
     // BulkInsert is about 80 times faster than insertBatch
     @Override
-    public final long[] insertBatch(SQLiteDatabase db, final List<ContentValues> valuesList) {
-        long[] ret = new long[valuesList.size()];
-        db.beginTransaction();
+    public final long[] insertBatch(final SQLiteDatabase database, final List<ContentValues> valuesList) {
+        final long[] ret = new long[valuesList.size()];
+        SQLiteStatement statement = null;
+        String[] columns = null;
+        database.beginTransaction();
         try {
-            int len = valuesList.size();
+            final int len = valuesList.size();
             for (int i = 0; i < len; i++) {
-                ret[i] = insertRow(db, valuesList.get(i));
+                final ContentValues values = valuesList.get(i);
+                if (values.size() == 0) {
+                    ret[i] = insertRow(database, values);
+                    continue;
+                }
+
+                // Only compile a new statement when the columns change, usually only once per batch
+                if (columns == null || !containsOnly(values, columns)) {
+                    if (statement != null) {
+                        statement.close();
+                    }
+                    columns = values.keySet().toArray(new String[0]);
+                    statement = database.compileStatement(insertStatement(columns));
+                }
+
+                bind(statement, columns, values);
+                try {
+                    ret[i] = statement.executeInsert();
+                } catch (final SQLException e) {
+                    Log.e(TAG, "Error inserting " + values + " into " + getName(), e);
+                    ret[i] = -1L;
+                }
             }
-            db.setTransactionSuccessful();
+            database.setTransactionSuccessful();
         } finally {
-            db.endTransaction();
+            if (statement != null) {
+                statement.close();
+            }
+            database.endTransaction();
         }
         return ret;
     }
 
+    /**
+     * @param columns The columns to insert
+     * @return The SQL statement to insert one row with the provided columns into this table
+     */
+    private String insertStatement(final String[] columns) {
+        final StringBuilder sql = new StringBuilder("INSERT INTO ").append(getName()).append(" (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i == 0 ? "" : ",").append(columns[i]);
+        }
+        sql.append(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        return sql.append(")").toString();
+    }
+
+    /**
+     * @param values The values of one row
+     * @param columns The columns of the currently compiled statement
+     * @return {@code True} if the row contains values for exactly the provided columns
+     */
+    private static boolean containsOnly(final ContentValues values, final String[] columns) {
+        if (values.size() != columns.length) {
+            return false;
+        }
+        for (final String column : columns) {
+            if (!values.containsKey(column)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Binds the values of one row to the compiled statement, using the primitive bind methods where possible.
+     *
+     * @param statement The statement compiled for the provided columns
+     * @param columns The columns in the order used to compile the statement
+     * @param values The values of the row to bind
+     */
+    private static void bind(final SQLiteStatement statement, final String[] columns, final ContentValues values) {
+        statement.clearBindings();
+        for (int i = 0; i < columns.length; i++) {
+            final int index = i + 1; // SQLite bind indices start at 1
+            final Object value = values.get(columns[i]);
+            if (value == null) {
+                statement.bindNull(index);
+            } else if (value instanceof Double || value instanceof Float) {
+                statement.bindDouble(index, ((Number)value).doubleValue());
+            } else if (value instanceof Number) {
+                statement.bindLong(index, ((Number)value).longValue());
+            } else if (value instanceof Boolean) {
+                statement.bindLong(index, (Boolean)value ? 1L : 0L);
+            } else if (value instanceof byte[]) {
+                statement.bindBlob(index, (byte[])value);
+            } else {
+                statement.bindString(index, value.toString());
+            }
+        }
+    }
+
     @Override
     public final int deleteRow(final SQLiteDatabase database, final String selection, final String[] selectionArgs) {
         return database.delete(getName(), selection, selectionArgs);
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Reads the rows of a {@link Cursor} of one table, e.g. the {@link GeoLocationsTable}.
+ * <p>
+ * The column indices are resolved once when the mapper is created instead of calling
+ * {@link Cursor#getColumnIndex(String)} for each column of each row. The typed getters read the row the
+ * {@code Cursor} currently points to without allocating objects, so a caller can write the values directly to its
+ * own sink, e.g. a {@code ByteBuffer}. Columns which are not part of the projection can only be read via a getter
+ * after they were added to the projection.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ * @param <T> The type of the model object a row is mapped to
+ */
+public abstract class CursorRowMapper<T> {
+
+    /**
+     * The {@code Cursor} to read the rows from. The caller is responsible to move and close it.
+     */
+    protected final Cursor cursor;
+
+    /**
+     * @param cursor The {@code Cursor} to read the rows from. The caller is responsible to move and close it.
+     */
+    CursorRowMapper(@NonNull final Cursor cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * @return The {@code Cursor} to read the rows from.
+     */
+    @NonNull
+    public Cursor getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Creates the model object for the row the {@link Cursor} currently points to.
+     *
+     * @return The model object
+     */
+    @NonNull
+    public abstract T map();
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import java.util.Arrays;
+import java.util.List;
+
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import de.cyface.utils.Validate;
+
+/**
+ * The opt-in SQLite settings applied by the {@link DatabaseHelper} when the database connection is configured.
+ * <p>
+ * All settings default to the SQLite defaults, i.e. rollback journaling. As the {@link MeasuringPointsContentProvider}
+ * is created by the Android system, the settings are read from the {@code meta-data} of the provider. An app can add
+ * them to its manifest like this:
+ *
+ * <pre>
+ * &lt;provider
+ *     android:name="de.cyface.persistence.MeasuringPointsContentProvider"
+ *     android:authorities="..."
+ *     tools:node="merge"&gt;
+ *     &lt;meta-data android:name="de.cyface.persistence.database.wal" android:value="true" /&gt;
+ *     &lt;meta-data android:name="de.cyface.persistence.database.synchronous" android:value="NORMAL" /&gt;
+ * &lt;/provider&gt;
+ * </pre>
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+public final class DatabaseConfiguration {
+
+    /**
+     * The {@code meta-data} key to enable write-ahead logging. Allows the capturing to write while the synchronization
+     * reads, e.g. a whole measurement.
+     */
+    public static final String META_DATA_WRITE_AHEAD_LOGGING = "de.cyface.persistence.database.wal";
+    /**
+     * The {@code meta-data} key for the {@code PRAGMA synchronous} level, one of {@link #SYNCHRONOUS_LEVELS}.
+     * <p>
+     * {@code NORMAL} is safe from corruption in write-ahead logging mode but might lose the last transactions on
+     * power loss.
+     */
+    public static final String META_DATA_SYNCHRONOUS = "de.cyface.persistence.database.synchronous";
+    /**
+     * The {@code meta-data} key for the {@code PRAGMA cache_size}. Positive values are pages, negative values KiB.
+     * <p>
+     * With write-ahead logging this only applies to the primary connection, see
+     * {@link DatabaseHelper#onConfigure(android.database.sqlite.SQLiteDatabase)}.
+     */
+    public static final String META_DATA_CACHE_SIZE = "de.cyface.persistence.database.cache_size";
+    /**
+     * The {@code meta-data} key for the {@code PRAGMA temp_store}, one of {@link #TEMP_STORE_MODES}.
+     * <p>
+     * With write-ahead logging this only applies to the primary connection, see
+     * {@link DatabaseHelper#onConfigure(android.database.sqlite.SQLiteDatabase)}.
+     */
+    public static final String META_DATA_TEMP_STORE = "de.cyface.persistence.database.temp_store";
+    /**
+     * The supported values for {@link #META_DATA_SYNCHRONOUS}.
+     */
+    static final List<String> SYNCHRONOUS_LEVELS = Arrays.asList("OFF", "NORMAL", "FULL", "EXTRA");
+    /**
+     * The supported values for {@link #META_DATA_TEMP_STORE}.
+     */
+    static final List<String> TEMP_STORE_MODES = Arrays.asList("DEFAULT", "FILE", "MEMORY");
+    /**
+     * {@code true} if write-ahead logging is enabled.
+     */
+    private final boolean writeAheadLogging;
+    /**
+     * The {@code PRAGMA synchronous} level or {@code null} to keep the default.
+     */
+    @Nullable
+    private final String synchronous;
+    /**
+     * The {@code PRAGMA cache_size} or {@code null} to keep the default.
+     */
+    @Nullable
+    private final Integer cacheSize;
+    /**
+     * The {@code PRAGMA temp_store} mode or {@code null} to keep the default.
+     */
+    @Nullable
+    private final String tempStore;
+
+    /**
+     * Creates a new completely initialized <code>DatabaseConfiguration</code>.
+     *
+     * @param writeAheadLogging {@code true} if write-ahead logging should be enabled
+     * @param synchronous The {@code PRAGMA synchronous} level or {@code null} to keep the default
+     * @param cacheSize The {@code PRAGMA cache_size} or {@code null} to keep the default
+     * @param tempStore The {@code PRAGMA temp_store} mode or {@code null} to keep the default
+     */
+    public DatabaseConfiguration(final boolean writeAheadLogging, @Nullable final String synchronous,
+            @Nullable final Integer cacheSize, @Nullable final String tempStore) {
+        Validate.isTrue(synchronous == null || SYNCHRONOUS_LEVELS.contains(synchronous),
+                "Unsupported synchronous level: " + synchronous);
+        Validate.isTrue(tempStore == null || TEMP_STORE_MODES.contains(tempStore),
+                "Unsupported temp_store mode: " + tempStore);
+        this.writeAheadLogging = writeAheadLogging;
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.tempStore = tempStore;
+    }
+
+    /**
+     * @return A configuration which keeps the SQLite defaults
+     */
+    public static DatabaseConfiguration defaults() {
+        return new DatabaseConfiguration(false, null, null, null);
+    }
+
+    /**
+     * Reads the configuration from the {@code meta-data} of the {@link MeasuringPointsContentProvider}.
+     *
+     * @param metaData The {@code meta-data} or {@code null} if none is defined
+     * @return The configuration with the SQLite defaults for all settings which are not defined
+     */
+    static DatabaseConfiguration fromMetaData(@Nullable final Bundle metaData) {
+        if (metaData == null) {
+            return defaults();
+        }
+        final boolean writeAheadLogging = metaData.getBoolean(META_DATA_WRITE_AHEAD_LOGGING, false);
+        final String synchronous = metaData.getString(META_DATA_SYNCHRONOUS);
+        final Integer cacheSize = metaData.containsKey(META_DATA_CACHE_SIZE) ? metaData.getInt(META_DATA_CACHE_SIZE)
+                : null;
+        final String tempStore = metaData.getString(META_DATA_TEMP_STORE);
+        return new DatabaseConfiguration(writeAheadLogging, synchronous, cacheSize, tempStore);
+    }
+
+    /**
+     * @return {@code true} if write-ahead logging is enabled
+     */
+    public boolean isWriteAheadLogging() {
+        return writeAheadLogging;
+    }
+
+    /**
+     * @return The {@code PRAGMA synchronous} level or {@code null} to keep the default
+     */
+    @Nullable
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    /**
+     * @return The {@code PRAGMA cache_size} or {@code null} to keep the default
+     */
+    @Nullable
+    public Integer getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * @return The {@code PRAGMA temp_store} mode or {@code null} to keep the default
+     */
+    @Nullable
+    public String getTempStore() {
+        return tempStore;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "DatabaseConfiguration{" + "writeAheadLogging=" + writeAheadLogging + ", synchronous='" + synchronous
+                + '\'' + ", cacheSize=" + cacheSize + ", tempStore='" + tempStore + '\'' + '}';
+    }
+}
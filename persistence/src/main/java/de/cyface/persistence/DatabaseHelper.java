@@ -20,7 +20,10 @@ package de.cyface.persistence;
 
 import static de.cyface.persistence.Constants.TAG;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import android.content.ContentValues;
 import android.content.Context;
@@ -46,7 +49,7 @@ import de.cyface.utils.Validate;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 4.5.1
+ * @version 4.8.2
  * @since 1.0.0
  */
 class DatabaseHelper extends SQLiteOpenHelper {
@@ -59,7 +62,7 @@ class DatabaseHelper extends SQLiteOpenHelper {
      * Increase the DATABASE_VERSION if the database structure changes with a new update
      * but don't forget to adjust onCreate and onUpgrade accordingly for the new structure and incremental upgrade
      */
-    private final static int DATABASE_VERSION = 16;
+    private final static int DATABASE_VERSION = 18;
     /**
      * The table containing all the measurements, without the corresponding data. Data is stored in one table per type.
      */
@@ -77,14 +80,29 @@ class DatabaseHelper extends SQLiteOpenHelper {
      * The table to store the {@link Event}s on the device.
      */
     private final EventTable eventTable;
+    /**
+     * The SQLite settings applied in {@link #onConfigure(SQLiteDatabase)}.
+     */
+    private final DatabaseConfiguration configuration;
 
     /**
-     * Creates a new completely initialized <code>DatabaseHelper</code>.
+     * Creates a new completely initialized <code>DatabaseHelper</code> which keeps the SQLite defaults.
      *
      * @param context The Android context to use to access the Android System via
      */
     DatabaseHelper(final @NonNull Context context) {
+        this(context, DatabaseConfiguration.defaults());
+    }
+
+    /**
+     * Creates a new completely initialized <code>DatabaseHelper</code>.
+     *
+     * @param context The Android context to use to access the Android System via
+     * @param configuration The SQLite settings to apply when the database connection is configured
+     */
+    DatabaseHelper(final @NonNull Context context, final @NonNull DatabaseConfiguration configuration) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.configuration = configuration;
 
         // Current database structure
         measurementTable = new MeasurementTable();
@@ -93,6 +111,54 @@ class DatabaseHelper extends SQLiteOpenHelper {
         eventTable = new EventTable();
     }
 
+    /**
+     * Applies the {@link DatabaseConfiguration} before the database is created, upgraded or opened.
+     * <p>
+     * With write-ahead logging the synchronization can read a whole measurement while the capturing keeps on inserting
+     * data. With rollback journaling readers and writers block each other.
+     * <p>
+     * Write-ahead logging is a property of the database file, but the {@code PRAGMA}s only apply to the connection
+     * passed to this method, i.e. the primary connection. With write-ahead logging Android executes read-only queries
+     * on additional pooled connections which are not passed to {@code onConfigure} and keep the defaults of the
+     * system. As all writes are executed on the primary connection, {@code synchronous} applies to all transactions.
+     * {@code cache_size} and {@code temp_store} only apply to queries on the primary connection, e.g. inside a
+     * transaction, but not to the reads on the pooled connections. There is no public API before Android 9 (API 28)
+     * to configure the pooled connections.
+     *
+     * @param db the database connection to configure
+     */
+    @Override
+    public void onConfigure(final SQLiteDatabase db) {
+        super.onConfigure(db);
+        if (configuration.isWriteAheadLogging()) {
+            db.enableWriteAheadLogging();
+        }
+        // Executed via rawQuery as execSQL fails for PRAGMAs which report the new value as result
+        if (configuration.getSynchronous() != null) {
+            pragma(db, "synchronous=" + configuration.getSynchronous());
+        }
+        if (configuration.getCacheSize() != null) {
+            pragma(db, "cache_size=" + configuration.getCacheSize());
+        }
+        if (configuration.getTempStore() != null) {
+            pragma(db, "temp_store=" + configuration.getTempStore());
+        }
+        Log.d(TAG, "Configured database: " + configuration);
+    }
+
+    /**
+     * Executes a {@code PRAGMA} statement.
+     *
+     * @param db the database to execute the statement on
+     * @param statement The statement without the {@code PRAGMA} keyword, e.g. {@code synchronous=NORMAL}
+     */
+    private static void pragma(final @NonNull SQLiteDatabase db, final @NonNull String statement) {
+        try (final Cursor cursor = db.rawQuery("PRAGMA " + statement, null)) {
+            // rawQuery is lazy, the statement is only executed when the cursor is accessed
+            cursor.moveToFirst();
+        }
+    }
+
     /**
      * The onCreate method is called when the app is freshly installed (i.e. there is no data yet on the phone)
      * Update this (in DatabaseHelper()) if the database structure changes
@@ -193,7 +259,14 @@ class DatabaseHelper extends SQLiteOpenHelper {
                         // necessary for single row deletions.
                         String adaptedSelection = BaseColumns._ID + "=" + rowIdentifier
                                 + (selection == null ? "" : " AND " + selection);
-                        ret += table.deleteRow(getWritableDatabase(), adaptedSelection, selectionArgs);
+                        if (table == measurementTable) {
+                            ret += table.deleteRow(getWritableDatabase(), adaptedSelection, selectionArgs);
+                        } else {
+                            final Set<Long> affectedMeasurements = loadMeasurementIdentifiers(database, table,
+                                    adaptedSelection, selectionArgs);
+                            ret += table.deleteRow(getWritableDatabase(), adaptedSelection, selectionArgs);
+                            measurementTable.recalculateAggregates(database, affectedMeasurements);
+                        }
                         database.setTransactionSuccessful();
                         return ret;
                     default:
@@ -202,7 +275,10 @@ class DatabaseHelper extends SQLiteOpenHelper {
             } else if (pathSegments.size() == 1) {
                 switch (pathSegments.get(0)) {
                     case EventTable.URI_PATH:
+                        final Set<Long> affectedMeasurements = loadMeasurementIdentifiers(database, table, selection,
+                                selectionArgs);
                         ret += table.deleteRow(getWritableDatabase(), selection, selectionArgs);
+                        measurementTable.recalculateAggregates(database, affectedMeasurements);
                         database.setTransactionSuccessful();
                         return ret;
                     case IdentifierTable.URI_PATH:
@@ -219,7 +295,14 @@ class DatabaseHelper extends SQLiteOpenHelper {
                         }
                         // continues here until return ! -->
                     case GeoLocationsTable.URI_PATH:
-                        ret += table.deleteRow(getWritableDatabase(), selection, selectionArgs);
+                        if (table == measurementTable) {
+                            ret += table.deleteRow(getWritableDatabase(), selection, selectionArgs);
+                        } else {
+                            final Set<Long> affectedLocationMeasurements = loadMeasurementIdentifiers(database,
+                                    table, selection, selectionArgs);
+                            ret += table.deleteRow(getWritableDatabase(), selection, selectionArgs);
+                            measurementTable.recalculateAggregates(database, affectedLocationMeasurements);
+                        }
                         database.setTransactionSuccessful();
                         return ret;
                     default:
@@ -234,6 +317,33 @@ class DatabaseHelper extends SQLiteOpenHelper {
         }
     }
 
+    /**
+     * Loads the identifiers of the {@link Measurement}s which the rows matching a selection belong to. This allows to
+     * only recalculate the aggregates of these {@code Measurement}s after the rows were deleted.
+     *
+     * @param database The database to load the identifiers from.
+     * @param table The {@link GeoLocationsTable} or {@link EventTable} to load the identifiers from.
+     * @param selection The part of an SQL where statement behind the where.
+     * @param selectionArgs The arguments to place inside the '?' placeholder from <code>selection</code>.
+     * @return The identifiers of the affected {@code Measurement}s.
+     */
+    private Set<Long> loadMeasurementIdentifiers(final @NonNull SQLiteDatabase database,
+            final @NonNull CyfaceMeasurementTable table, final String selection, final String[] selectionArgs) {
+        final String column = table == eventTable ? EventTable.COLUMN_MEASUREMENT_FK
+                : GeoLocationsTable.COLUMN_MEASUREMENT_FK;
+        final Set<Long> measurementIdentifiers = new HashSet<>();
+        try (final Cursor cursor = database.query(true, table.getName(), new String[] {column}, selection,
+                selectionArgs, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                // Events without measurement are not counted
+                if (!cursor.isNull(0)) {
+                    measurementIdentifiers.add(cursor.getLong(0));
+                }
+            }
+        }
+        return measurementIdentifiers;
+    }
+
     /**
      * Cascadingly deletes all data for a single {@link Measurement} from the database. This only includes
      * {@link GeoLocation}s and {@link Event}s but not the {@link Point3dFile}s as they are not stored in database.
@@ -260,19 +370,58 @@ class DatabaseHelper extends SQLiteOpenHelper {
      */
     long insertRow(final @NonNull Uri uri, final @NonNull ContentValues values) {
         final CyfaceMeasurementTable table = matchTable(uri);
-        return table.insertRow(getWritableDatabase(), values);
+        final SQLiteDatabase database = getWritableDatabase();
+        database.beginTransaction();
+        try {
+            final long identifier = table.insertRow(database, values);
+            updateAggregates(database, table, Collections.singletonList(values), new long[] {identifier});
+            database.setTransactionSuccessful();
+            return identifier;
+        } finally {
+            database.endTransaction();
+        }
     }
 
     /**
      * Inserts a list of <code>ContentValues</code> as new rows into a table.
+     * <p>
+     * When {@link GeoLocation}s or {@link Event}s are inserted, the aggregate columns of their {@link Measurement}s in
+     * the {@link MeasurementTable} are updated in the same transaction. The same applies to
+     * {@link #insertRow(Uri, ContentValues)}.
      *
      * @param uri The table to insert the new rows into.
      * @param values The values to insert.
      * @return An array of identifiers for the newly created table rows.
      */
     long[] bulkInsert(final @NonNull Uri uri, final @NonNull List<ContentValues> values) {
-        CyfaceMeasurementTable table = matchTable(uri);
-        return table.insertBatch(getWritableDatabase(), values);
+        final CyfaceMeasurementTable table = matchTable(uri);
+        final SQLiteDatabase database = getWritableDatabase();
+        database.beginTransaction();
+        try {
+            final long[] identifiers = table.insertBatch(database, values);
+            updateAggregates(database, table, values, identifiers);
+            database.setTransactionSuccessful();
+            return identifiers;
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    /**
+     * Adds inserted {@link GeoLocation}s or {@link Event}s to the aggregate columns of their {@link Measurement}s.
+     *
+     * @param database The database the rows were inserted into, within the current transaction
+     * @param table The table the rows were inserted into
+     * @param values The inserted rows
+     * @param identifiers The identifiers of the inserted rows, {@code -1} for rows which were not inserted
+     */
+    private void updateAggregates(final @NonNull SQLiteDatabase database, final @NonNull CyfaceMeasurementTable table,
+            final @NonNull List<ContentValues> values, final @NonNull long[] identifiers) {
+        if (table == geoLocationsTable) {
+            measurementTable.addGeoLocations(database, values, identifiers);
+        } else if (table == eventTable) {
+            measurementTable.addEvents(database, values, identifiers);
+        }
     }
 
     /**
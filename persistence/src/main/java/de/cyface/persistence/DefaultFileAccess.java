@@ -9,6 +9,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Locale;
 
 import android.content.Context;
@@ -22,7 +24,7 @@ import de.cyface.utils.Validate;
  * Implementation of the {@link FileAccessLayer} which accesses the real file system.
  *
  * @author Armin Schnabel
- * @version 3.1.4
+ * @version 3.3.0
  * @since 3.0.0
  */
 public final class DefaultFileAccess implements FileAccessLayer {
@@ -61,6 +63,32 @@ public final class DefaultFileAccess implements FileAccessLayer {
         }
     }
 
+    @Override
+    public void transferTo(@NonNull final File file, final long position, final long count,
+            @NonNull final WritableByteChannel channel) {
+        try (final FileChannel fileChannel = new FileInputStream(file).getChannel()) {
+            transferTo(fileChannel, position, count, channel);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void transferTo(@NonNull final FileChannel fileChannel, final long position, final long count,
+            @NonNull final WritableByteChannel channel) {
+        try {
+            long transferred = 0L;
+            while (transferred < count) {
+                // Transfers less than requested e.g. when the kernel limits the bytes per call
+                final long bytes = fileChannel.transferTo(position + transferred, count - transferred, channel);
+                Validate.isTrue(bytes > 0L, "Unexpected end of file");
+                transferred += bytes;
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     @NonNull
     public byte[] loadBytes(File file) {
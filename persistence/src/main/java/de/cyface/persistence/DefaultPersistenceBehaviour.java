@@ -9,7 +9,7 @@ import de.cyface.utils.CursorIsNullException;
  * {@link Measurement}s and does not want to capture new {@code Measurements}.
  *
  * @author Armin Schnabel
- * @version 1.1.0
+ * @version 1.2.0
  * @since 3.0.0
  */
 public class DefaultPersistenceBehaviour implements PersistenceBehaviour {
@@ -31,6 +31,11 @@ public class DefaultPersistenceBehaviour implements PersistenceBehaviour {
         // nothing to do
     }
 
+    @Override
+    public void flush() {
+        // nothing to do
+    }
+
     @NonNull
     @Override
     public Measurement loadCurrentlyCapturedMeasurement() throws NoSuchMeasurementException, CursorIsNullException {
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import android.database.Cursor;
+import android.provider.BaseColumns;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import de.cyface.persistence.model.Event;
+
+/**
+ * Reads the rows of a {@link Cursor} on the {@link EventTable}.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+public final class EventRowMapper extends CursorRowMapper<Event> {
+
+    /**
+     * The index of the {@link BaseColumns#_ID} column.
+     */
+    private final int identifierIndex;
+    /**
+     * The index of the {@link EventTable#COLUMN_TIMESTAMP} column.
+     */
+    private final int timestampIndex;
+    /**
+     * The index of the {@link EventTable#COLUMN_TYPE} column.
+     */
+    private final int typeIndex;
+    /**
+     * The index of the {@link EventTable#COLUMN_VALUE} column.
+     */
+    private final int valueIndex;
+
+    /**
+     * @param cursor The {@code Cursor} to read the rows from. The caller is responsible to move and close it.
+     */
+    public EventRowMapper(@NonNull final Cursor cursor) {
+        super(cursor);
+        identifierIndex = cursor.getColumnIndex(BaseColumns._ID);
+        timestampIndex = cursor.getColumnIndex(EventTable.COLUMN_TIMESTAMP);
+        typeIndex = cursor.getColumnIndex(EventTable.COLUMN_TYPE);
+        valueIndex = cursor.getColumnIndex(EventTable.COLUMN_VALUE);
+    }
+
+    public long getIdentifier() {
+        return cursor.getLong(identifierIndex);
+    }
+
+    public long getTimestamp() {
+        return cursor.getLong(timestampIndex);
+    }
+
+    @NonNull
+    public Event.EventType getType() {
+        return Event.EventType.valueOf(cursor.getString(typeIndex));
+    }
+
+    /**
+     * @return The value of the {@code Event} or {@code null} as not all {@link Event.EventType}s use this field
+     */
+    @Nullable
+    public String getValue() {
+        return cursor.getString(valueIndex);
+    }
+
+    @NonNull
+    @Override
+    public Event map() {
+        return new Event(getIdentifier(), getType(), getTimestamp(), getValue());
+    }
+}
@@ -13,7 +13,7 @@ import static de.cyface.persistence.Constants.TAG;
  * Table for storing {@link Event}s.
  *
  * @author Armin Schnabel
- * @version 1.1.0
+ * @version 1.2.0
  * @since 4.0.0
  */
 public class EventTable extends AbstractCyfaceMeasurementTable {
@@ -43,6 +43,11 @@ public class EventTable extends AbstractCyfaceMeasurementTable {
      * An array containing all the column names used by a {@link EventTable}.
      */
     private static final String[] COLUMNS = {BaseColumns._ID, COLUMN_TIMESTAMP, COLUMN_TYPE, COLUMN_MEASUREMENT_FK, COLUMN_VALUE};
+    /**
+     * The name of the index on {@link #COLUMN_MEASUREMENT_FK} and {@link #COLUMN_TIMESTAMP} which is used by all
+     * queries which load the {@link Event}s of one {@link Measurement} ordered by time.
+     */
+    static final String INDEX_MEASUREMENT_FK_TIMESTAMP = "events_measurement_fk_timestamp";
 
     /**
      * Provides a completely initialized object as a representation of a table containing {@link Event}s in the
@@ -60,6 +65,13 @@ public class EventTable extends AbstractCyfaceMeasurementTable {
                 + " INTEGER, " + COLUMN_VALUE + " TEXT" + ");";
     }
 
+    @Override
+    public void onCreate(final SQLiteDatabase database) {
+        super.onCreate(database);
+        database.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_MEASUREMENT_FK_TIMESTAMP + " ON " + getName() + " ("
+                + COLUMN_MEASUREMENT_FK + ", " + COLUMN_TIMESTAMP + ");");
+    }
+
     /**
      * Don't forget to update the {@link DatabaseHelper}'s {@code DATABASE_VERSION} if you upgrade this table.
      * <p>
@@ -84,6 +96,13 @@ public class EventTable extends AbstractCyfaceMeasurementTable {
                 Log.d(TAG, "Upgrading event table from V14");
                 database.execSQL("ALTER TABLE events ADD COLUMN value TEXT");
                 break; // onUpgrade is called incrementally by DatabaseHelper
+
+            case 16:
+                // This index was added in version 17
+                Log.d(TAG, "Upgrading event table from V16");
+                database.execSQL("CREATE INDEX IF NOT EXISTS events_measurement_fk_timestamp "
+                        + "ON events (measurement_fk, timestamp);");
+                break; // onUpgrade is called incrementally by DatabaseHelper
         }
 
     }
@@ -2,6 +2,8 @@ package de.cyface.persistence;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 import android.content.Context;
 import androidx.annotation.NonNull;
@@ -12,7 +14,7 @@ import de.cyface.persistence.serialization.Point3dFile;
  * Interface access {@link File}s. This helps to mock the file access away during testing.
  *
  * @author Amin Schnabel
- * @version 1.1.0
+ * @version 1.3.0
  * @since 3.0.0
  */
 public interface FileAccessLayer {
@@ -26,6 +28,30 @@ public interface FileAccessLayer {
      */
     void writeToOutputStream(@NonNull File file, @NonNull BufferedOutputStream bufferedOutputStream);
 
+    /**
+     * Transfers a range of the content of the {@param file} to the provided {@param channel} without copying it through
+     * a buffer in the Java heap, e.g. when the {@param channel} is backed by a file or a socket.
+     *
+     * @param file the {@link File} which content should be transferred to the channel
+     * @param position the position in the {@param file} of the first byte to transfer
+     * @param count the number of bytes to transfer
+     * @param channel the {@link WritableByteChannel} the {@param file} content should be written to
+     */
+    void transferTo(@NonNull File file, long position, long count, @NonNull WritableByteChannel channel);
+
+    /**
+     * Transfers a range of the content of an already opened {@param fileChannel} to the provided {@param channel}, like
+     * {@link #transferTo(File, long, long, WritableByteChannel)}.
+     * <p>
+     * Use this to transfer multiple ranges of the same file without opening the file for each range.
+     *
+     * @param fileChannel the {@link FileChannel} which content should be transferred to the channel
+     * @param position the position in the {@param fileChannel} of the first byte to transfer
+     * @param count the number of bytes to transfer
+     * @param channel the {@link WritableByteChannel} the {@param fileChannel} content should be written to
+     */
+    void transferTo(@NonNull FileChannel fileChannel, long position, long count, @NonNull WritableByteChannel channel);
+
     /**
      * Loads the bytes form a file.
      * <p>
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import android.database.Cursor;
+import android.provider.BaseColumns;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.persistence.model.ColumnarTrack;
+import de.cyface.persistence.model.GeoLocation;
+
+/**
+ * Reads the rows of a {@link Cursor} on the {@link GeoLocationsTable}.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+public final class GeoLocationRowMapper extends CursorRowMapper<GeoLocation> {
+
+    /**
+     * The index of the {@link BaseColumns#_ID} column.
+     */
+    private final int identifierIndex;
+    /**
+     * The index of the {@link GeoLocationsTable#COLUMN_GEOLOCATION_TIME} column.
+     */
+    private final int timestampIndex;
+    /**
+     * The index of the {@link GeoLocationsTable#COLUMN_LAT} column.
+     */
+    private final int latIndex;
+    /**
+     * The index of the {@link GeoLocationsTable#COLUMN_LON} column.
+     */
+    private final int lonIndex;
+    /**
+     * The index of the {@link GeoLocationsTable#COLUMN_SPEED} column.
+     */
+    private final int speedIndex;
+    /**
+     * The index of the {@link GeoLocationsTable#COLUMN_ACCURACY} column.
+     */
+    private final int accuracyIndex;
+    /**
+     * The index of the {@link GeoLocationsTable#COLUMN_MEASUREMENT_FK} column.
+     */
+    private final int measurementIdentifierIndex;
+
+    /**
+     * @param cursor The {@code Cursor} to read the rows from. The caller is responsible to move and close it.
+     */
+    public GeoLocationRowMapper(@NonNull final Cursor cursor) {
+        super(cursor);
+        identifierIndex = cursor.getColumnIndex(BaseColumns._ID);
+        timestampIndex = cursor.getColumnIndex(GeoLocationsTable.COLUMN_GEOLOCATION_TIME);
+        latIndex = cursor.getColumnIndex(GeoLocationsTable.COLUMN_LAT);
+        lonIndex = cursor.getColumnIndex(GeoLocationsTable.COLUMN_LON);
+        speedIndex = cursor.getColumnIndex(GeoLocationsTable.COLUMN_SPEED);
+        accuracyIndex = cursor.getColumnIndex(GeoLocationsTable.COLUMN_ACCURACY);
+        measurementIdentifierIndex = cursor.getColumnIndex(GeoLocationsTable.COLUMN_MEASUREMENT_FK);
+    }
+
+    public long getIdentifier() {
+        return cursor.getLong(identifierIndex);
+    }
+
+    public long getTimestamp() {
+        return cursor.getLong(timestampIndex);
+    }
+
+    public double getLat() {
+        return cursor.getDouble(latIndex);
+    }
+
+    public double getLon() {
+        return cursor.getDouble(lonIndex);
+    }
+
+    public double getSpeed() {
+        return cursor.getDouble(speedIndex);
+    }
+
+    /**
+     * @return The accuracy in centimeters, which is stored as integer
+     */
+    public int getAccuracy() {
+        return cursor.getInt(accuracyIndex);
+    }
+
+    public long getMeasurementIdentifier() {
+        return cursor.getLong(measurementIdentifierIndex);
+    }
+
+    @NonNull
+    @Override
+    public GeoLocation map() {
+        return new GeoLocation(getLat(), getLon(), getTimestamp(), getSpeed(), getAccuracy());
+    }
+
+    /**
+     * Adds the current row to a {@link ColumnarTrack} without creating a {@link GeoLocation} object.
+     *
+     * @param track The {@code ColumnarTrack} to add the row to
+     */
+    public void readInto(@NonNull final ColumnarTrack track) {
+        track.add(getLat(), getLon(), getTimestamp(), getSpeed(), getAccuracy(), true);
+    }
+}
@@ -34,7 +34,7 @@ import de.cyface.persistence.model.Measurement;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 2.4.4
+ * @version 2.5.0
  * @since 1.0.0
  */
 public class GeoLocationsTable extends AbstractCyfaceMeasurementTable {
@@ -73,6 +73,11 @@ public class GeoLocationsTable extends AbstractCyfaceMeasurementTable {
      */
     private static final String[] COLUMNS = {BaseColumns._ID, COLUMN_GEOLOCATION_TIME, COLUMN_LAT, COLUMN_LON,
             COLUMN_SPEED, COLUMN_ACCURACY, COLUMN_MEASUREMENT_FK};
+    /**
+     * The name of the index on {@link #COLUMN_MEASUREMENT_FK} and {@link #COLUMN_GEOLOCATION_TIME} which is used by
+     * all queries which load the {@link GeoLocation}s of one {@link Measurement} ordered by time.
+     */
+    static final String INDEX_MEASUREMENT_FK_GEOLOCATION_TIME = "locations_measurement_fk_gps_time";
 
     /**
      * Provides a completely initialized object as a representation of a table containing geo locations in the database.
@@ -89,6 +94,13 @@ public class GeoLocationsTable extends AbstractCyfaceMeasurementTable {
                 + COLUMN_MEASUREMENT_FK + " INTEGER NOT NULL);";
     }
 
+    @Override
+    public void onCreate(final SQLiteDatabase database) {
+        super.onCreate(database);
+        database.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_MEASUREMENT_FK_GEOLOCATION_TIME + " ON " + getName()
+                + " (" + COLUMN_MEASUREMENT_FK + ", " + COLUMN_GEOLOCATION_TIME + ");");
+    }
+
     /**
      * Don't forget to update the {@link DatabaseHelper}'s {@code DATABASE_VERSION} if you upgrade this table.
      * <p>
@@ -101,7 +113,6 @@ public class GeoLocationsTable extends AbstractCyfaceMeasurementTable {
     @Override
     public void onUpgrade(final SQLiteDatabase database, final int fromVersion, final int toVersion) {
 
-        //noinspection SwitchStatementWithTooFewBranches - for readability
         switch (fromVersion) {
 
             case 8:
@@ -109,6 +120,14 @@ public class GeoLocationsTable extends AbstractCyfaceMeasurementTable {
                 migrateDatabaseFromV8(database);
 
                 break; // onUpgrade is called incrementally by DatabaseHelper
+
+            case 16:
+                // This index was added in version 17
+                Log.d(TAG, "Upgrading geoLocation table from V16");
+                database.execSQL("CREATE INDEX IF NOT EXISTS locations_measurement_fk_gps_time "
+                        + "ON locations (measurement_fk, gps_time);");
+
+                break; // onUpgrade is called incrementally by DatabaseHelper
         }
 
     }
@@ -7,6 +7,7 @@ import android.content.ContentProviderClient;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.RemoteException;
+import android.provider.BaseColumns;
 
 import androidx.annotation.NonNull;
 
@@ -14,6 +15,7 @@ import de.cyface.persistence.model.Event;
 import de.cyface.persistence.model.GeoLocation;
 import de.cyface.persistence.model.Measurement;
 import de.cyface.utils.CursorIsNullException;
+import de.cyface.utils.Validate;
 
 /**
  * A wrapper for a <code>ContentProviderClient</code> used to provide access to one specific measurement.
@@ -24,7 +26,7 @@ import de.cyface.utils.CursorIsNullException;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 2.2.0
+ * @version 2.4.0
  * @since 2.0.0
  */
 public class MeasurementContentProviderClient {
@@ -62,15 +64,60 @@ public class MeasurementContentProviderClient {
         this.authority = authority;
     }
 
+    /**
+     * Loads the next page of the geo locations for the measurement, ordered by their timestamp.
+     * <p>
+     * The page starts directly after the last {@link GeoLocation} of the previous page, identified by its timestamp and
+     * its identifier. In contrast to {@link #loadGeoLocations(int, int)} this does not require the database to skip all
+     * previously loaded rows, so loading all pages of a measurement takes linear time. The query is answered using the
+     * {@code measurement_fk, gps_time} index of the {@link GeoLocationsTable}.
+     * <p>
+     * To load the first page use {@code Long.MIN_VALUE} as {@param lastGeoLocationTime} and {@code 0L} as
+     * {@param lastGeoLocationIdentifier}.
+     *
+     * @param lastGeoLocationTime The {@link GeoLocationsTable#COLUMN_GEOLOCATION_TIME} of the last geo location of the
+     *            previous page
+     * @param lastGeoLocationIdentifier The {@link BaseColumns#_ID} of the last geo location of the previous page
+     * @param limit The number of geo locations to load. A recommended upper limit is:
+     *            {@link AbstractCyfaceMeasurementTable#DATABASE_QUERY_LIMIT}
+     * @return A <code>Cursor</code> on the {@link GeoLocation}s stored for the {@link Measurement}, containing the
+     *         {@code BaseColumns#_ID} to continue with the next page.
+     * @throws RemoteException If the content provider is not accessible.
+     */
+    public Cursor loadGeoLocations(final long lastGeoLocationTime, final long lastGeoLocationIdentifier,
+            final int limit) throws RemoteException {
+        final Uri uri = Utils.getGeoLocationsUri(authority);
+        final String[] projection = new String[] {BaseColumns._ID, GeoLocationsTable.COLUMN_GEOLOCATION_TIME,
+                GeoLocationsTable.COLUMN_LAT, GeoLocationsTable.COLUMN_LON, GeoLocationsTable.COLUMN_SPEED,
+                GeoLocationsTable.COLUMN_ACCURACY};
+        // The redundant first time condition allows SQLite to use a range scan on the index
+        final String selection = GeoLocationsTable.COLUMN_MEASUREMENT_FK + "=? AND "
+                + GeoLocationsTable.COLUMN_GEOLOCATION_TIME + ">=? AND (" + GeoLocationsTable.COLUMN_GEOLOCATION_TIME
+                + ">? OR " + BaseColumns._ID + ">?)";
+        final String[] selectionArgs = new String[] {Long.valueOf(measurementIdentifier).toString(),
+                String.valueOf(lastGeoLocationTime), String.valueOf(lastGeoLocationTime),
+                String.valueOf(lastGeoLocationIdentifier)};
+
+        // Backward compatibility workaround from https://stackoverflow.com/a/12641015/5815054
+        // the argument limit is only available starting with API 26 ("O")
+        return client.query(uri, projection, selection, selectionArgs,
+                GeoLocationsTable.COLUMN_GEOLOCATION_TIME + " ASC, " + BaseColumns._ID + " ASC limit " + limit);
+    }
+
     /**
      * Loads a page of the geo locations for the measurement.
+     * <p>
+     * The database has to skip all {@param offset} rows for each page, i.e. loading all pages of a measurement takes
+     * quadratic time.
      *
      * @param offset The start index of the first geo location to load within the measurement
      * @param limit The number of geo locations to load. A recommended upper limit is:
      *            {@link AbstractCyfaceMeasurementTable#DATABASE_QUERY_LIMIT}
      * @return A <code>Cursor</code> on the {@link GeoLocation}s stored for the {@link Measurement}.
      * @throws RemoteException If the content provider is not accessible.
+     * @deprecated Use {@link #loadGeoLocations(long, long, int)} instead.
      */
+    @Deprecated
     public Cursor loadGeoLocations(final int offset, final int limit) throws RemoteException {
         final Uri uri = Utils.getGeoLocationsUri(authority);
         final String[] projection = new String[] {GeoLocationsTable.COLUMN_GEOLOCATION_TIME,
@@ -93,19 +140,57 @@ public class MeasurementContentProviderClient {
 
         // Backward compatibility workaround from https://stackoverflow.com/a/12641015/5815054
         // the arguments limit and offset are only available starting with API 26 ("O")
+        return client.query(uri, projection, selection, selectionArgs, GeoLocationsTable.COLUMN_GEOLOCATION_TIME
+                + " ASC, " + BaseColumns._ID + " ASC limit " + limit + " offset " + offset);
+    }
+
+    /**
+     * Loads the next page of the {@link Event}s for the {@code Measurement}, ordered by their timestamp.
+     * <p>
+     * The page starts directly after the last {@code Event} of the previous page, identified by its timestamp and its
+     * identifier. See {@link #loadGeoLocations(long, long, int)} for details.
+     *
+     * @param lastEventTime The {@link EventTable#COLUMN_TIMESTAMP} of the last {@code Event} of the previous page or
+     *            {@code Long.MIN_VALUE} to load the first page
+     * @param lastEventIdentifier The {@link BaseColumns#_ID} of the last {@code Event} of the previous page or
+     *            {@code 0L} to load the first page
+     * @param limit The number of Events to load. A recommended upper limit is:
+     *            {@link AbstractCyfaceMeasurementTable#DATABASE_QUERY_LIMIT}
+     * @return A <code>Cursor</code> on the {@link Event}s stored for the {@link Measurement}, containing the
+     *         {@code BaseColumns#_ID} to continue with the next page.
+     * @throws RemoteException If the content provider is not accessible.
+     */
+    public Cursor loadEvents(final long lastEventTime, final long lastEventIdentifier, final int limit)
+            throws RemoteException {
+        final Uri uri = Utils.getEventUri(authority);
+        final String[] projection = new String[] {BaseColumns._ID, EventTable.COLUMN_TYPE, EventTable.COLUMN_VALUE,
+                EventTable.COLUMN_TIMESTAMP};
+        // The redundant first time condition allows SQLite to use a range scan on the index
+        final String selection = EventTable.COLUMN_MEASUREMENT_FK + "=? AND " + EventTable.COLUMN_TIMESTAMP + ">=? AND ("
+                + EventTable.COLUMN_TIMESTAMP + ">? OR " + BaseColumns._ID + ">?)";
+        final String[] selectionArgs = new String[] {Long.valueOf(measurementIdentifier).toString(),
+                String.valueOf(lastEventTime), String.valueOf(lastEventTime), String.valueOf(lastEventIdentifier)};
+
+        // Backward compatibility workaround from https://stackoverflow.com/a/12641015/5815054
+        // the argument limit is only available starting with API 26 ("O")
         return client.query(uri, projection, selection, selectionArgs,
-                GeoLocationsTable.COLUMN_MEASUREMENT_FK + " ASC limit " + limit + " offset " + offset);
+                EventTable.COLUMN_TIMESTAMP + " ASC, " + BaseColumns._ID + " ASC limit " + limit);
     }
 
     /**
      * Loads a page of the {@link Event}s for the {@code Measurement}.
+     * <p>
+     * The database has to skip all {@param offset} rows for each page, i.e. loading all pages of a measurement takes
+     * quadratic time.
      *
      * @param offset The start index of the first {@code Event} to load within the Measurement
      * @param limit The number of Events to load. A recommended upper limit is:
      *            {@link AbstractCyfaceMeasurementTable#DATABASE_QUERY_LIMIT}
      * @return A <code>Cursor</code> on the {@link Event}s stored for the {@link Measurement}.
      * @throws RemoteException If the content provider is not accessible.
+     * @deprecated Use {@link #loadEvents(long, long, int)} instead.
      */
+    @Deprecated
     public Cursor loadEvents(final int offset, final int limit) throws RemoteException {
         final Uri uri = Utils.getEventUri(authority);
         final String[] projection = new String[] {EventTable.COLUMN_TYPE, EventTable.COLUMN_VALUE,
@@ -116,7 +201,48 @@ public class MeasurementContentProviderClient {
         // Backward compatibility workaround from https://stackoverflow.com/a/12641015/5815054
         // the arguments limit and offset are only available starting with API 26 ("O")
         return client.query(uri, projection, selection, selectionArgs,
-                EventTable.COLUMN_MEASUREMENT_FK + " ASC limit " + limit + " offset " + offset);
+                EventTable.COLUMN_TIMESTAMP + " ASC, " + BaseColumns._ID + " ASC limit " + limit + " offset " + offset);
+    }
+
+    /**
+     * Loads the number of {@link GeoLocation}s of the {@link Measurement} from the
+     * {@link MeasurementTable#COLUMN_LOCATION_COUNT} which is maintained while the data is inserted. In contrast to
+     * {@link #countData(Uri, String)} this does not require to query the {@code GeoLocation}s.
+     *
+     * @return the number of {@code GeoLocation}s stored for the measurement.
+     * @throws RemoteException If the content provider is not accessible.
+     * @throws CursorIsNullException If {@link ContentProvider} was inaccessible.
+     */
+    public int loadGeoLocationCount() throws RemoteException, CursorIsNullException {
+        return loadCounter(MeasurementTable.COLUMN_LOCATION_COUNT);
+    }
+
+    /**
+     * Loads the number of {@link Event}s of the {@link Measurement} from the {@link MeasurementTable#COLUMN_EVENT_COUNT}
+     * which is maintained while the data is inserted. In contrast to {@link #countData(Uri, String)} this does not
+     * require to query the {@code Event}s.
+     *
+     * @return the number of {@code Event}s stored for the measurement.
+     * @throws RemoteException If the content provider is not accessible.
+     * @throws CursorIsNullException If {@link ContentProvider} was inaccessible.
+     */
+    public int loadEventCount() throws RemoteException, CursorIsNullException {
+        return loadCounter(MeasurementTable.COLUMN_EVENT_COUNT);
+    }
+
+    /**
+     * @param counterColumn The {@link MeasurementTable} column containing the counter to load.
+     * @return The value of the counter for the measurement.
+     * @throws RemoteException If the content provider is not accessible.
+     * @throws CursorIsNullException If {@link ContentProvider} was inaccessible.
+     */
+    private int loadCounter(final @NonNull String counterColumn) throws RemoteException, CursorIsNullException {
+        try (final Cursor cursor = client.query(Utils.getMeasurementUri(authority), new String[] {counterColumn},
+                BaseColumns._ID + "=?", new String[] {Long.valueOf(measurementIdentifier).toString()}, null)) {
+            softCatchNullCursor(cursor);
+            Validate.isTrue(cursor.moveToFirst(), "Measurement does not exist: " + measurementIdentifier);
+            return cursor.getInt(cursor.getColumnIndex(counterColumn));
+        }
     }
 
     /**
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import static de.cyface.persistence.MeasurementTable.COLUMN_DISTANCE;
+import static de.cyface.persistence.MeasurementTable.COLUMN_EVENT_COUNT;
+import static de.cyface.persistence.MeasurementTable.COLUMN_FIRST_LOCATION_FK;
+import static de.cyface.persistence.MeasurementTable.COLUMN_LAST_LOCATION_FK;
+import static de.cyface.persistence.MeasurementTable.COLUMN_LOCATION_COUNT;
+import static de.cyface.persistence.MeasurementTable.COLUMN_MAX_LAT;
+import static de.cyface.persistence.MeasurementTable.COLUMN_MAX_LON;
+import static de.cyface.persistence.MeasurementTable.COLUMN_MIN_LAT;
+import static de.cyface.persistence.MeasurementTable.COLUMN_MIN_LON;
+import static de.cyface.persistence.MeasurementTable.COLUMN_MODALITY;
+import static de.cyface.persistence.MeasurementTable.COLUMN_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.MeasurementTable.COLUMN_STATUS;
+import static de.cyface.persistence.MeasurementTable.COLUMN_TIMESTAMP;
+
+import android.database.Cursor;
+import android.provider.BaseColumns;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.persistence.model.Measurement;
+import de.cyface.persistence.model.MeasurementStatus;
+import de.cyface.persistence.model.Modality;
+
+/**
+ * Reads the rows of a {@link Cursor} on the {@link MeasurementTable}.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+public final class MeasurementRowMapper extends CursorRowMapper<Measurement> {
+
+    /**
+     * The index of the {@link BaseColumns#_ID} column.
+     */
+    private final int identifierIndex;
+    /**
+     * The index of the {@link MeasurementTable#COLUMN_STATUS} column.
+     */
+    private final int statusIndex;
+    /**
+     * The index of the {@link MeasurementTable#COLUMN_MODALITY} column.
+     */
+    private final int modalityIndex;
+    /**
+     * The index of the {@link MeasurementTable#COLUMN_PERSISTENCE_FILE_FORMAT_VERSION} column.
+     */
+    private final int fileFormatVersionIndex;
+    /**
+     * The index of the {@link MeasurementTable#COLUMN_DISTANCE} column.
+     */
+    private final int distanceIndex;
+    /**
+     * The index of the {@link MeasurementTable#COLUMN_TIMESTAMP} column.
+     */
+    private final int timestampIndex;
+    /**
+     * The index of the {@link MeasurementTable#COLUMN_LOCATION_COUNT} column.
+     */
+    private final int locationCountIndex;
+    /**
+     * The index of the {@link MeasurementTable#COLUMN_EVENT_COUNT} column.
+     */
+    private final int eventCountIndex;
+    /**
+     * The index of the {@link MeasurementTable#COLUMN_FIRST_LOCATION_FK} column.
+     */
+    private final int firstLocationIdentifierIndex;
+    /**
+     * The index of the {@link MeasurementTable#COLUMN_LAST_LOCATION_FK} column.
+     */
+    private final int lastLocationIdentifierIndex;
+    /**
+     * The index of the {@link MeasurementTable#COLUMN_MIN_LAT} column.
+     */
+    private final int minLatIndex;
+    /**
+     * The index of the {@link MeasurementTable#COLUMN_MAX_LAT} column.
+     */
+    private final int maxLatIndex;
+    /**
+     * The index of the {@link MeasurementTable#COLUMN_MIN_LON} column.
+     */
+    private final int minLonIndex;
+    /**
+     * The index of the {@link MeasurementTable#COLUMN_MAX_LON} column.
+     */
+    private final int maxLonIndex;
+
+    /**
+     * @param cursor The {@code Cursor} to read the rows from. The caller is responsible to move and close it.
+     */
+    public MeasurementRowMapper(@NonNull final Cursor cursor) {
+        super(cursor);
+        identifierIndex = cursor.getColumnIndex(BaseColumns._ID);
+        statusIndex = cursor.getColumnIndex(COLUMN_STATUS);
+        modalityIndex = cursor.getColumnIndex(COLUMN_MODALITY);
+        fileFormatVersionIndex = cursor.getColumnIndex(COLUMN_PERSISTENCE_FILE_FORMAT_VERSION);
+        distanceIndex = cursor.getColumnIndex(COLUMN_DISTANCE);
+        timestampIndex = cursor.getColumnIndex(COLUMN_TIMESTAMP);
+        locationCountIndex = cursor.getColumnIndex(COLUMN_LOCATION_COUNT);
+        eventCountIndex = cursor.getColumnIndex(COLUMN_EVENT_COUNT);
+        firstLocationIdentifierIndex = cursor.getColumnIndex(COLUMN_FIRST_LOCATION_FK);
+        lastLocationIdentifierIndex = cursor.getColumnIndex(COLUMN_LAST_LOCATION_FK);
+        minLatIndex = cursor.getColumnIndex(COLUMN_MIN_LAT);
+        maxLatIndex = cursor.getColumnIndex(COLUMN_MAX_LAT);
+        minLonIndex = cursor.getColumnIndex(COLUMN_MIN_LON);
+        maxLonIndex = cursor.getColumnIndex(COLUMN_MAX_LON);
+    }
+
+    public long getIdentifier() {
+        return cursor.getLong(identifierIndex);
+    }
+
+    @NonNull
+    public MeasurementStatus getStatus() {
+        return MeasurementStatus.valueOf(cursor.getString(statusIndex));
+    }
+
+    @NonNull
+    public Modality getModality() {
+        return Modality.valueOf(cursor.getString(modalityIndex));
+    }
+
+    public short getFileFormatVersion() {
+        return cursor.getShort(fileFormatVersionIndex);
+    }
+
+    public double getDistance() {
+        return cursor.getDouble(distanceIndex);
+    }
+
+    public long getTimestamp() {
+        return cursor.getLong(timestampIndex);
+    }
+
+    public int getLocationCount() {
+        return cursor.getInt(locationCountIndex);
+    }
+
+    public int getEventCount() {
+        return cursor.getInt(eventCountIndex);
+    }
+
+    /**
+     * @return The id of the earliest {@code GeoLocation} or {@code 0} if there is none
+     */
+    public long getFirstLocationIdentifier() {
+        return cursor.getLong(firstLocationIdentifierIndex);
+    }
+
+    /**
+     * @return The id of the latest {@code GeoLocation} or {@code 0} if there is none
+     */
+    public long getLastLocationIdentifier() {
+        return cursor.getLong(lastLocationIdentifierIndex);
+    }
+
+    public double getMinLat() {
+        return cursor.getDouble(minLatIndex);
+    }
+
+    public double getMaxLat() {
+        return cursor.getDouble(maxLatIndex);
+    }
+
+    public double getMinLon() {
+        return cursor.getDouble(minLonIndex);
+    }
+
+    public double getMaxLon() {
+        return cursor.getDouble(maxLonIndex);
+    }
+
+    @NonNull
+    @Override
+    public Measurement map() {
+        return new Measurement(getIdentifier(), getStatus(), getModality(), getFileFormatVersion(), getDistance(),
+                getTimestamp());
+    }
+}
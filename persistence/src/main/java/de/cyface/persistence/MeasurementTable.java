@@ -20,6 +20,12 @@ package de.cyface.persistence;
 
 import static de.cyface.persistence.Constants.TAG;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.provider.BaseColumns;
@@ -27,6 +33,7 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import de.cyface.persistence.model.Event;
 import de.cyface.persistence.model.GeoLocation;
 import de.cyface.persistence.model.Measurement;
 import de.cyface.persistence.model.MeasurementStatus;
@@ -36,10 +43,15 @@ import de.cyface.utils.Validate;
 
 /**
  * This class represents the table containing all the {@link Measurement}s currently stored on this device.
+ * <p>
+ * Besides the {@code Measurement} attributes this table contains the number of {@link GeoLocation}s and
+ * {@link Event}s, the first and last {@code GeoLocation} and the bounding box of each {@code Measurement}. These
+ * columns are maintained by the {@link DatabaseHelper} when data is inserted, so they can be read without scanning the
+ * data tables.
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 4.0.0
+ * @version 4.1.1
  * @since 1.0.0
  */
 public class MeasurementTable extends AbstractCyfaceMeasurementTable {
@@ -71,11 +83,76 @@ public class MeasurementTable extends AbstractCyfaceMeasurementTable {
      * Column name for the Unix timestamp in milliseconds of this {@link Measurement}.
      */
     public static final String COLUMN_TIMESTAMP = "timestamp";
+    /**
+     * Column name for the number of {@link GeoLocation}s of this {@link Measurement}.
+     */
+    public static final String COLUMN_LOCATION_COUNT = "location_count";
+    /**
+     * Column name for the {@link BaseColumns#_ID} of the earliest {@link GeoLocation} of this {@link Measurement} or
+     * {@code null} if there is none.
+     */
+    public static final String COLUMN_FIRST_LOCATION_FK = "first_location_fk";
+    /**
+     * Column name for the {@link BaseColumns#_ID} of the latest {@link GeoLocation} of this {@link Measurement} or
+     * {@code null} if there is none.
+     */
+    public static final String COLUMN_LAST_LOCATION_FK = "last_location_fk";
+    /**
+     * Column name for the southern bound of the {@link GeoLocation}s of this {@link Measurement} or {@code null}.
+     */
+    public static final String COLUMN_MIN_LAT = "min_lat";
+    /**
+     * Column name for the northern bound of the {@link GeoLocation}s of this {@link Measurement} or {@code null}.
+     */
+    public static final String COLUMN_MAX_LAT = "max_lat";
+    /**
+     * Column name for the western bound of the {@link GeoLocation}s of this {@link Measurement} or {@code null}.
+     */
+    public static final String COLUMN_MIN_LON = "min_lon";
+    /**
+     * Column name for the eastern bound of the {@link GeoLocation}s of this {@link Measurement} or {@code null}.
+     */
+    public static final String COLUMN_MAX_LON = "max_lon";
+    /**
+     * Column name for the number of {@link Event}s of this {@link Measurement}.
+     */
+    public static final String COLUMN_EVENT_COUNT = "event_count";
     /**
      * An array containing all columns from this table in default order.
      */
     private static final String[] COLUMNS = {BaseColumns._ID, COLUMN_STATUS, COLUMN_MODALITY,
-            COLUMN_PERSISTENCE_FILE_FORMAT_VERSION, COLUMN_DISTANCE, COLUMN_TIMESTAMP};
+            COLUMN_PERSISTENCE_FILE_FORMAT_VERSION, COLUMN_DISTANCE, COLUMN_TIMESTAMP, COLUMN_LOCATION_COUNT,
+            COLUMN_FIRST_LOCATION_FK, COLUMN_LAST_LOCATION_FK, COLUMN_MIN_LAT, COLUMN_MAX_LAT, COLUMN_MIN_LON,
+            COLUMN_MAX_LON, COLUMN_EVENT_COUNT};
+    /**
+     * Adds the aggregates of a batch of {@link GeoLocation}s to the aggregates of one {@link Measurement}. The first
+     * and last location are only replaced if the batch contains an earlier or later {@code GeoLocation}.
+     * <p>
+     * Arguments: count, first time, first id, last time, last id, min lat (2x), max lat (2x), min lon (2x), max lon
+     * (2x), measurement id
+     */
+    private static final String ADD_GEOLOCATIONS_STATEMENT = "UPDATE " + URI_PATH + " SET " + COLUMN_LOCATION_COUNT
+            + " = " + COLUMN_LOCATION_COUNT + " + ?, "
+            + COLUMN_FIRST_LOCATION_FK + " = CASE WHEN " + COLUMN_FIRST_LOCATION_FK + " IS NULL OR ? < (SELECT "
+            + GeoLocationsTable.COLUMN_GEOLOCATION_TIME + " FROM " + GeoLocationsTable.URI_PATH + " WHERE "
+            + BaseColumns._ID + " = " + COLUMN_FIRST_LOCATION_FK + ") THEN ? ELSE " + COLUMN_FIRST_LOCATION_FK
+            + " END, "
+            + COLUMN_LAST_LOCATION_FK + " = CASE WHEN " + COLUMN_LAST_LOCATION_FK + " IS NULL OR ? >= (SELECT "
+            + GeoLocationsTable.COLUMN_GEOLOCATION_TIME + " FROM " + GeoLocationsTable.URI_PATH + " WHERE "
+            + BaseColumns._ID + " = " + COLUMN_LAST_LOCATION_FK + ") THEN ? ELSE " + COLUMN_LAST_LOCATION_FK
+            + " END, "
+            + COLUMN_MIN_LAT + " = IFNULL(MIN(" + COLUMN_MIN_LAT + ", ?), ?), "
+            + COLUMN_MAX_LAT + " = IFNULL(MAX(" + COLUMN_MAX_LAT + ", ?), ?), "
+            + COLUMN_MIN_LON + " = IFNULL(MIN(" + COLUMN_MIN_LON + ", ?), ?), "
+            + COLUMN_MAX_LON + " = IFNULL(MAX(" + COLUMN_MAX_LON + ", ?), ?) "
+            + "WHERE " + BaseColumns._ID + " = ?";
+    /**
+     * Adds a number of {@link Event}s to the {@link #COLUMN_EVENT_COUNT} of one {@link Measurement}.
+     * <p>
+     * Arguments: count, measurement id
+     */
+    private static final String ADD_EVENTS_STATEMENT = "UPDATE " + URI_PATH + " SET " + COLUMN_EVENT_COUNT + " = "
+            + COLUMN_EVENT_COUNT + " + ? WHERE " + BaseColumns._ID + " = ?";
 
     /**
      * Creates a new completely initialized {@code MeasurementTable} using the name {@link #URI_PATH}.
@@ -89,7 +166,126 @@ public class MeasurementTable extends AbstractCyfaceMeasurementTable {
         return "CREATE TABLE " + getName() + " (" + BaseColumns._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
                 + COLUMN_STATUS + " TEXT NOT NULL, " + COLUMN_MODALITY + " TEXT NOT NULL, "
                 + COLUMN_PERSISTENCE_FILE_FORMAT_VERSION + " INTEGER NOT NULL, " + COLUMN_DISTANCE + " REAL NOT NULL, "
-                + COLUMN_TIMESTAMP + " INTEGER NOT NULL);";
+                + COLUMN_TIMESTAMP + " INTEGER NOT NULL, " + COLUMN_LOCATION_COUNT + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_FIRST_LOCATION_FK + " INTEGER, " + COLUMN_LAST_LOCATION_FK + " INTEGER, " + COLUMN_MIN_LAT
+                + " REAL, " + COLUMN_MAX_LAT + " REAL, " + COLUMN_MIN_LON + " REAL, " + COLUMN_MAX_LON + " REAL, "
+                + COLUMN_EVENT_COUNT + " INTEGER NOT NULL DEFAULT 0);";
+    }
+
+    /**
+     * Adds the inserted {@link GeoLocation}s to the counter, first and last location and bounding box of their
+     * {@link Measurement}s. This must be called in the transaction which inserted the {@code GeoLocation}s.
+     *
+     * @param database The database the {@code GeoLocation}s were inserted into
+     * @param values The inserted {@code GeoLocation}s
+     * @param identifiers The identifiers of the inserted rows in the order of {@code values}, {@code -1} for rows which
+     *            were not inserted
+     */
+    void addGeoLocations(@NonNull final SQLiteDatabase database, @NonNull final List<ContentValues> values,
+            @NonNull final long[] identifiers) {
+        Validate.isTrue(values.size() == identifiers.length);
+
+        // Usually all GeoLocations of a batch belong to the same measurement
+        final Map<Long, GeoLocationAggregate> aggregates = new LinkedHashMap<>();
+        for (int i = 0; i < identifiers.length; i++) {
+            if (identifiers[i] == -1L) {
+                continue;
+            }
+            final ContentValues row = values.get(i);
+            final long measurementIdentifier = row.getAsLong(GeoLocationsTable.COLUMN_MEASUREMENT_FK);
+            GeoLocationAggregate aggregate = aggregates.get(measurementIdentifier);
+            if (aggregate == null) {
+                aggregate = new GeoLocationAggregate();
+                aggregates.put(measurementIdentifier, aggregate);
+            }
+            aggregate.add(identifiers[i], row.getAsLong(GeoLocationsTable.COLUMN_GEOLOCATION_TIME),
+                    row.getAsDouble(GeoLocationsTable.COLUMN_LAT), row.getAsDouble(GeoLocationsTable.COLUMN_LON));
+        }
+
+        for (final Map.Entry<Long, GeoLocationAggregate> entry : aggregates.entrySet()) {
+            final GeoLocationAggregate aggregate = entry.getValue();
+            database.execSQL(ADD_GEOLOCATIONS_STATEMENT,
+                    new Object[] {aggregate.count, aggregate.firstTime, aggregate.firstIdentifier, aggregate.lastTime,
+                            aggregate.lastIdentifier, aggregate.minLat, aggregate.minLat, aggregate.maxLat,
+                            aggregate.maxLat, aggregate.minLon, aggregate.minLon, aggregate.maxLon, aggregate.maxLon,
+                            entry.getKey()});
+        }
+    }
+
+    /**
+     * Adds the inserted {@link Event}s to the counter of their {@link Measurement}s. This must be called in the
+     * transaction which inserted the {@code Event}s.
+     *
+     * @param database The database the {@code Event}s were inserted into
+     * @param values The inserted {@code Event}s
+     * @param identifiers The identifiers of the inserted rows in the order of {@code values}, {@code -1} for rows which
+     *            were not inserted
+     */
+    void addEvents(@NonNull final SQLiteDatabase database, @NonNull final List<ContentValues> values,
+            @NonNull final long[] identifiers) {
+        Validate.isTrue(values.size() == identifiers.length);
+
+        final Map<Long, Integer> counts = new LinkedHashMap<>();
+        for (int i = 0; i < identifiers.length; i++) {
+            final Long measurementIdentifier = values.get(i).getAsLong(EventTable.COLUMN_MEASUREMENT_FK);
+            // Events without measurement are not counted
+            if (identifiers[i] == -1L || measurementIdentifier == null) {
+                continue;
+            }
+            final Integer count = counts.get(measurementIdentifier);
+            counts.put(measurementIdentifier, count == null ? 1 : count + 1);
+        }
+
+        for (final Map.Entry<Long, Integer> entry : counts.entrySet()) {
+            database.execSQL(ADD_EVENTS_STATEMENT, new Object[] {entry.getValue(), entry.getKey()});
+        }
+    }
+
+    /**
+     * Recalculates the counters, first and last location and bounding box of the specified {@link Measurement}s, e.g.
+     * after single {@link GeoLocation}s or {@link Event}s of these {@code Measurement}s were deleted.
+     * <p>
+     * This scans the data of the affected {@code Measurement}s and should thus only be used for rare operations.
+     *
+     * @param database The database to update
+     * @param measurementIdentifiers The identifiers of the {@code Measurement}s to recalculate
+     */
+    void recalculateAggregates(@NonNull final SQLiteDatabase database,
+            @NonNull final Set<Long> measurementIdentifiers) {
+        if (measurementIdentifiers.isEmpty()) {
+            return;
+        }
+        final String statement = recalculateAggregatesStatement(URI_PATH, GeoLocationsTable.URI_PATH,
+                EventTable.URI_PATH) + " WHERE " + BaseColumns._ID + " = ?";
+        for (final Long measurementIdentifier : measurementIdentifiers) {
+            database.execSQL(statement, new Object[] {measurementIdentifier});
+        }
+    }
+
+    /**
+     * Generates the statement which calculates the aggregate columns of all {@link Measurement}s from the data tables.
+     * <p>
+     * The column names are hard-coded as this is also used to migrate the data of previous database versions.
+     *
+     * @param measurements The name of the measurement table
+     * @param locations The name of the table containing the {@link GeoLocation}s
+     * @param events The name of the table containing the {@link Event}s
+     * @return The {@code UPDATE} statement without {@code WHERE} clause
+     */
+    private static String recalculateAggregatesStatement(@NonNull final String measurements,
+            @NonNull final String locations, @NonNull final String events) {
+        final String locationsOfMeasurement = " FROM " + locations + " WHERE measurement_fk = " + measurements + "._id";
+        return "UPDATE " + measurements + " SET "
+                + "location_count = (SELECT COUNT(*)" + locationsOfMeasurement + "), "
+                + "first_location_fk = (SELECT _id" + locationsOfMeasurement
+                + " ORDER BY gps_time ASC, _id ASC LIMIT 1), "
+                + "last_location_fk = (SELECT _id" + locationsOfMeasurement
+                + " ORDER BY gps_time DESC, _id DESC LIMIT 1), "
+                + "min_lat = (SELECT MIN(lat)" + locationsOfMeasurement + "), "
+                + "max_lat = (SELECT MAX(lat)" + locationsOfMeasurement + "), "
+                + "min_lon = (SELECT MIN(lon)" + locationsOfMeasurement + "), "
+                + "max_lon = (SELECT MAX(lon)" + locationsOfMeasurement + "), "
+                + "event_count = (SELECT COUNT(*) FROM " + events + " WHERE measurement_fk = " + measurements + "._id)";
     }
 
     /**
@@ -143,11 +339,36 @@ public class MeasurementTable extends AbstractCyfaceMeasurementTable {
                 Log.d(TAG, "Upgrading event table from V15");
                 migrateDatabaseFromV15(database);
 
+                break; // onUpgrade is called incrementally by DatabaseHelper
+
+            case 17:
+                Log.d(TAG, "Adding data counter and bounding box columns to measurement table");
+                migrateDatabaseFromV17(database);
+
                 break; // onUpgrade is called incrementally by DatabaseHelper
         }
 
     }
 
+    /**
+     * Adds the data counter, first and last location and bounding box columns and calculates them for the existing
+     * measurements.
+     *
+     * @param database The {@code SQLiteDatabase} to upgrade
+     */
+    private void migrateDatabaseFromV17(@NonNull final SQLiteDatabase database) {
+        database.execSQL("ALTER TABLE measurements ADD COLUMN location_count INTEGER NOT NULL DEFAULT 0;");
+        database.execSQL("ALTER TABLE measurements ADD COLUMN first_location_fk INTEGER;");
+        database.execSQL("ALTER TABLE measurements ADD COLUMN last_location_fk INTEGER;");
+        database.execSQL("ALTER TABLE measurements ADD COLUMN min_lat REAL;");
+        database.execSQL("ALTER TABLE measurements ADD COLUMN max_lat REAL;");
+        database.execSQL("ALTER TABLE measurements ADD COLUMN min_lon REAL;");
+        database.execSQL("ALTER TABLE measurements ADD COLUMN max_lon REAL;");
+        database.execSQL("ALTER TABLE measurements ADD COLUMN event_count INTEGER NOT NULL DEFAULT 0;");
+
+        database.execSQL(recalculateAggregatesStatement("measurements", "locations", "events"));
+    }
+
     /**
      * Adds timestamp columns to table.
      *
@@ -385,4 +606,48 @@ public class MeasurementTable extends AbstractCyfaceMeasurementTable {
     protected String[] getDatabaseTableColumns() {
         return COLUMNS;
     }
+
+    /**
+     * The aggregates of the {@link GeoLocation}s of one {@link Measurement} within one inserted batch.
+     *
+     * @author Armin Schnabel
+     * @version 1.0.0
+     * @since 6.2.0
+     */
+    private static class GeoLocationAggregate {
+        int count;
+        long firstIdentifier;
+        long firstTime = Long.MAX_VALUE;
+        long lastIdentifier;
+        long lastTime = Long.MIN_VALUE;
+        double minLat = Double.MAX_VALUE;
+        double maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE;
+        double maxLon = -Double.MAX_VALUE;
+
+        /**
+         * Adds one inserted {@link GeoLocation} to this aggregate.
+         *
+         * @param identifier The {@link BaseColumns#_ID} of the {@code GeoLocation}
+         * @param time The {@link GeoLocationsTable#COLUMN_GEOLOCATION_TIME} of the {@code GeoLocation}
+         * @param lat The {@link GeoLocationsTable#COLUMN_LAT} of the {@code GeoLocation}
+         * @param lon The {@link GeoLocationsTable#COLUMN_LON} of the {@code GeoLocation}
+         */
+        void add(final long identifier, final long time, final double lat, final double lon) {
+            count++;
+            // Same order as used to recalculate the aggregates: by time, then by identifier
+            if (time < firstTime) {
+                firstTime = time;
+                firstIdentifier = identifier;
+            }
+            if (time >= lastTime) {
+                lastTime = time;
+                lastIdentifier = identifier;
+            }
+            minLat = Math.min(minLat, lat);
+            maxLat = Math.max(maxLat, lat);
+            minLon = Math.min(minLon, lon);
+            maxLon = Math.max(maxLon, lon);
+        }
+    }
 }
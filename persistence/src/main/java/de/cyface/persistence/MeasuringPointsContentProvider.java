@@ -1,14 +1,20 @@
 package de.cyface.persistence;
 
+import static de.cyface.persistence.Constants.TAG;
+
 import java.util.Arrays;
 
+import android.content.ComponentName;
 import android.content.ContentProvider;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.pm.ProviderInfo;
 import android.database.Cursor;
 import android.net.Uri;
 import android.provider.BaseColumns;
+import android.util.Log;
 import androidx.annotation.NonNull;
 import de.cyface.utils.Validate;
 
@@ -17,7 +23,7 @@ import de.cyface.utils.Validate;
  * transferring the data to the server.
  *
  * @author Klemens Muthmann
- * @version 1.1.5
+ * @version 1.2.0
  * @since 1.0.0
  */
 public final class MeasuringPointsContentProvider extends ContentProvider {
@@ -35,10 +41,26 @@ public final class MeasuringPointsContentProvider extends ContentProvider {
     public boolean onCreate() {
         context = getContext();
         Validate.notNull(context);
-        database = new DatabaseHelper(context);
+        database = new DatabaseHelper(context, loadDatabaseConfiguration());
         return true;
     }
 
+    /**
+     * Loads the {@link DatabaseConfiguration} from the {@code meta-data} of this provider in the manifest.
+     *
+     * @return The configuration or the defaults if the provider info is not available
+     */
+    private DatabaseConfiguration loadDatabaseConfiguration() {
+        try {
+            final ProviderInfo providerInfo = context.getPackageManager().getProviderInfo(
+                    new ComponentName(context, MeasuringPointsContentProvider.class), PackageManager.GET_META_DATA);
+            return DatabaseConfiguration.fromMetaData(providerInfo.metaData);
+        } catch (final PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Provider info not found, using the default database configuration", e);
+            return DatabaseConfiguration.defaults();
+        }
+    }
+
     /**
      * When only one element should be deleted (by id) this method adjusts the url accordingly (i.e. ../ids to ../#id)
      *
@@ -73,7 +95,9 @@ public final class MeasuringPointsContentProvider extends ContentProvider {
 
     @Override
     public int bulkInsert(@NonNull final Uri uri, @NonNull final ContentValues[] values) {
-        return database.bulkInsert(uri, Arrays.asList(values)).length;
+        final int inserted = database.bulkInsert(uri, Arrays.asList(values)).length;
+        context.getContentResolver().notifyChange(uri, null);
+        return inserted;
     }
 
     @Override
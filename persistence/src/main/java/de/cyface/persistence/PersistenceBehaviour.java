@@ -30,7 +30,7 @@ import de.cyface.utils.CursorIsNullException;
  * if you want to use the {@code PersistenceLayer} to capture a new {@link Measurement} or to load existing data.
  *
  * @author Armin Schnabel
- * @version 1.0.4
+ * @version 1.1.1
  * @since 3.0.0
  */
 public interface PersistenceBehaviour {
@@ -52,6 +52,18 @@ public interface PersistenceBehaviour {
      */
     void shutdown();
 
+    /**
+     * Writes data which is buffered by this behaviour to the persistence layer.
+     * <p>
+     * This is called by the {@link PersistenceLayer} before it loads data which might still be buffered, e.g. by
+     * {@link PersistenceLayer#loadTracks(long)}, so that readers in the same process observe all data stored before.
+     * <p>
+     * Readers in other processes cannot trigger the flush of a behaviour, e.g. the synchronization cannot flush the
+     * buffer of the capturing process. They only see the data the behaviour wrote on its own, e.g. when its flush
+     * interval elapsed.
+     */
+    void flush();
+
     /**
      * Loads the current {@link Measurement} if an {@link MeasurementStatus#OPEN} or {@link MeasurementStatus#PAUSED}
      * {@code Measurement} exists.
@@ -32,7 +32,6 @@ import static de.cyface.utils.CursorIsNullException.softCatchNullCursor;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -47,13 +46,16 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import de.cyface.persistence.model.ColumnarTrack;
 import de.cyface.persistence.model.Event;
 import de.cyface.persistence.model.GeoLocation;
 import de.cyface.persistence.model.Measurement;
+import de.cyface.persistence.model.MeasurementStatistics;
 import de.cyface.persistence.model.MeasurementStatus;
 import de.cyface.persistence.model.Modality;
 import de.cyface.persistence.model.Point3d;
 import de.cyface.persistence.model.Track;
+import de.cyface.persistence.serialization.CompressedPoint3dFile;
 import de.cyface.persistence.serialization.MeasurementSerializer;
 import de.cyface.persistence.serialization.NoSuchFileException;
 import de.cyface.persistence.serialization.Point3dFile;
@@ -66,7 +68,7 @@ import de.cyface.utils.Validate;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 17.0.3
+ * @version 17.8.0
  * @since 2.0.0
  */
 public class PersistenceLayer<B extends PersistenceBehaviour> {
@@ -151,14 +153,31 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
      * @return The newly created {@code Measurement}.
      */
     public Measurement newMeasurement(@NonNull final Modality modality) {
+        return newMeasurement(modality, MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION);
+    }
+
+    /**
+     * Creates a new, {@link MeasurementStatus#OPEN} {@link Measurement} for the provided {@link Modality} which
+     * persists its {@code Point3d}s in the provided format.
+     * <p>
+     * <b>ATTENTION:</b> This method should not be called from outside the SDK.
+     *
+     * @param modality The {@code Modality} to create a new {@code Measurement} for.
+     * @param persistenceFileFormatVersion The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} to use
+     *            for the {@code Point3dFile}s of the {@code Measurement}, e.g.
+     *            {@link MeasurementSerializer#BLOCK_PERSISTENCE_FILE_FORMAT_VERSION}.
+     * @return The newly created {@code Measurement}.
+     */
+    public Measurement newMeasurement(@NonNull final Modality modality, final short persistenceFileFormatVersion) {
+        Validate.isTrue(MeasurementSerializer.isSupported(persistenceFileFormatVersion),
+                "Unsupported persistence file format version: " + persistenceFileFormatVersion);
 
         final long timestamp = System.currentTimeMillis();
 
         final ContentValues measurementValues = new ContentValues();
         measurementValues.put(COLUMN_MODALITY, modality.getDatabaseIdentifier());
         measurementValues.put(COLUMN_STATUS, MeasurementStatus.OPEN.getDatabaseIdentifier());
-        measurementValues.put(COLUMN_PERSISTENCE_FILE_FORMAT_VERSION,
-                MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION);
+        measurementValues.put(COLUMN_PERSISTENCE_FILE_FORMAT_VERSION, persistenceFileFormatVersion);
         measurementValues.put(COLUMN_DISTANCE, 0.0);
         measurementValues.put(COLUMN_TIMESTAMP, timestamp);
 
@@ -170,8 +189,7 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
 
             final long measurementId = Long.parseLong(resultUri.getLastPathSegment());
             persistenceBehaviour.onNewMeasurement(measurementId);
-            return new Measurement(measurementId, OPEN, modality, MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION,
-                    0.0, timestamp);
+            return new Measurement(measurementId, OPEN, modality, persistenceFileFormatVersion, 0.0, timestamp);
         }
     }
 
@@ -222,8 +240,9 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
             cursor = resolver.query(getMeasurementUri(), null, null, null, null);
             softCatchNullCursor(cursor);
 
+            final MeasurementRowMapper mapper = new MeasurementRowMapper(cursor);
             while (cursor.moveToNext()) {
-                final Measurement measurement = loadMeasurement(cursor);
+                final Measurement measurement = mapper.map();
                 ret.add(measurement);
             }
 
@@ -235,38 +254,6 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
         }
     }
 
-    /**
-     * Loads a {@link Measurement} object from a {@link Cursor} which points to a {@code Measurement}.
-     *
-     * @param cursor a {@code Cursor} which points to a {@code Measurement}
-     * @return the {@code Measurement} of the {@code Cursor}
-     */
-    private Measurement loadMeasurement(@NonNull final Cursor cursor) {
-        final long measurementIdentifier = cursor.getLong(cursor.getColumnIndex(_ID));
-        final MeasurementStatus status = MeasurementStatus
-                .valueOf(cursor.getString(cursor.getColumnIndex(COLUMN_STATUS)));
-        final Modality modality = Modality.valueOf(cursor.getString(cursor.getColumnIndex(COLUMN_MODALITY)));
-        final short fileFormatVersion = cursor.getShort(cursor.getColumnIndex(COLUMN_PERSISTENCE_FILE_FORMAT_VERSION));
-        final double distance = cursor.getDouble(cursor.getColumnIndex(COLUMN_DISTANCE));
-        final long timestamp = cursor.getLong(cursor.getColumnIndex(COLUMN_TIMESTAMP));
-        return new Measurement(measurementIdentifier, status, modality, fileFormatVersion, distance, timestamp);
-    }
-
-    /**
-     * Loads an {@link Event} object from a {@link Cursor}.
-     *
-     * @param cursor a {@code Cursor} which points to a {@code Event}
-     * @return the {@code Event} of the {@code Cursor}
-     */
-    private Event loadEvent(@NonNull final Cursor cursor) {
-        final long id = cursor.getLong(cursor.getColumnIndex(_ID));
-        final long timestamp = cursor.getLong(cursor.getColumnIndex(EventTable.COLUMN_TIMESTAMP));
-        final Event.EventType eventType = Event.EventType
-                .valueOf(cursor.getString(cursor.getColumnIndex(EventTable.COLUMN_TYPE)));
-        final String value = cursor.getString(cursor.getColumnIndex(EventTable.COLUMN_VALUE));
-        return new Event(id, eventType, timestamp, value);
-    }
-
     /**
      * Provide one specific {@link Measurement} from the data storage if it exists.
      *
@@ -291,7 +278,7 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
             }
 
             if (cursor.moveToFirst()) {
-                return loadMeasurement(cursor);
+                return new MeasurementRowMapper(cursor).map();
             } else {
                 return null;
             }
@@ -321,7 +308,7 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
             }
 
             if (cursor.moveToFirst()) {
-                return loadEvent(cursor);
+                return new EventRowMapper(cursor).map();
             } else {
                 return null;
             }
@@ -353,7 +340,7 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
                 throw new NoSuchMeasurementException("Failed to load MeasurementStatus.");
             }
 
-            return MeasurementStatus.valueOf(cursor.getString(cursor.getColumnIndex(COLUMN_STATUS)));
+            return new MeasurementRowMapper(cursor).getStatus();
         }
     }
 
@@ -376,8 +363,9 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
                     new String[] {status.getDatabaseIdentifier()}, null);
             softCatchNullCursor(cursor);
 
+            final MeasurementRowMapper mapper = new MeasurementRowMapper(cursor);
             while (cursor.moveToNext()) {
-                final Measurement measurement = loadMeasurement(cursor);
+                final Measurement measurement = mapper.map();
                 measurements.add(measurement);
             }
 
@@ -412,6 +400,7 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
             final File accelerationFile = Point3dFile.loadFile(context, fileAccessLayer, measurementId,
                     Point3dFile.ACCELERATIONS_FOLDER_NAME, Point3dFile.ACCELERATIONS_FILE_EXTENSION).getFile();
             Validate.isTrue(accelerationFile.delete());
+            CompressedPoint3dFile.delete(accelerationFile);
         } catch (final NoSuchFileException e) {
             Log.v(TAG, "markAsSynchronized: No acceleration file found to delete, nothing to do");
         }
@@ -420,6 +409,7 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
             final File rotationFile = Point3dFile.loadFile(context, fileAccessLayer, measurementId,
                     Point3dFile.ROTATIONS_FOLDER_NAME, Point3dFile.ROTATION_FILE_EXTENSION).getFile();
             Validate.isTrue(rotationFile.delete());
+            CompressedPoint3dFile.delete(rotationFile);
         } catch (final NoSuchFileException e) {
             Log.v(TAG, "markAsSynchronized: No rotation file found to delete, nothing to do");
         }
@@ -428,6 +418,7 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
             final File directionFile = Point3dFile.loadFile(context, fileAccessLayer, measurementId,
                     Point3dFile.DIRECTIONS_FOLDER_NAME, Point3dFile.DIRECTION_FILE_EXTENSION).getFile();
             Validate.isTrue(directionFile.delete());
+            CompressedPoint3dFile.delete(directionFile);
         } catch (final NoSuchFileException e) {
             Log.v(TAG, "markAsSynchronized: No direction file found to delete, nothing to do");
         }
@@ -544,6 +535,7 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
             if (accelerationFile.exists()) {
                 Validate.isTrue(accelerationFile.delete());
             }
+            CompressedPoint3dFile.delete(accelerationFile);
         }
         if (rotationFolder.exists()) {
             final File rotationFile = fileAccessLayer.getFilePath(context, measurementIdentifier,
@@ -551,6 +543,7 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
             if (rotationFile.exists()) {
                 Validate.isTrue(rotationFile.delete());
             }
+            CompressedPoint3dFile.delete(rotationFile);
         }
         if (directionFolder.exists()) {
             final File directionFile = fileAccessLayer.getFilePath(context, measurementIdentifier,
@@ -558,11 +551,15 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
             if (directionFile.exists()) {
                 Validate.isTrue(directionFile.delete());
             }
+            CompressedPoint3dFile.delete(directionFile);
         }
     }
 
     /**
      * Loads the {@link Track}s for the provided {@link Measurement}.
+     * <p>
+     * This holds all {@link GeoLocation}s of the {@code Measurement} in memory. Use
+     * {@link #visitTracks(long, TrackVisitor)} to process long {@code Measurement}s.
      *
      * TODO [CY-4438]: From the current implementations (MeasurementContentProviderClient loader and resolver.query) is
      * the loader the faster solution. However, we should upgrade the database access as Android changed it's API.
@@ -574,6 +571,46 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
      */
     @SuppressWarnings("unused") // May be used by SDK implementing app
     public List<Track> loadTracks(final long measurementIdentifier) throws CursorIsNullException {
+        final TrackCollector collector = new TrackCollector();
+        visitTracks(measurementIdentifier, collector);
+        return collector.getTracks();
+    }
+
+    /**
+     * Loads the {@link Track}s for the provided {@link Measurement} as {@link ColumnarTrack}s.
+     * <p>
+     * In contrast to {@link #loadTracks(long)} no {@link GeoLocation} objects are kept in memory.
+     *
+     * @param measurementIdentifier The id of the {@code Measurement} to load the track for.
+     * @return The {@code ColumnarTrack}s associated with the {@code Measurement}. If no {@code GeoLocation}s exists,
+     *         an empty list is returned.
+     * @throws CursorIsNullException when accessing the {@code ContentProvider} failed
+     */
+    @SuppressWarnings("unused") // Used by SDK implementing apps
+    public List<ColumnarTrack> loadColumnarTracks(final long measurementIdentifier) throws CursorIsNullException {
+        final ColumnarTrackCollector collector = new ColumnarTrackCollector();
+        visitTracks(measurementIdentifier, collector);
+        return collector.getTracks();
+    }
+
+    /**
+     * Passes the {@link Track}s of the provided {@link Measurement} to a {@link TrackVisitor}, one
+     * {@link GeoLocation} at a time.
+     * <p>
+     * In contrast to {@link #loadTracks(long)} only the row of the current {@code GeoLocation} is held in memory, which
+     * allows to process {@code Measurement}s of any length.
+     *
+     * @param measurementIdentifier The id of the {@code Measurement} to load the track for.
+     * @param visitor The {@code TrackVisitor} to pass the sub tracks and their {@code GeoLocation}s to. Nothing is
+     *            passed if no {@code GeoLocation}s exists.
+     * @throws CursorIsNullException when accessing the {@code ContentProvider} failed
+     */
+    @SuppressWarnings({"WeakerAccess", "RedundantSuppression"}) // Used by SDK implementing apps
+    public void visitTracks(final long measurementIdentifier, @NonNull final TrackVisitor visitor)
+            throws CursorIsNullException {
+
+        // Make sure GeoLocations buffered by the persistence behaviour of this process are included
+        persistenceBehaviour.flush();
 
         Cursor geoLocationCursor = null;
         Cursor eventCursor = null;
@@ -587,10 +624,7 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
                     new String[] {Long.valueOf(measurementIdentifier).toString()},
                     GeoLocationsTable.COLUMN_GEOLOCATION_TIME + " ASC");
             softCatchNullCursor(geoLocationCursor);
-            if (geoLocationCursor.getCount() == 0) {
-                return Collections.emptyList();
-            }
-            return loadTracks(geoLocationCursor, eventCursor);
+            visitTracks(geoLocationCursor, eventCursor, visitor);
         } finally {
             if (geoLocationCursor != null) {
                 geoLocationCursor.close();
@@ -601,8 +635,132 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
         }
     }
 
+    /**
+     * Loads the {@link MeasurementStatistics} of the provided {@link Measurement}.
+     * <p>
+     * In contrast to {@link #loadTracks(long)} this only loads the {@code Measurement} and two {@link GeoLocation}s
+     * as the statistics are maintained by the database while the data is captured.
+     *
+     * @param measurementIdentifier The id of the {@code Measurement} to load the statistics for.
+     * @return The {@code MeasurementStatistics} or {@code null} if the {@code Measurement} does not exist.
+     * @throws CursorIsNullException when accessing the {@code ContentProvider} failed
+     */
+    @Nullable
+    public MeasurementStatistics loadStatistics(final long measurementIdentifier) throws CursorIsNullException {
+
+        // Make sure GeoLocations buffered by the persistence behaviour of this process are included
+        persistenceBehaviour.flush();
+
+        final int locationCount;
+        final int eventCount;
+        final long firstLocationIdentifier;
+        final long lastLocationIdentifier;
+        final double minLat;
+        final double maxLat;
+        final double minLon;
+        final double maxLon;
+        try (final Cursor cursor = resolver.query(getMeasurementUri(),
+                new String[] {MeasurementTable.COLUMN_LOCATION_COUNT, MeasurementTable.COLUMN_EVENT_COUNT,
+                        MeasurementTable.COLUMN_FIRST_LOCATION_FK, MeasurementTable.COLUMN_LAST_LOCATION_FK,
+                        MeasurementTable.COLUMN_MIN_LAT, MeasurementTable.COLUMN_MAX_LAT,
+                        MeasurementTable.COLUMN_MIN_LON, MeasurementTable.COLUMN_MAX_LON},
+                _ID + "=?", new String[] {String.valueOf(measurementIdentifier)}, null)) {
+            softCatchNullCursor(cursor);
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            final MeasurementRowMapper mapper = new MeasurementRowMapper(cursor);
+            locationCount = mapper.getLocationCount();
+            eventCount = mapper.getEventCount();
+            firstLocationIdentifier = mapper.getFirstLocationIdentifier();
+            lastLocationIdentifier = mapper.getLastLocationIdentifier();
+            minLat = mapper.getMinLat();
+            maxLat = mapper.getMaxLat();
+            minLon = mapper.getMinLon();
+            maxLon = mapper.getMaxLon();
+        }
+        if (locationCount == 0) {
+            return new MeasurementStatistics(0, eventCount, null, null, minLat, maxLat, minLon, maxLon);
+        }
+
+        GeoLocation firstLocation = null;
+        GeoLocation lastLocation = null;
+        try (final Cursor cursor = resolver.query(getGeoLocationsUri(), null, _ID + "=? OR " + _ID + "=?",
+                new String[] {String.valueOf(firstLocationIdentifier), String.valueOf(lastLocationIdentifier)},
+                null)) {
+            softCatchNullCursor(cursor);
+            final GeoLocationRowMapper mapper = new GeoLocationRowMapper(cursor);
+            while (cursor.moveToNext()) {
+                final long identifier = mapper.getIdentifier();
+                final GeoLocation location = mapper.map();
+                if (identifier == firstLocationIdentifier) {
+                    firstLocation = location;
+                }
+                if (identifier == lastLocationIdentifier) {
+                    lastLocation = location;
+                }
+            }
+        }
+        return new MeasurementStatistics(locationCount, eventCount, firstLocation, lastLocation, minLat, maxLat,
+                minLon, maxLon);
+    }
+
+    /**
+     * Loads the {@link MeasurementStatistics} of the provided {@link Measurement} with the number of
+     * {@link GeoLocation}s and the first and last {@code GeoLocation} of its {@link Track}s.
+     * <p>
+     * In contrast to {@link #loadStatistics(long)} the {@code GeoLocation}s captured between a pause and the following
+     * resume event are not counted, as they are not part of any {@code Track} (STAD-140). As long as the
+     * {@code Measurement} was not resumed, the {@code Track}s contain all {@code GeoLocation}s and the statistics
+     * maintained by the database are returned. Else the {@code Track}s are visited without keeping them in memory.
+     * The number of {@link Event}s and the bounding box are always the ones of all {@code GeoLocation}s.
+     *
+     * @param measurementIdentifier The id of the {@code Measurement} to load the statistics for.
+     * @return The {@code MeasurementStatistics} or {@code null} if the {@code Measurement} does not exist.
+     * @throws CursorIsNullException when accessing the {@code ContentProvider} failed
+     */
+    @Nullable
+    public MeasurementStatistics loadTrackStatistics(final long measurementIdentifier) throws CursorIsNullException {
+
+        final MeasurementStatistics statistics = loadStatistics(measurementIdentifier);
+        if (statistics == null || statistics.getLocationCount() == 0
+                || loadEvents(measurementIdentifier, Event.EventType.LIFECYCLE_RESUME).isEmpty()) {
+            return statistics;
+        }
+
+        final int[] locationCount = new int[1];
+        final GeoLocation[] firstAndLastLocation = new GeoLocation[2];
+        visitTracks(measurementIdentifier, new TrackVisitor() {
+            @Override
+            public void onTrackStart() {
+                // Nothing to do
+            }
+
+            @Override
+            public void onGeoLocation(@NonNull final GeoLocationRowMapper row) {
+                final GeoLocation location = row.map();
+                if (locationCount[0] == 0) {
+                    firstAndLastLocation[0] = location;
+                }
+                firstAndLastLocation[1] = location;
+                locationCount[0]++;
+            }
+
+            @Override
+            public void onTrackEnd() {
+                // Nothing to do
+            }
+        });
+        return new MeasurementStatistics(locationCount[0], statistics.getEventCount(), firstAndLastLocation[0],
+                firstAndLastLocation[1], statistics.getMinLat(), statistics.getMaxLat(), statistics.getMinLon(),
+                statistics.getMaxLon());
+    }
+
     /**
      * Loads the "cleaned" {@link Track}s for the provided {@link Measurement}.
+     * <p>
+     * This holds all cleaned {@link GeoLocation}s of the {@code Measurement} in memory. Use
+     * {@link #visitTracks(long, LocationCleaningStrategy, TrackVisitor)} to process long {@code Measurement}s.
      *
      * @param measurementIdentifier The id of the {@code Measurement} to load the track for.
      * @param locationCleaningStrategy The {@link LocationCleaningStrategy} used to filter the
@@ -614,6 +772,47 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
     @SuppressWarnings("unused") // Used by SDK implementing apps (SR, CY)
     public List<Track> loadTracks(final long measurementIdentifier,
             @NonNull final LocationCleaningStrategy locationCleaningStrategy) throws CursorIsNullException {
+        final TrackCollector collector = new TrackCollector();
+        visitTracks(measurementIdentifier, locationCleaningStrategy, collector);
+        return collector.getTracks();
+    }
+
+    /**
+     * Loads the "cleaned" {@link Track}s for the provided {@link Measurement} as {@link ColumnarTrack}s.
+     *
+     * @param measurementIdentifier The id of the {@code Measurement} to load the track for.
+     * @param locationCleaningStrategy The {@link LocationCleaningStrategy} used to filter the
+     *            {@link GeoLocation}s
+     * @return The {@code ColumnarTrack}s associated with the {@code Measurement}. If no {@code GeoLocation}s exists,
+     *         an empty list is returned.
+     * @throws CursorIsNullException when accessing the {@code ContentProvider} failed
+     */
+    @SuppressWarnings("unused") // Used by SDK implementing apps
+    public List<ColumnarTrack> loadColumnarTracks(final long measurementIdentifier,
+            @NonNull final LocationCleaningStrategy locationCleaningStrategy) throws CursorIsNullException {
+        final ColumnarTrackCollector collector = new ColumnarTrackCollector();
+        visitTracks(measurementIdentifier, locationCleaningStrategy, collector);
+        return collector.getTracks();
+    }
+
+    /**
+     * Passes the "cleaned" {@link Track}s of the provided {@link Measurement} to a {@link TrackVisitor}, one
+     * {@link GeoLocation} at a time.
+     *
+     * @param measurementIdentifier The id of the {@code Measurement} to load the track for.
+     * @param locationCleaningStrategy The {@link LocationCleaningStrategy} used to filter the
+     *            {@link GeoLocation}s
+     * @param visitor The {@code TrackVisitor} to pass the sub tracks and their {@code GeoLocation}s to. Nothing is
+     *            passed if no {@code GeoLocation}s exists.
+     * @throws CursorIsNullException when accessing the {@code ContentProvider} failed
+     */
+    @SuppressWarnings({"WeakerAccess", "RedundantSuppression"}) // Used by SDK implementing apps
+    public void visitTracks(final long measurementIdentifier,
+            @NonNull final LocationCleaningStrategy locationCleaningStrategy, @NonNull final TrackVisitor visitor)
+            throws CursorIsNullException {
+
+        // Make sure GeoLocations buffered by the persistence behaviour of this process are included
+        persistenceBehaviour.flush();
 
         Cursor geoLocationCursor = null;
         Cursor eventCursor = null;
@@ -624,10 +823,7 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
             geoLocationCursor = locationCleaningStrategy.loadCleanedLocations(resolver, measurementIdentifier,
                     getGeoLocationsUri());
             softCatchNullCursor(geoLocationCursor);
-            if (geoLocationCursor.getCount() == 0) {
-                return Collections.emptyList();
-            }
-            return loadTracks(geoLocationCursor, eventCursor);
+            visitTracks(geoLocationCursor, eventCursor, visitor);
 
         } finally {
             if (eventCursor != null) {
@@ -676,8 +872,9 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
             softCatchNullCursor(cursor);
 
             final List<Event> events = new ArrayList<>();
+            final EventRowMapper mapper = new EventRowMapper(cursor);
             while (cursor.moveToNext()) {
-                final Event event = loadEvent(cursor);
+                final Event event = mapper.map();
                 events.add(event);
             }
             return events;
@@ -708,8 +905,9 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
                     EventTable.COLUMN_TIMESTAMP + " ASC");
             softCatchNullCursor(cursor);
 
+            final EventRowMapper mapper = new EventRowMapper(cursor);
             while (cursor.moveToNext()) {
-                final Event event = loadEvent(cursor);
+                final Event event = mapper.map();
                 events.add(event);
             }
 
@@ -722,137 +920,111 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
     }
 
     /**
-     * Loads the {@link Track}s for the provided {@link GeoLocation} cursor sliced using the provided {@link Event}
-     * cursor.
+     * Passes the {@link Track}s for the provided {@link GeoLocation} cursor sliced using the provided {@link Event}
+     * cursor to the {@link TrackVisitor}.
      *
      * @param geoLocationCursor The {@code GeoLocation} cursor which points to the locations to be loaded.
      * @param eventCursor The {@code Event} cursor which points to the events annotation the corresponding
      *            {@link Measurement}.
-     * @return The {@link Track}s for the corresponding {@code Measurement} loaded.
+     * @param visitor The {@code TrackVisitor} to pass the sub tracks of the corresponding {@code Measurement} to.
      */
-    @NonNull
-    private List<Track> loadTracks(@NonNull final Cursor geoLocationCursor, @NonNull final Cursor eventCursor) {
-        final List<Track> tracks = new ArrayList<>();
+    private void visitTracks(@NonNull final Cursor geoLocationCursor, @NonNull final Cursor eventCursor,
+            @NonNull final TrackVisitor visitor) {
+        final GeoLocationRowMapper locations = new GeoLocationRowMapper(geoLocationCursor);
+        final EventRowMapper events = new EventRowMapper(eventCursor);
 
         // The geoLocationCursor always needs to point to the first GeoLocation of the next sub track
         if (!geoLocationCursor.moveToNext()) {
-            return tracks;
+            return;
         }
 
         // Slice Tracks before resume events
         Long pauseEventTime = null;
         while (eventCursor.moveToNext() && !geoLocationCursor.isAfterLast()) {
-            final Event.EventType eventType = Event.EventType
-                    .valueOf(eventCursor.getString(eventCursor.getColumnIndex(EventTable.COLUMN_TYPE)));
+            final Event.EventType eventType = events.getType();
 
             // Search for next resume event and capture it's previous pause event
             if (eventType != Event.EventType.LIFECYCLE_RESUME) {
                 if (eventType == Event.EventType.LIFECYCLE_PAUSE) {
-                    pauseEventTime = eventCursor.getLong(eventCursor.getColumnIndex(EventTable.COLUMN_TIMESTAMP));
+                    pauseEventTime = events.getTimestamp();
                 }
                 continue;
             }
             Validate.notNull(pauseEventTime);
-            final long resumeEventTime = eventCursor.getLong(eventCursor.getColumnIndex(EventTable.COLUMN_TIMESTAMP));
+            final long resumeEventTime = events.getTimestamp();
 
-            // Collect all GeoLocations until the pause event
-            final Track track = collectNextSubTrack(geoLocationCursor, pauseEventTime);
-            // Add sub-track to track
-            if (track.getGeoLocations().size() > 0) {
-                tracks.add(track);
-            }
+            // Pass all GeoLocations until the pause event as sub-track
+            visitNextSubTrack(locations, pauseEventTime, visitor);
 
             // Pause reached: Move geoLocationCursor to the first location of the next sub-track
             // We do this to ignore locations between pause and resume event (STAD-140)
-            moveCursorToFirstAfter(geoLocationCursor, resumeEventTime);
+            moveCursorToFirstAfter(locations, resumeEventTime);
         }
 
         // Return if there is no tail (sub track ending at LIFECYCLE_STOP instead of LIFECYCLE_PAUSE)
         if (geoLocationCursor.isAfterLast()) {
-            return tracks;
+            return;
         }
 
-        // Collect tail sub track
+        // Pass tail sub track
         // This is ether the track between start[, pause] and stop or resume[, pause] and stop.
-        final Track track = new Track();
+        visitor.onTrackStart();
         do {
-            final GeoLocation location = loadGeoLocation(geoLocationCursor);
-            if (location != null) {
-                track.add(location);
-            }
-
+            visitor.onGeoLocation(locations);
         } while (geoLocationCursor.moveToNext());
-        Validate.isTrue(track.getGeoLocations().size() > 0);
-        tracks.add(track);
-        return tracks;
+        visitor.onTrackEnd();
     }
 
     /**
-     * Collects a sub {@link Track} of a {@code Measurement}.
+     * Passes a sub {@link Track} of a {@code Measurement} to the {@link TrackVisitor}.
+     * <p>
+     * Empty sub tracks are not passed to the {@code TrackVisitor}.
      *
-     * @param geoLocationCursor The {@code Cursor} pointing to the {@code GeoLocation}s. The {@param geoLocationCursor}
-     *            must point to the first {@code GeoLocation} of the sub track to be collected.
+     * @param locations The {@code GeoLocationRowMapper} of the {@code Cursor} pointing to the {@code GeoLocation}s.
+     *            The {@code Cursor} must point to the first {@code GeoLocation} of the sub track to be collected.
      * @param pauseEventTime the Unix timestamp of the {@link Event.EventType#LIFECYCLE_PAUSE} which defines the end of
      *            this sub Track.
-     * @return The sub {@code Track}. The {@param geoLocationCursor} points to the first {@code GeoLocation} which is
-     *         later in time than the {@param pauseEventTime} or to the last GeoLocation if the earlier does not exist.
+     * @param visitor The {@code TrackVisitor} to pass the sub track to. After this call the {@code Cursor} points to
+     *            the first {@code GeoLocation} which is later in time than the {@param pauseEventTime} or to the last
+     *            GeoLocation if the earlier does not exist.
      */
-    private Track collectNextSubTrack(@NonNull final Cursor geoLocationCursor, @NonNull final Long pauseEventTime) {
-        final Track track = new Track();
+    private void visitNextSubTrack(@NonNull final GeoLocationRowMapper locations, @NonNull final Long pauseEventTime,
+            @NonNull final TrackVisitor visitor) {
+        final Cursor geoLocationCursor = locations.getCursor();
+        boolean empty = true;
 
-        GeoLocation location = loadGeoLocation(geoLocationCursor);
-        while (location != null && location.getTimestamp() <= pauseEventTime) {
+        while (!geoLocationCursor.isAfterLast() && locations.getTimestamp() <= pauseEventTime) {
 
-            track.add(location);
+            if (empty) {
+                visitor.onTrackStart();
+                empty = false;
+            }
+            visitor.onGeoLocation(locations);
 
-            // Load next GeoLocation to check it's timestamp in next iteration
+            // Move to next GeoLocation to check it's timestamp in next iteration
             geoLocationCursor.moveToNext();
-            location = loadGeoLocation(geoLocationCursor);
         }
 
-        return track;
+        if (!empty) {
+            visitor.onTrackEnd();
+        }
     }
 
     /**
-     * Moves the {@param geoLocationCursor} to the first GeoLocation starting at {@param resumeEventTime}.
+     * Moves the {@code Cursor} to the first GeoLocation starting at {@param resumeEventTime}.
      * <p>
      * If there is no such {@code GeoLocation} then the cursor points to {@link Cursor#isAfterLast()}.
      *
-     * @param geoLocationCursor The {@code Cursor} pointing to the {@code GeoLocation}s.
+     * @param locations The {@code GeoLocationRowMapper} of the {@code Cursor} pointing to the {@code GeoLocation}s.
      * @param resumeEventTime the Unix timestamp, e.g. of {@link Event.EventType#LIFECYCLE_RESUME}
      */
-    private void moveCursorToFirstAfter(@NonNull final Cursor geoLocationCursor, final long resumeEventTime) {
-
-        @Nullable
-        GeoLocation location = loadGeoLocation(geoLocationCursor);
-        while (location != null && location.getTimestamp() < resumeEventTime && geoLocationCursor.moveToNext()) {
-
-            // Load next location to check it's timestamp
-            location = loadGeoLocation(geoLocationCursor);
-        }
-    }
+    private void moveCursorToFirstAfter(@NonNull final GeoLocationRowMapper locations, final long resumeEventTime) {
+        final Cursor geoLocationCursor = locations.getCursor();
 
-    /**
-     * Loads the {@link GeoLocation} at the {@code Cursor}'s current position.
-     *
-     * @param geoLocationCursor the {@code Cursor} pointing to a {@code GeoLocation} in the database.
-     * @return the {@code GeoLocation} loaded or {@code Null} if the cursor points to the entry after the last one.
-     */
-    @Nullable
-    private GeoLocation loadGeoLocation(@NonNull final Cursor geoLocationCursor) {
-        if (geoLocationCursor.isAfterLast()) {
-            return null;
+        // Only the timestamp is read to check if the location is skipped, no GeoLocation is created
+        while (!geoLocationCursor.isAfterLast() && locations.getTimestamp() < resumeEventTime) {
+            geoLocationCursor.moveToNext();
         }
-
-        final double lat = geoLocationCursor.getDouble(geoLocationCursor.getColumnIndex(GeoLocationsTable.COLUMN_LAT));
-        final double lon = geoLocationCursor.getDouble(geoLocationCursor.getColumnIndex(GeoLocationsTable.COLUMN_LON));
-        final long timestamp = geoLocationCursor
-                .getLong(geoLocationCursor.getColumnIndex(GeoLocationsTable.COLUMN_GEOLOCATION_TIME));
-        final double speed = geoLocationCursor
-                .getDouble(geoLocationCursor.getColumnIndex(GeoLocationsTable.COLUMN_SPEED));
-        final float accuracy = geoLocationCursor
-                .getFloat(geoLocationCursor.getColumnIndex(GeoLocationsTable.COLUMN_ACCURACY));
-        return new GeoLocation(lat, lon, timestamp, speed, accuracy);
     }
 
     /**
@@ -1136,4 +1308,82 @@ public class PersistenceLayer<B extends PersistenceBehaviour> {
     public File getCacheDir() {
         return getContext().getCacheDir();
     }
+
+    /**
+     * A {@link TrackVisitor} which collects the sub tracks in a list, used by the {@code loadTracks} methods.
+     */
+    private static class TrackCollector implements TrackVisitor {
+
+        /**
+         * The sub tracks collected so far.
+         */
+        private final List<Track> tracks = new ArrayList<>();
+        /**
+         * The sub track currently collected or {@code null} if no sub track is started.
+         */
+        private Track track;
+
+        @Override
+        public void onTrackStart() {
+            track = new Track();
+        }
+
+        @Override
+        public void onGeoLocation(@NonNull final GeoLocationRowMapper row) {
+            track.add(row.map());
+        }
+
+        @Override
+        public void onTrackEnd() {
+            tracks.add(track);
+            track = null;
+        }
+
+        /**
+         * @return The collected sub tracks. If no {@code GeoLocation}s exists, an empty list is returned.
+         */
+        List<Track> getTracks() {
+            return tracks;
+        }
+    }
+
+    /**
+     * A {@link TrackVisitor} which collects the sub tracks as {@link ColumnarTrack}s, used by the
+     * {@code loadColumnarTracks} methods.
+     */
+    private static class ColumnarTrackCollector implements TrackVisitor {
+
+        /**
+         * The sub tracks collected so far.
+         */
+        private final List<ColumnarTrack> tracks = new ArrayList<>();
+        /**
+         * The sub track currently collected or {@code null} if no sub track is started.
+         */
+        private ColumnarTrack track;
+
+        @Override
+        public void onTrackStart() {
+            track = new ColumnarTrack();
+        }
+
+        @Override
+        public void onGeoLocation(@NonNull final GeoLocationRowMapper row) {
+            row.readInto(track);
+        }
+
+        @Override
+        public void onTrackEnd() {
+            track.trimToSize();
+            tracks.add(track);
+            track = null;
+        }
+
+        /**
+         * @return The collected sub tracks. If no {@code GeoLocation}s exists, an empty list is returned.
+         */
+        List<ColumnarTrack> getTracks() {
+            return tracks;
+        }
+    }
 }
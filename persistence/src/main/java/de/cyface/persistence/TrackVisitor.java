@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.persistence.model.GeoLocation;
+import de.cyface.persistence.model.Measurement;
+import de.cyface.persistence.model.Track;
+
+/**
+ * Receives the {@link Track}s of a {@link Measurement} one {@link GeoLocation} at a time, in contrast to
+ * {@link PersistenceLayer#loadTracks(long)} which holds the whole {@code Measurement} in memory.
+ * <p>
+ * The sub tracks are sliced at pause and resume events the same way as by {@code PersistenceLayer#loadTracks(long)}.
+ * Each sub track is passed as one {@link #onTrackStart()}, at least one {@link #onGeoLocation(GeoLocationRowMapper)}
+ * and one {@link #onTrackEnd()} call.
+ * <p>
+ * The {@code GeoLocation}s are passed as the row they are stored in, so a visitor which only reads some of the values,
+ * e.g. into a {@link de.cyface.persistence.model.ColumnarTrack}, does not create a {@code GeoLocation} object for each
+ * row.
+ *
+ * @author Armin Schnabel
+ * @version 2.0.0
+ * @since 6.2.0
+ */
+public interface TrackVisitor {
+
+    /**
+     * Called before the first {@link GeoLocation} of a sub track.
+     */
+    void onTrackStart();
+
+    /**
+     * Called for each {@link GeoLocation} of the current sub track in the order of their timestamps.
+     *
+     * @param row The row of the {@code GeoLocation}. It is only valid during this call as the same mapper is moved to
+     *            the next row afterwards. Use {@link GeoLocationRowMapper#map()} to keep a {@code GeoLocation}.
+     */
+    void onGeoLocation(@NonNull final GeoLocationRowMapper row);
+
+    /**
+     * Called after the last {@link GeoLocation} of a sub track.
+     */
+    void onTrackEnd();
+}
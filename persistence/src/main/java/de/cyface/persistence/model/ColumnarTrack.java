@@ -0,0 +1,314 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.persistence.LocationCleaningStrategy;
+
+/**
+ * A {@link Track} which stores each field of its {@link GeoLocation}s in a primitive array instead of one object per
+ * {@code GeoLocation}.
+ * <p>
+ * This needs 37 bytes per {@code GeoLocation} instead of about 60 bytes for the object and its reference in a
+ * {@code Track} and avoids one allocation per {@code GeoLocation}. This is relevant when the {@code Track}s of long
+ * {@link Measurement}s are held in memory, e.g. to render them on a map.
+ * The arrays grow by doubling their capacity.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+public class ColumnarTrack {
+
+    /**
+     * The capacity used when no capacity is provided.
+     */
+    private final static int DEFAULT_CAPACITY = 16;
+    /**
+     * The latitudes of the {@link GeoLocation}s in decimal coordinates.
+     */
+    private double[] lats;
+    /**
+     * The longitudes of the {@link GeoLocation}s in decimal coordinates.
+     */
+    private double[] lons;
+    /**
+     * The timestamps of the {@link GeoLocation}s in milliseconds since 1.1.1970.
+     */
+    private long[] timestamps;
+    /**
+     * The speeds of the {@link GeoLocation}s in meters per second.
+     */
+    private double[] speeds;
+    /**
+     * The accuracies of the {@link GeoLocation}s in centimeters.
+     */
+    private float[] accuracies;
+    /**
+     * {@code True} for each {@link GeoLocation} which is considered "clean" by the {@link LocationCleaningStrategy}.
+     */
+    private boolean[] valid;
+    /**
+     * The number of {@link GeoLocation}s in this {@code ColumnarTrack}.
+     */
+    private int size;
+
+    public ColumnarTrack() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The number of {@link GeoLocation}s which can be added before the arrays need to grow, e.g. the
+     *            location count of the {@link Measurement}.
+     */
+    public ColumnarTrack(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        lats = new double[capacity];
+        lons = new double[capacity];
+        timestamps = new long[capacity];
+        speeds = new double[capacity];
+        accuracies = new float[capacity];
+        valid = new boolean[capacity];
+    }
+
+    /**
+     * Creates a {@code ColumnarTrack} with the {@link GeoLocation}s of a {@link Track}.
+     *
+     * @param track The {@code Track} to copy
+     * @return The new {@code ColumnarTrack}
+     */
+    public static ColumnarTrack from(@NonNull final Track track) {
+        final ColumnarTrack columnarTrack = new ColumnarTrack(track.getGeoLocations().size());
+        for (final GeoLocation location : track.getGeoLocations()) {
+            columnarTrack.add(location);
+        }
+        return columnarTrack;
+    }
+
+    /**
+     * @param location The {@link GeoLocation} to be added at the end of the {@link ColumnarTrack}.
+     */
+    public void add(@NonNull final GeoLocation location) {
+        add(location.getLat(), location.getLon(), location.getTimestamp(), location.getSpeed(),
+                location.getAccuracy(), location.isValid());
+    }
+
+    /**
+     * Adds a {@link GeoLocation} at the end of the {@link ColumnarTrack} without creating a {@code GeoLocation} object.
+     * <p>
+     * The values are not validated as they are expected to be loaded from the database where only valid
+     * {@code GeoLocation}s are stored.
+     *
+     * @param lat The latitude in decimal coordinates
+     * @param lon The longitude in decimal coordinates
+     * @param timestamp The timestamp in milliseconds since 1.1.1970
+     * @param speed The speed in meters per second
+     * @param accuracy The accuracy in centimeters
+     * @param isValid {@code True} if the location is considered "clean" by the {@link LocationCleaningStrategy}
+     */
+    public void add(final double lat, final double lon, final long timestamp, final double speed,
+            final float accuracy, final boolean isValid) {
+        if (size == lats.length) {
+            grow();
+        }
+        lats[size] = lat;
+        lons[size] = lon;
+        timestamps[size] = timestamp;
+        speeds[size] = speed;
+        accuracies[size] = accuracy;
+        valid[size] = isValid;
+        size++;
+    }
+
+    /**
+     * Doubles the capacity of all arrays.
+     */
+    private void grow() {
+        final int capacity = Math.max(DEFAULT_CAPACITY, lats.length * 2);
+        lats = Arrays.copyOf(lats, capacity);
+        lons = Arrays.copyOf(lons, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        speeds = Arrays.copyOf(speeds, capacity);
+        accuracies = Arrays.copyOf(accuracies, capacity);
+        valid = Arrays.copyOf(valid, capacity);
+    }
+
+    /**
+     * Reduces the capacity of all arrays to the number of {@link GeoLocation}s, e.g. before the
+     * {@code ColumnarTrack} is held in memory for a longer time.
+     */
+    public void trimToSize() {
+        if (size == lats.length) {
+            return;
+        }
+        lats = Arrays.copyOf(lats, size);
+        lons = Arrays.copyOf(lons, size);
+        timestamps = Arrays.copyOf(timestamps, size);
+        speeds = Arrays.copyOf(speeds, size);
+        accuracies = Arrays.copyOf(accuracies, size);
+        valid = Arrays.copyOf(valid, size);
+    }
+
+    /**
+     * @return The number of {@link GeoLocation}s in this {@code ColumnarTrack}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index The index of the {@link GeoLocation}
+     * @return The latitude in decimal coordinates
+     */
+    public double getLat(final int index) {
+        checkIndex(index);
+        return lats[index];
+    }
+
+    /**
+     * @param index The index of the {@link GeoLocation}
+     * @return The longitude in decimal coordinates
+     */
+    public double getLon(final int index) {
+        checkIndex(index);
+        return lons[index];
+    }
+
+    /**
+     * @param index The index of the {@link GeoLocation}
+     * @return The timestamp in milliseconds since 1.1.1970
+     */
+    public long getTimestamp(final int index) {
+        checkIndex(index);
+        return timestamps[index];
+    }
+
+    /**
+     * @param index The index of the {@link GeoLocation}
+     * @return The speed in meters per second
+     */
+    public double getSpeed(final int index) {
+        checkIndex(index);
+        return speeds[index];
+    }
+
+    /**
+     * @param index The index of the {@link GeoLocation}
+     * @return The accuracy in centimeters
+     */
+    public float getAccuracy(final int index) {
+        checkIndex(index);
+        return accuracies[index];
+    }
+
+    /**
+     * @param index The index of the {@link GeoLocation}
+     * @return {@code True} if the location is considered "clean" by the {@link LocationCleaningStrategy}
+     */
+    public boolean isValid(final int index) {
+        checkIndex(index);
+        return valid[index];
+    }
+
+    /**
+     * @param index The index of the {@link GeoLocation}
+     * @param isValid {@code True} if the location is considered "clean" by the {@link LocationCleaningStrategy}
+     */
+    public void setValid(final int index, final boolean isValid) {
+        checkIndex(index);
+        valid[index] = isValid;
+    }
+
+    /**
+     * Creates a {@link GeoLocation} object for one entry, e.g. to pass it to code which expects objects.
+     *
+     * @param index The index of the {@code GeoLocation}
+     * @return A new {@code GeoLocation} with the values at the {@code index}
+     */
+    public GeoLocation getGeoLocation(final int index) {
+        checkIndex(index);
+        final GeoLocation location = new GeoLocation(lats[index], lons[index], timestamps[index], speeds[index],
+                accuracies[index]);
+        location.setValid(valid[index]);
+        return location;
+    }
+
+    /**
+     * @return A {@link Track} with one {@link GeoLocation} object for each entry of this {@code ColumnarTrack}.
+     */
+    public Track toTrack() {
+        final Track track = new Track();
+        for (int i = 0; i < size; i++) {
+            track.add(getGeoLocation(i));
+        }
+        return track;
+    }
+
+    /**
+     * @param index The index to check
+     * @throws IndexOutOfBoundsException if there is no {@link GeoLocation} at the {@code index}
+     */
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    String.format(Locale.US, "Index %d is out of bounds for size %d", index, size));
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ColumnarTrack{" + "size=" + size + '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        ColumnarTrack that = (ColumnarTrack)o;
+        if (size != that.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (Double.compare(lats[i], that.lats[i]) != 0 || Double.compare(lons[i], that.lons[i]) != 0
+                    || timestamps[i] != that.timestamps[i] || Double.compare(speeds[i], that.speeds[i]) != 0
+                    || Float.compare(accuracies[i], that.accuracies[i]) != 0 || valid[i] != that.valid[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = size;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + (int)(timestamps[i] ^ (timestamps[i] >>> 32));
+        }
+        return result;
+    }
+}
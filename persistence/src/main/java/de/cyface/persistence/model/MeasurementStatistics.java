@@ -0,0 +1,153 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import de.cyface.utils.Validate;
+
+/**
+ * The number of {@link GeoLocation}s and {@link Event}s, the first and last {@code GeoLocation} and the bounding box of
+ * a {@link Measurement}.
+ * <p>
+ * These values are maintained by the database while the data is captured, so they are available without loading the
+ * {@link Track}s of the {@code Measurement}.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+public class MeasurementStatistics {
+
+    /**
+     * The number of {@link GeoLocation}s of the {@link Measurement}.
+     */
+    private final int locationCount;
+    /**
+     * The number of {@link Event}s of the {@link Measurement}.
+     */
+    private final int eventCount;
+    /**
+     * The earliest {@link GeoLocation} of the {@link Measurement} or {@code null} if there is none.
+     */
+    @Nullable
+    private final GeoLocation firstLocation;
+    /**
+     * The latest {@link GeoLocation} of the {@link Measurement} or {@code null} if there is none.
+     */
+    @Nullable
+    private final GeoLocation lastLocation;
+    /**
+     * The southern bound of the {@link GeoLocation}s.
+     */
+    private final double minLat;
+    /**
+     * The northern bound of the {@link GeoLocation}s.
+     */
+    private final double maxLat;
+    /**
+     * The western bound of the {@link GeoLocation}s.
+     */
+    private final double minLon;
+    /**
+     * The eastern bound of the {@link GeoLocation}s.
+     */
+    private final double maxLon;
+
+    /**
+     * Creates a new completely initialized instance of this class.
+     *
+     * @param locationCount The number of {@link GeoLocation}s of the {@link Measurement}
+     * @param eventCount The number of {@link Event}s of the {@code Measurement}
+     * @param firstLocation The earliest {@code GeoLocation} of the {@code Measurement} or {@code null} if there is none
+     * @param lastLocation The latest {@code GeoLocation} of the {@code Measurement} or {@code null} if there is none
+     * @param minLat The southern bound of the {@code GeoLocation}s, ignored if there are none
+     * @param maxLat The northern bound of the {@code GeoLocation}s, ignored if there are none
+     * @param minLon The western bound of the {@code GeoLocation}s, ignored if there are none
+     * @param maxLon The eastern bound of the {@code GeoLocation}s, ignored if there are none
+     */
+    public MeasurementStatistics(final int locationCount, final int eventCount,
+            @Nullable final GeoLocation firstLocation, @Nullable final GeoLocation lastLocation, final double minLat,
+            final double maxLat, final double minLon, final double maxLon) {
+        Validate.isTrue(locationCount >= 0 && eventCount >= 0);
+        this.locationCount = locationCount;
+        this.eventCount = eventCount;
+        this.firstLocation = firstLocation;
+        this.lastLocation = lastLocation;
+        this.minLat = minLat;
+        this.maxLat = maxLat;
+        this.minLon = minLon;
+        this.maxLon = maxLon;
+    }
+
+    public int getLocationCount() {
+        return locationCount;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    @Nullable
+    public GeoLocation getFirstLocation() {
+        return firstLocation;
+    }
+
+    @Nullable
+    public GeoLocation getLastLocation() {
+        return lastLocation;
+    }
+
+    /**
+     * @return The southern bound of the {@link GeoLocation}s. Only defined if {@link #getLocationCount()} is not 0.
+     */
+    public double getMinLat() {
+        return minLat;
+    }
+
+    /**
+     * @return The northern bound of the {@link GeoLocation}s. Only defined if {@link #getLocationCount()} is not 0.
+     */
+    public double getMaxLat() {
+        return maxLat;
+    }
+
+    /**
+     * @return The western bound of the {@link GeoLocation}s. Only defined if {@link #getLocationCount()} is not 0.
+     */
+    public double getMinLon() {
+        return minLon;
+    }
+
+    /**
+     * @return The eastern bound of the {@link GeoLocation}s. Only defined if {@link #getLocationCount()} is not 0.
+     */
+    public double getMaxLon() {
+        return maxLon;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "MeasurementStatistics{" + "locationCount=" + locationCount + ", eventCount=" + eventCount
+                + ", firstLocation=" + firstLocation + ", lastLocation=" + lastLocation + ", minLat=" + minLat
+                + ", maxLat=" + maxLat + ", minLon=" + minLon + ", maxLon=" + maxLon + '}';
+    }
+}
@@ -5,7 +5,7 @@ package de.cyface.persistence.serialization;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 1.3.1
+ * @version 1.4.0
  * @since 2.0.0
  */
 public final class ByteSizes {
@@ -21,6 +21,10 @@ public final class ByteSizes {
      * Since our current API Level does not support <code>Double.Bytes</code>.
      */
     final static int DOUBLE_BYTES = Double.SIZE / Byte.SIZE;
+    /**
+     * Since our current API Level does not support <code>Float.Bytes</code>.
+     */
+    final static int FLOAT_BYTES = Float.SIZE / Byte.SIZE;
     /**
      * Since our current API Level does not support <code>Short.Bytes</code>.
      */
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.Constants.TAG;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BLOCK_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.COMPRESSION_NOWRAP;
+import static de.cyface.persistence.serialization.MeasurementSerializer.DEFLATER_LEVEL;
+import static de.cyface.persistence.serialization.MeasurementSerializer.bytesInOnePoint3dEntry;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.Deflater;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import de.cyface.persistence.FileAccessLayer;
+import de.cyface.persistence.model.Point3d;
+import de.cyface.utils.Validate;
+
+/**
+ * A file next to a {@link Point3dFile} which contains its {@link Point3d}s in the layout of the
+ * {@link MeasurementSerializer#TRANSFER_FILE_FORMAT_VERSION}, already compressed while they are captured.
+ * <p>
+ * The file consists of segments, one per write of the {@link Point3dFileAppender}. Each segment has a header with the
+ * following information, followed by the compressed entries:
+ * <ul>
+ * <li>4 Bytes number of entries</li>
+ * <li>4 Bytes number of compressed bytes</li>
+ * </ul>
+ * The entries of each segment are compressed with a new dictionary into raw deflate blocks, which end with a sync
+ * flush, i.e. at a byte boundary and without a final block. This way the segments can be concatenated into the deflate
+ * stream of the transfer file without recompressing them, see {@link SegmentedDeflaterOutputStream}.
+ * <p>
+ * The file is only used when its number of entries matches the {@code Point3dFile}. Otherwise, e.g. when the capturing
+ * process was killed between writing both files, the {@code Point3dFile} is compressed when it's transferred.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.1
+ * @since 6.2.0
+ */
+public class CompressedPoint3dFile implements Closeable {
+
+    /**
+     * The suffix added to the name of the {@link Point3dFile} to get the name of the compressed file.
+     */
+    public final static String FILE_NAME_SUFFIX = ".deflate";
+    /**
+     * A constant with the number of bytes for the header of one segment.
+     */
+    final static int BYTES_IN_SEGMENT_HEADER = 2 * ByteSizes.INT_BYTES;
+    /**
+     * The {@code FileChannel} to append the segments to.
+     */
+    private final FileChannel channel;
+    /**
+     * The compressor which is reset for each segment.
+     */
+    private final Deflater deflater;
+    /**
+     * The buffer for the header of one segment, reused for all segments.
+     */
+    private final ByteBuffer header;
+    /**
+     * The buffer for the compressed bytes of one segment, reused for all segments and replaced by a larger one when a
+     * segment does not fit.
+     */
+    private ByteBuffer segment;
+    /**
+     * The {@link #header} and {@link #segment} to write them with one call, reused to not allocate an array for each
+     * segment.
+     */
+    private final ByteBuffer[] segmentBuffers;
+
+    /**
+     * Opens a compressed file for appending.
+     *
+     * @param file The compressed file to append to
+     */
+    private CompressedPoint3dFile(@NonNull final File file) {
+        try {
+            this.channel = new FileOutputStream(file, true).getChannel();
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        this.deflater = new Deflater(DEFLATER_LEVEL, COMPRESSION_NOWRAP);
+        this.header = ByteBuffer.allocate(BYTES_IN_SEGMENT_HEADER);
+        this.segment = ByteBuffer.allocate(8 * 1024);
+        this.segmentBuffers = new ByteBuffer[2];
+    }
+
+    /**
+     * Opens the compressed file of a {@link Point3dFile} for appending, if it contains the same {@link Point3d}s.
+     * <p>
+     * If the {@code Point3dFile} is empty, a new compressed file is created. If the files contain different points,
+     * the compressed file is deleted and nothing is compressed while capturing this {@code Point3dFile}.
+     *
+     * @param file The {@code Point3dFile} to compress
+     * @param persistenceFileFormatVersion The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} of the
+     *            {@code Point3dFile}
+     * @return The opened file or {@code null} if the {@code Point3dFile} cannot be compressed while capturing
+     */
+    @Nullable
+    static CompressedPoint3dFile open(@NonNull final File file, final short persistenceFileFormatVersion) {
+        final File compressedFile = getFile(file);
+        try {
+            final boolean consistent;
+            if (!compressedFile.exists()) {
+                consistent = file.length() == 0L;
+            } else if (persistenceFileFormatVersion != BLOCK_PERSISTENCE_FILE_FORMAT_VERSION
+                    && file.length() % bytesInOnePoint3dEntry(persistenceFileFormatVersion) != 0) {
+                // The Point3dFile ends with an incomplete entry
+                consistent = false;
+            } else {
+                consistent = countEntries(compressedFile) == MeasurementSerializer.countPoint3ds(file,
+                        persistenceFileFormatVersion);
+            }
+            if (!consistent) {
+                Log.w(TAG, "Not compressing " + file.getName() + " while capturing as it was written without it.");
+                delete(file);
+                return null;
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new CompressedPoint3dFile(compressedFile);
+    }
+
+    /**
+     * Compresses one segment and appends it to the file.
+     *
+     * @param entries The {@link Point3d}s in the layout of the
+     *            {@link MeasurementSerializer#TRANSFER_FILE_FORMAT_VERSION} from the start of the array up to the
+     *            position of the buffer
+     */
+    void append(@NonNull final ByteBuffer entries) {
+        final int length = entries.position();
+        if (length == 0) {
+            return;
+        }
+        Validate.isTrue(length % MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY == 0);
+
+        segment.clear();
+        deflater.reset();
+        deflater.setInput(entries.array(), entries.arrayOffset(), length);
+        // The flush is complete when the deflater leaves space in the output
+        while (true) {
+            final int compressed = deflater.deflate(segment.array(), segment.position(), segment.remaining(),
+                    Deflater.SYNC_FLUSH);
+            segment.position(segment.position() + compressed);
+            if (segment.hasRemaining()) {
+                break;
+            }
+            final ByteBuffer larger = ByteBuffer.allocate(2 * segment.capacity());
+            segment.flip();
+            larger.put(segment);
+            segment = larger;
+        }
+
+        header.clear();
+        header.putInt(length / MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY);
+        header.putInt(segment.position());
+        header.flip();
+        segment.flip();
+        segmentBuffers[0] = header;
+        segmentBuffers[1] = segment;
+        try {
+            while (header.hasRemaining() || segment.hasRemaining()) {
+                channel.write(segmentBuffers);
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to append data to file. Is there space left on the device?");
+        }
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param file The {@link Point3dFile}
+     * @return The compressed file of the {@code Point3dFile}, which might not exist
+     */
+    @NonNull
+    public static File getFile(@NonNull final File file) {
+        return new File(file.getPath() + FILE_NAME_SUFFIX);
+    }
+
+    /**
+     * Deletes the compressed file of a {@link Point3dFile}, if it exists.
+     *
+     * @param file The {@code Point3dFile}
+     */
+    public static void delete(@NonNull final File file) {
+        final File compressedFile = getFile(file);
+        if (compressedFile.exists()) {
+            Validate.isTrue(compressedFile.delete());
+        }
+    }
+
+    /**
+     * Counts the {@link Point3d}s in a compressed file by reading the segment headers.
+     *
+     * @param compressedFile The compressed file
+     * @return The number of points or {@code -1} if the file ends with an incomplete segment, e.g. when the capturing
+     *         process was killed while appending
+     * @throws IOException If reading the file failed
+     */
+    static int countEntries(@NonNull final File compressedFile) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(BYTES_IN_SEGMENT_HEADER);
+        try (final FileChannel channel = new FileInputStream(compressedFile).getChannel()) {
+            final long size = channel.size();
+            long position = 0L;
+            int entries = 0;
+            while (position < size) {
+                if (position + BYTES_IN_SEGMENT_HEADER > size) {
+                    return -1;
+                }
+                header.clear();
+                while (header.hasRemaining()) {
+                    channel.read(header, position + header.position());
+                }
+                entries += header.getInt(0);
+                position += BYTES_IN_SEGMENT_HEADER + header.getInt(ByteSizes.INT_BYTES);
+                if (position > size) {
+                    return -1;
+                }
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Writes the compressed bytes of all segments of a compressed file, without the segment headers.
+     *
+     * @param compressedFile The compressed file, which must not end with an incomplete segment
+     * @param outputStream The stream to write the compressed bytes to
+     * @throws IOException If reading the file or writing to the stream failed
+     */
+    static void writeSegments(@NonNull final File compressedFile, @NonNull final OutputStream outputStream)
+            throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(BYTES_IN_SEGMENT_HEADER);
+        final byte[] chunk = new byte[8 * 1024];
+        try (final FileInputStream inputStream = new FileInputStream(compressedFile)) {
+            while (readFully(inputStream, header.array(), BYTES_IN_SEGMENT_HEADER)) {
+                int remaining = header.getInt(ByteSizes.INT_BYTES);
+                while (remaining > 0) {
+                    final int length = Math.min(chunk.length, remaining);
+                    Validate.isTrue(readFully(inputStream, chunk, length), "Incomplete segment");
+                    outputStream.write(chunk, 0, length);
+                    remaining -= length;
+                }
+            }
+        }
+    }
+
+    /**
+     * Transfers the compressed bytes of all segments of a compressed file, without the segment headers, to a channel
+     * without copying them through the Java heap.
+     * <p>
+     * The file is only opened once for all segments.
+     *
+     * @param compressedFile The compressed file, which must not end with an incomplete segment
+     * @param fileAccessLayer The {@link FileAccessLayer} used to transfer the segments
+     * @param channel The channel to write the compressed bytes to, e.g. of the transfer file
+     * @throws IOException If reading the file failed
+     */
+    static void transferSegments(@NonNull final File compressedFile, @NonNull final FileAccessLayer fileAccessLayer,
+            @NonNull final WritableByteChannel channel) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(BYTES_IN_SEGMENT_HEADER);
+        try (final FileChannel fileChannel = new FileInputStream(compressedFile).getChannel()) {
+            final long size = fileChannel.size();
+            long position = 0L;
+            while (position < size) {
+                header.clear();
+                while (header.hasRemaining()) {
+                    Validate.isTrue(fileChannel.read(header, position + header.position()) != -1,
+                            "Incomplete segment");
+                }
+                final int compressedSize = header.getInt(ByteSizes.INT_BYTES);
+                position += BYTES_IN_SEGMENT_HEADER;
+                Validate.isTrue(position + compressedSize <= size, "Incomplete segment");
+                fileAccessLayer.transferTo(fileChannel, position, compressedSize, channel);
+                position += compressedSize;
+            }
+        }
+    }
+
+    /**
+     * Reads the requested number of bytes from a stream.
+     *
+     * @param inputStream The stream to read from
+     * @param target The array to read into, starting at index {@code 0}
+     * @param length The number of bytes to read
+     * @return {@code false} if the stream ended before any byte was read
+     * @throws IOException If reading failed or the stream ended after some bytes were read
+     */
+    private static boolean readFully(@NonNull final FileInputStream inputStream, @NonNull final byte[] target,
+            final int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            final int count = inputStream.read(target, read, length - read);
+            if (count == -1) {
+                if (read == 0) {
+                    return false;
+                }
+                throw new IOException("Unexpected end of file");
+            }
+            read += count;
+        }
+        return true;
+    }
+}
@@ -40,7 +40,6 @@ import java.nio.ByteBuffer;
 import android.content.ContentProvider;
 import android.content.ContentResolver;
 import android.database.Cursor;
-import android.net.Uri;
 import android.os.RemoteException;
 import android.util.Log;
 
@@ -49,7 +48,7 @@ import androidx.annotation.Nullable;
 
 import de.cyface.persistence.Constants;
 import de.cyface.persistence.DefaultFileAccess;
-import de.cyface.persistence.EventTable;
+import de.cyface.persistence.EventRowMapper;
 import de.cyface.persistence.MeasurementContentProviderClient;
 import de.cyface.persistence.PersistenceLayer;
 import de.cyface.persistence.model.Event;
@@ -80,7 +79,7 @@ import de.cyface.utils.Validate;
  * WARNING: This implementation loads all data from one measurement into memory. So be careful with large measurements.
  *
  * @author Armin Schnabel
- * @version 1.0.1
+ * @version 1.2.1
  * @since 5.0.0-beta1
  */
 public class EventsFileSerializer {
@@ -114,24 +113,23 @@ public class EventsFileSerializer {
         try {
             baos = new ByteArrayOutputStream();
             byte[] serializedEvent;
+            final EventRowMapper mapper = new EventRowMapper(eventsCursor);
             while (eventsCursor.moveToNext()) {
                 // The value string length is dynamic so we need to allocate the buffer for each table row
                 @Nullable // Because not all EventTypes use this field
-                final String value = eventsCursor.getString(eventsCursor.getColumnIndex(EventTable.COLUMN_VALUE));
+                final String value = mapper.getValue();
                 final boolean valueIsNull = value == null;
                 final byte[] valueBytes = valueIsNull ? new byte[] {} : value.getBytes(DEFAULT_CHARSET);
                 final int valueBytesLength = valueBytes.length;
                 Validate.isTrue(valueBytesLength <= Short.MAX_VALUE);
                 final short shortValueBytesLength = (short)valueBytesLength;
-                final String eventTypeString = eventsCursor
-                        .getString(eventsCursor.getColumnIndex(EventTable.COLUMN_TYPE));
-                final Event.EventType eventType = Event.EventType.valueOf(eventTypeString);
+                final Event.EventType eventType = mapper.getType();
                 final short serializedEventType = serializeEventType(eventType);
 
                 // Bytes: long timestamp, short event type enum, short value byte length, variable value UTF-8 bytes
                 final ByteBuffer buffer = ByteBuffer
                         .allocate(LONG_BYTES + SHORT_BYTES + SHORT_BYTES + valueBytes.length);
-                buffer.putLong(eventsCursor.getLong(eventsCursor.getColumnIndex(EventTable.COLUMN_TIMESTAMP)));
+                buffer.putLong(mapper.getTimestamp());
                 buffer.putShort(serializedEventType);
                 buffer.putShort(shortValueBytesLength);
                 buffer.put(valueBytes);
@@ -254,15 +252,31 @@ public class EventsFileSerializer {
         final byte[] serializedEvents;
         final int eventCount;
         try {
-            final Uri eventTableUri = loader.createEventTableUri();
-            eventCount = loader.countData(eventTableUri, EventTable.COLUMN_MEASUREMENT_FK);
+            eventCount = loader.loadEventCount();
 
-            // Serialize Events
+            // Serialize Events, continuing each page after the last Event of the previous page
             final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            for (int startIndex = 0; startIndex < eventCount; startIndex += DATABASE_QUERY_LIMIT) {
-                eventsCursor = loader.loadEvents(startIndex, DATABASE_QUERY_LIMIT);
+            long lastEventTime = Long.MIN_VALUE;
+            long lastEventIdentifier = 0L;
+            int loadedEvents = 0;
+            while (loadedEvents < eventCount) {
+                eventsCursor = loader.loadEvents(lastEventTime, lastEventIdentifier, DATABASE_QUERY_LIMIT);
+                final int pageSize = eventsCursor.getCount();
+                if (pageSize == 0) {
+                    break;
+                }
                 outputStream.write(serializeEvents(eventsCursor));
+                loadedEvents += pageSize;
+
+                if (eventsCursor.moveToLast()) {
+                    final EventRowMapper mapper = new EventRowMapper(eventsCursor);
+                    lastEventTime = mapper.getTimestamp();
+                    lastEventIdentifier = mapper.getIdentifier();
+                }
+                eventsCursor.close();
+                eventsCursor = null;
             }
+            Validate.isTrue(loadedEvents == eventCount);
             serializedEvents = outputStream.toByteArray();
             Log.v(TAG, String.format("Serialized %s Events for synchronization.",
                     DefaultFileAccess.humanReadableByteCount(serializedEvents.length, true)));
@@ -28,24 +28,24 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 import android.database.Cursor;
-import android.net.Uri;
 import android.os.RemoteException;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
 import de.cyface.persistence.DefaultFileAccess;
-import de.cyface.persistence.EventTable;
+import de.cyface.persistence.EventRowMapper;
 import de.cyface.persistence.MeasurementContentProviderClient;
 import de.cyface.persistence.PersistenceLayer;
 import de.cyface.utils.CursorIsNullException;
+import de.cyface.utils.Validate;
 
 /**
  * {@code FileSerializerStrategy} implementation for {@link EventsFileSerializer#EVENT_TRANSFER_FILE_FORMAT_VERSION}
  * files.
  *
  * @author Armin Schnabel
- * @version 1.0.0
+ * @version 1.2.1
  * @since 5.0.0-beta1
  */
 public class EventsFileSerializerStrategy implements FileSerializerStrategy {
@@ -62,15 +62,31 @@ public class EventsFileSerializerStrategy implements FileSerializerStrategy {
         final byte[] serializedEvents;
         final int eventCount;
         try {
-            final Uri eventTableUri = loader.createEventTableUri();
-            eventCount = loader.countData(eventTableUri, EventTable.COLUMN_MEASUREMENT_FK);
+            eventCount = loader.loadEventCount();
 
-            // Serialize Events
+            // Serialize Events, continuing each page after the last Event of the previous page
             final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            for (int startIndex = 0; startIndex < eventCount; startIndex += DATABASE_QUERY_LIMIT) {
-                eventsCursor = loader.loadEvents(startIndex, DATABASE_QUERY_LIMIT);
+            long lastEventTime = Long.MIN_VALUE;
+            long lastEventIdentifier = 0L;
+            int loadedEvents = 0;
+            while (loadedEvents < eventCount) {
+                eventsCursor = loader.loadEvents(lastEventTime, lastEventIdentifier, DATABASE_QUERY_LIMIT);
+                final int pageSize = eventsCursor.getCount();
+                if (pageSize == 0) {
+                    break;
+                }
                 outputStream.write(serializeEvents(eventsCursor));
+                loadedEvents += pageSize;
+
+                if (eventsCursor.moveToLast()) {
+                    final EventRowMapper mapper = new EventRowMapper(eventsCursor);
+                    lastEventTime = mapper.getTimestamp();
+                    lastEventIdentifier = mapper.getIdentifier();
+                }
+                eventsCursor.close();
+                eventsCursor = null;
             }
+            Validate.isTrue(loadedEvents == eventCount);
             serializedEvents = outputStream.toByteArray();
             Log.v(TAG, String.format("Serialized %s Events for synchronization.",
                     DefaultFileAccess.humanReadableByteCount(serializedEvents.length, true)));
@@ -20,22 +20,21 @@ package de.cyface.persistence.serialization;
 
 import static de.cyface.persistence.AbstractCyfaceMeasurementTable.DATABASE_QUERY_LIMIT;
 import static de.cyface.persistence.Constants.TAG;
-import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY;
+import static de.cyface.persistence.serialization.MeasurementSerializer.LEGACY_PERSISTENCE_FILE_FORMAT_VERSION;
 
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import android.database.Cursor;
-import android.net.Uri;
 import android.os.RemoteException;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
 import de.cyface.persistence.DefaultFileAccess;
-import de.cyface.persistence.GeoLocationsTable;
+import de.cyface.persistence.GeoLocationRowMapper;
 import de.cyface.persistence.MeasurementContentProviderClient;
 import de.cyface.persistence.PersistenceLayer;
 import de.cyface.persistence.model.Measurement;
@@ -46,7 +45,7 @@ import de.cyface.utils.Validate;
  * {@code FileSerializerStrategy} implementation for {@link MeasurementSerializer#TRANSFER_FILE_FORMAT_VERSION} files.
  *
  * @author Armin Schnabel
- * @version 1.0.0
+ * @version 2.0.0
  * @since 5.0.0-beta1
  */
 public class MeasurementFileSerializerStrategy implements FileSerializerStrategy {
@@ -60,33 +59,6 @@ public class MeasurementFileSerializerStrategy implements FileSerializerStrategy
         // Logging to collect data on serialization and compression sizes
         long bytesSerialized = 0;
 
-        // GeoLocations
-        Cursor geoLocationsCursor = null;
-        final byte[] serializedGeoLocations;
-        final int geoLocationCount;
-        try {
-            final Uri geoLocationTableUri = loader.createGeoLocationTableUri();
-            geoLocationCount = loader.countData(geoLocationTableUri, GeoLocationsTable.COLUMN_MEASUREMENT_FK);
-
-            // Serialize GeoLocations
-            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            for (int startIndex = 0; startIndex < geoLocationCount; startIndex += DATABASE_QUERY_LIMIT) {
-                geoLocationsCursor = loader.loadGeoLocations(startIndex, DATABASE_QUERY_LIMIT);
-                outputStream.write(MeasurementSerializer.serializeGeoLocations(geoLocationsCursor));
-            }
-            serializedGeoLocations = outputStream.toByteArray();
-            Log.v(TAG, String.format("Serialized %s geoLocations for synchronization.",
-                    DefaultFileAccess.humanReadableByteCount(serializedGeoLocations.length, true)));
-            bytesSerialized += serializedGeoLocations.length;
-
-        } catch (final RemoteException | IOException e) {
-            throw new IllegalStateException(e);
-        } finally {
-            if (geoLocationsCursor != null) {
-                geoLocationsCursor.close();
-            }
-        }
-
         // Get already serialized Point3dFiles
         final File accelerationFile = persistence.getFileAccessLayer().getFilePath(persistence.getContext(),
                 measurementIdentifier,
@@ -98,28 +70,33 @@ public class MeasurementFileSerializerStrategy implements FileSerializerStrategy
                 measurementIdentifier,
                 Point3dFile.DIRECTIONS_FOLDER_NAME, Point3dFile.DIRECTION_FILE_EXTENSION);
 
-        // Calculate how many points the files contain (for the binary header)
+        // Calculate how many points the measurement contains (for the binary header)
+        final Measurement measurement = persistence.loadMeasurement(measurementIdentifier);
+        final short persistenceFileFormatVersion = measurement.getFileFormatVersion();
+        final int geoLocationCount;
         int accelerationsCount = 0;
         int rotationsCount = 0;
         int directionsCount = 0;
-        // noinspection ConstantConditions // can happen in tests
-        if (accelerationFile != null && accelerationFile.exists()) {
-            accelerationsCount = (int)(accelerationFile.length() / BYTES_IN_ONE_POINT_3D_ENTRY);
-            Validate.isTrue(accelerationsCount * BYTES_IN_ONE_POINT_3D_ENTRY == accelerationFile.length());
-        }
-        // noinspection ConstantConditions // can happen in tests
-        if (rotationFile != null && rotationFile.exists()) {
-            rotationsCount = (int)(rotationFile.length() / BYTES_IN_ONE_POINT_3D_ENTRY);
-            Validate.isTrue(rotationsCount * BYTES_IN_ONE_POINT_3D_ENTRY == rotationFile.length());
-        }
-        // noinspection ConstantConditions // can happen in tests
-        if (directionFile != null && directionFile.exists()) {
-            directionsCount = (int)(directionFile.length() / BYTES_IN_ONE_POINT_3D_ENTRY);
-            Validate.isTrue(directionsCount * BYTES_IN_ONE_POINT_3D_ENTRY == directionFile.length());
+        try {
+            geoLocationCount = loader.loadGeoLocationCount();
+            // noinspection ConstantConditions // can happen in tests
+            if (accelerationFile != null && accelerationFile.exists()) {
+                accelerationsCount = MeasurementSerializer.countPoint3ds(accelerationFile,
+                        persistenceFileFormatVersion);
+            }
+            // noinspection ConstantConditions // can happen in tests
+            if (rotationFile != null && rotationFile.exists()) {
+                rotationsCount = MeasurementSerializer.countPoint3ds(rotationFile, persistenceFileFormatVersion);
+            }
+            // noinspection ConstantConditions // can happen in tests
+            if (directionFile != null && directionFile.exists()) {
+                directionsCount = MeasurementSerializer.countPoint3ds(directionFile, persistenceFileFormatVersion);
+            }
+        } catch (final RemoteException | IOException e) {
+            throw new IllegalStateException(e);
         }
 
         // Generate transfer file header
-        final Measurement measurement = persistence.loadMeasurement(measurementIdentifier);
         final byte[] transferFileHeader = MeasurementSerializer.serializeTransferFileHeader(geoLocationCount,
                 measurement, accelerationsCount,
                 rotationsCount, directionsCount);
@@ -127,32 +104,33 @@ public class MeasurementFileSerializerStrategy implements FileSerializerStrategy
                 DefaultFileAccess.humanReadableByteCount(transferFileHeader.length, true)));
         bytesSerialized += transferFileHeader.length;
 
-        // Assemble bytes to transfer via buffered stream to avoid OOM
+        // Stream the data via buffered stream to avoid OOM. As the header is written from the counts above, the data
+        // is not collected in memory before it's written.
         try {
             // The stream must be closed by the called in a finally catch
             bufferedOutputStream.write(transferFileHeader);
-            bufferedOutputStream.write(serializedGeoLocations);
         } catch (final IOException e) {
             throw new IllegalStateException(e);
         }
+        bytesSerialized += writeGeoLocations(loader, geoLocationCount, bufferedOutputStream);
 
         if (accelerationsCount > 0) {
             Log.v(TAG, String.format("Serializing %s accelerations for synchronization.",
                     DefaultFileAccess.humanReadableByteCount(accelerationFile.length(), true)));
-            bytesSerialized += accelerationFile.length();
-            persistence.getFileAccessLayer().writeToOutputStream(accelerationFile, bufferedOutputStream);
+            bytesSerialized += writePoint3ds(accelerationFile, accelerationsCount, persistenceFileFormatVersion,
+                    bufferedOutputStream, persistence);
         }
         if (rotationsCount > 0) {
             Log.v(TAG, String.format("Serializing %s rotations for synchronization.",
                     DefaultFileAccess.humanReadableByteCount(rotationFile.length(), true)));
-            bytesSerialized += rotationFile.length();
-            persistence.getFileAccessLayer().writeToOutputStream(rotationFile, bufferedOutputStream);
+            bytesSerialized += writePoint3ds(rotationFile, rotationsCount, persistenceFileFormatVersion,
+                    bufferedOutputStream, persistence);
         }
         if (directionsCount > 0) {
             Log.v(TAG, String.format("Serializing %s directions for synchronization.",
                     DefaultFileAccess.humanReadableByteCount(directionFile.length(), true)));
-            bytesSerialized += directionFile.length();
-            persistence.getFileAccessLayer().writeToOutputStream(directionFile, bufferedOutputStream);
+            bytesSerialized += writePoint3ds(directionFile, directionsCount, persistenceFileFormatVersion,
+                    bufferedOutputStream, persistence);
         }
 
         try {
@@ -164,4 +142,106 @@ public class MeasurementFileSerializerStrategy implements FileSerializerStrategy
         Log.d(TAG, String.format("Serialized %s",
                 DefaultFileAccess.humanReadableByteCount(bytesSerialized, true)));
     }
+
+    /**
+     * Writes the {@code GeoLocation}s of a {@link Measurement} in the layout of the
+     * {@link MeasurementSerializer#TRANSFER_FILE_FORMAT_VERSION}.
+     * <p>
+     * The {@code GeoLocation}s are loaded and written page by page, each page continuing after the last
+     * {@code GeoLocation} of the previous page, so that only one page is kept in memory.
+     *
+     * @param loader The loader to load the {@code GeoLocation}s of the {@code Measurement} with
+     * @param geoLocationCount The number of {@code GeoLocation}s announced in the header
+     * @param bufferedOutputStream The stream to write the data to
+     * @return The number of bytes written
+     */
+    private long writeGeoLocations(@NonNull final MeasurementContentProviderClient loader,
+            final int geoLocationCount, @NonNull final BufferedOutputStream bufferedOutputStream) {
+
+        Cursor geoLocationsCursor = null;
+        long bytesWritten = 0L;
+        try {
+            long lastGeoLocationTime = Long.MIN_VALUE;
+            long lastGeoLocationIdentifier = 0L;
+            int loadedGeoLocations = 0;
+            while (loadedGeoLocations < geoLocationCount) {
+                geoLocationsCursor = loader.loadGeoLocations(lastGeoLocationTime, lastGeoLocationIdentifier,
+                        DATABASE_QUERY_LIMIT);
+                final int pageSize = geoLocationsCursor.getCount();
+                if (pageSize == 0) {
+                    break;
+                }
+                // Reuses the same buffer for all pages instead of allocating one per page
+                final ByteBuffer page = MeasurementSerializer
+                        .serializationBuffer(pageSize * MeasurementSerializer.BYTES_IN_ONE_GEO_LOCATION_ENTRY);
+                MeasurementSerializer.serializeGeoLocations(geoLocationsCursor, page);
+                bufferedOutputStream.write(page.array(), 0, page.position());
+                bytesWritten += page.position();
+                loadedGeoLocations += pageSize;
+
+                if (geoLocationsCursor.moveToLast()) {
+                    final GeoLocationRowMapper mapper = new GeoLocationRowMapper(geoLocationsCursor);
+                    lastGeoLocationTime = mapper.getTimestamp();
+                    lastGeoLocationIdentifier = mapper.getIdentifier();
+                }
+                geoLocationsCursor.close();
+                geoLocationsCursor = null;
+            }
+            // The header is already written, so the data must match it
+            Validate.isTrue(loadedGeoLocations == geoLocationCount);
+        } catch (final RemoteException | IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (geoLocationsCursor != null) {
+                geoLocationsCursor.close();
+            }
+        }
+        Log.v(TAG, String.format("Serialized %s geoLocations for synchronization.",
+                DefaultFileAccess.humanReadableByteCount(bytesWritten, true)));
+        return bytesWritten;
+    }
+
+    /**
+     * Writes the {@code Point3d}s of a {@link Point3dFile} in the layout of the
+     * {@link MeasurementSerializer#TRANSFER_FILE_FORMAT_VERSION}.
+     * <p>
+     * Files of the {@link MeasurementSerializer#LEGACY_PERSISTENCE_FILE_FORMAT_VERSION} already have this layout and
+     * are copied as they are. The entries of the other formats are converted.
+     * <p>
+     * If the data is written to a {@link SegmentedDeflaterOutputStream} and the {@code Point3d}s were compressed while
+     * capturing, the {@link CompressedPoint3dFile} is appended instead.
+     *
+     * @param file The {@code Point3dFile} to write
+     * @param count The number of {@code Point3d}s in the file
+     * @param persistenceFileFormatVersion The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} of the file
+     * @param bufferedOutputStream The stream to write the data to
+     * @param persistence The {@link PersistenceLayer} to access the file
+     * @return The number of bytes written
+     */
+    private long writePoint3ds(@NonNull final File file, final int count, final short persistenceFileFormatVersion,
+            @NonNull final BufferedOutputStream bufferedOutputStream, @NonNull final PersistenceLayer persistence) {
+        final File compressedFile = CompressedPoint3dFile.getFile(file);
+        try {
+            if (bufferedOutputStream instanceof SegmentedDeflaterOutputStream && compressedFile.exists()
+                    && CompressedPoint3dFile.countEntries(compressedFile) == count) {
+                Log.v(TAG, String.format("Appending %s compressed while capturing.",
+                        DefaultFileAccess.humanReadableByteCount(compressedFile.length(), true)));
+                ((SegmentedDeflaterOutputStream)bufferedOutputStream).writeCompressedSegments(compressedFile);
+                return (long)count * MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY;
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        if (persistenceFileFormatVersion == LEGACY_PERSISTENCE_FILE_FORMAT_VERSION) {
+            persistence.getFileAccessLayer().writeToOutputStream(file, bufferedOutputStream);
+            return file.length();
+        }
+        try {
+            MeasurementSerializer.writeInTransferFormat(file, persistenceFileFormatVersion, bufferedOutputStream);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return (long)count * MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY;
+    }
 }
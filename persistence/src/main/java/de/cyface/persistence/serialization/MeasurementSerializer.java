@@ -21,16 +21,21 @@ package de.cyface.persistence.serialization;
 import static de.cyface.persistence.Constants.TAG;
 import static de.cyface.persistence.serialization.ByteSizes.SHORT_BYTES;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.Deflater;
-import java.util.zip.DeflaterOutputStream;
 import java.util.zip.Inflater;
 
 import android.content.ContentProvider;
@@ -39,8 +44,9 @@ import android.database.Cursor;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
-import de.cyface.persistence.GeoLocationsTable;
+import de.cyface.persistence.GeoLocationRowMapper;
 import de.cyface.persistence.MeasurementContentProviderClient;
 import de.cyface.persistence.MeasurementTable;
 import de.cyface.persistence.PersistenceLayer;
@@ -69,19 +75,26 @@ import de.cyface.utils.Validate;
  * <li>All directions as: 8 Bytes long timestamp, 8 Bytes double x direction, 8 Bytes double y direction, 8 Bytes double
  * z direction</li>
  * </ul>
- * WARNING: This implementation loads all data from one measurement into memory. So be careful with large measurements.
+ * The data is streamed: the header is written from the counts of the data, followed by the data which is loaded page
+ * by page, so the memory required does not grow with the length of the measurement.
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 7.0.1
+ * @version 7.8.0
  * @since 2.0.0
  */
 public final class MeasurementSerializer {
 
     /**
-     * A constant with the number of bytes for one uncompressed {@link Point3d} entry in the Cyface binary format.
+     * A constant with the number of bytes for one uncompressed {@link Point3d} entry in the Cyface
+     * {@link #TRANSFER_FILE_FORMAT_VERSION} and the {@link #LEGACY_PERSISTENCE_FILE_FORMAT_VERSION}.
      */
     public static final int BYTES_IN_ONE_POINT_3D_ENTRY = ByteSizes.LONG_BYTES + 3 * ByteSizes.DOUBLE_BYTES;
+    /**
+     * A constant with the number of bytes for one {@link Point3d} entry in the {@link #PERSISTENCE_FILE_FORMAT_VERSION}
+     * which stores the values with the {@code float} precision they are captured with.
+     */
+    public static final int BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY = ByteSizes.LONG_BYTES + 3 * ByteSizes.FLOAT_BYTES;
     /**
      * The current version of the transferred file. This is always specified by the first two bytes of the file
      * transferred and helps compatible APIs to process data from different client versions.
@@ -91,8 +104,23 @@ public final class MeasurementSerializer {
      * The current version of the file format used to persist {@link Point3d} data.
      * It's stored in each {@link Measurement}'s {@link MeasurementTable} entry and allows to have stored and process
      * measurements and files with different {@code #PERSISTENCE_FILE_FORMAT_VERSION} at the same time.
+     * <p>
+     * Each entry consists of an 8 Bytes long timestamp and 4 Bytes float x, y and z values.
      */
-    public final static short PERSISTENCE_FILE_FORMAT_VERSION = 1;
+    public final static short PERSISTENCE_FILE_FORMAT_VERSION = 2;
+    /**
+     * The previous version of the file format used to persist {@link Point3d} data. Measurements captured with this
+     * version are still resumed, read and transferred.
+     * <p>
+     * Each entry consists of an 8 Bytes long timestamp and 8 Bytes double x, y and z values, i.e. the same layout as
+     * in the {@link #TRANSFER_FILE_FORMAT_VERSION}.
+     */
+    public final static short LEGACY_PERSISTENCE_FILE_FORMAT_VERSION = 1;
+    /**
+     * The opt-in version of the file format used to persist {@link Point3d} data which stores the timestamps as
+     * differences in blocks as described in {@link Point3dBlockFormat}. The entries have no fixed size.
+     */
+    public final static short BLOCK_PERSISTENCE_FILE_FORMAT_VERSION = 3;
     /**
      * A constant with the number of bytes for the header of the {@link #TRANSFER_FILE_FORMAT_VERSION} file.
      */
@@ -102,6 +130,17 @@ public final class MeasurementSerializer {
      */
     public final static int BYTES_IN_ONE_GEO_LOCATION_ENTRY = ByteSizes.LONG_BYTES + 3 * ByteSizes.DOUBLE_BYTES
             + ByteSizes.INT_BYTES;
+    /**
+     * The maximal capacity in bytes of the buffer each thread keeps for reuse, see {@link #serializationBuffer(int)}.
+     * Fits a page of {@link GeoLocation}s and a few seconds of high frequency {@link Point3d}s.
+     */
+    static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+    /**
+     * The buffer each thread reuses to serialize data, so that serializing a batch does not allocate memory once the
+     * buffer has grown to the size of the batches. This is a heap buffer as the serialized data is mostly written to
+     * {@link OutputStream}s which require an array.
+     */
+    private static final ThreadLocal<ByteBuffer> SERIALIZATION_BUFFER = new ThreadLocal<>();
     /**
      * In iOS there are no parameters to set nowrap to false as it is default in Android.
      * In order for the iOS and Android Cyface SDK to be compatible we set nowrap explicitly to true
@@ -110,10 +149,38 @@ public final class MeasurementSerializer {
      * constructor.
      */
     public static final boolean COMPRESSION_NOWRAP = true;
+    /**
+     * The compression level of the {@link Deflater} used for the transfer file and for the
+     * {@link CompressedPoint3dFile}s which are compressed while capturing.
+     */
+    public static final int DEFLATER_LEVEL = 5; // 'cause Steve Jobs said so
     /**
      * The prefix of the filename used to store compressed files for serialization.
      */
     private static final String COMPRESSED_TRANSFER_FILE_PREFIX = "compressedTransferFile";
+    /**
+     * The number of threads used to compress the transfer file.
+     */
+    private final int compressionThreads;
+
+    /**
+     * Creates a new {@code MeasurementSerializer} which compresses the transfer file on the calling thread.
+     */
+    public MeasurementSerializer() {
+        this(1);
+    }
+
+    /**
+     * Creates a new {@code MeasurementSerializer}.
+     *
+     * @param compressionThreads The number of threads used to compress the transfer file. With more than one thread
+     *            the data is compressed in chunks by a {@link ParallelDeflaterOutputStream}, which results in a
+     *            slightly larger file in the same format.
+     */
+    public MeasurementSerializer(final int compressionThreads) {
+        Validate.isTrue(compressionThreads > 0);
+        this.compressionThreads = compressionThreads;
+    }
 
     /**
      * Loads the {@link Measurement} with the provided identifier from the persistence layer serialized and compressed
@@ -147,8 +214,9 @@ public final class MeasurementSerializer {
                 // As we create the DeflaterOutputStream with an FileOutputStream the compressed data is written to file
                 fileOutputStream = new FileOutputStream(compressedTempFile);
 
-                loadSerializedCompressed(fileOutputStream, loader, measurementId, persistenceLayer,
-                        fileSerializerStrategy);
+                // The segments compressed while capturing are transferred into the file without a heap copy
+                loadSerializedCompressed(fileOutputStream, fileOutputStream.getChannel(), loader, measurementId,
+                        persistenceLayer, fileSerializerStrategy);
             } finally {
                 if (fileOutputStream != null) {
                     fileOutputStream.close();
@@ -165,6 +233,30 @@ public final class MeasurementSerializer {
         return compressedTempFile;
     }
 
+    /**
+     * Loads the {@link Measurement} with the provided identifier from the persistence layer serialized and compressed
+     * in the {@link MeasurementSerializer#TRANSFER_FILE_FORMAT_VERSION} format and writes it directly to the provided
+     * {@code OutputStream}, e.g. the body of an upload request, without a temp file.
+     * <p>
+     * The compressed data is flushed to the {@code outputStream} but the stream is not closed.
+     *
+     * @param outputStream The {@link OutputStream} to write the compressed data to
+     * @param loader {@link MeasurementContentProviderClient} to load the {@code Measurement} data from the database.
+     * @param measurementId The id of the {@link Measurement} to load
+     * @param persistenceLayer The {@link PersistenceLayer} to load the file based {@code Measurement} data from
+     * @param fileSerializerStrategy The {@link FileSerializerStrategy} used to load Measurement data in the serialized
+     *            format.
+     * @throws CursorIsNullException If {@link ContentProvider} was inaccessible.
+     * @throws IOException When writing to the {@code outputStream} fails
+     */
+    public void writeSerializedCompressed(@NonNull final OutputStream outputStream,
+            @NonNull final MeasurementContentProviderClient loader, final long measurementId,
+            @NonNull final PersistenceLayer persistenceLayer,
+            @NonNull final FileSerializerStrategy fileSerializerStrategy) throws CursorIsNullException, IOException {
+        loadSerializedCompressed(new UnclosableOutputStream(outputStream), null, loader, measurementId,
+                persistenceLayer, fileSerializerStrategy);
+    }
+
     /**
      * Writes the {@link Measurement} with the provided identifier from the persistence layer serialized and compressed
      * in the {@link MeasurementSerializer#TRANSFER_FILE_FORMAT_VERSION} format, ready to be transferred.
@@ -172,6 +264,8 @@ public final class MeasurementSerializer {
      * The Deflater ZLIB (RFC-1950) compression is used.
      *
      * @param fileOutputStream the {@link FileInputStream} to write the compressed data to
+     * @param targetChannel The channel of the {@code fileOutputStream} to transfer the {@link CompressedPoint3dFile}s
+     *            to or {@code null} to copy them through the stream
      * @param loader {@link MeasurementContentProviderClient} to load the {@code Measurement} data from the database.
      * @param measurementId The id of the {@link Measurement} to load
      * @param persistenceLayer The {@link PersistenceLayer} to load the file based {@code Measurement} data
@@ -181,7 +275,8 @@ public final class MeasurementSerializer {
      * @throws IOException When flushing or closing the {@link OutputStream} fails
      */
     private void loadSerializedCompressed(@NonNull final OutputStream fileOutputStream,
-            @NonNull final MeasurementContentProviderClient loader, final long measurementId,
+            @Nullable final WritableByteChannel targetChannel, @NonNull final MeasurementContentProviderClient loader,
+            final long measurementId,
             @NonNull final PersistenceLayer persistenceLayer,
             @NonNull final FileSerializerStrategy fileSerializerStrategy)
             throws CursorIsNullException, IOException {
@@ -193,21 +288,30 @@ public final class MeasurementSerializer {
         // Wrapping the streams with Buffered streams for performance reasons
         final BufferedOutputStream bufferedFileOutputStream = new BufferedOutputStream(fileOutputStream);
 
-        final int DEFLATER_LEVEL = 5; // 'cause Steve Jobs said so
-        final Deflater compressor = new Deflater(DEFLATER_LEVEL, COMPRESSION_NOWRAP);
-        // As we wrap the injected outputStream with Deflater the serialized data is automatically compressed
-        final DeflaterOutputStream deflaterStream = new DeflaterOutputStream(bufferedFileOutputStream, compressor);
-
+        final ExecutorService compressionPool = compressionThreads > 1
+                ? Executors.newFixedThreadPool(compressionThreads)
+                : null;
         // This architecture catches the IOException thrown by the close() called in the finally without IDE warning
-        try (BufferedOutputStream bufferedDeflaterOutputStream = new BufferedOutputStream(deflaterStream)) {
+        // As we wrap the injected outputStream with a Deflater the serialized data is automatically compressed. The
+        // CompressedPoint3dFiles written while capturing are appended to the compressed stream as they are.
+        try (SegmentedDeflaterOutputStream bufferedDeflaterOutputStream = compressionPool == null
+                ? new SegmentedDeflaterOutputStream(bufferedFileOutputStream)
+                : new SegmentedDeflaterOutputStream(bufferedFileOutputStream, compressionPool, compressionThreads)) {
+            if (targetChannel != null) {
+                bufferedDeflaterOutputStream.setTargetChannel(targetChannel, persistenceLayer.getFileAccessLayer());
+            }
 
             // Injecting the outputStream into which the serialized (in this case compressed) data is written to
             fileSerializerStrategy.loadSerialized(bufferedDeflaterOutputStream, loader, measurementId,
                     persistenceLayer);
             bufferedDeflaterOutputStream.flush();
+        } finally {
+            if (compressionPool != null) {
+                compressionPool.shutdownNow();
+            }
         }
         Log.d(TAG, "loadSerializedCompressed: finished after " + ((System.currentTimeMillis() - startTimestamp) / 1000)
-                + " s with Deflater Level: " + DEFLATER_LEVEL);
+                + " s with Deflater Level: " + DEFLATER_LEVEL + " on " + compressionThreads + " thread(s)");
     }
 
     /**
@@ -222,46 +326,272 @@ public final class MeasurementSerializer {
         // Allocate enough space for all geo locations
         Log.v(TAG, String.format("Serializing %d GeoLocations for synchronization.", geoLocationsCursor.getCount()));
         final ByteBuffer buffer = ByteBuffer.allocate(geoLocationsCursor.getCount() * BYTES_IN_ONE_GEO_LOCATION_ENTRY);
+        serializeGeoLocations(geoLocationsCursor, buffer);
+        // The buffer is completely filled, so its array is the payload
+        return buffer.array();
+    }
 
+    /**
+     * Serializes the {@link GeoLocation}s of a {@link Cursor} into the provided buffer, starting at its position.
+     *
+     * @param geoLocationsCursor A {@link Cursor} returned by a {@link ContentResolver} to load {@code GeoLocation}s
+     *            from.
+     * @param buffer The buffer to write to, with at least {@link #BYTES_IN_ONE_GEO_LOCATION_ENTRY} bytes remaining for
+     *            each {@code GeoLocation} of the {@code Cursor}
+     */
+    static void serializeGeoLocations(@NonNull final Cursor geoLocationsCursor, @NonNull final ByteBuffer buffer) {
+        Validate.isTrue(buffer.remaining() >= geoLocationsCursor.getCount() * BYTES_IN_ONE_GEO_LOCATION_ENTRY,
+                "Buffer too small");
+
+        final GeoLocationRowMapper mapper = new GeoLocationRowMapper(geoLocationsCursor);
         while (geoLocationsCursor.moveToNext()) {
-            buffer.putLong(geoLocationsCursor
-                    .getLong(geoLocationsCursor.getColumnIndex(GeoLocationsTable.COLUMN_GEOLOCATION_TIME)));
-            buffer.putDouble(
-                    geoLocationsCursor.getDouble(geoLocationsCursor.getColumnIndex(GeoLocationsTable.COLUMN_LAT)));
-            buffer.putDouble(
-                    geoLocationsCursor.getDouble(geoLocationsCursor.getColumnIndex(GeoLocationsTable.COLUMN_LON)));
-            buffer.putDouble(
-                    geoLocationsCursor.getDouble(geoLocationsCursor.getColumnIndex(GeoLocationsTable.COLUMN_SPEED)));
-            buffer.putInt(
-                    geoLocationsCursor.getInt(geoLocationsCursor.getColumnIndex(GeoLocationsTable.COLUMN_ACCURACY)));
+            buffer.putLong(mapper.getTimestamp());
+            buffer.putDouble(mapper.getLat());
+            buffer.putDouble(mapper.getLon());
+            buffer.putDouble(mapper.getSpeed());
+            buffer.putInt(mapper.getAccuracy());
         }
+    }
 
-        byte[] payload = new byte[buffer.capacity()];
-        ((ByteBuffer)buffer.duplicate().clear()).get(payload);
-        // if we want to switch from write to read mode on the byte buffer we need to .flip() !!
-        return payload;
+    /**
+     * Serializes the provided {@link Point3d} points in the {@link #PERSISTENCE_FILE_FORMAT_VERSION}.
+     *
+     * @return A <code>byte</code> array containing all the data.
+     */
+    public static byte[] serialize(final @NonNull List<Point3d> dataPoints) {
+        return serialize(dataPoints, PERSISTENCE_FILE_FORMAT_VERSION);
     }
 
     /**
      * Serializes the provided {@link Point3d} points.
      *
+     * @param dataPoints The points to serialize
+     * @param persistenceFileFormatVersion The {@link #PERSISTENCE_FILE_FORMAT_VERSION} of the file the points are
+     *            appended to
      * @return A <code>byte</code> array containing all the data.
      */
-    public static byte[] serialize(final @NonNull List<Point3d> dataPoints) {
+    public static byte[] serialize(final @NonNull List<Point3d> dataPoints, final short persistenceFileFormatVersion) {
         Log.v(TAG, String.format("Serializing %d Point3d points!", dataPoints.size()));
+        if (persistenceFileFormatVersion == BLOCK_PERSISTENCE_FILE_FORMAT_VERSION) {
+            return Point3dBlockFormat.encode(dataPoints);
+        }
+
+        final ByteBuffer buffer = ByteBuffer
+                .allocate(dataPoints.size() * bytesInOnePoint3dEntry(persistenceFileFormatVersion));
+        serialize(dataPoints, persistenceFileFormatVersion, buffer);
+        // The buffer is completely filled, so its array is the payload
+        return buffer.array();
+    }
+
+    /**
+     * Serializes the provided {@link Point3d} points into the provided buffer, starting at its position.
+     * <p>
+     * Unlike {@link #serialize(List, short)} this does not allocate memory, so it can be used for each batch of
+     * captured data.
+     *
+     * @param dataPoints The points to serialize
+     * @param persistenceFileFormatVersion The {@link #PERSISTENCE_FILE_FORMAT_VERSION} of the file the points are
+     *            appended to
+     * @param buffer The buffer to write to, with at least {@link #maxSerializedSize(int, short)} bytes remaining
+     */
+    public static void serialize(final @NonNull List<Point3d> dataPoints, final short persistenceFileFormatVersion,
+            @NonNull final ByteBuffer buffer) {
+        if (persistenceFileFormatVersion == BLOCK_PERSISTENCE_FILE_FORMAT_VERSION) {
+            Point3dBlockFormat.encode(dataPoints, buffer);
+            return;
+        }
+
+        Validate.isTrue(buffer.remaining() >= maxSerializedSize(dataPoints.size(), persistenceFileFormatVersion),
+                "Buffer too small");
+        // Not using an iterator to keep the serialization free of allocations
+        for (int i = 0; i < dataPoints.size(); i++) {
+            putPoint3d(buffer, dataPoints.get(i), persistenceFileFormatVersion);
+        }
+    }
+
+    /**
+     * Serializes the provided {@link Point3d} points via the {@link #serializationBuffer(int)} of the current thread
+     * and writes them to the provided channel.
+     *
+     * @param dataPoints The points to serialize
+     * @param persistenceFileFormatVersion The {@link #PERSISTENCE_FILE_FORMAT_VERSION} of the file the points are
+     *            appended to
+     * @param channel The channel to write the serialized points to
+     * @throws IOException When writing to the channel failed
+     */
+    public static void serialize(final @NonNull List<Point3d> dataPoints, final short persistenceFileFormatVersion,
+            @NonNull final WritableByteChannel channel) throws IOException {
+        final ByteBuffer buffer = serializationBuffer(
+                maxSerializedSize(dataPoints.size(), persistenceFileFormatVersion));
+        serialize(dataPoints, persistenceFileFormatVersion, buffer);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * @param entries The number of {@link Point3d}s to serialize
+     * @param persistenceFileFormatVersion The {@link #PERSISTENCE_FILE_FORMAT_VERSION} to serialize the points in
+     * @return The maximal number of bytes this number of {@code Point3d}s takes in the format
+     */
+    public static int maxSerializedSize(final int entries, final short persistenceFileFormatVersion) {
+        if (persistenceFileFormatVersion == BLOCK_PERSISTENCE_FILE_FORMAT_VERSION) {
+            return Point3dBlockFormat.maxEncodedSize(entries);
+        }
+        return entries * bytesInOnePoint3dEntry(persistenceFileFormatVersion);
+    }
+
+    /**
+     * Returns the cleared serialization buffer of the current thread.
+     * <p>
+     * The buffer is replaced by a larger one when the requested capacity exceeds it. Buffers above the
+     * {@link #MAX_POOLED_BUFFER_SIZE} are not kept, so that a single large request does not hold its memory for the
+     * lifetime of the thread.
+     * <p>
+     * The buffer must not be used after the next call on the same thread.
+     *
+     * @param capacity The minimal number of bytes required
+     * @return The buffer with a position of {@code 0} and a limit of at least {@code capacity}
+     */
+    static ByteBuffer serializationBuffer(final int capacity) {
+        final ByteBuffer pooled = SERIALIZATION_BUFFER.get();
+        if (pooled != null && pooled.capacity() >= capacity) {
+            pooled.clear();
+            return pooled;
+        }
+        if (capacity > MAX_POOLED_BUFFER_SIZE) {
+            return ByteBuffer.allocate(capacity);
+        }
+        // Grow in powers of two to reach the size of the batches with few replacements
+        final int pooledCapacity = Math.min(MAX_POOLED_BUFFER_SIZE, Integer.highestOneBit(Math.max(capacity, 1)) << 1);
+        final ByteBuffer buffer = ByteBuffer.allocate(Math.max(capacity, pooledCapacity));
+        SERIALIZATION_BUFFER.set(buffer);
+        return buffer;
+    }
+
+    /**
+     * Writes one {@link Point3d} entry of a fixed size format to a buffer.
+     *
+     * @param buffer The buffer to write to, with at least {@link #bytesInOnePoint3dEntry(short)} bytes remaining
+     * @param point The point to write
+     * @param persistenceFileFormatVersion The {@link #PERSISTENCE_FILE_FORMAT_VERSION} to write the point in
+     */
+    static void putPoint3d(@NonNull final ByteBuffer buffer, @NonNull final Point3d point,
+            final short persistenceFileFormatVersion) {
+        putPoint3d(buffer, point.getTimestamp(), point.getX(), point.getY(), point.getZ(),
+                persistenceFileFormatVersion);
+    }
+
+    /**
+     * Writes one {@link Point3d} entry of a fixed size format to a buffer from its primitive values.
+     *
+     * @param buffer The buffer to write to, with at least {@link #bytesInOnePoint3dEntry(short)} bytes remaining
+     * @param timestamp The timestamp of the point in milliseconds since 1970
+     * @param x The x component of the point
+     * @param y The y component of the point
+     * @param z The z component of the point
+     * @param persistenceFileFormatVersion The {@link #PERSISTENCE_FILE_FORMAT_VERSION} to write the point in
+     */
+    static void putPoint3d(@NonNull final ByteBuffer buffer, final long timestamp, final float x, final float y,
+            final float z, final short persistenceFileFormatVersion) {
+        buffer.putLong(timestamp);
+        if (persistenceFileFormatVersion == LEGACY_PERSISTENCE_FILE_FORMAT_VERSION) {
+            buffer.putDouble(x);
+            buffer.putDouble(y);
+            buffer.putDouble(z);
+        } else {
+            buffer.putFloat(x);
+            buffer.putFloat(y);
+            buffer.putFloat(z);
+        }
+    }
 
-        final ByteBuffer buffer = ByteBuffer.allocate(dataPoints.size() * BYTES_IN_ONE_POINT_3D_ENTRY);
-        for (final Point3d point : dataPoints) {
-            buffer.putLong(point.getTimestamp());
-            buffer.putDouble(point.getX());
-            buffer.putDouble(point.getY());
-            buffer.putDouble(point.getZ());
+    /**
+     * @param persistenceFileFormatVersion The {@link #PERSISTENCE_FILE_FORMAT_VERSION} to check
+     * @return {@code true} if {@code Point3d} files of this version can be written, read and transferred
+     */
+    public static boolean isSupported(final short persistenceFileFormatVersion) {
+        return persistenceFileFormatVersion == PERSISTENCE_FILE_FORMAT_VERSION
+                || persistenceFileFormatVersion == LEGACY_PERSISTENCE_FILE_FORMAT_VERSION
+                || persistenceFileFormatVersion == BLOCK_PERSISTENCE_FILE_FORMAT_VERSION;
+    }
+
+    /**
+     * @param persistenceFileFormatVersion The {@link #PERSISTENCE_FILE_FORMAT_VERSION} of a {@link Point3dFile}
+     * @return The number of bytes of one {@link Point3d} entry in the file. Not defined for the
+     *         {@link #BLOCK_PERSISTENCE_FILE_FORMAT_VERSION}.
+     */
+    public static int bytesInOnePoint3dEntry(final short persistenceFileFormatVersion) {
+        // The message is only concatenated on failure as this is called for each serialized batch
+        if (!isSupported(persistenceFileFormatVersion)) {
+            throw new IllegalArgumentException(
+                    "Unsupported persistence file format version: " + persistenceFileFormatVersion);
         }
+        Validate.isTrue(persistenceFileFormatVersion != BLOCK_PERSISTENCE_FILE_FORMAT_VERSION,
+                "Entries of the block format have no fixed size");
+        return persistenceFileFormatVersion == LEGACY_PERSISTENCE_FILE_FORMAT_VERSION ? BYTES_IN_ONE_POINT_3D_ENTRY
+                : BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY;
+    }
 
-        byte[] payload = new byte[buffer.capacity()];
-        ((ByteBuffer)buffer.duplicate().clear()).get(payload);
-        // if we want to switch from write to read mode on the byte buffer we need to .flip() !!
-        return payload;
+    /**
+     * Counts the {@link Point3d}s in a {@link Point3dFile}.
+     *
+     * @param file The file to count the points of
+     * @param persistenceFileFormatVersion The {@link #PERSISTENCE_FILE_FORMAT_VERSION} of the file
+     * @return The number of points in the file
+     * @throws IOException If reading the file failed
+     */
+    static int countPoint3ds(@NonNull final File file, final short persistenceFileFormatVersion) throws IOException {
+        if (persistenceFileFormatVersion == BLOCK_PERSISTENCE_FILE_FORMAT_VERSION) {
+            return Point3dBlockFormat.countEntries(file);
+        }
+        final int bytesInOnePoint3dEntry = bytesInOnePoint3dEntry(persistenceFileFormatVersion);
+        final int count = (int)(file.length() / bytesInOnePoint3dEntry);
+        Validate.isTrue(count * (long)bytesInOnePoint3dEntry == file.length());
+        return count;
+    }
+
+    /**
+     * Writes the {@link Point3d}s of a {@link Point3dFile} in the layout of the {@link #TRANSFER_FILE_FORMAT_VERSION},
+     * i.e. with {@code double} values.
+     * <p>
+     * The file is converted in chunks, so only a small part of it is held in memory.
+     *
+     * @param file The {@code Point3dFile} to convert
+     * @param persistenceFileFormatVersion The {@link #PERSISTENCE_FILE_FORMAT_VERSION} of the file, other than the
+     *            {@link #LEGACY_PERSISTENCE_FILE_FORMAT_VERSION} which already has the transfer layout
+     * @param outputStream The stream to write the converted entries to
+     * @throws IOException If reading the file or writing to the stream failed
+     */
+    static void writeInTransferFormat(@NonNull final File file, final short persistenceFileFormatVersion,
+            @NonNull final OutputStream outputStream) throws IOException {
+        if (persistenceFileFormatVersion == BLOCK_PERSISTENCE_FILE_FORMAT_VERSION) {
+            Point3dBlockFormat.writeInTransferFormat(file, outputStream);
+            return;
+        }
+        Validate.isTrue(persistenceFileFormatVersion == PERSISTENCE_FILE_FORMAT_VERSION);
+        final int entriesPerChunk = 1024;
+        final byte[] compactChunk = new byte[entriesPerChunk * BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY];
+        final ByteBuffer transferChunk = ByteBuffer.allocate(entriesPerChunk * BYTES_IN_ONE_POINT_3D_ENTRY);
+        try (final DataInputStream inputStream = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            long remainingEntries = file.length() / BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY;
+            while (remainingEntries > 0) {
+                final int entries = (int)Math.min(entriesPerChunk, remainingEntries);
+                inputStream.readFully(compactChunk, 0, entries * BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY);
+                final ByteBuffer compact = ByteBuffer.wrap(compactChunk);
+                transferChunk.clear();
+                for (int i = 0; i < entries; i++) {
+                    transferChunk.putLong(compact.getLong());
+                    transferChunk.putDouble(compact.getFloat());
+                    transferChunk.putDouble(compact.getFloat());
+                    transferChunk.putDouble(compact.getFloat());
+                }
+                outputStream.write(transferChunk.array(), 0, transferChunk.position());
+                remainingEntries -= entries;
+            }
+        }
     }
 
     /**
@@ -279,7 +609,7 @@ public final class MeasurementSerializer {
      */
     static byte[] serializeTransferFileHeader(final int geoLocationCount, final Measurement measurement,
             final int accelerationsCount, final int rotationsCount, final int directionsCount) {
-        Validate.isTrue(measurement.getFileFormatVersion() == PERSISTENCE_FILE_FORMAT_VERSION, "Unsupported");
+        Validate.isTrue(isSupported(measurement.getFileFormatVersion()), "Unsupported");
 
         byte[] ret = new byte[18];
         ret[0] = (byte)(TRANSFER_FILE_FORMAT_VERSION >> 8);
@@ -302,4 +632,29 @@ public final class MeasurementSerializer {
         ret[17] = (byte)directionsCount;
         return ret;
     }
+
+    /**
+     * An {@link OutputStream} which flushes instead of closing the wrapped stream, so that the compressing streams
+     * can be closed to finish the compressed data while the wrapped stream stays open.
+     */
+    private static final class UnclosableOutputStream extends FilterOutputStream {
+
+        /**
+         * @param outputStream The stream to write to, which is not closed by this stream
+         */
+        UnclosableOutputStream(@NonNull final OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(@NonNull final byte[] bytes, final int offset, final int length) throws IOException {
+            // The default implementation writes byte by byte
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 }
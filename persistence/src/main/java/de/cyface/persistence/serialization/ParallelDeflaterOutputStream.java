@@ -0,0 +1,269 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.serialization.MeasurementSerializer.COMPRESSION_NOWRAP;
+import static de.cyface.persistence.serialization.MeasurementSerializer.DEFLATER_LEVEL;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import de.cyface.utils.Validate;
+
+/**
+ * An {@link OutputStream} which compresses the data written to it into one raw deflate stream using multiple threads,
+ * like {@code pigz} does.
+ * <p>
+ * The data is split into chunks of {@link #CHUNK_SIZE} bytes which are compressed in parallel on the provided
+ * {@link ExecutorService}. Each chunk is compressed with the last {@link #DICTIONARY_SIZE} bytes of the previous chunk
+ * as dictionary, so the compression ratio is close to the one of a single {@link Deflater}, and ends with a sync
+ * flush, i.e. at a byte boundary and without a final block. The compressed chunks are written in order and the stream
+ * is terminated with an empty final block on {@link #close()}. This way the result can be decompressed by any raw
+ * deflate ({@link MeasurementSerializer#COMPRESSION_NOWRAP}) decompressor.
+ * <p>
+ * At most {@code maxChunksInFlight} chunks are buffered, which limits the memory used.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+public class ParallelDeflaterOutputStream extends FilterOutputStream
+        implements SegmentedDeflaterOutputStream.Compressor {
+
+    /**
+     * The number of uncompressed bytes compressed by one task.
+     */
+    public final static int CHUNK_SIZE = 128 * 1024;
+    /**
+     * The number of bytes of the previous chunk used as dictionary, i.e. the maximal distance of a deflate reference.
+     */
+    final static int DICTIONARY_SIZE = 32 * 1024;
+    /**
+     * The {@code ExecutorService} to compress the chunks on.
+     */
+    private final ExecutorService executor;
+    /**
+     * The maximal number of chunks which are compressed or waiting to be written at the same time.
+     */
+    private final int maxChunksInFlight;
+    /**
+     * The compressed chunks in the order they are written.
+     */
+    private final Deque<Future<byte[]>> chunksInFlight;
+    /**
+     * The chunk which is filled by the data written to this stream.
+     */
+    private byte[] chunk;
+    /**
+     * The number of bytes in the {@link #chunk}.
+     */
+    private int chunkLength;
+    /**
+     * The dictionary of the next chunk or {@code null} if it's compressed without references to the data before.
+     */
+    @Nullable
+    private byte[] dictionary;
+    /**
+     * {@code true} if the final block was written.
+     */
+    private boolean finished;
+
+    /**
+     * Creates a new completely initialized {@code ParallelDeflaterOutputStream}.
+     *
+     * @param outputStream The stream to write the compressed data to
+     * @param executor The {@code ExecutorService} to compress the chunks on. It's not shut down by this stream.
+     * @param maxChunksInFlight The maximal number of chunks which are compressed or waiting to be written at the same
+     *            time. Should be higher than the number of threads of the {@code executor} to keep all of them busy.
+     */
+    public ParallelDeflaterOutputStream(@NonNull final OutputStream outputStream,
+            @NonNull final ExecutorService executor, final int maxChunksInFlight) {
+        super(outputStream);
+        Validate.isTrue(maxChunksInFlight > 0);
+        this.executor = executor;
+        this.maxChunksInFlight = maxChunksInFlight;
+        this.chunksInFlight = new ArrayDeque<>(maxChunksInFlight + 1);
+        this.chunk = new byte[CHUNK_SIZE];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[] {(byte)b}, 0, 1);
+    }
+
+    @Override
+    public void write(@NonNull final byte[] b, final int off, final int len) throws IOException {
+        Validate.isTrue(!finished, "Stream is already finished");
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            final int length = Math.min(remaining, CHUNK_SIZE - chunkLength);
+            System.arraycopy(b, offset, chunk, chunkLength, length);
+            chunkLength += length;
+            offset += length;
+            remaining -= length;
+            if (chunkLength == CHUNK_SIZE) {
+                submitChunk();
+            }
+        }
+    }
+
+    @Override
+    public void syncFlush() throws IOException {
+        submitChunk();
+        while (!chunksInFlight.isEmpty()) {
+            writeChunk(chunksInFlight.poll());
+        }
+    }
+
+    @Override
+    public void resetDictionary() {
+        dictionary = null;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return out;
+    }
+
+    @Override
+    public void end() {
+        for (final Future<byte[]> future : chunksInFlight) {
+            future.cancel(true);
+        }
+        chunksInFlight.clear();
+    }
+
+    /**
+     * Writes all data and the final block and closes the underlying stream.
+     *
+     * @throws IOException If writing to the stream failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            syncFlush();
+            final Deflater deflater = new Deflater(DEFLATER_LEVEL, COMPRESSION_NOWRAP);
+            try {
+                deflater.finish();
+                final byte[] finalBlock = new byte[16];
+                final int length = deflater.deflate(finalBlock);
+                Validate.isTrue(deflater.finished());
+                out.write(finalBlock, 0, length);
+            } finally {
+                deflater.end();
+            }
+            finished = true;
+        }
+        super.close();
+    }
+
+    /**
+     * Starts the compression of the {@link #chunk} and writes the oldest compressed chunks if too many are in flight.
+     *
+     * @throws IOException If writing to the stream failed
+     */
+    private void submitChunk() throws IOException {
+        if (chunkLength == 0) {
+            return;
+        }
+        final byte[] input = chunk;
+        final int length = chunkLength;
+        final byte[] chunkDictionary = dictionary;
+        chunksInFlight.add(executor.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return deflate(input, length, chunkDictionary);
+            }
+        }));
+        dictionary = Arrays.copyOfRange(input, Math.max(0, length - DICTIONARY_SIZE), length);
+        chunk = new byte[CHUNK_SIZE];
+        chunkLength = 0;
+
+        while (chunksInFlight.size() > maxChunksInFlight) {
+            writeChunk(chunksInFlight.poll());
+        }
+    }
+
+    /**
+     * Waits for a chunk to be compressed and writes it.
+     *
+     * @param future The compression task of the chunk
+     * @throws InterruptedIOException If the thread was interrupted while waiting, e.g. as the upload was cancelled
+     * @throws IOException If compressing the chunk or writing to the stream failed
+     */
+    private void writeChunk(@NonNull final Future<byte[]> future) throws IOException {
+        final byte[] compressed;
+        try {
+            compressed = future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final InterruptedIOException interruptedIOException = new InterruptedIOException(
+                    "Interrupted while waiting for a compressed chunk");
+            interruptedIOException.initCause(e);
+            throw interruptedIOException;
+        } catch (final ExecutionException | CancellationException e) {
+            throw new IOException("Failed to compress a chunk", e);
+        }
+        out.write(compressed);
+    }
+
+    /**
+     * Compresses one chunk up to a byte boundary and without a final block.
+     *
+     * @param input The array containing the chunk, starting at index {@code 0}
+     * @param length The number of bytes in the chunk
+     * @param dictionary The data before the chunk, which the compressed chunk may refer to, or {@code null}
+     * @return The compressed chunk
+     */
+    static byte[] deflate(@NonNull final byte[] input, final int length, @Nullable final byte[] dictionary) {
+        final Deflater deflater = new Deflater(DEFLATER_LEVEL, COMPRESSION_NOWRAP);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(input, 0, length);
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2);
+            final byte[] buffer = new byte[8 * 1024];
+            int deflated;
+            do {
+                deflated = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                compressed.write(buffer, 0, deflated);
+            } while (deflated == buffer.length);
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.Constants.TAG;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.persistence.model.Point3d;
+import de.cyface.utils.Validate;
+
+/**
+ * The block based encoding of {@link Point3d}s used by the
+ * {@link MeasurementSerializer#BLOCK_PERSISTENCE_FILE_FORMAT_VERSION}.
+ * <p>
+ * Consecutive sensor timestamps only differ by a few milliseconds, so instead of an 8 Bytes timestamp per entry each
+ * block stores the timestamp of its first entry and the difference to the previous timestamp for each entry as
+ * zig-zag encoded variable length integer, which usually takes one Byte. A block consists of:
+ * <ul>
+ * <li>4 Bytes integer number of entries</li>
+ * <li>8 Bytes long timestamp of the first entry</li>
+ * <li>4 Bytes integer number of Bytes of the entries</li>
+ * <li>All entries as: 1 to 10 Bytes varint timestamp difference, 4 Bytes float x, 4 Bytes float y and 4 Bytes float z
+ * </li>
+ * </ul>
+ * The header allows to skip blocks without decoding them, e.g. to count the entries or to find an entry by index or
+ * timestamp.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 6.2.0
+ */
+public final class Point3dBlockFormat {
+
+    /**
+     * The number of bytes of the header of each block.
+     */
+    public final static int BYTES_IN_BLOCK_HEADER = 2 * ByteSizes.INT_BYTES + ByteSizes.LONG_BYTES;
+    /**
+     * The maximal number of bytes of one encoded entry, i.e. a 64 bit varint and three floats.
+     */
+    public final static int MAX_BYTES_IN_ONE_ENTRY = 10 + 3 * ByteSizes.FLOAT_BYTES;
+    /**
+     * The maximal number of entries in one block. Limits the entries which need to be decoded to access one entry.
+     */
+    public final static int MAX_ENTRIES_IN_BLOCK = 4096;
+    /**
+     * The offset of the number of entries in the block header.
+     */
+    private final static int ENTRY_COUNT_OFFSET = 0;
+    /**
+     * The offset of the timestamp of the first entry in the block header.
+     */
+    private final static int BASE_TIMESTAMP_OFFSET = ENTRY_COUNT_OFFSET + ByteSizes.INT_BYTES;
+    /**
+     * The offset of the number of bytes of the entries in the block header.
+     */
+    private final static int PAYLOAD_SIZE_OFFSET = BASE_TIMESTAMP_OFFSET + ByteSizes.LONG_BYTES;
+
+    /**
+     * Utility class, no instances.
+     */
+    private Point3dBlockFormat() {
+        // Nothing to do
+    }
+
+    /**
+     * Encodes {@link Point3d}s into blocks of at most {@link #MAX_ENTRIES_IN_BLOCK} entries.
+     *
+     * @param dataPoints The points to encode
+     * @return The encoded blocks
+     */
+    public static byte[] encode(@NonNull final List<Point3d> dataPoints) {
+        final ByteBuffer buffer = ByteBuffer.allocate(maxEncodedSize(dataPoints.size()));
+        encode(dataPoints, buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Encodes {@link Point3d}s into blocks of at most {@link #MAX_ENTRIES_IN_BLOCK} entries, starting at the position
+     * of the provided buffer.
+     *
+     * @param dataPoints The points to encode
+     * @param buffer The buffer to write the blocks to, with at least {@link #maxEncodedSize(int)} bytes remaining
+     */
+    public static void encode(@NonNull final List<Point3d> dataPoints, @NonNull final ByteBuffer buffer) {
+        Validate.isTrue(buffer.remaining() >= maxEncodedSize(dataPoints.size()), "Buffer too small");
+        int blockStart = 0;
+        int entries = 0;
+        long previousTimestamp = 0L;
+        // Not using an iterator to keep the encoding free of allocations
+        for (int i = 0; i < dataPoints.size(); i++) {
+            final Point3d point = dataPoints.get(i);
+            if (entries == MAX_ENTRIES_IN_BLOCK) {
+                finishBlock(buffer, blockStart, entries);
+                entries = 0;
+            }
+            if (entries == 0) {
+                blockStart = buffer.position();
+                startBlock(buffer, point.getTimestamp());
+                previousTimestamp = point.getTimestamp();
+            }
+            putEntry(buffer, point, previousTimestamp);
+            previousTimestamp = point.getTimestamp();
+            entries++;
+        }
+        if (entries > 0) {
+            finishBlock(buffer, blockStart, entries);
+        }
+    }
+
+    /**
+     * @param entries The number of {@link Point3d}s to encode
+     * @return The maximal number of bytes the encoded blocks of this number of {@code Point3d}s can take
+     */
+    public static int maxEncodedSize(final int entries) {
+        final int blocks = (entries + MAX_ENTRIES_IN_BLOCK - 1) / MAX_ENTRIES_IN_BLOCK;
+        return blocks * BYTES_IN_BLOCK_HEADER + entries * MAX_BYTES_IN_ONE_ENTRY;
+    }
+
+    /**
+     * Decodes all complete blocks from the position to the limit of a buffer.
+     *
+     * @param buffer The buffer containing the blocks
+     * @return The decoded points
+     */
+    public static List<Point3d> decode(@NonNull final ByteBuffer buffer) {
+        final List<Point3d> points = new ArrayList<>();
+        long[] timestamps = new long[0];
+        float[] values = new float[0];
+        while (hasCompleteBlock(buffer, buffer.position())) {
+            final int blockStart = buffer.position();
+            final int entries = getEntryCount(buffer, blockStart);
+            if (timestamps.length < entries) {
+                timestamps = new long[entries];
+                values = new float[3 * entries];
+            }
+            decodeBlock(buffer, blockStart, timestamps, values);
+            for (int i = 0; i < entries; i++) {
+                points.add(new Point3d(values[3 * i], values[3 * i + 1], values[3 * i + 2], timestamps[i]));
+            }
+            buffer.position(blockStart + BYTES_IN_BLOCK_HEADER + getPayloadSize(buffer, blockStart));
+        }
+        return points;
+    }
+
+    /**
+     * Writes the header of a new block with placeholders for the sizes, which are set by
+     * {@link #finishBlock(ByteBuffer, int, int)}.
+     *
+     * @param buffer The buffer to write to
+     * @param baseTimestamp The timestamp of the first entry of the block
+     */
+    static void startBlock(@NonNull final ByteBuffer buffer, final long baseTimestamp) {
+        buffer.putInt(0);
+        buffer.putLong(baseTimestamp);
+        buffer.putInt(0);
+    }
+
+    /**
+     * Writes one entry of a block.
+     *
+     * @param buffer The buffer to write to, with at least {@link #MAX_BYTES_IN_ONE_ENTRY} bytes remaining
+     * @param point The point to write
+     * @param previousTimestamp The timestamp of the previous entry or the base timestamp for the first entry
+     */
+    static void putEntry(@NonNull final ByteBuffer buffer, @NonNull final Point3d point,
+            final long previousTimestamp) {
+        putEntry(buffer, point.getTimestamp(), point.getX(), point.getY(), point.getZ(), previousTimestamp);
+    }
+
+    /**
+     * Writes one entry of a block from the primitive values of a point.
+     *
+     * @param buffer The buffer to write to, with at least {@link #MAX_BYTES_IN_ONE_ENTRY} bytes remaining
+     * @param timestamp The timestamp of the point in milliseconds since 1970
+     * @param x The x component of the point
+     * @param y The y component of the point
+     * @param z The z component of the point
+     * @param previousTimestamp The timestamp of the previous entry or the base timestamp for the first entry
+     */
+    static void putEntry(@NonNull final ByteBuffer buffer, final long timestamp, final float x, final float y,
+            final float z, final long previousTimestamp) {
+        putVarLong(buffer, zigZagEncode(timestamp - previousTimestamp));
+        buffer.putFloat(x);
+        buffer.putFloat(y);
+        buffer.putFloat(z);
+    }
+
+    /**
+     * Sets the sizes in the header of a block which ends at the position of the buffer.
+     *
+     * @param buffer The buffer containing the block
+     * @param blockStart The index of the block header in the buffer
+     * @param entries The number of entries in the block
+     */
+    static void finishBlock(@NonNull final ByteBuffer buffer, final int blockStart, final int entries) {
+        buffer.putInt(blockStart + ENTRY_COUNT_OFFSET, entries);
+        buffer.putInt(blockStart + PAYLOAD_SIZE_OFFSET, buffer.position() - blockStart - BYTES_IN_BLOCK_HEADER);
+    }
+
+    /**
+     * @param buffer The buffer containing the block
+     * @param blockStart The index of the block header in the buffer
+     * @return {@code true} if the buffer contains the complete block, {@code false} e.g. for the end of a file which
+     *         was not completely written when the capturing process was killed
+     */
+    static boolean hasCompleteBlock(@NonNull final ByteBuffer buffer, final int blockStart) {
+        return buffer.limit() - blockStart >= BYTES_IN_BLOCK_HEADER
+                && buffer.limit() - blockStart - BYTES_IN_BLOCK_HEADER >= getPayloadSize(buffer, blockStart);
+    }
+
+    /**
+     * @param buffer The buffer containing the block
+     * @param blockStart The index of the block header in the buffer
+     * @return The number of entries in the block
+     */
+    static int getEntryCount(@NonNull final ByteBuffer buffer, final int blockStart) {
+        return buffer.getInt(blockStart + ENTRY_COUNT_OFFSET);
+    }
+
+    /**
+     * @param buffer The buffer containing the block
+     * @param blockStart The index of the block header in the buffer
+     * @return The timestamp of the first entry in the block
+     */
+    static long getBaseTimestamp(@NonNull final ByteBuffer buffer, final int blockStart) {
+        return buffer.getLong(blockStart + BASE_TIMESTAMP_OFFSET);
+    }
+
+    /**
+     * @param buffer The buffer containing the block
+     * @param blockStart The index of the block header in the buffer
+     * @return The number of bytes of the entries in the block
+     */
+    static int getPayloadSize(@NonNull final ByteBuffer buffer, final int blockStart) {
+        return buffer.getInt(blockStart + PAYLOAD_SIZE_OFFSET);
+    }
+
+    /**
+     * Decodes the entries of a block without changing the position of the buffer.
+     *
+     * @param buffer The buffer containing the block
+     * @param blockStart The index of the block header in the buffer
+     * @param timestamps The array to write the timestamps to, at least as long as the number of entries
+     * @param values The array to write the x, y and z values to, at least three times as long as the number of
+     *            entries
+     */
+    static void decodeBlock(@NonNull final ByteBuffer buffer, final int blockStart, @NonNull final long[] timestamps,
+            @NonNull final float[] values) {
+        final int entries = getEntryCount(buffer, blockStart);
+        final ByteBuffer entryBuffer = buffer.duplicate();
+        entryBuffer.position(blockStart + BYTES_IN_BLOCK_HEADER);
+        long timestamp = getBaseTimestamp(buffer, blockStart);
+        for (int i = 0; i < entries; i++) {
+            timestamp += zigZagDecode(getVarLong(entryBuffer));
+            timestamps[i] = timestamp;
+            values[3 * i] = entryBuffer.getFloat();
+            values[3 * i + 1] = entryBuffer.getFloat();
+            values[3 * i + 2] = entryBuffer.getFloat();
+        }
+    }
+
+    /**
+     * Counts the entries of a file by reading the block headers only.
+     *
+     * @param file The file to count the entries of
+     * @return The number of entries in all complete blocks of the file
+     * @throws IOException If reading the file failed
+     */
+    static int countEntries(@NonNull final File file) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(BYTES_IN_BLOCK_HEADER);
+        int entries = 0;
+        try (final FileChannel channel = new FileInputStream(file).getChannel()) {
+            final long size = channel.size();
+            long blockStart = 0L;
+            while (size - blockStart >= BYTES_IN_BLOCK_HEADER) {
+                header.clear();
+                while (header.hasRemaining()) {
+                    channel.read(header, blockStart + header.position());
+                }
+                final long blockEnd = blockStart + BYTES_IN_BLOCK_HEADER + getPayloadSize(header, 0);
+                if (blockEnd > size) {
+                    break;
+                }
+                entries += getEntryCount(header, 0);
+                blockStart = blockEnd;
+            }
+            if (blockStart != size) {
+                Log.w(TAG, "Ignoring incomplete block at the end of " + file.getPath());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Writes the entries of a file in the layout of the {@link MeasurementSerializer#TRANSFER_FILE_FORMAT_VERSION},
+     * i.e. with {@code long} timestamps and {@code double} values. The file is converted block by block.
+     *
+     * @param file The file to convert
+     * @param outputStream The stream to write the converted entries to
+     * @throws IOException If reading the file or writing to the stream failed
+     */
+    static void writeInTransferFormat(@NonNull final File file, @NonNull final OutputStream outputStream)
+            throws IOException {
+        try (final FileChannel channel = new FileInputStream(file).getChannel()) {
+            final long size = channel.size();
+            Validate.isTrue(size <= Integer.MAX_VALUE, "File too large to be mapped: " + file.getPath());
+            final ByteBuffer blocks = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            long[] timestamps = new long[0];
+            float[] values = new float[0];
+            ByteBuffer transferChunk = ByteBuffer.allocate(0);
+            int blockStart = 0;
+            while (hasCompleteBlock(blocks, blockStart)) {
+                final int entries = getEntryCount(blocks, blockStart);
+                if (timestamps.length < entries) {
+                    timestamps = new long[entries];
+                    values = new float[3 * entries];
+                    transferChunk = ByteBuffer.allocate(entries * BYTES_IN_ONE_POINT_3D_ENTRY);
+                }
+                decodeBlock(blocks, blockStart, timestamps, values);
+                transferChunk.clear();
+                for (int i = 0; i < entries; i++) {
+                    transferChunk.putLong(timestamps[i]);
+                    transferChunk.putDouble(values[3 * i]);
+                    transferChunk.putDouble(values[3 * i + 1]);
+                    transferChunk.putDouble(values[3 * i + 2]);
+                }
+                outputStream.write(transferChunk.array(), 0, transferChunk.position());
+                blockStart += BYTES_IN_BLOCK_HEADER + getPayloadSize(blocks, blockStart);
+            }
+        }
+    }
+
+    /**
+     * @param value The signed value to encode
+     * @return The value with the sign in the lowest bit, so small negative values are encoded with few bytes
+     */
+    static long zigZagEncode(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * @param value The value encoded with {@link #zigZagEncode(long)}
+     * @return The signed value
+     */
+    static long zigZagDecode(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes a value as variable length integer with seven bits per byte, the lowest bits first.
+     *
+     * @param buffer The buffer to write to
+     * @param value The value to write, interpreted as unsigned
+     */
+    static void putVarLong(@NonNull final ByteBuffer buffer, final long value) {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0L) {
+            buffer.put((byte)((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        buffer.put((byte)remaining);
+    }
+
+    /**
+     * @param buffer The buffer to read from
+     * @return The value written with {@link #putVarLong(ByteBuffer, long)}
+     */
+    static long getVarLong(@NonNull final ByteBuffer buffer) {
+        long value = 0L;
+        int shift = 0;
+        byte b;
+        do {
+            Validate.isTrue(shift < 64, "Malformed variable length integer");
+            b = buffer.get();
+            value |= (long)(b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
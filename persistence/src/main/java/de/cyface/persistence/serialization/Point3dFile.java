@@ -28,12 +28,13 @@ import de.cyface.persistence.DefaultFileAccess;
 import de.cyface.persistence.FileAccessLayer;
 import de.cyface.persistence.model.Measurement;
 import de.cyface.persistence.model.Point3d;
+import de.cyface.utils.Validate;
 
 /**
  * The file format to persist {@link Point3d}s such as accelerations, rotations and directions.
  *
  * @author Armin Schnabel
- * @version 4.0.1
+ * @version 4.1.0
  * @since 3.0.0
  */
 public class Point3dFile implements FileSupport<List<Point3d>> {
@@ -80,9 +81,14 @@ public class Point3dFile implements FileSupport<List<Point3d>> {
      * The {@link FileAccessLayer} used to interact with files.
      */
     private FileAccessLayer fileAccessLayer;
+    /**
+     * The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} of the data in the file.
+     */
+    private final short persistenceFileFormatVersion;
 
     /**
-     * Constructor which actually creates a new {@link File} in the persistence layer.
+     * Constructor which actually creates a new {@link File} in the persistence layer in the current
+     * {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION}.
      *
      * @param context The {@link Context} required to access the underlying persistence layer.
      * @param measurementId the identifier of the {@link Measurement} for which the file is to be created
@@ -91,9 +97,27 @@ public class Point3dFile implements FileSupport<List<Point3d>> {
      */
     public Point3dFile(@NonNull final Context context, final long measurementId, @NonNull final String folderName,
             @NonNull final String fileExtension) {
+        this(context, measurementId, folderName, fileExtension, MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION);
+    }
+
+    /**
+     * Constructor which actually creates a new {@link File} in the persistence layer or references the existing file
+     * when a {@link Measurement} is resumed.
+     *
+     * @param context The {@link Context} required to access the underlying persistence layer.
+     * @param measurementId the identifier of the {@link Measurement} for which the file is to be created
+     * @param folderName The folder name defining the {@link Point3d} type of the file
+     * @param fileExtension the extension of the file type
+     * @param persistenceFileFormatVersion The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} stored
+     *            for the {@code Measurement}
+     */
+    public Point3dFile(@NonNull final Context context, final long measurementId, @NonNull final String folderName,
+            @NonNull final String fileExtension, final short persistenceFileFormatVersion) {
+        Validate.isTrue(MeasurementSerializer.isSupported(persistenceFileFormatVersion));
         this.fileAccessLayer = new DefaultFileAccess();
         this.file = fileAccessLayer.createFile(context, measurementId, folderName, fileExtension);
         this.measurementId = measurementId;
+        this.persistenceFileFormatVersion = persistenceFileFormatVersion;
     }
 
     /**
@@ -101,16 +125,26 @@ public class Point3dFile implements FileSupport<List<Point3d>> {
      *
      * @param measurementId the identifier of the measurement for this file
      * @param file The already existing file which represents the {@link Point3dFile}
+     * @param persistenceFileFormatVersion The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} of the
+     *            data in the file
      */
-    private Point3dFile(final long measurementId, @NonNull final File file) {
+    private Point3dFile(final long measurementId, @NonNull final File file, final short persistenceFileFormatVersion) {
         this.file = file;
         this.measurementId = measurementId;
+        this.persistenceFileFormatVersion = persistenceFileFormatVersion;
     }
 
     public File getFile() {
         return file;
     }
 
+    /**
+     * @return The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} of the data in the file
+     */
+    public short getPersistenceFileFormatVersion() {
+        return persistenceFileFormatVersion;
+    }
+
     @Override
     public void append(final List<Point3d> dataPoints) {
         final byte[] data = serialize(dataPoints);
@@ -119,11 +153,12 @@ public class Point3dFile implements FileSupport<List<Point3d>> {
 
     @Override
     public byte[] serialize(final List<Point3d> dataPoints) {
-        return MeasurementSerializer.serialize(dataPoints);
+        return MeasurementSerializer.serialize(dataPoints, persistenceFileFormatVersion);
     }
 
     /**
-     * Loads an existing {@link Point3dFile} for a specified {@link Measurement} if it exists.
+     * Loads an existing {@link Point3dFile} in the current {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION}
+     * for a specified {@link Measurement} if it exists.
      *
      * @param context The {@link Context} required to access the underlying persistence layer.
      * @param fileAccessLayer The {@link FileAccessLayer} used to access the file;
@@ -136,12 +171,33 @@ public class Point3dFile implements FileSupport<List<Point3d>> {
     public static Point3dFile loadFile(@NonNull final Context context, @NonNull FileAccessLayer fileAccessLayer,
             final long measurementId, @NonNull final String folderName, @NonNull final String fileExtension)
             throws NoSuchFileException {
+        return loadFile(context, fileAccessLayer, measurementId, folderName, fileExtension,
+                MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION);
+    }
+
+    /**
+     * Loads an existing {@link Point3dFile} for a specified {@link Measurement} if it exists.
+     *
+     * @param context The {@link Context} required to access the underlying persistence layer.
+     * @param fileAccessLayer The {@link FileAccessLayer} used to access the file;
+     * @param measurementId the identifier of the measurement for which the file is to be found
+     * @param folderName The folder name defining the {@link Point3d} type of the file
+     * @param fileExtension the extension of the file type
+     * @param persistenceFileFormatVersion The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} stored
+     *            for the {@code Measurement}
+     * @return the {@link Point3dFile} link to the file
+     * @throws NoSuchFileException if there is no such file
+     */
+    public static Point3dFile loadFile(@NonNull final Context context, @NonNull FileAccessLayer fileAccessLayer,
+            final long measurementId, @NonNull final String folderName, @NonNull final String fileExtension,
+            final short persistenceFileFormatVersion) throws NoSuchFileException {
+        Validate.isTrue(MeasurementSerializer.isSupported(persistenceFileFormatVersion));
 
         final File file = fileAccessLayer.getFilePath(context, measurementId, folderName, fileExtension);
         if (!file.exists()) {
             throw new NoSuchFileException("The follow file could not be loaded: " + file.getPath());
         }
 
-        return new Point3dFile(measurementId, file);
+        return new Point3dFile(measurementId, file, persistenceFileFormatVersion);
     }
 }
\ No newline at end of file
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import de.cyface.persistence.model.Point3d;
+import de.cyface.utils.Validate;
+
+/**
+ * Appends {@link Point3d}s to a {@link Point3dFile} through a {@link FileChannel} which stays open while the
+ * {@code Measurement} is captured.
+ * <p>
+ * In contrast to {@link Point3dFile#append(List)}, which opens and closes the file for each batch, the points are
+ * serialized into a reusable direct {@link ByteBuffer} and written to the file when the buffer is full, the oldest
+ * buffered point is older than the flush interval, on {@link #flush()} and on {@link #close()}. The file format is
+ * the same as written by {@code Point3dFile#append(List)}, i.e. the
+ * {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} of the {@code Point3dFile}. In the
+ * {@link MeasurementSerializer#BLOCK_PERSISTENCE_FILE_FORMAT_VERSION} each write of the buffer is one block.
+ * <p>
+ * Optionally, each write of the buffer is also compressed into a segment of a {@link CompressedPoint3dFile}, so the
+ * synchronization does not need to compress the {@code Point3d}s when the {@code Measurement} is transferred.
+ * <p>
+ * All methods are synchronized as the captured data is written from multiple threads.
+ *
+ * @author Armin Schnabel
+ * @version 1.4.0
+ * @since 6.2.0
+ */
+public class Point3dFileAppender implements Closeable {
+
+    /**
+     * The default size of the buffer in bytes, i.e. the number of bytes written to the file at once.
+     */
+    public final static int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    /**
+     * The default maximal time in milliseconds a {@link Point3d} is buffered before it's written to the file.
+     */
+    public final static long DEFAULT_FLUSH_INTERVAL_MILLIS = 5_000L;
+    /**
+     * The {@code FileChannel} to append the data to.
+     */
+    private final FileChannel channel;
+    /**
+     * The buffer for the serialized {@link Point3d}s which are not yet written to the file.
+     */
+    private final ByteBuffer buffer;
+    /**
+     * The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} to write the {@link Point3d}s in.
+     */
+    private final short persistenceFileFormatVersion;
+    /**
+     * {@code true} if the {@link Point3d}s are written in the {@link Point3dBlockFormat}.
+     */
+    private final boolean blockFormat;
+    /**
+     * The maximal number of bytes of one serialized {@link Point3d}.
+     */
+    private final int bytesInOnePoint3dEntry;
+    /**
+     * The number of {@link Point3d}s in the block in the buffer, if {@link #blockFormat} is used.
+     */
+    private int blockEntries;
+    /**
+     * The timestamp of the last {@link Point3d} in the block in the buffer, if {@link #blockFormat} is used.
+     */
+    private long previousTimestamp;
+    /**
+     * The maximal time in milliseconds a {@link Point3d} is buffered before it's written to the file.
+     */
+    private final long flushIntervalMillis;
+    /**
+     * The {@link SystemClock#elapsedRealtime()} when the oldest buffered {@link Point3d} was appended.
+     */
+    private long oldestBufferedPointTime;
+    /**
+     * The file to compress the {@link Point3d}s into or {@code null} if they are not compressed while capturing.
+     */
+    @Nullable
+    private final CompressedPoint3dFile compressedFile;
+    /**
+     * The buffered {@link Point3d}s in the layout of the {@link MeasurementSerializer#TRANSFER_FILE_FORMAT_VERSION},
+     * to be compressed into the {@link #compressedFile}, or {@code null} if they are not compressed while capturing.
+     */
+    @Nullable
+    private final ByteBuffer transferBuffer;
+
+    /**
+     * Opens a {@link Point3dFile} for appending with the {@link #DEFAULT_BUFFER_SIZE} and the
+     * {@link #DEFAULT_FLUSH_INTERVAL_MILLIS}.
+     *
+     * @param file The {@code Point3dFile} to append to
+     */
+    public Point3dFileAppender(@NonNull final Point3dFile file) {
+        this(file, false);
+    }
+
+    /**
+     * Opens a {@link Point3dFile} for appending with the {@link #DEFAULT_BUFFER_SIZE} and the
+     * {@link #DEFAULT_FLUSH_INTERVAL_MILLIS}.
+     *
+     * @param file The {@code Point3dFile} to append to
+     * @param compress {@code true} if the {@link Point3d}s should also be compressed into a
+     *            {@link CompressedPoint3dFile} while they are captured
+     */
+    public Point3dFileAppender(@NonNull final Point3dFile file, final boolean compress) {
+        this(file.getFile(), file.getPersistenceFileFormatVersion(), DEFAULT_BUFFER_SIZE,
+                DEFAULT_FLUSH_INTERVAL_MILLIS, compress);
+    }
+
+    /**
+     * Opens a file for appending.
+     *
+     * @param file The existing file to append to
+     * @param persistenceFileFormatVersion The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} of the
+     *            file
+     * @param bufferSize The size of the buffer in bytes. Must hold at least one {@link Point3d}.
+     * @param flushIntervalMillis The maximal time in milliseconds a {@link Point3d} is buffered before it's written to
+     *            the file. This is checked when the next batch is appended. Use {@code 0} to write each batch
+     *            directly.
+     */
+    public Point3dFileAppender(@NonNull final File file, final short persistenceFileFormatVersion,
+            final int bufferSize, final long flushIntervalMillis) {
+        this(file, persistenceFileFormatVersion, bufferSize, flushIntervalMillis, false);
+    }
+
+    /**
+     * Opens a file for appending.
+     *
+     * @param file The existing file to append to
+     * @param persistenceFileFormatVersion The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} of the
+     *            file
+     * @param bufferSize The size of the buffer in bytes. Must hold at least one {@link Point3d}.
+     * @param flushIntervalMillis The maximal time in milliseconds a {@link Point3d} is buffered before it's written to
+     *            the file. This is checked when the next batch is appended. Use {@code 0} to write each batch
+     *            directly.
+     * @param compress {@code true} if the {@link Point3d}s should also be compressed into a
+     *            {@link CompressedPoint3dFile} while they are captured. This is ignored if the file was written
+     *            without compression before.
+     */
+    public Point3dFileAppender(@NonNull final File file, final short persistenceFileFormatVersion,
+            final int bufferSize, final long flushIntervalMillis, final boolean compress) {
+        Validate.isTrue(file.exists(), "Failed to open file as it does not exist: " + file.getPath());
+        this.persistenceFileFormatVersion = persistenceFileFormatVersion;
+        this.blockFormat = persistenceFileFormatVersion == MeasurementSerializer.BLOCK_PERSISTENCE_FILE_FORMAT_VERSION;
+        this.bytesInOnePoint3dEntry = blockFormat ? Point3dBlockFormat.MAX_BYTES_IN_ONE_ENTRY
+                : MeasurementSerializer.bytesInOnePoint3dEntry(persistenceFileFormatVersion);
+        Validate.isTrue(bufferSize >= (blockFormat ? Point3dBlockFormat.BYTES_IN_BLOCK_HEADER : 0)
+                + bytesInOnePoint3dEntry);
+        Validate.isTrue(flushIntervalMillis >= 0L);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.compressedFile = compress ? CompressedPoint3dFile.open(file, persistenceFileFormatVersion) : null;
+        // Twice the buffer size holds the entries of the buffer in the transfer layout for all but tiny buffers
+        this.transferBuffer = compressedFile == null ? null
+                : ByteBuffer.allocate(Math.max(2 * bufferSize, MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY));
+        try {
+            this.channel = new FileOutputStream(file, true).getChannel();
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Serializes the {@link Point3d}s into the buffer and writes the buffer to the file when it's full or the flush
+     * interval elapsed.
+     *
+     * @param dataPoints The points to append
+     */
+    public synchronized void append(@NonNull final List<Point3d> dataPoints) {
+        Validate.isTrue(channel.isOpen(), "Appender is already closed");
+        if (dataPoints.isEmpty()) {
+            return;
+        }
+        if (buffer.position() == 0) {
+            oldestBufferedPointTime = SystemClock.elapsedRealtime();
+        }
+
+        for (final Point3d point : dataPoints) {
+            put(point.getTimestamp(), point.getX(), point.getY(), point.getZ());
+        }
+
+        if (SystemClock.elapsedRealtime() - oldestBufferedPointTime >= flushIntervalMillis) {
+            writeBuffer();
+        }
+    }
+
+    /**
+     * Serializes points stored in parallel primitive arrays into the buffer and writes the buffer to the file when
+     * it's full or the flush interval elapsed.
+     * <p>
+     * In contrast to {@link #append(List)} no {@link Point3d} object is needed for each point, which allows the
+     * capturing to pass its sensor batches without creating objects.
+     *
+     * @param timestamps The timestamps of the points in milliseconds since 1970
+     * @param xs The x components of the points
+     * @param ys The y components of the points
+     * @param zs The z components of the points
+     * @param offset The index of the first point to append in the arrays
+     * @param count The number of points to append
+     */
+    public synchronized void append(@NonNull final long[] timestamps, @NonNull final float[] xs,
+            @NonNull final float[] ys, @NonNull final float[] zs, final int offset, final int count) {
+        Validate.isTrue(channel.isOpen(), "Appender is already closed");
+        Validate.isTrue(offset >= 0 && count >= 0 && offset + count <= timestamps.length
+                && offset + count <= xs.length && offset + count <= ys.length && offset + count <= zs.length);
+        if (count == 0) {
+            return;
+        }
+        if (buffer.position() == 0) {
+            oldestBufferedPointTime = SystemClock.elapsedRealtime();
+        }
+
+        for (int i = offset; i < offset + count; i++) {
+            put(timestamps[i], xs[i], ys[i], zs[i]);
+        }
+
+        if (SystemClock.elapsedRealtime() - oldestBufferedPointTime >= flushIntervalMillis) {
+            writeBuffer();
+        }
+    }
+
+    /**
+     * Serializes one point into the buffer and writes the buffer to the file before if it's full.
+     *
+     * @param timestamp The timestamp of the point in milliseconds since 1970
+     * @param x The x component of the point
+     * @param y The y component of the point
+     * @param z The z component of the point
+     */
+    private void put(final long timestamp, final float x, final float y, final float z) {
+        if (isBufferFull()) {
+            writeBuffer();
+        }
+        if (transferBuffer != null) {
+            MeasurementSerializer.putPoint3d(transferBuffer, timestamp, x, y, z,
+                    MeasurementSerializer.LEGACY_PERSISTENCE_FILE_FORMAT_VERSION);
+        }
+        if (!blockFormat) {
+            MeasurementSerializer.putPoint3d(buffer, timestamp, x, y, z, persistenceFileFormatVersion);
+            return;
+        }
+
+        if (blockEntries == 0) {
+            Point3dBlockFormat.startBlock(buffer, timestamp);
+            previousTimestamp = timestamp;
+        }
+        Point3dBlockFormat.putEntry(buffer, timestamp, x, y, z, previousTimestamp);
+        previousTimestamp = timestamp;
+        blockEntries++;
+    }
+
+    /**
+     * Writes all buffered {@link Point3d}s to the file, e.g. before the capturing is paused or stopped.
+     */
+    public synchronized void flush() {
+        if (channel.isOpen()) {
+            writeBuffer();
+        }
+    }
+
+    /**
+     * Writes all buffered {@link Point3d}s to the file and closes it. Calling this again has no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            writeBuffer();
+        } finally {
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                if (compressedFile != null) {
+                    compressedFile.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the buffer cannot hold another {@link Point3d}
+     */
+    private boolean isBufferFull() {
+        return buffer.remaining() < bytesInOnePoint3dEntry
+                || (blockFormat && blockEntries == Point3dBlockFormat.MAX_ENTRIES_IN_BLOCK)
+                || (transferBuffer != null
+                        && transferBuffer.remaining() < MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY);
+    }
+
+    /**
+     * Writes the content of the buffer to the file and clears the buffer.
+     * <p>
+     * The {@link #compressedFile} is written after the {@code Point3dFile}. If the process is killed in between, the
+     * files differ and the {@code CompressedPoint3dFile} is not used.
+     */
+    private void writeBuffer() {
+        if (buffer.position() == 0) {
+            return;
+        }
+        if (blockFormat) {
+            Point3dBlockFormat.finishBlock(buffer, 0, blockEntries);
+            blockEntries = 0;
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (final IOException e) {
+            // TODO [MOV-566]: Soft catch the no space left scenario
+            throw new IllegalStateException("Failed to append data to file. Is there space left on the device?");
+        } finally {
+            buffer.clear();
+        }
+        if (compressedFile != null) {
+            try {
+                compressedFile.append(transferBuffer);
+            } finally {
+                transferBuffer.clear();
+            }
+        }
+        oldestBufferedPointTime = SystemClock.elapsedRealtime();
+    }
+}
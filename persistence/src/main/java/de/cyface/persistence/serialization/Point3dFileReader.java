@@ -0,0 +1,361 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.Constants.TAG;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BLOCK_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.LEGACY_PERSISTENCE_FILE_FORMAT_VERSION;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.persistence.model.Point3d;
+import de.cyface.utils.Validate;
+
+/**
+ * Reads single {@link Point3d}s or time windows from a {@link Point3dFile} without loading the whole file.
+ * <p>
+ * The file is memory-mapped, so only the pages which are accessed are read from the storage. As all entries have the
+ * same size, depending on the {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION}, and are ordered by time,
+ * entries are accessed by index and found by timestamp via binary search. Files in the
+ * {@link MeasurementSerializer#BLOCK_PERSISTENCE_FILE_FORMAT_VERSION} are indexed by their block headers when the
+ * reader is created and only the block containing the accessed entry is decoded.
+ * <p>
+ * The reader sees the entries which existed when it was created. The mapping is released when the reader is garbage
+ * collected. Reading is thread-safe.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 6.2.0
+ */
+public class Point3dFileReader {
+
+    /**
+     * The memory-mapped content of the file.
+     */
+    private final ByteBuffer buffer;
+    /**
+     * The number of complete entries in the file.
+     */
+    private final int pointCount;
+    /**
+     * The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} of the file.
+     */
+    private final short persistenceFileFormatVersion;
+    /**
+     * The number of bytes of one entry in the file or {@code 0} for the {@link Point3dBlockFormat}.
+     */
+    private final int bytesInOnePoint3dEntry;
+    /**
+     * The offset of each block in the file or {@code null} if the file is not in the {@link Point3dBlockFormat}.
+     */
+    private final int[] blockOffsets;
+    /**
+     * The index of the first entry of each block or {@code null} if the file is not in the {@link Point3dBlockFormat}.
+     */
+    private final int[] blockFirstIndices;
+    /**
+     * The index of the block decoded into {@link #decodedTimestamps} and {@link #decodedValues} or {@code -1}.
+     */
+    private int decodedBlock = -1;
+    /**
+     * The timestamps of the last decoded block.
+     */
+    private long[] decodedTimestamps;
+    /**
+     * The x, y and z values of the last decoded block.
+     */
+    private float[] decodedValues;
+
+    /**
+     * Memory-maps a {@link Point3dFile}.
+     *
+     * @param file The {@code Point3dFile} to read
+     */
+    public Point3dFileReader(@NonNull final Point3dFile file) {
+        this(file.getFile(), file.getPersistenceFileFormatVersion());
+    }
+
+    /**
+     * Memory-maps a file in the {@link Point3dFile} format.
+     *
+     * @param file The file to read
+     * @param persistenceFileFormatVersion The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} of the
+     *            file
+     */
+    public Point3dFileReader(@NonNull final File file, final short persistenceFileFormatVersion) {
+        Validate.isTrue(file.exists(), "Failed to read file as it does not exist: " + file.getPath());
+        this.persistenceFileFormatVersion = persistenceFileFormatVersion;
+        final boolean blockFormat = persistenceFileFormatVersion == BLOCK_PERSISTENCE_FILE_FORMAT_VERSION;
+        this.bytesInOnePoint3dEntry = blockFormat ? 0
+                : MeasurementSerializer.bytesInOnePoint3dEntry(persistenceFileFormatVersion);
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                final FileChannel channel = randomAccessFile.getChannel()) {
+            final long size = channel.size();
+            Validate.isTrue(size <= Integer.MAX_VALUE, "File too large to be mapped: " + file.getPath());
+            // The mapping stays valid after the channel is closed
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        if (!blockFormat) {
+            if (buffer.limit() % bytesInOnePoint3dEntry != 0) {
+                // E.g. when the capturing process was killed while appending
+                Log.w(TAG, "Ignoring incomplete entry at the end of " + file.getPath());
+            }
+            this.pointCount = buffer.limit() / bytesInOnePoint3dEntry;
+            this.blockOffsets = null;
+            this.blockFirstIndices = null;
+            return;
+        }
+
+        // Index the blocks by their headers
+        final List<Integer> offsets = new ArrayList<>();
+        int entries = 0;
+        int blockStart = 0;
+        while (Point3dBlockFormat.hasCompleteBlock(buffer, blockStart)) {
+            offsets.add(blockStart);
+            entries += Point3dBlockFormat.getEntryCount(buffer, blockStart);
+            blockStart += Point3dBlockFormat.BYTES_IN_BLOCK_HEADER
+                    + Point3dBlockFormat.getPayloadSize(buffer, blockStart);
+        }
+        if (blockStart != buffer.limit()) {
+            Log.w(TAG, "Ignoring incomplete block at the end of " + file.getPath());
+        }
+        this.pointCount = entries;
+        this.blockOffsets = new int[offsets.size()];
+        this.blockFirstIndices = new int[offsets.size()];
+        int firstIndex = 0;
+        for (int i = 0; i < offsets.size(); i++) {
+            blockOffsets[i] = offsets.get(i);
+            blockFirstIndices[i] = firstIndex;
+            firstIndex += Point3dBlockFormat.getEntryCount(buffer, blockOffsets[i]);
+        }
+    }
+
+    /**
+     * @return The number of {@link Point3d}s in the file
+     */
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * @param index The index of the {@link Point3d} in the file
+     * @return The timestamp of the {@code Point3d} in milliseconds since 1.1.1970
+     */
+    public long getTimestamp(final int index) {
+        checkIndex(index);
+        if (blockOffsets != null) {
+            synchronized (this) {
+                final int block = blockOf(index);
+                decode(block);
+                return decodedTimestamps[index - blockFirstIndices[block]];
+            }
+        }
+        return buffer.getLong(index * bytesInOnePoint3dEntry);
+    }
+
+    /**
+     * @param index The index of the {@link Point3d} in the file
+     * @return The {@code Point3d}
+     */
+    @NonNull
+    public Point3d get(final int index) {
+        checkIndex(index);
+        if (blockOffsets != null) {
+            synchronized (this) {
+                final int block = blockOf(index);
+                decode(block);
+                final int entry = index - blockFirstIndices[block];
+                return new Point3d(decodedValues[3 * entry], decodedValues[3 * entry + 1],
+                        decodedValues[3 * entry + 2], decodedTimestamps[entry]);
+            }
+        }
+        final int offset = index * bytesInOnePoint3dEntry;
+        final long timestamp = buffer.getLong(offset);
+        if (persistenceFileFormatVersion == LEGACY_PERSISTENCE_FILE_FORMAT_VERSION) {
+            final double x = buffer.getDouble(offset + 8);
+            final double y = buffer.getDouble(offset + 16);
+            final double z = buffer.getDouble(offset + 24);
+            return new Point3d((float)x, (float)y, (float)z, timestamp);
+        }
+        final float x = buffer.getFloat(offset + 8);
+        final float y = buffer.getFloat(offset + 12);
+        final float z = buffer.getFloat(offset + 16);
+        return new Point3d(x, y, z, timestamp);
+    }
+
+    /**
+     * Finds the first {@link Point3d} captured at or after a timestamp via binary search.
+     *
+     * @param timestamp The timestamp in milliseconds since 1.1.1970
+     * @return The index of the first {@code Point3d} with a timestamp equal to or later than {@code timestamp} or
+     *         {@link #getPointCount()} if there is no such {@code Point3d}.
+     */
+    public int indexOf(final long timestamp) {
+        if (blockOffsets != null) {
+            return indexOfInBlocks(timestamp);
+        }
+        int low = 0;
+        int high = pointCount;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (getTimestamp(middle) < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Loads the {@link Point3d}s captured in a time window, e.g. around an {@code Event}.
+     *
+     * @param fromTimestamp The start of the window in milliseconds since 1.1.1970, inclusive
+     * @param toTimestamp The end of the window in milliseconds since 1.1.1970, exclusive
+     * @return The {@code Point3d}s of the window ordered by time
+     */
+    @NonNull
+    public List<Point3d> load(final long fromTimestamp, final long toTimestamp) {
+        Validate.isTrue(fromTimestamp <= toTimestamp);
+        return load(indexOf(fromTimestamp), indexOf(toTimestamp));
+    }
+
+    /**
+     * Loads a range of {@link Point3d}s.
+     *
+     * @param fromIndex The index of the first {@code Point3d}, inclusive
+     * @param toIndex The index after the last {@code Point3d}, exclusive
+     * @return The {@code Point3d}s of the range ordered by time
+     */
+    @NonNull
+    public List<Point3d> load(final int fromIndex, final int toIndex) {
+        Validate.isTrue(0 <= fromIndex && fromIndex <= toIndex && toIndex <= pointCount);
+        final List<Point3d> points = new ArrayList<>(toIndex - fromIndex);
+        for (int i = fromIndex; i < toIndex; i++) {
+            points.add(get(i));
+        }
+        return points;
+    }
+
+    /**
+     * Finds the first {@link Point3d} captured at or after a timestamp in the {@link Point3dBlockFormat}.
+     * <p>
+     * The block is found via binary search over the timestamps in the block headers, so only one block is decoded.
+     *
+     * @param timestamp The timestamp in milliseconds since 1.1.1970
+     * @return The index of the first {@code Point3d} with a timestamp equal to or later than {@code timestamp} or
+     *         {@link #getPointCount()} if there is no such {@code Point3d}.
+     */
+    private int indexOfInBlocks(final long timestamp) {
+        // The first block which starts at or after the timestamp
+        int low = 0;
+        int high = blockOffsets.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (Point3dBlockFormat.getBaseTimestamp(buffer, blockOffsets[middle]) < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (low == 0) {
+            return 0;
+        }
+
+        // The entry can still be in the block before
+        final int block = low - 1;
+        synchronized (this) {
+            decode(block);
+            int entry = 0;
+            int entries = Point3dBlockFormat.getEntryCount(buffer, blockOffsets[block]);
+            while (entry < entries) {
+                final int middle = (entry + entries) >>> 1;
+                if (decodedTimestamps[middle] < timestamp) {
+                    entry = middle + 1;
+                } else {
+                    entries = middle;
+                }
+            }
+            return blockFirstIndices[block] + entry;
+        }
+    }
+
+    /**
+     * @param index The index of an entry in the {@link Point3dBlockFormat}
+     * @return The index of the block containing the entry
+     */
+    private int blockOf(final int index) {
+        int low = 0;
+        int high = blockFirstIndices.length - 1;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (blockFirstIndices[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Decodes a block into {@link #decodedTimestamps} and {@link #decodedValues} unless it's already decoded.
+     * <p>
+     * Must be called while synchronized on this reader.
+     *
+     * @param block The index of the block to decode
+     */
+    private void decode(final int block) {
+        if (decodedBlock == block) {
+            return;
+        }
+        final int entries = Point3dBlockFormat.getEntryCount(buffer, blockOffsets[block]);
+        if (decodedTimestamps == null || decodedTimestamps.length < entries) {
+            decodedTimestamps = new long[entries];
+            decodedValues = new float[3 * entries];
+        }
+        Point3dBlockFormat.decodeBlock(buffer, blockOffsets[block], decodedTimestamps, decodedValues);
+        decodedBlock = block;
+    }
+
+    /**
+     * @param index The index to check
+     * @throws IndexOutOfBoundsException if there is no {@link Point3d} at the {@code index}
+     */
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= pointCount) {
+            throw new IndexOutOfBoundsException(
+                    String.format(Locale.US, "Index %d is out of bounds for %d points", index, pointCount));
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.serialization.MeasurementSerializer.COMPRESSION_NOWRAP;
+import static de.cyface.persistence.serialization.MeasurementSerializer.DEFLATER_LEVEL;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import de.cyface.persistence.FileAccessLayer;
+
+/**
+ * A {@link BufferedOutputStream} which compresses the data written to it into one raw deflate stream, like the
+ * {@link MeasurementSerializer} compresses the transfer file, and which allows to append the segments of a
+ * {@link CompressedPoint3dFile} to this stream without recompressing them.
+ * <p>
+ * As long as no segments are appended, the compressed bytes are the same as written by a {@link DeflaterOutputStream}.
+ * Optionally, the data is compressed on multiple threads by a {@link ParallelDeflaterOutputStream}.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 6.2.0
+ */
+public class SegmentedDeflaterOutputStream extends BufferedOutputStream {
+
+    /**
+     * The stream which compresses the data written to this stream.
+     */
+    private final Compressor deflaterStream;
+    /**
+     * The channel of the stream the compressed data is finally written to or {@code null} if the segments are copied
+     * through the stream.
+     */
+    @Nullable
+    private WritableByteChannel targetChannel;
+    /**
+     * The {@link FileAccessLayer} used to transfer the segments to the {@link #targetChannel}.
+     */
+    @Nullable
+    private FileAccessLayer fileAccessLayer;
+
+    /**
+     * Creates a new stream which compresses with the {@link MeasurementSerializer#DEFLATER_LEVEL}.
+     *
+     * @param outputStream The stream to write the compressed data to
+     */
+    public SegmentedDeflaterOutputStream(@NonNull final OutputStream outputStream) {
+        this(new SyncFlushingDeflaterOutputStream(outputStream));
+    }
+
+    /**
+     * Creates a new stream which compresses with the {@link MeasurementSerializer#DEFLATER_LEVEL} on multiple threads.
+     *
+     * @param outputStream The stream to write the compressed data to
+     * @param executor The {@code ExecutorService} to compress the data on. It's not shut down by this stream.
+     * @param threads The number of threads of the {@code executor}
+     */
+    public SegmentedDeflaterOutputStream(@NonNull final OutputStream outputStream,
+            @NonNull final ExecutorService executor, final int threads) {
+        // Two chunks per thread keep the threads busy while the oldest chunk is written
+        this(new ParallelDeflaterOutputStream(outputStream, executor, 2 * threads));
+    }
+
+    /**
+     * @param deflaterStream The stream which compresses the data written to this stream
+     */
+    private SegmentedDeflaterOutputStream(@NonNull final SyncFlushingDeflaterOutputStream deflaterStream) {
+        super(deflaterStream);
+        this.deflaterStream = deflaterStream;
+    }
+
+    /**
+     * @param deflaterStream The stream which compresses the data written to this stream
+     */
+    private SegmentedDeflaterOutputStream(@NonNull final ParallelDeflaterOutputStream deflaterStream) {
+        super(deflaterStream, ParallelDeflaterOutputStream.CHUNK_SIZE);
+        this.deflaterStream = deflaterStream;
+    }
+
+    /**
+     * Appends the compressed segments of a {@link CompressedPoint3dFile} to the compressed stream.
+     * <p>
+     * The data written before is compressed up to the next byte boundary and the data written afterwards is compressed
+     * with a new dictionary, as the decompressed segments are not known to the compressor of this stream.
+     *
+     * @param compressedFile The {@code CompressedPoint3dFile}, which must not end with an incomplete segment
+     * @throws IOException If reading the file or writing to the stream failed
+     */
+    public void writeCompressedSegments(@NonNull final File compressedFile) throws IOException {
+        flush();
+        deflaterStream.syncFlush();
+        final OutputStream outputStream = deflaterStream.getOutputStream();
+        if (targetChannel != null && fileAccessLayer != null) {
+            // The segments are written behind the compressed data, which must leave the buffers first
+            outputStream.flush();
+            CompressedPoint3dFile.transferSegments(compressedFile, fileAccessLayer, targetChannel);
+        } else {
+            CompressedPoint3dFile.writeSegments(compressedFile, outputStream);
+        }
+        deflaterStream.resetDictionary();
+    }
+
+    /**
+     * Transfers the segments appended via {@link #writeCompressedSegments(File)} directly into the channel of the
+     * stream this stream finally writes to, without copying them through the Java heap.
+     * <p>
+     * All streams between this stream and the {@code targetChannel} must write the data they receive on
+     * {@code flush()}, e.g. a {@code FileOutputStream} wrapped by {@code BufferedOutputStream}s.
+     *
+     * @param targetChannel The channel of the stream the compressed data is finally written to, e.g.
+     *            {@code FileOutputStream#getChannel()}
+     * @param fileAccessLayer The {@link FileAccessLayer} used to transfer the segments
+     */
+    void setTargetChannel(@NonNull final WritableByteChannel targetChannel,
+            @NonNull final FileAccessLayer fileAccessLayer) {
+        this.targetChannel = targetChannel;
+        this.fileAccessLayer = fileAccessLayer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            deflaterStream.end();
+        }
+    }
+
+    /**
+     * A stream which compresses the data written to it and allows to append already compressed data.
+     */
+    interface Compressor {
+
+        /**
+         * Writes all data compressed so far, ending at a byte boundary and without a final block.
+         *
+         * @throws IOException If writing to the stream failed
+         */
+        void syncFlush() throws IOException;
+
+        /**
+         * Compresses the following data without references to the data before. Requires a {@link #syncFlush()}
+         * before.
+         */
+        void resetDictionary();
+
+        /**
+         * @return The stream to write the compressed data to
+         */
+        OutputStream getOutputStream();
+
+        /**
+         * Releases the resources which are not released on {@code close()}.
+         */
+        void end();
+    }
+
+    /**
+     * A {@link DeflaterOutputStream} which allows to flush the compressed data up to a byte boundary on demand.
+     */
+    private static class SyncFlushingDeflaterOutputStream extends DeflaterOutputStream implements Compressor {
+
+        /**
+         * @param outputStream The stream to write the compressed data to
+         */
+        SyncFlushingDeflaterOutputStream(@NonNull final OutputStream outputStream) {
+            super(outputStream, new Deflater(DEFLATER_LEVEL, COMPRESSION_NOWRAP));
+        }
+
+        @Override
+        public void syncFlush() throws IOException {
+            int compressed;
+            do {
+                compressed = def.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH);
+                out.write(buf, 0, compressed);
+            } while (compressed == buf.length);
+        }
+
+        @Override
+        public void resetDictionary() {
+            def.reset();
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return out;
+        }
+
+        /**
+         * Releases the {@link Deflater}, which is not released on {@link #close()} as it was created by the caller.
+         */
+        @Override
+        public void end() {
+            def.end();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_GEO_LOCATION_ENTRY;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQuery;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.persistence.model.Event;
+import de.cyface.persistence.model.GeoLocation;
+import de.cyface.persistence.model.Measurement;
+
+/**
+ * Contains the database fixtures which are shared by the local unit tests and the benchmarks in the instrumentation
+ * tests, so that both run on the same data.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+public final class DatabaseTestUtils {
+
+    /**
+     * Private constructor to avoid instantiation of utility class.
+     */
+    private DatabaseTestUtils() {
+        // Nothing to do here.
+    }
+
+    /**
+     * Creates a memory-backed database with the current schema which is destroyed on close.
+     *
+     * @param context The {@link Context} required to create the {@link DatabaseHelper}
+     * @return The created database
+     */
+    public static SQLiteDatabase createDatabase(@NonNull final Context context) {
+        final DatabaseHelper databaseHelper = new DatabaseHelper(context);
+        final SQLiteDatabase.CursorFactory cursorFactory = new SQLiteDatabase.CursorFactory() {
+            @Override
+            public Cursor newCursor(final SQLiteDatabase db, final SQLiteCursorDriver masterQuery,
+                    final String editTable, final SQLiteQuery query) {
+                return new SQLiteCursor(masterQuery, editTable, query);
+            }
+        };
+        final SQLiteDatabase db = SQLiteDatabase.create(cursorFactory);
+        databaseHelper.onCreate(db);
+        return db;
+    }
+
+    /**
+     * Inserts {@link GeoLocation}s in blocks of {@code rowsPerMeasurement} rows per {@link Measurement}, starting with
+     * the {@code Measurement} with id 1.
+     *
+     * @param db The database to insert the rows into
+     * @param offset The number of rows already in the table
+     * @param count The number of rows to insert
+     * @param rowsPerMeasurement The number of rows stored per {@code Measurement}
+     */
+    public static void insertGeoLocations(@NonNull final SQLiteDatabase db, final int offset, final int count,
+            final int rowsPerMeasurement) {
+        db.execSQL("WITH RECURSIVE counter(x) AS (SELECT " + offset + " UNION ALL SELECT x + 1 FROM counter LIMIT "
+                + count + ") INSERT INTO locations (gps_time, lat, lon, speed, accuracy, measurement_fk) "
+                + "SELECT 1551431485000 + x, 51.05210394 + x * 0.00001, 13.72873203, x % 10, 1179, 1 + x / "
+                + rowsPerMeasurement + " FROM counter;");
+        assertThat(count(db, GeoLocationsTable.URI_PATH), is(equalTo((long)offset + count)));
+    }
+
+    /**
+     * Inserts {@link Event}s in blocks of {@code rowsPerMeasurement} rows per {@link Measurement}, starting with the
+     * {@code Measurement} with id 1.
+     *
+     * @param db The database to insert the rows into
+     * @param offset The number of rows already in the table
+     * @param count The number of rows to insert
+     * @param rowsPerMeasurement The number of rows stored per {@code Measurement}
+     */
+    public static void insertEvents(@NonNull final SQLiteDatabase db, final int offset, final int count,
+            final int rowsPerMeasurement) {
+        db.execSQL("WITH RECURSIVE counter(x) AS (SELECT " + offset + " UNION ALL SELECT x + 1 FROM counter LIMIT "
+                + count + ") INSERT INTO events (timestamp, type, measurement_fk, value) "
+                + "SELECT 1551431485000 + x, 'MODALITY_TYPE_CHANGE', 1 + x / " + rowsPerMeasurement
+                + ", 'BICYCLE' FROM counter;");
+        assertThat(count(db, EventTable.URI_PATH), is(equalTo((long)offset + count)));
+    }
+
+    /**
+     * @param timestamp The timestamp of the {@link GeoLocation}
+     * @param measurementId The id of the {@link Measurement} the {@code GeoLocation} belongs to
+     * @return The {@code ContentValues} of a {@code GeoLocation} as stored by the capturing
+     */
+    public static ContentValues geoLocation(final long timestamp, final long measurementId) {
+        final ContentValues values = new ContentValues();
+        values.put(GeoLocationsTable.COLUMN_ACCURACY, 1179);
+        values.put(GeoLocationsTable.COLUMN_GEOLOCATION_TIME, timestamp);
+        values.put(GeoLocationsTable.COLUMN_LAT, 51.05210394);
+        values.put(GeoLocationsTable.COLUMN_LON, 13.72873203);
+        values.put(GeoLocationsTable.COLUMN_SPEED, 1.5);
+        values.put(GeoLocationsTable.COLUMN_MEASUREMENT_FK, measurementId);
+        return values;
+    }
+
+    /**
+     * @param db The database to query
+     * @return A {@code Cursor} on all {@link GeoLocation}s ordered by time
+     */
+    public static Cursor queryGeoLocations(@NonNull final SQLiteDatabase db) {
+        return db.query(GeoLocationsTable.URI_PATH, null, null, null, null, null,
+                GeoLocationsTable.COLUMN_GEOLOCATION_TIME + " ASC");
+    }
+
+    /**
+     * @param db The database to query
+     * @param table The name of the table to count the rows of
+     * @return The number of rows in the table
+     */
+    public static long count(@NonNull final SQLiteDatabase db, @NonNull final String table) {
+        try (final Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + table, null)) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        }
+    }
+
+    /**
+     * Serializes the {@link GeoLocation}s like {@code MeasurementSerializer#serializeGeoLocations} did before it used
+     * the {@link GeoLocationRowMapper}.
+     *
+     * @param cursor The {@code Cursor} to serialize
+     * @return The serialized {@code GeoLocation}s
+     */
+    public static byte[] serializeWithColumnLookups(@NonNull final Cursor cursor) {
+        final ByteBuffer buffer = ByteBuffer.allocate(cursor.getCount() * BYTES_IN_ONE_GEO_LOCATION_ENTRY);
+        while (cursor.moveToNext()) {
+            buffer.putLong(cursor.getLong(cursor.getColumnIndex(GeoLocationsTable.COLUMN_GEOLOCATION_TIME)));
+            buffer.putDouble(cursor.getDouble(cursor.getColumnIndex(GeoLocationsTable.COLUMN_LAT)));
+            buffer.putDouble(cursor.getDouble(cursor.getColumnIndex(GeoLocationsTable.COLUMN_LON)));
+            buffer.putDouble(cursor.getDouble(cursor.getColumnIndex(GeoLocationsTable.COLUMN_SPEED)));
+            buffer.putInt(cursor.getInt(cursor.getColumnIndex(GeoLocationsTable.COLUMN_ACCURACY)));
+        }
+        return buffer.array();
+    }
+}
@@ -21,9 +21,14 @@ package de.cyface.persistence;
 import static de.cyface.testutils.SharedTestUtils.generateGeoLocation;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -31,6 +36,7 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteCursor;
@@ -43,6 +49,7 @@ import android.provider.BaseColumns;
 import androidx.annotation.NonNull;
 import androidx.test.core.app.ApplicationProvider;
 
+import de.cyface.persistence.model.Event;
 import de.cyface.persistence.model.GeoLocation;
 import de.cyface.persistence.model.Measurement;
 import de.cyface.testutils.SharedTestUtils;
@@ -54,7 +61,7 @@ import de.cyface.testutils.SharedTestUtils;
  * open it with *DB Browser for SQLite* and use File > Export > Database to SQL file.
  *
  * @author Armin Schnabel
- * @version 1.4.1
+ * @version 1.7.1
  * @since 4.0.0
  */
 @RunWith(RobolectricTestRunner.class)
@@ -127,6 +134,129 @@ public class DatabaseHelperTest {
         db.close();
     }
 
+    /**
+     * Test upgrading the {@link MeasurementTable} to Database V18.
+     * <p>
+     * We test that the data counters, first and last location and bounding box are calculated for existing data.
+     */
+    @Test
+    public void testMigrationV17ToV18() {
+
+        // Arrange
+        // This is simpler than copying and adjusting the code from previous versions
+        createV16Database(db);
+        addDatabaseV16Measurement(db, 43L, 3);
+        oocut.onUpgrade(db, 16, 17);
+
+        // Act
+        oocut.onUpgrade(db, 17, 18);
+
+        // Assert
+        try (final Cursor cursor = db.query("measurements", null, BaseColumns._ID + " = ?", new String[] {"43"}, null,
+                null, null)) {
+            assertThat(cursor.moveToFirst(), is(equalTo(true)));
+            assertThat(cursor.getInt(cursor.getColumnIndex("location_count")), is(equalTo(3)));
+            assertThat(cursor.getInt(cursor.getColumnIndex("event_count")), is(equalTo(1)));
+            assertThat(cursor.getLong(cursor.getColumnIndex("first_location_fk")), is(equalTo(1L)));
+            assertThat(cursor.getLong(cursor.getColumnIndex("last_location_fk")), is(equalTo(3L)));
+            assertThat(cursor.getDouble(cursor.getColumnIndex("min_lat")), is(equalTo(51.05210394)));
+            assertThat(cursor.getDouble(cursor.getColumnIndex("max_lon")), is(equalTo(13.72873203)));
+        }
+    }
+
+    /**
+     * Tests that the aggregate columns of the {@link MeasurementTable}, which are updated for each inserted batch,
+     * are identical to the values calculated from all data of the {@link Measurement}.
+     */
+    @Test
+    public void testAddGeoLocations() {
+
+        // Arrange
+        oocut.onCreate(db);
+        db.execSQL("INSERT INTO measurements (_id,status,modality,file_format_version,distance,timestamp) VALUES "
+                + " (1,'OPEN','BICYCLE',2,0.0,1551431485000);");
+        final GeoLocationsTable geoLocationsTable = new GeoLocationsTable();
+        final MeasurementTable measurementTable = new MeasurementTable();
+        // The 2nd batch contains an earlier and a later location than the 1st batch, the 3rd batch none
+        final long[][] batches = {{5L, 3L, 8L}, {9L, 1L}, {4L, 6L}};
+
+        // Act
+        for (final long[] batch : batches) {
+            final List<ContentValues> values = new ArrayList<>();
+            for (final long distance : batch) {
+                final GeoLocation location = generateGeoLocation((int)distance);
+                final ContentValues row = new ContentValues();
+                row.put(GeoLocationsTable.COLUMN_GEOLOCATION_TIME, location.getTimestamp());
+                row.put(GeoLocationsTable.COLUMN_LAT, location.getLat());
+                row.put(GeoLocationsTable.COLUMN_LON, location.getLon());
+                row.put(GeoLocationsTable.COLUMN_SPEED, location.getSpeed());
+                row.put(GeoLocationsTable.COLUMN_ACCURACY, Math.round(location.getAccuracy()));
+                row.put(GeoLocationsTable.COLUMN_MEASUREMENT_FK, 1L);
+                values.add(row);
+            }
+            final long[] identifiers = geoLocationsTable.insertBatch(db, values);
+            measurementTable.addGeoLocations(db, values, identifiers);
+        }
+
+        // Assert
+        final String[] incremental = loadAggregates(db);
+        db.execSQL("UPDATE measurements SET location_count = 0"); // forces the recalculation
+        measurementTable.recalculateAggregates(db, Collections.singleton(1L));
+        assertThat(incremental[0], is(equalTo("7")));
+        assertThat(loadAggregates(db), is(equalTo(incremental)));
+    }
+
+    /**
+     * @param db The {@link SQLiteDatabase} to load the aggregates from
+     * @return The aggregate columns of the {@link Measurement} with id 1 as {@code String}s
+     */
+    private String[] loadAggregates(@NonNull final SQLiteDatabase db) {
+        final String[] columns = {MeasurementTable.COLUMN_LOCATION_COUNT, MeasurementTable.COLUMN_FIRST_LOCATION_FK,
+                MeasurementTable.COLUMN_LAST_LOCATION_FK, MeasurementTable.COLUMN_MIN_LAT,
+                MeasurementTable.COLUMN_MAX_LAT, MeasurementTable.COLUMN_MIN_LON, MeasurementTable.COLUMN_MAX_LON,
+                MeasurementTable.COLUMN_EVENT_COUNT};
+        try (final Cursor cursor = db.query("measurements", columns, BaseColumns._ID + " = 1", null, null, null,
+                null)) {
+            assertThat(cursor.moveToFirst(), is(equalTo(true)));
+            final String[] aggregates = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                aggregates[i] = cursor.getString(i);
+            }
+            return aggregates;
+        }
+    }
+
+    /**
+     * Test upgrading the {@link GeoLocationsTable} and {@link EventTable} to Database V17.
+     * <p>
+     * We test that the indices on {@code measurement_fk} and the time column are created and used by the queries
+     * which load the data of one measurement ordered by time.
+     */
+    @Test
+    public void testMigrationV16ToV17() {
+
+        // Arrange
+        // This is simpler than copying and adjusting the code from previous versions
+        createV16Database(db);
+        addDatabaseV16Measurement(db, 43L, 3);
+
+        // Act
+        oocut.onUpgrade(db, 16, 17);
+
+        // Assert
+        assertThat(indexExists(db, "locations_measurement_fk_gps_time"), is(equalTo(true)));
+        assertThat(indexExists(db, "events_measurement_fk_timestamp"), is(equalTo(true)));
+        assertThat(queryPlan(db, "SELECT * FROM locations WHERE measurement_fk = 43 ORDER BY gps_time ASC"),
+                containsString("locations_measurement_fk_gps_time"));
+        assertThat(queryPlan(db, "SELECT * FROM events WHERE measurement_fk = 43 ORDER BY timestamp ASC"),
+                containsString("events_measurement_fk_timestamp"));
+        // Make sure the relevant data from before the upgrade still exists
+        try (final Cursor cursor = db.query("locations", null, "measurement_fk = ?", new String[] {"43"}, null,
+                null, "gps_time ASC")) {
+            assertThat(cursor.getCount(), is(equalTo(3)));
+        }
+    }
+
     /**
      * Test upgrading the {@link MeasurementTable} to Database V16.
      * <p>
@@ -313,7 +443,130 @@ public class DatabaseHelperTest {
         // Act
         oocut.onCreate(db);
 
-        // Assert - currently only checking that there is not exception
+        // Assert
+        assertThat(indexExists(db, GeoLocationsTable.INDEX_MEASUREMENT_FK_GEOLOCATION_TIME), is(equalTo(true)));
+        assertThat(indexExists(db, EventTable.INDEX_MEASUREMENT_FK_TIMESTAMP), is(equalTo(true)));
+    }
+
+    /**
+     * Tests that the pragmas of the {@link DatabaseConfiguration} are applied when the connection is configured.
+     * <p>
+     * Write-ahead logging is tested in the instrumented {@code DatabaseConcurrencyTest} as it's not supported by
+     * memory-backed databases.
+     */
+    @Test
+    public void testOnConfigure() {
+
+        // Arrange
+        final DatabaseConfiguration configuration = new DatabaseConfiguration(false, "NORMAL", -8_000, "MEMORY");
+        final DatabaseHelper oocut = new DatabaseHelper(ApplicationProvider.getApplicationContext(), configuration);
+
+        // Act
+        oocut.onConfigure(db);
+
+        // Assert
+        assertThat(pragma(db, "synchronous"), is(equalTo(1L))); // NORMAL
+        assertThat(pragma(db, "cache_size"), is(equalTo(-8_000L)));
+        assertThat(pragma(db, "temp_store"), is(equalTo(2L))); // MEMORY
+    }
+
+    /**
+     * Tests that the default {@link DatabaseConfiguration} keeps the SQLite defaults.
+     */
+    @Test
+    public void testOnConfigure_withDefaults() {
+
+        // Arrange
+        final long synchronous = pragma(db, "synchronous");
+        final long cacheSize = pragma(db, "cache_size");
+        final long tempStore = pragma(db, "temp_store");
+
+        // Act
+        oocut.onConfigure(db);
+
+        // Assert
+        assertThat(pragma(db, "synchronous"), is(equalTo(synchronous)));
+        assertThat(pragma(db, "cache_size"), is(equalTo(cacheSize)));
+        assertThat(pragma(db, "temp_store"), is(equalTo(tempStore)));
+    }
+
+    /**
+     * @param db The {@link SQLiteDatabase} to query
+     * @param pragma The name of the pragma to query
+     * @return The current value of the pragma
+     */
+    private long pragma(@NonNull final SQLiteDatabase db, @NonNull final String pragma) {
+        try (final Cursor cursor = db.rawQuery("PRAGMA " + pragma, null)) {
+            assertThat(cursor.moveToFirst(), is(equalTo(true)));
+            return cursor.getLong(0);
+        }
+    }
+
+    /**
+     * Checks whether an index with the provided name exists in the database.
+     *
+     * @param db The {@link SQLiteDatabase} to check
+     * @param indexName The name of the index to look for
+     * @return {@code True} if the index exists
+     */
+    private boolean indexExists(@NonNull final SQLiteDatabase db, @NonNull final String indexName) {
+        try (final Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND name = ?",
+                new String[] {indexName})) {
+            return cursor.getCount() == 1;
+        }
+    }
+
+    /**
+     * Loads the query plan SQLite chooses for a query.
+     *
+     * @param db The {@link SQLiteDatabase} to run the query on
+     * @param query The query to explain
+     * @return The concatenated {@code detail} column of {@code EXPLAIN QUERY PLAN}
+     */
+    private String queryPlan(@NonNull final SQLiteDatabase db, @NonNull final String query) {
+        final StringBuilder plan = new StringBuilder();
+        try (final Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + query, null)) {
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnIndex("detail"))).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    /**
+     * Creates a database as it would have been created with {@code DatabaseHelper#DATABASE_VERSION} 16.
+     * <p>
+     * <b>Attention:</b>
+     * It's important that the create statements only contains hardcoded Strings as the table and column names
+     * should be the same as they were in that version to really test the migration as it would happen in real.
+     *
+     * @param db A clean {@link SQLiteDatabase} to use for testing.
+     */
+    private void createV16Database(@NonNull final SQLiteDatabase db) {
+
+        // # Create V16 Tables:
+
+        // Create android_metadata table (exists in SQLite export)
+        db.execSQL("DROP TABLE IF EXISTS android_metadata");
+        db.execSQL("CREATE TABLE android_metadata (locale TEXT);");
+        // Create IdentifierTable
+        db.execSQL("CREATE TABLE identifiers (_id INTEGER PRIMARY KEY AUTOINCREMENT, device_id TEXT NOT NULL);");
+        // Create MeasurementTable
+        db.execSQL("CREATE TABLE measurements (_id INTEGER PRIMARY KEY AUTOINCREMENT, status TEXT NOT NULL, "
+                + "modality TEXT NOT NULL, file_format_version INTEGER NOT NULL, distance REAL NOT NULL, timestamp INTEGER NOT NULL);");
+        // Create GeoLocationsTable
+        db.execSQL("CREATE TABLE locations (_id INTEGER PRIMARY KEY AUTOINCREMENT, gps_time INTEGER NOT NULL, "
+                + "lat REAL NOT NULL, lon REAL NOT NULL, speed REAL NOT NULL, accuracy INTEGER NOT NULL, "
+                + "measurement_fk INTEGER NOT NULL);");
+        // Create EventTable
+        db.execSQL("CREATE TABLE events (_id INTEGER PRIMARY KEY AUTOINCREMENT, timestamp INTEGER NOT NULL, "
+                + "type TEXT NOT NULL, measurement_fk INTEGER, value TEXT);");
+
+        // Insert sample android_metadata table entry (exists in SQLite export)
+        db.execSQL("INSERT INTO android_metadata (locale) VALUES ('de_DE');");
+
+        // Insert sample IdentifierTable entry
+        db.execSQL("INSERT INTO identifiers (_id,device_id) VALUES (1,'61e112e1-548e-4a90-be28-9d5b31d6875b');");
     }
 
     /**
@@ -414,6 +667,36 @@ public class DatabaseHelperTest {
         }
     }
 
+    /**
+     * Adds a {@link Measurement} with {@param locations} {@link GeoLocation}s and one {@link Event} to a test
+     * database of {@code DatabaseHelper#DATABASE_VERSION} 16 as created by {@link #createV16Database(SQLiteDatabase)}.
+     * <p>
+     * <b>Attention:</b>
+     * It's important that the create statements only contains hardcoded Strings as the table and column names
+     * should be the same as they were in that version to really test the migration as it would happen in real.
+     *
+     * @param db A clean {@link SQLiteDatabase} to use for testing.
+     * @param measurementId the id of the measurement to generate
+     * @param locations number of locations to generate for the measurement to be generated
+     */
+    private void addDatabaseV16Measurement(@NonNull final SQLiteDatabase db,
+            @SuppressWarnings("SameParameterValue") final long measurementId,
+            @SuppressWarnings("SameParameterValue") final long locations) {
+
+        // Insert sample MeasurementTable entries - execSQL only supports one insert per commend
+        db.execSQL("INSERT INTO measurements (_id,status,modality,file_format_version,distance,timestamp) VALUES "
+                + " (" + measurementId + ",'FINISHED','BICYCLE',1,5396.62473698979,1551431485000);");
+        // Insert sample EventTable entries - execSQL only supports one insert per commend
+        db.execSQL("INSERT INTO events (_id,timestamp,type,measurement_fk,value) VALUES "
+                + " (1,1551431485000,'LIFECYCLE_START'," + measurementId + ",NULL);");
+        // Insert sample GeoLocationsTable entries - execSQL only supports one insert per commend
+        for (int i = 0; i < locations; i++) {
+            db.execSQL("INSERT INTO locations (_id,gps_time,lat,lon,speed,accuracy,measurement_fk) VALUES "
+                    + " (" + (1 + i) + "," + (1551431485000L + i) + ",51.05210394,13.72873203,0.0,1179," + measurementId
+                    + ");");
+        }
+    }
+
     /**
      * Adds a measurement with {@param locations} {@link GeoLocation}s to a test database of
      * {@code DatabaseHelper#DATABASE_VERSION} 11 as created by {@link #createV11Database(SQLiteDatabase)}.
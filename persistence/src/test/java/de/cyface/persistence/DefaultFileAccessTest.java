@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.os.Build;
+
+/**
+ * Tests {@link DefaultFileAccess#transferTo}.
+ * <p>
+ * Its throughput is compared with the copy loop of {@link DefaultFileAccess#writeToOutputStream} by the instrumented
+ * {@code DefaultFileAccessBenchmarkTest}.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class DefaultFileAccessTest {
+
+    /**
+     * A folder which is deleted after each test.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    /**
+     * The object of the class under test.
+     */
+    private final DefaultFileAccess oocut = new DefaultFileAccess();
+
+    /**
+     * Tests that a range of a file is appended to the channel behind the data written before.
+     */
+    @Test
+    public void testTransferTo() throws IOException {
+
+        // Arrange
+        final File file = writeFile(100_000);
+        final File target = folder.newFile("target");
+
+        // Act
+        try (final FileOutputStream outputStream = new FileOutputStream(target)) {
+            outputStream.write(new byte[] {1, 2, 3});
+            oocut.transferTo(file, 1_000L, 50_000L, outputStream.getChannel());
+        }
+
+        // Assert
+        final byte[] source = oocut.loadBytes(file);
+        final byte[] transferred = oocut.loadBytes(target);
+        assertThat(transferred.length, is(equalTo(3 + 50_000)));
+        assertThat(transferred[2], is(equalTo((byte)3)));
+        for (int i = 0; i < 50_000; i++) {
+            assertThat(transferred[3 + i], is(equalTo(source[1_000 + i])));
+        }
+    }
+
+    /**
+     * Tests that multiple ranges can be transferred from the same open {@link FileChannel}.
+     */
+    @Test
+    public void testTransferTo_withOpenFileChannel() throws IOException {
+
+        // Arrange
+        final File file = writeFile(100_000);
+        final File target = folder.newFile("target");
+
+        // Act
+        try (final FileChannel fileChannel = new FileInputStream(file).getChannel();
+                final FileOutputStream outputStream = new FileOutputStream(target)) {
+            oocut.transferTo(fileChannel, 1_000L, 20_000L, outputStream.getChannel());
+            oocut.transferTo(fileChannel, 50_000L, 30_000L, outputStream.getChannel());
+        }
+
+        // Assert
+        final byte[] source = oocut.loadBytes(file);
+        final byte[] transferred = oocut.loadBytes(target);
+        assertThat(transferred.length, is(equalTo(20_000 + 30_000)));
+        for (int i = 0; i < 20_000; i++) {
+            assertThat(transferred[i], is(equalTo(source[1_000 + i])));
+        }
+        for (int i = 0; i < 30_000; i++) {
+            assertThat(transferred[20_000 + i], is(equalTo(source[50_000 + i])));
+        }
+    }
+
+    /**
+     * @param size The number of bytes to write
+     * @return A file with random content of the provided size
+     */
+    private File writeFile(final int size) throws IOException {
+        final File file = folder.newFile();
+        final Random random = new Random(1L);
+        final byte[] chunk = new byte[1024 * 1024];
+        try (final FileOutputStream outputStream = new FileOutputStream(file)) {
+            for (int written = 0; written < size; written += chunk.length) {
+                random.nextBytes(chunk);
+                outputStream.write(chunk, 0, Math.min(chunk.length, size - written));
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import static de.cyface.persistence.DatabaseTestUtils.count;
+import static de.cyface.persistence.DatabaseTestUtils.createDatabase;
+import static de.cyface.persistence.DatabaseTestUtils.geoLocation;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+import android.provider.BaseColumns;
+
+import androidx.test.core.app.ApplicationProvider;
+
+/**
+ * Tests the compiled statement path of {@link AbstractCyfaceMeasurementTable#insertBatch(SQLiteDatabase, List)}.
+ * <p>
+ * Its throughput is compared with inserting each {@link ContentValues} via {@link SQLiteDatabase#insert} by the
+ * instrumented {@code InsertBatchBenchmarkTest}.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class InsertBatchTest {
+
+    /**
+     * The id of the measurement to store the test data to.
+     */
+    private final static long MEASUREMENT_ID = 1L;
+    /**
+     * The database used for the test.
+     */
+    private SQLiteDatabase db;
+    /**
+     * The object of the class under test.
+     */
+    private GeoLocationsTable oocut;
+
+    @Before
+    public void setUp() {
+        db = createDatabase(ApplicationProvider.getApplicationContext());
+        oocut = new GeoLocationsTable();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    /**
+     * Tests that all rows are inserted with the correct values, even when the columns change within a batch.
+     */
+    @Test
+    public void testInsertBatch() {
+
+        // Arrange
+        final List<ContentValues> values = new ArrayList<>();
+        values.add(geoLocation(1L, MEASUREMENT_ID));
+        values.add(geoLocation(2L, MEASUREMENT_ID));
+        final ContentValues withIdentifier = geoLocation(3L, MEASUREMENT_ID);
+        withIdentifier.put(BaseColumns._ID, 42L);
+        values.add(withIdentifier);
+        values.add(geoLocation(4L, MEASUREMENT_ID));
+
+        // Act
+        final long[] identifiers = oocut.insertBatch(db, values);
+
+        // Assert
+        assertThat(identifiers.length, is(equalTo(4)));
+        assertThat(identifiers[2], is(equalTo(42L)));
+        try (final Cursor cursor = db.query(GeoLocationsTable.URI_PATH, null, null, null, null, null,
+                GeoLocationsTable.COLUMN_GEOLOCATION_TIME + " ASC")) {
+            assertThat(cursor.getCount(), is(equalTo(4)));
+            int i = 0;
+            while (cursor.moveToNext()) {
+                assertThat(cursor.getLong(cursor.getColumnIndex(BaseColumns._ID)), is(equalTo(identifiers[i])));
+                assertThat(cursor.getLong(cursor.getColumnIndex(GeoLocationsTable.COLUMN_GEOLOCATION_TIME)),
+                        is(equalTo(i + 1L)));
+                assertThat(cursor.getDouble(cursor.getColumnIndex(GeoLocationsTable.COLUMN_LAT)),
+                        is(equalTo(51.05210394)));
+                assertThat(cursor.getDouble(cursor.getColumnIndex(GeoLocationsTable.COLUMN_SPEED)), is(equalTo(1.5)));
+                assertThat(cursor.getInt(cursor.getColumnIndex(GeoLocationsTable.COLUMN_ACCURACY)), is(equalTo(1179)));
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Tests that a row which violates a constraint is skipped like {@link SQLiteDatabase#insert} does, while the
+     * other rows are still inserted.
+     */
+    @Test
+    public void testInsertBatch_withInvalidRow() {
+
+        // Arrange
+        final List<ContentValues> values = new ArrayList<>();
+        values.add(geoLocation(1L, MEASUREMENT_ID));
+        final ContentValues invalid = geoLocation(2L, MEASUREMENT_ID);
+        invalid.putNull(GeoLocationsTable.COLUMN_LAT);
+        values.add(invalid);
+        values.add(geoLocation(3L, MEASUREMENT_ID));
+
+        // Act
+        final long[] identifiers = oocut.insertBatch(db, values);
+
+        // Assert
+        assertThat(identifiers[0], is(not(equalTo(-1L))));
+        assertThat(identifiers[1], is(equalTo(-1L)));
+        assertThat(identifiers[2], is(not(equalTo(-1L))));
+        assertThat(count(db, GeoLocationsTable.URI_PATH), is(equalTo(2L)));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import static de.cyface.persistence.DatabaseTestUtils.createDatabase;
+import static de.cyface.persistence.DatabaseTestUtils.insertEvents;
+import static de.cyface.persistence.DatabaseTestUtils.insertGeoLocations;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import de.cyface.persistence.model.Event;
+import de.cyface.persistence.model.GeoLocation;
+import de.cyface.persistence.model.Measurement;
+
+/**
+ * Tests that the queries which load the {@link GeoLocation}s and {@link Event}s of one {@link Measurement} use the
+ * indices added in {@link DatabaseHelper} version 17 instead of scanning and sorting the tables.
+ * <p>
+ * The query time for growing tables is measured by the instrumented {@code MeasurementIndexBenchmarkTest}.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class MeasurementIndexTest {
+
+    /**
+     * The number of rows stored per {@link Measurement}.
+     */
+    private final static int ROWS_PER_MEASUREMENT = 100;
+    /**
+     * The number of rows in the table when the queries are executed.
+     */
+    private final static int TABLE_SIZE = 3 * ROWS_PER_MEASUREMENT;
+    /**
+     * The database used for the test.
+     */
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        db = createDatabase(ApplicationProvider.getApplicationContext());
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    /**
+     * Tests that the {@code GeoLocation}s of a {@code Measurement} are loaded in order via the index.
+     */
+    @Test
+    public void testLoadGeoLocationsOfMeasurement() {
+
+        // Arrange
+        final String query = "SELECT * FROM " + GeoLocationsTable.URI_PATH + " WHERE "
+                + GeoLocationsTable.COLUMN_MEASUREMENT_FK + " = ? ORDER BY " + GeoLocationsTable.COLUMN_GEOLOCATION_TIME
+                + " ASC";
+        insertGeoLocations(db, 0, TABLE_SIZE, ROWS_PER_MEASUREMENT);
+
+        // Act
+        final String plan = queryPlan(query, 2L);
+
+        // Assert
+        assertThat(plan, containsString(GeoLocationsTable.INDEX_MEASUREMENT_FK_GEOLOCATION_TIME));
+        assertThat(plan, not(containsString("TEMP B-TREE")));
+        assertThat(load(query, 2L), is(equalTo(ROWS_PER_MEASUREMENT)));
+    }
+
+    /**
+     * Tests that the {@code Event}s of a {@code Measurement} are loaded in order via the index.
+     */
+    @Test
+    public void testLoadEventsOfMeasurement() {
+
+        // Arrange
+        final String query = "SELECT * FROM " + EventTable.URI_PATH + " WHERE " + EventTable.COLUMN_MEASUREMENT_FK
+                + " = ? ORDER BY " + EventTable.COLUMN_TIMESTAMP + " ASC";
+        insertEvents(db, 0, TABLE_SIZE, ROWS_PER_MEASUREMENT);
+
+        // Act
+        final String plan = queryPlan(query, 2L);
+
+        // Assert
+        assertThat(plan, containsString(EventTable.INDEX_MEASUREMENT_FK_TIMESTAMP));
+        assertThat(plan, not(containsString("TEMP B-TREE")));
+        assertThat(load(query, 2L), is(equalTo(ROWS_PER_MEASUREMENT)));
+    }
+
+    /**
+     * @param query The query to execute with the {@code Measurement} id as only argument
+     * @param measurementId The id of the {@code Measurement} to load
+     * @return The number of rows returned by the query
+     */
+    private int load(@NonNull final String query, final long measurementId) {
+        try (final Cursor cursor = db.rawQuery(query, new String[] {String.valueOf(measurementId)})) {
+            return cursor.getCount();
+        }
+    }
+
+    /**
+     * @param query The query to explain with the {@code Measurement} id as only argument
+     * @param measurementId The id of the {@code Measurement} to load
+     * @return The concatenated {@code detail} column of {@code EXPLAIN QUERY PLAN}
+     */
+    private String queryPlan(@NonNull final String query, final long measurementId) {
+        final StringBuilder plan = new StringBuilder();
+        try (final Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + query,
+                new String[] {String.valueOf(measurementId)})) {
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnIndex("detail"))).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence;
+
+import static de.cyface.persistence.TestUtils.AUTHORITY;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.os.Build;
+import android.provider.BaseColumns;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import de.cyface.persistence.model.ColumnarTrack;
+import de.cyface.persistence.model.Event;
+import de.cyface.persistence.model.GeoLocation;
+import de.cyface.persistence.model.MeasurementStatistics;
+import de.cyface.persistence.model.Track;
+
+/**
+ * Tests that {@link PersistenceLayer#visitTracks(long, TrackVisitor)} slices the {@link Track}s like
+ * {@link PersistenceLayer#loadTracks(long)} and that {@link PersistenceLayer#loadTrackStatistics(long)} follows these
+ * {@code Track}s.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class PersistenceLayerTest {
+
+    /**
+     * We require Mockito to avoid calling Android system functions. This rule is responsible for the initialization of
+     * the Spies and Mocks.
+     */
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+    /**
+     * Mocking the resolver to return the test data.
+     */
+    @Mock
+    private ContentResolver mockResolver;
+    /**
+     * Mocking the behaviour as there is no data buffered.
+     */
+    @Mock
+    private PersistenceBehaviour mockBehaviour;
+    /**
+     * The id of the measurement the test data belongs to.
+     */
+    private final static long MEASUREMENT_ID = 1L;
+    /**
+     * The object of the class under test.
+     */
+    private PersistenceLayer<PersistenceBehaviour> oocut;
+
+    @Before
+    public void setUp() {
+        oocut = new PersistenceLayer<>(ApplicationProvider.getApplicationContext(), mockResolver, AUTHORITY,
+                mockBehaviour);
+    }
+
+    /**
+     * Tests that the {@code GeoLocation}s are passed as sub tracks, sliced at pause and resume, and that locations
+     * between pause and resume are ignored.
+     */
+    @Test
+    public void testVisitTracks() throws Exception {
+
+        // Arrange
+        mockData(new long[] {1L, 5L, 10L, 15L, 20L, 30L});
+        final List<String> calls = new ArrayList<>();
+
+        // Act
+        oocut.visitTracks(MEASUREMENT_ID, new TrackVisitor() {
+            @Override
+            public void onTrackStart() {
+                calls.add("start");
+            }
+
+            @Override
+            public void onGeoLocation(@NonNull final GeoLocationRowMapper row) {
+                calls.add(String.valueOf(row.getTimestamp()));
+            }
+
+            @Override
+            public void onTrackEnd() {
+                calls.add("end");
+            }
+        });
+
+        // Assert
+        final String[] expectedCalls = {"start", "1", "5", "10", "end", "start", "20", "30", "end"};
+        assertThat(calls.toArray(new String[0]), is(equalTo(expectedCalls)));
+    }
+
+    /**
+     * Tests that {@link PersistenceLayer#loadTracks(long)}, which now collects the sub tracks via a
+     * {@link TrackVisitor}, does not return empty sub tracks.
+     */
+    @Test
+    public void testLoadTracks_withEmptySubTrack() throws Exception {
+
+        // Arrange
+        mockData(new long[] {15L, 20L, 30L});
+
+        // Act
+        final List<Track> tracks = oocut.loadTracks(MEASUREMENT_ID);
+
+        // Assert
+        assertThat(tracks.size(), is(equalTo(1)));
+        assertThat(tracks.get(0).getGeoLocations().size(), is(equalTo(2)));
+        assertThat(tracks.get(0).getGeoLocations().get(0).getTimestamp(), is(equalTo(20L)));
+    }
+
+    /**
+     * Tests that {@link PersistenceLayer#loadColumnarTracks(long)}, which reads the rows directly into the
+     * {@link ColumnarTrack}s, returns the same sub tracks as {@link PersistenceLayer#loadTracks(long)}.
+     */
+    @Test
+    public void testLoadColumnarTracks() throws Exception {
+
+        // Arrange
+        mockData(new long[] {1L, 5L, 10L, 15L, 20L, 30L});
+
+        // Act
+        final List<ColumnarTrack> tracks = oocut.loadColumnarTracks(MEASUREMENT_ID);
+
+        // Assert
+        assertThat(tracks.size(), is(equalTo(2)));
+        assertThat(tracks.get(0).toTrack(), is(equalTo(track(1L, 5L, 10L))));
+        assertThat(tracks.get(1).toTrack(), is(equalTo(track(20L, 30L))));
+    }
+
+    /**
+     * Tests that the {@code GeoLocation}s between pause and resume are not counted by
+     * {@link PersistenceLayer#loadTrackStatistics(long)}, like when the meta data of the upload was calculated from
+     * the {@link Track}s, while {@link PersistenceLayer#loadStatistics(long)} counts all {@code GeoLocation}s.
+     */
+    @Test
+    public void testLoadTrackStatistics() throws Exception {
+
+        // Arrange
+        mockData(new long[] {1L, 5L, 10L, 15L, 20L, 30L});
+
+        // Act
+        final MeasurementStatistics statistics = oocut.loadStatistics(MEASUREMENT_ID);
+        final MeasurementStatistics trackStatistics = oocut.loadTrackStatistics(MEASUREMENT_ID);
+
+        // Assert
+        assertThat(statistics.getLocationCount(), is(equalTo(6)));
+        assertThat(trackStatistics.getLocationCount(), is(equalTo(5)));
+        assertThat(trackStatistics.getFirstLocation(), is(equalTo(track(1L).getGeoLocations().get(0))));
+        assertThat(trackStatistics.getLastLocation(), is(equalTo(track(30L).getGeoLocations().get(0))));
+        assertThat(trackStatistics.getEventCount(), is(equalTo(statistics.getEventCount())));
+    }
+
+    /**
+     * Tests that {@link PersistenceLayer#loadTrackStatistics(long)} returns the statistics maintained by the database
+     * without visiting the {@link Track}s when the {@code Measurement} was not resumed.
+     */
+    @Test
+    public void testLoadTrackStatistics_withoutResume() throws Exception {
+
+        // Arrange
+        mockData(new long[] {1L, 5L, 10L, 15L, 20L, 30L}, false);
+
+        // Act
+        final MeasurementStatistics trackStatistics = oocut.loadTrackStatistics(MEASUREMENT_ID);
+
+        // Assert
+        assertThat(trackStatistics.getLocationCount(), is(equalTo(6)));
+        assertThat(trackStatistics.getFirstLocation(), is(equalTo(track(1L).getGeoLocations().get(0))));
+        assertThat(trackStatistics.getLastLocation(), is(equalTo(track(30L).getGeoLocations().get(0))));
+        verify(mockResolver, never()).query(eq(Utils.getGeoLocationsUri(AUTHORITY)), any(),
+                eq(GeoLocationsTable.COLUMN_MEASUREMENT_FK + "=?"), any(), any());
+    }
+
+    /**
+     * @param timestamps The timestamps of the {@code GeoLocation}s
+     * @return The {@code Track} with the {@code GeoLocation}s returned by {@link #mockData(long[])} for the timestamps
+     */
+    private Track track(final long... timestamps) {
+        final Track track = new Track();
+        for (final long timestamp : timestamps) {
+            track.add(new GeoLocation(51.05210394, 13.72873203, timestamp, 1.5, 1179));
+        }
+        return track;
+    }
+
+    /**
+     * Mocks the {@code ContentResolver} to return a {@code Measurement} which is paused at {@code 10} and resumed at
+     * {@code 20}.
+     *
+     * @param locationTimestamps The timestamps of the {@code GeoLocation}s to return
+     */
+    private void mockData(@NonNull final long[] locationTimestamps) {
+        mockData(locationTimestamps, true);
+    }
+
+    /**
+     * Mocks the {@code ContentResolver} to return a {@code Measurement} and its statistics as maintained by the
+     * database. Each query returns a new {@code Cursor} as the {@code PersistenceLayer} closes them.
+     *
+     * @param locationTimestamps The timestamps of the {@code GeoLocation}s to return, also used as their ids
+     * @param resumed {@code true} if the {@code Measurement} is paused at {@code 10} and resumed at {@code 20}
+     */
+    private void mockData(@NonNull final long[] locationTimestamps, final boolean resumed) {
+        final List<Object[]> eventRows = new ArrayList<>();
+        eventRows.add(new Object[] {1L, 0L, Event.EventType.LIFECYCLE_START.getDatabaseIdentifier(), null,
+                MEASUREMENT_ID});
+        if (resumed) {
+            eventRows.add(new Object[] {2L, 10L, Event.EventType.LIFECYCLE_PAUSE.getDatabaseIdentifier(), null,
+                    MEASUREMENT_ID});
+            eventRows.add(new Object[] {3L, 20L, Event.EventType.LIFECYCLE_RESUME.getDatabaseIdentifier(), null,
+                    MEASUREMENT_ID});
+        }
+        eventRows.add(new Object[] {4L, 40L, Event.EventType.LIFECYCLE_STOP.getDatabaseIdentifier(), null,
+                MEASUREMENT_ID});
+        when(mockResolver.query(eq(Utils.getEventUri(AUTHORITY)), any(), any(), any(), any()))
+                .thenAnswer(new Answer<Cursor>() {
+                    @Override
+                    public Cursor answer(final InvocationOnMock invocation) {
+                        // Events can be filtered by the type, see PersistenceLayer#loadEvents(long, EventType)
+                        final String[] selectionArgs = invocation.getArgument(3);
+                        final MatrixCursor events = new MatrixCursor(new String[] {BaseColumns._ID,
+                                EventTable.COLUMN_TIMESTAMP, EventTable.COLUMN_TYPE, EventTable.COLUMN_VALUE,
+                                EventTable.COLUMN_MEASUREMENT_FK});
+                        for (final Object[] row : eventRows) {
+                            if (selectionArgs.length == 1 || row[2].equals(selectionArgs[1])) {
+                                events.addRow(row);
+                            }
+                        }
+                        return events;
+                    }
+                });
+        when(mockResolver.query(eq(Utils.getGeoLocationsUri(AUTHORITY)), any(), any(), any(), any()))
+                .thenAnswer(new Answer<Cursor>() {
+                    @Override
+                    public Cursor answer(final InvocationOnMock invocation) {
+                        final MatrixCursor locations = new MatrixCursor(new String[] {BaseColumns._ID,
+                                GeoLocationsTable.COLUMN_GEOLOCATION_TIME, GeoLocationsTable.COLUMN_LAT,
+                                GeoLocationsTable.COLUMN_LON, GeoLocationsTable.COLUMN_SPEED,
+                                GeoLocationsTable.COLUMN_ACCURACY, GeoLocationsTable.COLUMN_MEASUREMENT_FK});
+                        for (final long timestamp : locationTimestamps) {
+                            locations.addRow(new Object[] {timestamp, timestamp, 51.05210394, 13.72873203, 1.5, 1179,
+                                    MEASUREMENT_ID});
+                        }
+                        return locations;
+                    }
+                });
+        when(mockResolver.query(eq(Utils.getMeasurementUri(AUTHORITY)), any(), any(), any(), any()))
+                .thenAnswer(new Answer<Cursor>() {
+                    @Override
+                    public Cursor answer(final InvocationOnMock invocation) {
+                        final MatrixCursor measurements = new MatrixCursor(new String[] {BaseColumns._ID,
+                                MeasurementTable.COLUMN_LOCATION_COUNT, MeasurementTable.COLUMN_EVENT_COUNT,
+                                MeasurementTable.COLUMN_FIRST_LOCATION_FK, MeasurementTable.COLUMN_LAST_LOCATION_FK,
+                                MeasurementTable.COLUMN_MIN_LAT, MeasurementTable.COLUMN_MAX_LAT,
+                                MeasurementTable.COLUMN_MIN_LON, MeasurementTable.COLUMN_MAX_LON});
+                        measurements.addRow(new Object[] {MEASUREMENT_ID, locationTimestamps.length, eventRows.size(),
+                                locationTimestamps[0], locationTimestamps[locationTimestamps.length - 1],
+                                51.05210394, 51.05210394, 13.72873203, 13.72873203});
+                        return measurements;
+                    }
+                });
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Tests the conversion between {@link ColumnarTrack} and {@link Track} and the growth of the {@code ColumnarTrack}.
+ * <p>
+ * The memory usage and iteration speed are compared by the instrumented {@code ColumnarTrackBenchmarkTest}.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class ColumnarTrackTest {
+
+    /**
+     * Tests that a {@code Track} converted to a {@code ColumnarTrack} and back is unchanged.
+     */
+    @Test
+    public void testConversion() {
+
+        // Arrange
+        final Track track = track(100);
+        track.getGeoLocations().get(42).setValid(false);
+
+        // Act
+        final ColumnarTrack columnarTrack = ColumnarTrack.from(track);
+        final Track result = columnarTrack.toTrack();
+
+        // Assert
+        assertThat(columnarTrack.size(), is(equalTo(100)));
+        assertThat(columnarTrack.isValid(42), is(equalTo(false)));
+        assertThat(columnarTrack.getGeoLocation(7), is(equalTo(track.getGeoLocations().get(7))));
+        assertThat(result, is(equalTo(track)));
+    }
+
+    /**
+     * Tests that the arrays grow when more {@code GeoLocation}s are added than the initial capacity and that
+     * {@link ColumnarTrack#trimToSize()} keeps the data.
+     */
+    @Test
+    public void testAdd_growsCapacity() {
+
+        // Arrange
+        final ColumnarTrack oocut = new ColumnarTrack(0);
+
+        // Act
+        for (int i = 0; i < 1_000; i++) {
+            oocut.add(51.0 + i * 0.0001, 13.7, 1_000_000_000L + i * 1_000L, 1.5, 5.0f, true);
+        }
+        oocut.trimToSize();
+
+        // Assert
+        assertThat(oocut.size(), is(equalTo(1_000)));
+        assertThat(oocut.getTimestamp(999), is(equalTo(1_000_999_000L)));
+        assertThat(oocut.getLat(999), is(closeTo(51.0999, 0.0000001)));
+    }
+
+    /**
+     * Tests that an index after the last {@code GeoLocation} is rejected even if the capacity is larger.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGet_withIndexOutOfBounds() {
+
+        // Arrange
+        final ColumnarTrack oocut = new ColumnarTrack(10);
+        oocut.add(51.0, 13.7, 1_000_000_000L, 1.5, 5.0f, true);
+
+        // Act
+        oocut.getLat(1);
+    }
+
+    /**
+     * @param locations The number of {@code GeoLocation}s to add
+     * @return A {@code Track} with the provided number of {@code GeoLocation}s
+     */
+    @NonNull
+    private Track track(final int locations) {
+        final Track track = new Track();
+        for (int i = 0; i < locations; i++) {
+            track.add(new GeoLocation(51.0 + i * 0.00001, 13.7 + i * 0.00001, 1_000_000_000L + i * 1_000L,
+                    (i % 100) / 10.0, 5.0f + i % 20));
+        }
+        return track;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.serialization.MeasurementSerializer.COMPRESSION_NOWRAP;
+import static de.cyface.persistence.serialization.MeasurementSerializer.DEFLATER_LEVEL;
+import static de.cyface.persistence.serialization.MeasurementSerializer.LEGACY_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.testutils.SharedTestUtils.generateNoisyPoint3ds;
+import static de.cyface.testutils.SharedTestUtils.inflate;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.os.Build;
+
+import de.cyface.persistence.DefaultFileAccess;
+import de.cyface.persistence.model.Point3d;
+
+/**
+ * Tests that the {@link Point3d}s compressed while capturing into a {@link CompressedPoint3dFile} are appended to the
+ * compressed transfer file by the {@link SegmentedDeflaterOutputStream} without recompressing them.
+ * <p>
+ * The time this saves during the synchronization is measured by the instrumented
+ * {@code CompressedPoint3dFileBenchmarkTest}.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.1
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class CompressedPoint3dFileTest {
+
+    /**
+     * A folder which is deleted after each test.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests that data written before and after the segments and the segments themselves are decompressed in order.
+     */
+    @Test
+    public void testWriteCompressedSegments() throws IOException, DataFormatException {
+
+        // Arrange
+        final List<Point3d> points = generateNoisyPoint3ds(5_000, new Random(1L));
+        final File file = folder.newFile("test.cyfa");
+        // A small buffer to write many segments
+        final Point3dFileAppender appender = new Point3dFileAppender(file, PERSISTENCE_FILE_FORMAT_VERSION,
+                100 * MeasurementSerializer.BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY, Long.MAX_VALUE, true);
+        appender.append(points.subList(0, 1_234));
+        appender.flush();
+        appender.append(points.subList(1_234, points.size()));
+        appender.close();
+        final File compressedFile = CompressedPoint3dFile.getFile(file);
+        final byte[] before = "before".getBytes();
+        final byte[] after = "after".getBytes();
+
+        // Act
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (final SegmentedDeflaterOutputStream outputStream = new SegmentedDeflaterOutputStream(compressed)) {
+            outputStream.write(before);
+            outputStream.writeCompressedSegments(compressedFile);
+            outputStream.write(after);
+            outputStream.writeCompressedSegments(compressedFile);
+        }
+
+        // Assert
+        assertThat(CompressedPoint3dFile.countEntries(compressedFile), is(equalTo(points.size())));
+        final byte[] transferLayout = MeasurementSerializer.serialize(points, LEGACY_PERSISTENCE_FILE_FORMAT_VERSION);
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(before);
+        expected.write(transferLayout);
+        expected.write(after);
+        expected.write(transferLayout);
+        assertThat(inflate(compressed.toByteArray(), expected.size()), is(equalTo(expected.toByteArray())));
+    }
+
+    /**
+     * Tests that the segments are transferred into the channel of the transfer file in order with the data written to
+     * the stream before and after them.
+     */
+    @Test
+    public void testWriteCompressedSegments_toTargetChannel() throws IOException, DataFormatException {
+
+        // Arrange
+        final List<Point3d> points = generateNoisyPoint3ds(5_000, new Random(1L));
+        final File file = folder.newFile("test.cyfa");
+        final Point3dFileAppender appender = new Point3dFileAppender(file, PERSISTENCE_FILE_FORMAT_VERSION,
+                100 * MeasurementSerializer.BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY, Long.MAX_VALUE, true);
+        appender.append(points);
+        appender.close();
+        final File compressedFile = CompressedPoint3dFile.getFile(file);
+        final File transferFile = folder.newFile("transfer.tmp");
+        final byte[] before = "before".getBytes();
+        final byte[] after = "after".getBytes();
+
+        // Act
+        try (final FileOutputStream fileOutputStream = new FileOutputStream(transferFile);
+                final SegmentedDeflaterOutputStream outputStream = new SegmentedDeflaterOutputStream(
+                        new BufferedOutputStream(fileOutputStream))) {
+            outputStream.setTargetChannel(fileOutputStream.getChannel(), new DefaultFileAccess());
+            outputStream.write(before);
+            outputStream.writeCompressedSegments(compressedFile);
+            outputStream.write(after);
+            outputStream.writeCompressedSegments(compressedFile);
+        }
+
+        // Assert
+        final byte[] transferLayout = MeasurementSerializer.serialize(points, LEGACY_PERSISTENCE_FILE_FORMAT_VERSION);
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(before);
+        expected.write(transferLayout);
+        expected.write(after);
+        expected.write(transferLayout);
+        assertThat(inflate(new DefaultFileAccess().loadBytes(transferFile), expected.size()),
+                is(equalTo(expected.toByteArray())));
+    }
+
+    /**
+     * Tests that the compressed bytes do not change as long as no segments are appended.
+     */
+    @Test
+    public void testWithoutSegments() throws IOException {
+
+        // Arrange
+        final byte[] data = MeasurementSerializer.serialize(generateNoisyPoint3ds(1_000, new Random(1L)),
+                LEGACY_PERSISTENCE_FILE_FORMAT_VERSION);
+
+        // Act
+        final ByteArrayOutputStream segmented = new ByteArrayOutputStream();
+        try (final SegmentedDeflaterOutputStream outputStream = new SegmentedDeflaterOutputStream(segmented)) {
+            outputStream.write(data);
+            outputStream.flush();
+        }
+
+        // Assert
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (final DeflaterOutputStream outputStream = new DeflaterOutputStream(expected,
+                new Deflater(DEFLATER_LEVEL, COMPRESSION_NOWRAP))) {
+            outputStream.write(data);
+        }
+        assertThat(segmented.toByteArray(), is(equalTo(expected.toByteArray())));
+    }
+
+    /**
+     * Tests that a {@code CompressedPoint3dFile} which does not contain the same points as its {@link Point3dFile},
+     * e.g. when the process was killed between writing both files, is deleted and not continued.
+     */
+    @Test
+    public void testOpen_withIncompleteFile() throws IOException {
+
+        // Arrange
+        final List<Point3d> points = generateNoisyPoint3ds(10, new Random(1L));
+        final File file = folder.newFile("test.cyfa");
+        final Point3dFileAppender appender = new Point3dFileAppender(file, PERSISTENCE_FILE_FORMAT_VERSION,
+                Point3dFileAppender.DEFAULT_BUFFER_SIZE, Long.MAX_VALUE, true);
+        appender.append(points);
+        appender.close();
+        try (final FileOutputStream outputStream = new FileOutputStream(file, true)) {
+            outputStream.write(MeasurementSerializer.serialize(points, PERSISTENCE_FILE_FORMAT_VERSION));
+        }
+        final File compressedFile = CompressedPoint3dFile.getFile(file);
+        final CompressedPoint3dFile consistent = CompressedPoint3dFile.open(folder.newFile("empty.cyfa"),
+                PERSISTENCE_FILE_FORMAT_VERSION);
+
+        // Act
+        final CompressedPoint3dFile oocut = CompressedPoint3dFile.open(file, PERSISTENCE_FILE_FORMAT_VERSION);
+
+        // Assert
+        assertThat(consistent, is(notNullValue()));
+        consistent.close();
+        assertThat(oocut, is(nullValue()));
+        assertThat(compressedFile.exists(), is(equalTo(false)));
+        assertThat(CompressedPoint3dFile.open(file, PERSISTENCE_FILE_FORMAT_VERSION), is(nullValue()));
+    }
+}
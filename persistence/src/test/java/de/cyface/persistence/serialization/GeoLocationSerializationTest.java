@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.DatabaseTestUtils.createDatabase;
+import static de.cyface.persistence.DatabaseTestUtils.insertGeoLocations;
+import static de.cyface.persistence.DatabaseTestUtils.queryGeoLocations;
+import static de.cyface.persistence.DatabaseTestUtils.serializeWithColumnLookups;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_GEO_LOCATION_ENTRY;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import de.cyface.persistence.GeoLocationRowMapper;
+
+/**
+ * Tests that the serialization of the {@code GeoLocation}s via the {@link GeoLocationRowMapper} produces the same bytes
+ * as resolving the column indices for each row.
+ * <p>
+ * The throughput of both paths is compared by the instrumented {@code GeoLocationSerializationBenchmarkTest}.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class GeoLocationSerializationTest {
+
+    /**
+     * The number of {@code GeoLocation}s serialized.
+     */
+    private final static int ROWS = 1_000;
+    /**
+     * The database used for the test.
+     */
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        db = createDatabase(ApplicationProvider.getApplicationContext());
+        insertGeoLocations(db, 0, ROWS, ROWS);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    /**
+     * Tests that both paths produce the same bytes.
+     */
+    @Test
+    public void testSerializeGeoLocations() {
+
+        // Act
+        final byte[] legacy;
+        try (final Cursor cursor = queryGeoLocations(db)) {
+            legacy = serializeWithColumnLookups(cursor);
+        }
+        final byte[] serialized;
+        try (final Cursor cursor = queryGeoLocations(db)) {
+            serialized = MeasurementSerializer.serializeGeoLocations(cursor);
+        }
+
+        // Assert
+        assertThat(serialized.length, is(equalTo(ROWS * BYTES_IN_ONE_GEO_LOCATION_ENTRY)));
+        assertThat(serialized, is(equalTo(legacy)));
+    }
+}
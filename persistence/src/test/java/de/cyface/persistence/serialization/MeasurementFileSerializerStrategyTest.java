@@ -0,0 +1,254 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.Constants.TAG;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_HEADER;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_GEO_LOCATION_ENTRY;
+import static de.cyface.persistence.serialization.MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.os.Build;
+import android.provider.BaseColumns;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.persistence.FileAccessLayer;
+import de.cyface.persistence.GeoLocationsTable;
+import de.cyface.persistence.MeasurementContentProviderClient;
+import de.cyface.persistence.PersistenceLayer;
+import de.cyface.persistence.model.Measurement;
+import de.cyface.persistence.model.MeasurementStatus;
+import de.cyface.persistence.model.Modality;
+import de.cyface.utils.CursorIsNullException;
+
+/**
+ * Tests that the {@link MeasurementFileSerializerStrategy} streams the {@code GeoLocation}s of a {@link Measurement}
+ * page by page instead of collecting them in memory before they are written.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class MeasurementFileSerializerStrategyTest {
+
+    /**
+     * The number of {@code GeoLocation}s of the serialized {@code Measurement}, about 11 days captured at 1 Hz.
+     */
+    private final static int GEO_LOCATIONS = 1_000_000;
+    /**
+     * The number of pages after which the heap is sampled.
+     */
+    private final static int PAGES_PER_HEAP_SAMPLE = 10;
+    /**
+     * The maximal growth of the used heap while serializing. The serialized {@code GeoLocation}s take about 36 MB, so
+     * collecting them in memory exceeds this by far.
+     */
+    private final static long MAX_HEAP_GROWTH_BYTES = 8L * 1024 * 1024;
+    /**
+     * The id of the {@code Measurement} to serialize.
+     */
+    private final static long MEASUREMENT_ID = 1L;
+    /**
+     * The timestamp of the first {@code GeoLocation}.
+     */
+    private final static long START_TIME = 1551431485000L;
+    /**
+     * Used to mock Android API objects.
+     */
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+    /**
+     * A mock persistence layer, not accessing any files.
+     */
+    @Mock
+    private PersistenceLayer<?> persistence;
+    /**
+     * A mock file access layer which returns no {@code Point3dFile}s.
+     */
+    @Mock
+    private FileAccessLayer fileAccessLayer;
+    /**
+     * The highest used heap in bytes sampled while serializing.
+     */
+    private long maxUsedHeap;
+
+    @Before
+    public void setUp() throws CursorIsNullException {
+        final Measurement measurement = new Measurement(MEASUREMENT_ID, MeasurementStatus.FINISHED,
+                Modality.BICYCLE, PERSISTENCE_FILE_FORMAT_VERSION, 0.0, START_TIME);
+        when(persistence.loadMeasurement(anyLong())).thenReturn(measurement);
+        when(persistence.getFileAccessLayer()).thenReturn(fileAccessLayer);
+    }
+
+    /**
+     * Tests that the used heap does not grow with the number of serialized {@code GeoLocation}s.
+     */
+    @Test
+    public void testLoadSerialized_withMillionGeoLocations() throws CursorIsNullException {
+
+        // Arrange
+        final MeasurementContentProviderClient loader = new MeasurementContentProviderClient(MEASUREMENT_ID, null,
+                null) {
+            private int loadedPages = 0;
+
+            @Override
+            public int loadGeoLocationCount() {
+                return GEO_LOCATIONS;
+            }
+
+            @Override
+            public Cursor loadGeoLocations(final long lastGeoLocationTime, final long lastGeoLocationIdentifier,
+                    final int limit) {
+                if (loadedPages++ % PAGES_PER_HEAP_SAMPLE == 0) {
+                    maxUsedHeap = Math.max(maxUsedHeap, usedHeapAfterGc());
+                }
+                return page(lastGeoLocationIdentifier, limit);
+            }
+        };
+        final TransferFileSink sink = new TransferFileSink();
+        final long usedHeapBefore = usedHeapAfterGc();
+
+        // Act
+        new MeasurementFileSerializerStrategy().loadSerialized(new BufferedOutputStream(sink), loader,
+                MEASUREMENT_ID, persistence);
+
+        // Assert
+        final long heapGrowth = maxUsedHeap - usedHeapBefore;
+        Log.i(TAG, String.format("Serialized %d bytes, heap grew by %d bytes", sink.length, heapGrowth));
+        assertThat(sink.length, is(equalTo(BYTES_IN_HEADER + (long)GEO_LOCATIONS * BYTES_IN_ONE_GEO_LOCATION_ENTRY)));
+        assertThat(ByteBuffer.wrap(sink.header).getInt(2), is(equalTo(GEO_LOCATIONS)));
+        assertThat(sink.unorderedEntries, is(equalTo(0)));
+        assertThat(heapGrowth, is(lessThan(MAX_HEAP_GROWTH_BYTES)));
+    }
+
+    /**
+     * Generates a page of {@code GeoLocation}s as returned by
+     * {@link MeasurementContentProviderClient#loadGeoLocations(long, long, int)}, where the identifier of each
+     * {@code GeoLocation} is its position in the {@code Measurement}, starting at 1.
+     *
+     * @param lastGeoLocationIdentifier The identifier of the last {@code GeoLocation} of the previous page
+     * @param limit The maximal number of {@code GeoLocation}s of the page
+     * @return The {@code Cursor} on the page
+     */
+    private Cursor page(final long lastGeoLocationIdentifier, final int limit) {
+        final MatrixCursor cursor = new MatrixCursor(new String[] {BaseColumns._ID,
+                GeoLocationsTable.COLUMN_GEOLOCATION_TIME, GeoLocationsTable.COLUMN_LAT, GeoLocationsTable.COLUMN_LON,
+                GeoLocationsTable.COLUMN_SPEED, GeoLocationsTable.COLUMN_ACCURACY}, limit);
+        final long end = Math.min(lastGeoLocationIdentifier + limit, GEO_LOCATIONS);
+        for (long id = lastGeoLocationIdentifier + 1; id <= end; id++) {
+            cursor.addRow(new Object[] {id, START_TIME + id * 1_000L, 51.05210394, 13.72873203, 1.5, 1179});
+        }
+        return cursor;
+    }
+
+    /**
+     * @return The bytes used on the heap after a garbage collection was requested
+     */
+    private static long usedHeapAfterGc() {
+        System.gc();
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * An {@link OutputStream} which checks the serialized data while it's written, without keeping it in memory.
+     */
+    private static final class TransferFileSink extends OutputStream {
+
+        /**
+         * The header of the transfer file.
+         */
+        private final byte[] header = new byte[BYTES_IN_HEADER];
+        /**
+         * The last written {@code GeoLocation} entry.
+         */
+        private final ByteBuffer entry = ByteBuffer.allocate(BYTES_IN_ONE_GEO_LOCATION_ENTRY);
+        /**
+         * The number of bytes written.
+         */
+        private long length;
+        /**
+         * The timestamp of the previous {@code GeoLocation} entry.
+         */
+        private long previousTimestamp = START_TIME;
+        /**
+         * The number of {@code GeoLocation} entries which do not directly follow the previous entry.
+         */
+        private int unorderedEntries;
+
+        @Override
+        public void write(final int b) {
+            if (length < BYTES_IN_HEADER) {
+                header[(int)length] = (byte)b;
+            } else {
+                entry.put((byte)b);
+                if (!entry.hasRemaining()) {
+                    checkEntry();
+                }
+            }
+            length++;
+        }
+
+        @Override
+        public void write(@NonNull final byte[] b, final int off, final int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+
+        /**
+         * Checks that the timestamp of the completely written entry follows the previous one.
+         */
+        private void checkEntry() {
+            final long timestamp = entry.getLong(0);
+            if (timestamp != previousTimestamp + 1_000L) {
+                unorderedEntries++;
+            }
+            previousTimestamp = timestamp;
+            entry.clear();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.Constants.TAG;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BLOCK_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_GEO_LOCATION_ENTRY;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY;
+import static de.cyface.persistence.serialization.MeasurementSerializer.LEGACY_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.MAX_POOLED_BUFFER_SIZE;
+import static de.cyface.persistence.serialization.MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.testutils.SharedTestUtils.generatePoint3ds;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.MatrixCursor;
+import android.os.Build;
+import android.provider.BaseColumns;
+import android.util.Log;
+
+import de.cyface.persistence.DefaultFileAccess;
+import de.cyface.persistence.GeoLocationsTable;
+import de.cyface.persistence.model.Point3d;
+
+/**
+ * Tests that the {@link MeasurementSerializer} serializes into supplied and pooled buffers without allocating memory
+ * for each batch once the buffers reached the size of the batches.
+ * <p>
+ * The allocated bytes are measured per thread via {@link com.sun.management.ThreadMXBean}. To not depend on the few
+ * bytes the measurement itself allocates, the bytes are averaged over many batches.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class MeasurementSerializerAllocationTest {
+
+    /**
+     * The number of {@link Point3d}s per batch, about what the sensors deliver per second.
+     */
+    private final static int POINTS_PER_BATCH = 200;
+    /**
+     * The number of batches serialized before the allocations are measured, to reach the steady state.
+     */
+    private final static int WARM_UP_BATCHES = 10_000;
+    /**
+     * The number of batches over which the allocated bytes are averaged.
+     */
+    private final static int MEASURED_BATCHES = 10_000;
+    /**
+     * A folder which is deleted after each test.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests that serializing into a supplied buffer produces the same bytes as {@link MeasurementSerializer#serialize}
+     * in all formats and allocates nothing per batch.
+     */
+    @Test
+    public void testSerializeIntoBuffer() {
+        for (final short version : new short[] {LEGACY_PERSISTENCE_FILE_FORMAT_VERSION,
+                PERSISTENCE_FILE_FORMAT_VERSION, BLOCK_PERSISTENCE_FILE_FORMAT_VERSION}) {
+
+            // Arrange
+            final List<Point3d> points = generatePoint3ds(0, POINTS_PER_BATCH);
+            final ByteBuffer buffer = ByteBuffer
+                    .allocate(MeasurementSerializer.maxSerializedSize(POINTS_PER_BATCH, version));
+            final Batch batch = new Batch() {
+                @Override
+                public void run() {
+                    buffer.clear();
+                    MeasurementSerializer.serialize(points, version, buffer);
+                }
+            };
+
+            // Act
+            final long bytesPerBatch = allocatedBytesPerBatch(batch);
+
+            // Assert
+            Log.i(TAG, "Format " + version + ": " + bytesPerBatch + " bytes allocated per batch");
+            assertThat(bytesPerBatch, is(equalTo(0L)));
+            assertThat(Arrays.copyOf(buffer.array(), buffer.position()),
+                    is(equalTo(MeasurementSerializer.serialize(points, version))));
+        }
+    }
+
+    /**
+     * Tests that serializing into a channel via the pooled buffer of the thread allocates nothing per batch.
+     */
+    @Test
+    public void testSerializeIntoChannel() throws IOException {
+
+        // Arrange
+        final List<Point3d> points = generatePoint3ds(0, POINTS_PER_BATCH);
+        final File file = folder.newFile("test.cyfa");
+        final long bytesPerBatch;
+        try (final FileChannel channel = new FileOutputStream(file).getChannel()) {
+            final Batch batch = new Batch() {
+                @Override
+                public void run() throws IOException {
+                    channel.position(0L);
+                    MeasurementSerializer.serialize(points, PERSISTENCE_FILE_FORMAT_VERSION, channel);
+                }
+            };
+
+            // Act
+            bytesPerBatch = allocatedBytesPerBatch(batch);
+        }
+
+        // Assert
+        Log.i(TAG, "Channel: " + bytesPerBatch + " bytes allocated per batch");
+        assertThat(bytesPerBatch, is(equalTo(0L)));
+        assertThat(new DefaultFileAccess().loadBytes(file),
+                is(equalTo(MeasurementSerializer.serialize(points, PERSISTENCE_FILE_FORMAT_VERSION))));
+    }
+
+    /**
+     * Tests that compressing the {@link Point3d}s while capturing allocates nothing per batch.
+     */
+    @Test
+    public void testCompressedPoint3dFileAppend() throws IOException {
+
+        // Arrange
+        final List<Point3d> points = generatePoint3ds(0, POINTS_PER_BATCH);
+        final ByteBuffer entries = ByteBuffer.allocate(POINTS_PER_BATCH * BYTES_IN_ONE_POINT_3D_ENTRY);
+        MeasurementSerializer.serialize(points, LEGACY_PERSISTENCE_FILE_FORMAT_VERSION, entries);
+        final File file = folder.newFile("test.cyfa");
+        final long bytesPerBatch;
+        try (final CompressedPoint3dFile compressedFile = CompressedPoint3dFile.open(file,
+                PERSISTENCE_FILE_FORMAT_VERSION)) {
+            final Batch batch = new Batch() {
+                @Override
+                public void run() {
+                    compressedFile.append(entries);
+                }
+            };
+
+            // Act
+            bytesPerBatch = allocatedBytesPerBatch(batch);
+        }
+
+        // Assert
+        Log.i(TAG, "Compression: " + bytesPerBatch + " bytes allocated per batch");
+        assertThat(bytesPerBatch, is(equalTo(0L)));
+        assertThat(CompressedPoint3dFile.countEntries(CompressedPoint3dFile.getFile(file)),
+                is(equalTo((WARM_UP_BATCHES + MEASURED_BATCHES) * POINTS_PER_BATCH)));
+    }
+
+    /**
+     * Tests that serializing {@code GeoLocation}s into a supplied buffer produces the same bytes as
+     * {@link MeasurementSerializer#serializeGeoLocations(android.database.Cursor)}.
+     */
+    @Test
+    public void testSerializeGeoLocationsIntoBuffer() {
+
+        // Arrange
+        final MatrixCursor cursor = new MatrixCursor(new String[] {BaseColumns._ID,
+                GeoLocationsTable.COLUMN_GEOLOCATION_TIME, GeoLocationsTable.COLUMN_LAT, GeoLocationsTable.COLUMN_LON,
+                GeoLocationsTable.COLUMN_SPEED, GeoLocationsTable.COLUMN_ACCURACY,
+                GeoLocationsTable.COLUMN_MEASUREMENT_FK});
+        for (int i = 0; i < 100; i++) {
+            cursor.addRow(new Object[] {i + 1L, 1551431485000L + i * 1_000L, 51.05210394 + i * 1e-5,
+                    13.72873203 - i * 1e-5, 1.5 * i, 1179 + i, 1L});
+        }
+        final byte[] expected = MeasurementSerializer.serializeGeoLocations(cursor);
+        cursor.moveToPosition(-1);
+        // Data before the page must be kept
+        final ByteBuffer buffer = ByteBuffer.allocate(3 + 100 * BYTES_IN_ONE_GEO_LOCATION_ENTRY);
+        buffer.put(new byte[] {1, 2, 3});
+
+        // Act
+        MeasurementSerializer.serializeGeoLocations(cursor, buffer);
+
+        // Assert
+        assertThat(buffer.hasRemaining(), is(equalTo(false)));
+        assertThat(Arrays.copyOfRange(buffer.array(), 0, 3), is(equalTo(new byte[] {1, 2, 3})));
+        assertThat(Arrays.copyOfRange(buffer.array(), 3, buffer.position()), is(equalTo(expected)));
+    }
+
+    /**
+     * Tests that the serialization buffer of a thread is reused, grows to the requested size and does not keep
+     * buffers above the {@link MeasurementSerializer#MAX_POOLED_BUFFER_SIZE}.
+     */
+    @Test
+    public void testSerializationBuffer() {
+
+        // Arrange
+        final ByteBuffer first = MeasurementSerializer.serializationBuffer(1_000);
+        first.putInt(42);
+
+        // Act
+        final ByteBuffer reused = MeasurementSerializer.serializationBuffer(100);
+        final ByteBuffer grown = MeasurementSerializer.serializationBuffer(first.capacity() + 1);
+        final ByteBuffer oversized = MeasurementSerializer.serializationBuffer(MAX_POOLED_BUFFER_SIZE + 1);
+
+        // Assert
+        assertThat(reused, is(sameInstance(first)));
+        assertThat(reused.position(), is(equalTo(0)));
+        assertThat(grown, is(not(sameInstance(first))));
+        assertThat(grown.capacity() >= first.capacity() + 1, is(equalTo(true)));
+        assertThat(oversized.capacity(), is(equalTo(MAX_POOLED_BUFFER_SIZE + 1)));
+        assertThat(MeasurementSerializer.serializationBuffer(1), is(sameInstance(grown)));
+    }
+
+    /**
+     * Runs a batch {@link #WARM_UP_BATCHES} times and then measures the bytes it allocates on average over
+     * {@link #MEASURED_BATCHES} runs.
+     *
+     * @param batch The batch to run
+     * @return The average number of bytes allocated per batch, rounded down
+     */
+    private long allocatedBytesPerBatch(final Batch batch) throws IOException {
+        for (int i = 0; i < WARM_UP_BATCHES; i++) {
+            batch.run();
+        }
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean)ManagementFactory
+                .getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final long start = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_BATCHES; i++) {
+            batch.run();
+        }
+        final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - start;
+        return allocated / MEASURED_BATCHES;
+    }
+
+    /**
+     * One batch of data to serialize.
+     */
+    private interface Batch {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.serialization.MeasurementSerializer.LEGACY_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.testutils.SharedTestUtils.generateNoisyPoint3ds;
+import static de.cyface.testutils.SharedTestUtils.inflate;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DataFormatException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.os.Build;
+
+import de.cyface.persistence.model.Point3d;
+
+/**
+ * Tests that the {@link ParallelDeflaterOutputStream} writes one raw deflate stream which decompresses to the written
+ * data.
+ * <p>
+ * The throughput for different numbers of threads is compared by the instrumented
+ * {@code ParallelDeflaterOutputStreamBenchmarkTest}.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class ParallelDeflaterOutputStreamTest {
+
+    /**
+     * The number of threads used by the tests which are not benchmarks.
+     */
+    private final static int THREADS = 3;
+    /**
+     * A folder which is deleted after each test.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    /**
+     * The {@code ExecutorService} to compress on.
+     */
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Tests that data spanning several chunks, including single bytes and a partial last chunk, is decompressed in
+     * order.
+     */
+    @Test
+    public void testWrite() throws IOException, DataFormatException {
+
+        // Arrange
+        final byte[] data = transferLayout(ParallelDeflaterOutputStream.CHUNK_SIZE * 7 / 2
+                / MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY);
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        // Act
+        try (final ParallelDeflaterOutputStream oocut = new ParallelDeflaterOutputStream(compressed, executor,
+                2 * THREADS)) {
+            oocut.write(data[0]);
+            oocut.write(data, 1, data.length - 1);
+        }
+
+        // Assert
+        assertThat(inflate(compressed.toByteArray(), data.length), is(equalTo(data)));
+    }
+
+    /**
+     * Tests that an empty stream is a valid raw deflate stream.
+     */
+    @Test
+    public void testWrite_empty() throws IOException, DataFormatException {
+
+        // Arrange
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        // Act
+        new ParallelDeflaterOutputStream(compressed, executor, 1).close();
+
+        // Assert
+        assertThat(inflate(compressed.toByteArray(), 0).length, is(equalTo(0)));
+    }
+
+    /**
+     * Tests that the segments of a {@link CompressedPoint3dFile} are appended between data compressed on multiple
+     * threads.
+     */
+    @Test
+    public void testWriteCompressedSegments() throws IOException, DataFormatException {
+
+        // Arrange
+        final List<Point3d> points = generateNoisyPoint3ds(20_000, new Random(1L));
+        final File file = folder.newFile("test.cyfa");
+        final Point3dFileAppender appender = new Point3dFileAppender(file, PERSISTENCE_FILE_FORMAT_VERSION,
+                Point3dFileAppender.DEFAULT_BUFFER_SIZE, Long.MAX_VALUE, true);
+        appender.append(points);
+        appender.close();
+        final byte[] transferLayout = MeasurementSerializer.serialize(points, LEGACY_PERSISTENCE_FILE_FORMAT_VERSION);
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        // Act
+        try (final SegmentedDeflaterOutputStream oocut = new SegmentedDeflaterOutputStream(compressed, executor,
+                THREADS)) {
+            oocut.write(transferLayout);
+            oocut.writeCompressedSegments(CompressedPoint3dFile.getFile(file));
+            oocut.write(transferLayout);
+        }
+
+        // Assert
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(transferLayout);
+        expected.write(transferLayout);
+        expected.write(transferLayout);
+        assertThat(inflate(compressed.toByteArray(), expected.size()), is(equalTo(expected.toByteArray())));
+    }
+
+    /**
+     * @param count The number of points to generate
+     * @return The generated points in the layout of the {@link MeasurementSerializer#TRANSFER_FILE_FORMAT_VERSION}
+     */
+    private byte[] transferLayout(final int count) {
+        return MeasurementSerializer.serialize(generateNoisyPoint3ds(count, new Random(1L)),
+                LEGACY_PERSISTENCE_FILE_FORMAT_VERSION);
+    }
+}
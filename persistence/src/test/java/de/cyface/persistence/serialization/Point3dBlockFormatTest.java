@@ -0,0 +1,143 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.persistence.model.Point3d;
+
+/**
+ * Tests that the {@link Point3dBlockFormat} round-trips {@link Point3d}s exactly.
+ * <p>
+ * Its size and throughput are compared with the fixed size format by the instrumented
+ * {@code Point3dBlockFormatBenchmarkTest}.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class Point3dBlockFormatTest {
+
+    /**
+     * Tests that timestamps which go back in time, large gaps and special float values are restored exactly.
+     */
+    @Test
+    public void testRoundTrip_edgeCases() {
+
+        // Arrange
+        final List<Point3d> points = Arrays.asList(
+                new Point3d(0.0f, -0.0f, Float.MIN_VALUE, 1_500_000_000_000L),
+                new Point3d(Float.MAX_VALUE, -Float.MAX_VALUE, Float.NaN, 1_500_000_000_000L),
+                new Point3d(1.0f, 2.0f, 3.0f, 1_499_999_999_990L), // back in time
+                new Point3d(Float.POSITIVE_INFINITY, 9.81f, -9.81f, 1_600_000_000_000L), // large gap
+                new Point3d(1.0f, 2.0f, 3.0f, 0L),
+                new Point3d(1.0f, 2.0f, 3.0f, Long.MAX_VALUE),
+                new Point3d(1.0f, 2.0f, 3.0f, Long.MIN_VALUE));
+
+        // Act
+        final byte[] encoded = Point3dBlockFormat.encode(points);
+        final List<Point3d> decoded = Point3dBlockFormat.decode(ByteBuffer.wrap(encoded));
+
+        // Assert
+        assertEqual(decoded, points);
+        assertThat(Point3dBlockFormat.encode(new ArrayList<Point3d>()).length, is(equalTo(0)));
+    }
+
+    /**
+     * Tests that a stream longer than one block is split into blocks and that an incomplete block at the end, e.g.
+     * when the capturing process was killed while appending, is ignored.
+     */
+    @Test
+    public void testRoundTrip_multipleBlocks() {
+
+        // Arrange
+        final List<Point3d> points = stream(100, Point3dBlockFormat.MAX_ENTRIES_IN_BLOCK * 2 + 10, new Random(1L));
+        final byte[] encoded = Point3dBlockFormat.encode(points);
+
+        // Act
+        final List<Point3d> decoded = Point3dBlockFormat.decode(ByteBuffer.wrap(encoded));
+        final List<Point3d> decodedTruncated = Point3dBlockFormat
+                .decode(ByteBuffer.wrap(Arrays.copyOf(encoded, encoded.length - 1)));
+
+        // Assert
+        assertEqual(decoded, points);
+        assertEqual(decodedTruncated, points.subList(0, Point3dBlockFormat.MAX_ENTRIES_IN_BLOCK * 2));
+    }
+
+    /**
+     * Generates a synthetic accelerometer stream with the timestamp jitter and occasional gaps of real sensor data.
+     *
+     * @param frequency The sensor frequency in Hz
+     * @param count The number of points to generate
+     * @param random The source of the noise
+     * @return The generated points
+     */
+    private List<Point3d> stream(final int frequency, final int count, @NonNull final Random random) {
+        final List<Point3d> points = new ArrayList<>(count);
+        final double periodMillis = 1_000.0 / frequency;
+        double time = 1_551_431_485_000.0;
+        for (int i = 0; i < count; i++) {
+            // Jitter of up to 20 % of the period and a gap of 100 ms every 1000 samples
+            time += periodMillis * (0.9 + 0.2 * random.nextDouble()) + (i % 1_000 == 999 ? 100.0 : 0.0);
+            points.add(new Point3d((float)(random.nextGaussian() * 0.5), (float)(random.nextGaussian() * 0.5),
+                    (float)(9.81 + random.nextGaussian() * 0.5), (long)time));
+        }
+        return points;
+    }
+
+    /**
+     * Asserts that the points are bit-wise equal.
+     *
+     * @param actual The decoded points
+     * @param expected The encoded points
+     */
+    private void assertEqual(final List<Point3d> actual, final List<Point3d> expected) {
+        assertThat(actual.size(), is(equalTo(expected.size())));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getTimestamp(), is(equalTo(expected.get(i).getTimestamp())));
+            assertThat(Float.floatToRawIntBits(actual.get(i).getX()),
+                    is(equalTo(Float.floatToRawIntBits(expected.get(i).getX()))));
+            assertThat(Float.floatToRawIntBits(actual.get(i).getY()),
+                    is(equalTo(Float.floatToRawIntBits(expected.get(i).getY()))));
+            assertThat(Float.floatToRawIntBits(actual.get(i).getZ()),
+                    is(equalTo(Float.floatToRawIntBits(expected.get(i).getZ()))));
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.serialization.MeasurementSerializer.BLOCK_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY;
+import static de.cyface.persistence.serialization.MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.testutils.SharedTestUtils.generatePoint3ds;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.os.Build;
+
+import de.cyface.persistence.DefaultFileAccess;
+import de.cyface.persistence.model.Point3d;
+
+/**
+ * Tests that the {@link Point3dFileAppender} writes the same file as {@link Point3dFile#append(List)} and respects
+ * its flush policy.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.1
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class Point3dFileAppenderTest {
+
+    /**
+     * A folder which is deleted after each test.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    /**
+     * The file to append to.
+     */
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.newFile("test.cyfa");
+    }
+
+    /**
+     * Tests that the appended points are only written when the buffer is full and on {@code #close()} and that the
+     * file content equals the serialized points.
+     */
+    @Test
+    public void testAppend() throws IOException {
+
+        // Arrange
+        // The buffer holds 10 points
+        final Point3dFileAppender oocut = new Point3dFileAppender(file, PERSISTENCE_FILE_FORMAT_VERSION,
+                10 * BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY, Long.MAX_VALUE);
+        final List<Point3d> firstBatch = generatePoint3ds(0, 8);
+        final List<Point3d> secondBatch = generatePoint3ds(8, 5);
+
+        // Act & Assert
+        oocut.append(firstBatch);
+        assertThat(file.length(), is(equalTo(0L)));
+        oocut.append(secondBatch);
+        assertThat(file.length(), is(equalTo(10L * BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY)));
+        oocut.close();
+        oocut.close(); // Must not fail
+
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(MeasurementSerializer.serialize(firstBatch));
+        expected.write(MeasurementSerializer.serialize(secondBatch));
+        assertThat(new DefaultFileAccess().loadBytes(file), is(equalTo(expected.toByteArray())));
+    }
+
+    /**
+     * Tests that {@code #flush()} writes the buffered points, e.g. when the capturing is paused.
+     */
+    @Test
+    public void testFlush() {
+
+        // Arrange
+        final Point3dFileAppender oocut = new Point3dFileAppender(file, PERSISTENCE_FILE_FORMAT_VERSION,
+                Point3dFileAppender.DEFAULT_BUFFER_SIZE, Long.MAX_VALUE);
+        oocut.append(generatePoint3ds(0, 3));
+
+        // Act
+        oocut.flush();
+
+        // Assert
+        assertThat(file.length(), is(equalTo(3L * BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY)));
+        oocut.close();
+    }
+
+    /**
+     * Tests that each batch is written directly when the flush interval is {@code 0}.
+     */
+    @Test
+    public void testAppend_flushesWhenIntervalElapsed() {
+
+        // Arrange
+        final Point3dFileAppender oocut = new Point3dFileAppender(file, PERSISTENCE_FILE_FORMAT_VERSION,
+                Point3dFileAppender.DEFAULT_BUFFER_SIZE, 0L);
+
+        // Act
+        oocut.append(generatePoint3ds(0, 2));
+
+        // Assert
+        assertThat(file.length(), is(equalTo(2L * BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY)));
+        oocut.close();
+    }
+
+    /**
+     * Tests that points appended from primitive arrays are written like the same points appended as {@code List}, in
+     * the block format and into the {@link CompressedPoint3dFile}.
+     */
+    @Test
+    public void testAppend_fromArrays() throws IOException {
+
+        // Arrange
+        final List<Point3d> points = generatePoint3ds(0, 20);
+        final long[] timestamps = new long[points.size() + 2];
+        final float[] xs = new float[timestamps.length];
+        final float[] ys = new float[timestamps.length];
+        final float[] zs = new float[timestamps.length];
+        for (int i = 0; i < points.size(); i++) {
+            // The points start at index 1 to test the offset
+            timestamps[i + 1] = points.get(i).getTimestamp();
+            xs[i + 1] = points.get(i).getX();
+            ys[i + 1] = points.get(i).getY();
+            zs[i + 1] = points.get(i).getZ();
+        }
+        final File listFile = folder.newFile("list.cyfa");
+        final Point3dFileAppender listAppender = new Point3dFileAppender(listFile,
+                BLOCK_PERSISTENCE_FILE_FORMAT_VERSION, Point3dFileAppender.DEFAULT_BUFFER_SIZE, Long.MAX_VALUE, true);
+        final Point3dFileAppender oocut = new Point3dFileAppender(file, BLOCK_PERSISTENCE_FILE_FORMAT_VERSION,
+                Point3dFileAppender.DEFAULT_BUFFER_SIZE, Long.MAX_VALUE, true);
+
+        // Act
+        listAppender.append(points.subList(0, 12));
+        listAppender.append(points.subList(12, 20));
+        listAppender.close();
+        oocut.append(timestamps, xs, ys, zs, 1, 12);
+        oocut.append(timestamps, xs, ys, zs, 13, 8);
+        oocut.close();
+
+        // Assert
+        final DefaultFileAccess fileAccess = new DefaultFileAccess();
+        assertThat(fileAccess.loadBytes(file), is(equalTo(fileAccess.loadBytes(listFile))));
+        assertThat(fileAccess.loadBytes(CompressedPoint3dFile.getFile(file)),
+                is(equalTo(fileAccess.loadBytes(CompressedPoint3dFile.getFile(listFile)))));
+    }
+}
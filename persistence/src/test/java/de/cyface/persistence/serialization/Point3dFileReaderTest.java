@@ -0,0 +1,250 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.serialization.MeasurementSerializer.BLOCK_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.LEGACY_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.os.Build;
+
+import de.cyface.persistence.model.Point3d;
+
+/**
+ * Tests that the {@link Point3dFileReader} reads the {@link Point3d}s written by the {@link Point3dFileAppender}.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class Point3dFileReaderTest {
+
+    /**
+     * The number of points written to the test file.
+     */
+    private final static int POINT_COUNT = 1_000;
+    /**
+     * A folder which is deleted after each test.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    /**
+     * The file to read.
+     */
+    private File file;
+    /**
+     * The points written to the {@link #file}.
+     */
+    private List<Point3d> points;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.newFile("test.cyfa");
+        points = new ArrayList<>();
+        for (int i = 0; i < POINT_COUNT; i++) {
+            points.add(new Point3d(i * 0.1f, -i * 0.2f, 9.81f, timestamp(i)));
+        }
+        final Point3dFileAppender appender = new Point3dFileAppender(file, PERSISTENCE_FILE_FORMAT_VERSION,
+                Point3dFileAppender.DEFAULT_BUFFER_SIZE, Long.MAX_VALUE);
+        appender.append(points);
+        appender.close();
+    }
+
+    /**
+     * Tests random access to the points.
+     */
+    @Test
+    public void testGet() {
+
+        // Arrange
+        final Point3dFileReader oocut = new Point3dFileReader(file, PERSISTENCE_FILE_FORMAT_VERSION);
+
+        // Act & Assert
+        assertThat(oocut.getPointCount(), is(equalTo(POINT_COUNT)));
+        for (final int index : new int[] {0, 1, 500, POINT_COUNT - 1}) {
+            assertPoint(oocut.get(index), points.get(index));
+            assertThat(oocut.getTimestamp(index), is(equalTo(points.get(index).getTimestamp())));
+        }
+    }
+
+    /**
+     * Tests the binary search for timestamps which exist, which are between two points and which are out of range.
+     */
+    @Test
+    public void testIndexOf() {
+
+        // Arrange
+        final Point3dFileReader oocut = new Point3dFileReader(file, PERSISTENCE_FILE_FORMAT_VERSION);
+
+        // Act & Assert
+        assertThat(oocut.indexOf(timestamp(0)), is(equalTo(0)));
+        assertThat(oocut.indexOf(timestamp(0) - 1L), is(equalTo(0)));
+        assertThat(oocut.indexOf(timestamp(123)), is(equalTo(123)));
+        assertThat(oocut.indexOf(timestamp(123) + 1L), is(equalTo(124)));
+        assertThat(oocut.indexOf(timestamp(POINT_COUNT - 1)), is(equalTo(POINT_COUNT - 1)));
+        assertThat(oocut.indexOf(timestamp(POINT_COUNT - 1) + 1L), is(equalTo(POINT_COUNT)));
+    }
+
+    /**
+     * Tests that a time window is loaded with the start inclusive and the end exclusive.
+     */
+    @Test
+    public void testLoadTimeWindow() {
+
+        // Arrange
+        final Point3dFileReader oocut = new Point3dFileReader(file, PERSISTENCE_FILE_FORMAT_VERSION);
+
+        // Act
+        final List<Point3d> window = oocut.load(timestamp(100), timestamp(110));
+
+        // Assert
+        assertThat(window.size(), is(equalTo(10)));
+        for (int i = 0; i < window.size(); i++) {
+            assertPoint(window.get(i), points.get(100 + i));
+        }
+    }
+
+    /**
+     * Tests that an incomplete entry at the end of the file, e.g. after the capturing process was killed, is ignored.
+     */
+    @Test
+    public void testIncompleteEntryIsIgnored() throws IOException {
+
+        // Arrange
+        try (final FileOutputStream outputStream = new FileOutputStream(file, true)) {
+            outputStream.write(new byte[] {1, 2, 3});
+        }
+
+        // Act
+        final Point3dFileReader oocut = new Point3dFileReader(file, PERSISTENCE_FILE_FORMAT_VERSION);
+
+        // Assert
+        assertThat(oocut.getPointCount(), is(equalTo(POINT_COUNT)));
+        assertPoint(oocut.get(POINT_COUNT - 1), points.get(POINT_COUNT - 1));
+    }
+
+    /**
+     * Tests that files of measurements captured with the previous format are still read.
+     */
+    @Test
+    public void testGet_legacyFormat() throws IOException {
+
+        // Arrange
+        final File legacyFile = folder.newFile("legacy.cyfa");
+        try (final FileOutputStream outputStream = new FileOutputStream(legacyFile)) {
+            outputStream.write(MeasurementSerializer.serialize(points, LEGACY_PERSISTENCE_FILE_FORMAT_VERSION));
+        }
+
+        // Act
+        final Point3dFileReader oocut = new Point3dFileReader(legacyFile, LEGACY_PERSISTENCE_FILE_FORMAT_VERSION);
+
+        // Assert
+        assertThat(oocut.getPointCount(), is(equalTo(POINT_COUNT)));
+        assertThat(oocut.indexOf(timestamp(123)), is(equalTo(123)));
+        assertPoint(oocut.get(POINT_COUNT - 1), points.get(POINT_COUNT - 1));
+    }
+
+    /**
+     * Tests random access and seeking in a file in the block format which was appended in several blocks and ends with
+     * an incomplete block.
+     */
+    @Test
+    public void testGet_blockFormat() throws IOException {
+
+        // Arrange
+        final File blockFile = folder.newFile("blocks.cyfa");
+        // A small buffer to write the points in many blocks
+        final int bufferSize = Point3dBlockFormat.BYTES_IN_BLOCK_HEADER
+                + 64 * Point3dBlockFormat.MAX_BYTES_IN_ONE_ENTRY;
+        final Point3dFileAppender appender = new Point3dFileAppender(blockFile, BLOCK_PERSISTENCE_FILE_FORMAT_VERSION,
+                bufferSize, Long.MAX_VALUE);
+        appender.append(points);
+        appender.close();
+        try (final FileOutputStream outputStream = new FileOutputStream(blockFile, true)) {
+            outputStream.write(new byte[] {0, 0, 0, 1, 2, 3});
+        }
+
+        // Act
+        final Point3dFileReader oocut = new Point3dFileReader(blockFile, BLOCK_PERSISTENCE_FILE_FORMAT_VERSION);
+
+        // Assert
+        assertThat(oocut.getPointCount(), is(equalTo(POINT_COUNT)));
+        for (final int index : new int[] {0, 63, 64, 65, 500, 1, POINT_COUNT - 1}) {
+            assertPoint(oocut.get(index), points.get(index));
+            assertThat(oocut.getTimestamp(index), is(equalTo(points.get(index).getTimestamp())));
+        }
+        assertThat(oocut.indexOf(timestamp(0) - 1L), is(equalTo(0)));
+        assertThat(oocut.indexOf(timestamp(64)), is(equalTo(64)));
+        assertThat(oocut.indexOf(timestamp(123) + 1L), is(equalTo(124)));
+        assertThat(oocut.indexOf(timestamp(POINT_COUNT - 1) + 1L), is(equalTo(POINT_COUNT)));
+        final List<Point3d> window = oocut.load(timestamp(60), timestamp(70));
+        assertThat(window.size(), is(equalTo(10)));
+        for (int i = 0; i < window.size(); i++) {
+            assertPoint(window.get(i), points.get(60 + i));
+        }
+    }
+
+    /**
+     * Tests that an index outside of the file is rejected.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGet_outOfBounds() {
+        new Point3dFileReader(file, PERSISTENCE_FILE_FORMAT_VERSION).get(POINT_COUNT);
+    }
+
+    /**
+     * @param index The index of the point
+     * @return The timestamp of the point, with gaps to test searching timestamps between two points
+     */
+    private long timestamp(final int index) {
+        return 1_000_000_000L + index * 10L;
+    }
+
+    /**
+     * @param actual The point read from the file
+     * @param expected The point written to the file
+     */
+    private void assertPoint(final Point3d actual, final Point3d expected) {
+        assertThat(actual.getTimestamp(), is(equalTo(expected.getTimestamp())));
+        assertThat(actual.getX(), is(equalTo(expected.getX())));
+        assertThat(actual.getY(), is(equalTo(expected.getY())));
+        assertThat(actual.getZ(), is(equalTo(expected.getZ())));
+    }
+}
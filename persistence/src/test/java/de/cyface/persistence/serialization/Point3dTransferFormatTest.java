@@ -0,0 +1,137 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization;
+
+import static de.cyface.persistence.serialization.MeasurementSerializer.BLOCK_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY;
+import static de.cyface.persistence.serialization.MeasurementSerializer.LEGACY_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.testutils.SharedTestUtils.generatePoint3ds;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.os.Build;
+
+import de.cyface.persistence.model.Point3d;
+
+/**
+ * Tests that {@link Point3d}s persisted in the {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} are
+ * transferred in the same layout as the ones persisted in the
+ * {@link MeasurementSerializer#LEGACY_PERSISTENCE_FILE_FORMAT_VERSION}, as well as the ones persisted in the
+ * {@link MeasurementSerializer#BLOCK_PERSISTENCE_FILE_FORMAT_VERSION}.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.1
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class Point3dTransferFormatTest {
+
+    /**
+     * A folder which is deleted after each test.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests the size of the entries in both persistence formats.
+     */
+    @Test
+    public void testSerialize() {
+
+        // Arrange
+        final List<Point3d> points = generatePoint3ds(0, 3);
+
+        // Act
+        final byte[] legacy = MeasurementSerializer.serialize(points, LEGACY_PERSISTENCE_FILE_FORMAT_VERSION);
+        final byte[] compact = MeasurementSerializer.serialize(points);
+
+        // Assert
+        assertThat(BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY, is(equalTo(20)));
+        assertThat(legacy.length, is(equalTo(3 * BYTES_IN_ONE_POINT_3D_ENTRY)));
+        assertThat(compact.length, is(equalTo(3 * BYTES_IN_ONE_COMPACT_POINT_3D_ENTRY)));
+    }
+
+    /**
+     * Tests that the {@code float} values of a file in the current format are transferred as the {@code double}s the
+     * previous format stored, including files larger than one conversion chunk.
+     */
+    @Test
+    public void testWriteInTransferFormat() throws IOException {
+
+        // Arrange
+        final List<Point3d> points = generatePoint3ds(0, 2_500);
+        final File file = folder.newFile("test.cyfa");
+        try (final FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(MeasurementSerializer.serialize(points, PERSISTENCE_FILE_FORMAT_VERSION));
+        }
+        final ByteArrayOutputStream transferred = new ByteArrayOutputStream();
+
+        // Act
+        MeasurementSerializer.writeInTransferFormat(file, PERSISTENCE_FILE_FORMAT_VERSION, transferred);
+
+        // Assert
+        assertThat(transferred.toByteArray(),
+                is(equalTo(MeasurementSerializer.serialize(points, LEGACY_PERSISTENCE_FILE_FORMAT_VERSION))));
+    }
+
+    /**
+     * Tests that a file in the block format, which contains more than one block and an incomplete block at the end, is
+     * counted and transferred like the previous format.
+     */
+    @Test
+    public void testWriteInTransferFormat_blockFormat() throws IOException {
+
+        // Arrange
+        final List<Point3d> points = generatePoint3ds(0, Point3dBlockFormat.MAX_ENTRIES_IN_BLOCK + 100);
+        final File file = folder.newFile("test.cyfa");
+        try (final FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(MeasurementSerializer.serialize(points, BLOCK_PERSISTENCE_FILE_FORMAT_VERSION));
+            outputStream.write(new byte[] {0, 0, 0, 1}); // incomplete block header
+        }
+        final ByteArrayOutputStream transferred = new ByteArrayOutputStream();
+
+        // Act
+        final int count = MeasurementSerializer.countPoint3ds(file, BLOCK_PERSISTENCE_FILE_FORMAT_VERSION);
+        MeasurementSerializer.writeInTransferFormat(file, BLOCK_PERSISTENCE_FILE_FORMAT_VERSION, transferred);
+
+        // Assert
+        assertThat(count, is(equalTo(points.size())));
+        assertThat(transferred.toByteArray(),
+                is(equalTo(MeasurementSerializer.serialize(points, LEGACY_PERSISTENCE_FILE_FORMAT_VERSION))));
+    }
+}
@@ -43,6 +43,7 @@ import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.RemoteException;
+import android.provider.BaseColumns;
 import android.util.Log;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
@@ -60,7 +61,7 @@ import de.cyface.utils.Validate;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 1.1.8
+ * @version 1.2.0
  * @since 2.0.0
  */
 @RunWith(AndroidJUnit4.class)
@@ -153,10 +154,17 @@ public class MeasurementContentProviderClientTest {
                     AUTHORITY);
             startTime = System.currentTimeMillis();
 
+            // All GeoLocations have the same timestamp so the pages are continued by the identifier
+            long lastGeoLocationIdentifier = 0L;
             for (int i = 0; i < geoLocationValuesArray.length; i += DATABASE_QUERY_LIMIT) {
-                locationsCursor = oocut.loadGeoLocations(i, DATABASE_QUERY_LIMIT);
+                if (locationsCursor != null) {
+                    locationsCursor.close();
+                }
+                locationsCursor = oocut.loadGeoLocations(1L, lastGeoLocationIdentifier, DATABASE_QUERY_LIMIT);
                 while (locationsCursor.moveToNext()) {
                     numberOfLoadedGeoLocations++;
+                    lastGeoLocationIdentifier = locationsCursor
+                            .getLong(locationsCursor.getColumnIndex(BaseColumns._ID));
                 }
                 Log.i(TAG,
                         "Loading " + locationsCursor.getCount() + " entries  took: "
@@ -216,7 +224,7 @@ public class MeasurementContentProviderClientTest {
             // Check loadGeoLocations()
             MeasurementContentProviderClient oocut = new MeasurementContentProviderClient(measurementIdentifier, client,
                     AUTHORITY);
-            Cursor geoLocationCursor = oocut.loadGeoLocations(0, DATABASE_QUERY_LIMIT);
+            Cursor geoLocationCursor = oocut.loadGeoLocations(Long.MIN_VALUE, 0L, DATABASE_QUERY_LIMIT);
             assertThat(geoLocationCursor.getCount(), is(equalTo(2)));
         }
     }
@@ -34,7 +34,7 @@ import androidx.annotation.NonNull;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 3.0.4
+ * @version 3.1.0
  * @since 3.0.0
  */
 final class MockedHttpConnection implements Http {
@@ -76,4 +76,12 @@ final class MockedHttpConnection implements Http {
         progressListener.updatedProgress(1.0f); // 100%
         return new HttpResponse(201, "");
     }
+
+    @NonNull
+    @Override
+    public HttpResponse post(@NonNull HttpURLConnection connection, @NonNull SyncAdapter.MetaData metaData,
+            @NonNull UploadProgressListener progressListener, @NonNull StreamingPart... parts) {
+        progressListener.updatedProgress(1.0f); // 100%
+        return new HttpResponse(201, "");
+    }
 }
@@ -25,7 +25,7 @@ import static de.cyface.synchronization.Constants.TAG;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 2.7.0
+ * @version 2.9.0
  * @since 2.1.0
  */
 public class BundlesExtrasCodes {
@@ -70,6 +70,21 @@ public class BundlesExtrasCodes {
      * Code that identifies the extra transmitted to the background service to tell it which sensor frequency to use.
      */
     public final static String SENSOR_FREQUENCY = "de.cyface.extra.sensor_frequency";
+    /**
+     * Code that identifies the extra transmitted to the background service to tell it whether to compress the sensor
+     * data while capturing.
+     */
+    public final static String COMPRESS_AT_CAPTURE = "de.cyface.extra.compress_at_capture";
+    /**
+     * Code that identifies the extra transmitted to the background service to tell it how many batches of sensor data
+     * may wait to be written.
+     */
+    public final static String WRITER_QUEUE_CAPACITY = "de.cyface.extra.writer_queue_capacity";
+    /**
+     * Code that identifies the extra transmitted to the background service to tell it the name of the overflow policy
+     * applied when too many batches of sensor data wait to be written.
+     */
+    public final static String OVERFLOW_POLICY = "de.cyface.extra.overflow_policy";
 
     /**
      * Constructor is private to prevent creation of utility class.
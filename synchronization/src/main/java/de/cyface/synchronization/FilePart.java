@@ -35,7 +35,7 @@ import de.cyface.utils.Validate;
  * Encapsulates a data file that is transferred together with its meta data.
  *
  * @author Klemens Muthmann
- * @version 1.0.1
+ * @version 1.1.0
  * @since 5.0.0
  */
 class FilePart {
@@ -76,7 +76,7 @@ class FilePart {
         this.fileName = fileName;
         this.file = file;
         this.partName = partName;
-        this.header = generateHeaderPart();
+        this.header = generateHeaderPart(fileName, partName);
     }
 
     /**
@@ -89,9 +89,11 @@ class FilePart {
     /**
      * Generates a valid Multipart header entry for a file part.
      *
+     * @param fileName The multipart name of the file to transfer
+     * @param partName The name of the part in a multi part request
      * @return the generated part entry
      */
-    private String generateHeaderPart() {
+    static String generateHeaderPart(@NonNull final String fileName, @NonNull final String partName) {
         return "--" + Http.BOUNDARY + Http.LINE_FEED
                 + "Content-Disposition: form-data; name=\"" + partName + "\"; filename=\"" + fileName + "\""
                 + Http.LINE_FEED
@@ -28,13 +28,14 @@ import org.json.JSONObject;
 import androidx.annotation.NonNull;
 
 import de.cyface.synchronization.exception.HostUnresolvable;
+import de.cyface.utils.CursorIsNullException;
 
 /**
  * An interface for http connections.
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 9.0.0
+ * @version 9.1.0
  * @since 3.0.0
  */
 interface Http {
@@ -139,4 +140,43 @@ interface Http {
             throws SynchronisationException, BadRequestException, UnauthorizedException, InternalServerErrorException,
             ForbiddenException, EntityNotParsableException, ConflictException, NetworkUnavailableException,
             SynchronizationInterruptedException, TooManyRequestsException, HostUnresolvable, ServerUnavailableException;
+
+    /**
+     * The serialized post request which transmits a measurement through an existing http connection without knowing
+     * the size of the data up front, i.e. with chunked transfer encoding. This way the data can be written to the
+     * request body while it is generated instead of being written to a temp file first.
+     * <p>
+     * As the size of the data is unknown, the {@code progressListener} is informed after each part.
+     *
+     * @param connection The {@code HttpURLConnection} to be used for the request.
+     * @param metaData The {@link SyncAdapter.MetaData} required for the Multipart request.
+     * @param progressListener The {@link UploadProgressListener} to be informed about the upload progress.
+     * @param parts The data to upload via this post request. Currently these should be the sensor data and the events
+     *            data.
+     * @throws SynchronisationException If an IOException occurred during synchronization.
+     * @throws BadRequestException When server returns {@code HttpURLConnection#HTTP_BAD_REQUEST}
+     * @throws UnauthorizedException When the server returns {@code HttpURLConnection#HTTP_UNAUTHORIZED}
+     * @throws ForbiddenException When the server returns {@code HttpURLConnection#HTTP_FORBIDDEN}
+     * @throws ConflictException When the server returns {@code HttpURLConnection#HTTP_CONFLICT}
+     * @throws EntityNotParsableException When the server returns {@link HttpConnection#HTTP_ENTITY_NOT_PROCESSABLE}
+     * @throws InternalServerErrorException When the server returns {@code HttpURLConnection#HTTP_INTERNAL_ERROR}
+     * @throws NetworkUnavailableException When the network used for transmission becomes unavailable.
+     * @throws SynchronizationInterruptedException When the transmission stream ended too early, likely because the sync
+     *             thread was interrupted (sync canceled)
+     * @throws TooManyRequestsException When the server returns {@link HttpConnection#HTTP_TOO_MANY_REQUESTS}
+     * @throws HostUnresolvable e.g. when the phone is connected to a network which is not connected to the internet
+     * @throws ServerUnavailableException When no connection could be established with the server
+     * @throws LengthRequiredException When the server returns {@code HttpURLConnection#HTTP_LENGTH_REQUIRED}, i.e. the
+     *             data needs to be transmitted via {@link #post(HttpURLConnection, SyncAdapter.MetaData,
+     *             UploadProgressListener, FilePart...)}
+     * @throws CursorIsNullException When the data could not be loaded from the database
+     */
+    @SuppressWarnings("UnusedReturnValue") // May be used in the future
+    @NonNull
+    HttpResponse post(@NonNull HttpURLConnection connection, @NonNull SyncAdapter.MetaData metaData,
+            @NonNull final UploadProgressListener progressListener, @NonNull StreamingPart... parts)
+            throws SynchronisationException, BadRequestException, UnauthorizedException, InternalServerErrorException,
+            ForbiddenException, EntityNotParsableException, ConflictException, NetworkUnavailableException,
+            SynchronizationInterruptedException, TooManyRequestsException, HostUnresolvable, ServerUnavailableException,
+            LengthRequiredException, CursorIsNullException;
 }
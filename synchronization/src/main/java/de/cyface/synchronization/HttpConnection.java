@@ -46,6 +46,7 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 
 import de.cyface.synchronization.exception.HostUnresolvable;
+import de.cyface.utils.CursorIsNullException;
 import de.cyface.utils.Validate;
 
 /**
@@ -53,7 +54,7 @@ import de.cyface.utils.Validate;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 11.0.5
+ * @version 11.1.2
  * @since 2.0.0
  */
 public class HttpConnection implements Http {
@@ -232,7 +233,99 @@ public class HttpConnection implements Http {
             } finally {
                 outputStream.close();
             }
-        } catch (final SSLException e) {
+        } catch (final IOException e) {
+            handlePostException(e);
+        }
+
+        return readResponse(connection);
+    }
+
+    @NonNull
+    @Override
+    public HttpResponse post(@NonNull final HttpURLConnection connection, @NonNull final SyncAdapter.MetaData metaData,
+            @NonNull final UploadProgressListener progressListener, @NonNull final StreamingPart... parts)
+            throws SynchronisationException, BadRequestException, UnauthorizedException, InternalServerErrorException,
+            ForbiddenException, EntityNotParsableException, ConflictException, NetworkUnavailableException,
+            SynchronizationInterruptedException, TooManyRequestsException, HostUnresolvable,
+            ServerUnavailableException, LengthRequiredException, CursorIsNullException {
+
+        // Generate MetaData Multipart header
+        // Attention: Parts of the header (Content-Type, boundary, request method, user agent) are already set
+        final byte[] remainingHeaderBytes = generateHeader(metaData).getBytes();
+
+        // The size of the parts is only known after they are written, thus, the body is streamed in chunks
+        connection.setChunkedStreamingMode(0);
+        final BufferedOutputStream outputStream = initOutputStream(connection);
+
+        try {
+            connection.connect();
+            try {
+                // Write MultiPart header
+                outputStream.write(remainingHeaderBytes);
+
+                // Write MultiPart parts while they are generated
+                for (int i = 0; i < parts.length; i++) {
+                    parts[i].writeTo(outputStream);
+                    progressListener.updatedProgress(((i + 1) * 100.0f) / parts.length);
+                }
+
+                // Write MultiPart Tail boundary
+                outputStream.write(TAIL.getBytes());
+                outputStream.flush(); // This way we can identify exceptions thrown by flush easier
+            } finally {
+                outputStream.close();
+            }
+        } catch (final IOException e) {
+            // A server which does not accept chunked requests may answer and close the connection before the body
+            // is written, so the answer needs to be checked before the write error is translated
+            if (isLengthRequired(connection)) {
+                Log.w(TAG, "411: Server does not accept chunked transfer encoding.");
+                throw new LengthRequiredException(readResponseBody(connection));
+            }
+            handlePostException(e);
+        }
+
+        try {
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_LENGTH_REQUIRED) {
+                Log.w(TAG, "411: Server does not accept chunked transfer encoding.");
+                throw new LengthRequiredException(readResponseBody(connection));
+            }
+        } catch (final IOException e) {
+            throw new SynchronisationException(e);
+        }
+        return readResponse(connection);
+    }
+
+    /**
+     * Checks if the server answered a request, which could not be written completely, with
+     * {@link HttpURLConnection#HTTP_LENGTH_REQUIRED}.
+     *
+     * @param connection The {@code HttpURLConnection} the request was written to
+     * @return {@code true} if the server answered with {@code 411}, {@code false} if it answered with another code or
+     *         if no answer could be read
+     */
+    private boolean isLengthRequired(@NonNull final HttpURLConnection connection) {
+        try {
+            return connection.getResponseCode() == HttpURLConnection.HTTP_LENGTH_REQUIRED;
+        } catch (final IOException e) {
+            Log.d(TAG, "No response after the request failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Translates an {@code IOException} thrown while a post request is written to the connection into the
+     * {@code Exception} which describes the problem. This method always throws.
+     *
+     * @param e The {@code IOException} thrown while writing the request
+     * @throws NetworkUnavailableException When the network used for transmission becomes unavailable.
+     * @throws SynchronizationInterruptedException When the sync thread was interrupted (sync canceled) or the
+     *             transmission stream ended too early, which is likely caused by the same
+     * @throws SynchronisationException If the {@code IOException} has an unknown cause.
+     */
+    private void handlePostException(@NonNull final IOException e)
+            throws NetworkUnavailableException, SynchronizationInterruptedException, SynchronisationException {
+        if (e instanceof SSLException) {
             Log.w(TAG, "Caught SSLException: " + e.getMessage());
             // This exception is thrown by OkHttp when the network is no longer available
             final String message = e.getMessage();
@@ -240,21 +333,22 @@ public class HttpConnection implements Http {
                 throw new NetworkUnavailableException("Network became unavailable during transmission.");
             }
             throw new SynchronisationException(e); // SSLException with unknown cause MOV-774
-        } catch (final InterruptedIOException e) {
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            // The streamed parts restore the interrupt flag when the sync is canceled while they are generated
+            throw new SynchronizationInterruptedException("Sync was interrupted via cancelSynchronization", e);
+        }
+        if (e instanceof InterruptedIOException) {
             // This exception is thrown when the login request is interrupted
             throw new NetworkUnavailableException("Network interrupted during post", e);
-        } catch (final IOException e) {
-            Log.w(TAG, "Caught IOException: " + e.getMessage());
-            // Logging out interrupts the sync thread. This must not throw a RuntimeException, thus:
-            final String message = e.getMessage();
-            if (message != null && message.contains("unexpected end of stream")) {
-                throw new SynchronizationInterruptedException("Sync was probably interrupted via cancelSynchronization",
-                        e);
-            }
-            throw new SynchronisationException(e); // IOException with unknown cause MOV-778
         }
-
-        return readResponse(connection);
+        Log.w(TAG, "Caught IOException: " + e.getMessage());
+        // Logging out interrupts the sync thread. This must not throw a RuntimeException, thus:
+        final String message = e.getMessage();
+        if (message != null && message.contains("unexpected end of stream")) {
+            throw new SynchronizationInterruptedException("Sync was probably interrupted via cancelSynchronization", e);
+        }
+        throw new SynchronisationException(e); // IOException with unknown cause MOV-778
     }
 
     /**
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.synchronization;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import androidx.annotation.NonNull;
+
+import de.cyface.utils.CursorIsNullException;
+import de.cyface.utils.Validate;
+
+/**
+ * Encapsulates data that is transferred together with its meta data, like a {@link FilePart}, but which is written
+ * directly to the request body while it is generated. As the length of the data is not known up front, the request
+ * is sent with chunked transfer encoding.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 6.2.0
+ */
+class StreamingPart {
+
+    /**
+     * The source of the data to transfer.
+     */
+    private final Content content;
+    /**
+     * The multi part header of this part.
+     */
+    private final String header;
+
+    /**
+     * Creates a new completely initialized object of this class.
+     *
+     * @param fileName The multipart name of the file to transfer
+     * @param content The source of the data to transfer
+     * @param partName The name of the part in a multi part request
+     */
+    StreamingPart(@NonNull final String fileName, @NonNull final Content content, @NonNull final String partName) {
+        Validate.notEmpty(fileName);
+        Validate.notNull(content);
+        Validate.notEmpty(partName);
+
+        this.content = content;
+        this.header = FilePart.generateHeaderPart(fileName, partName);
+    }
+
+    /**
+     * Writes to an {@code OutputStream} in the MultiPart format.
+     *
+     * @param outputStream the {@code HttpURLConnection} to write to
+     * @throws IOException when an I/O operation fails
+     * @throws CursorIsNullException when the data could not be loaded from the database
+     */
+    void writeTo(@NonNull final BufferedOutputStream outputStream) throws IOException, CursorIsNullException {
+        outputStream.write(header.getBytes());
+        content.writeTo(outputStream);
+        outputStream.write(Http.LINE_FEED.getBytes());
+    }
+
+    /**
+     * The source of the data of a {@link StreamingPart}.
+     */
+    interface Content {
+
+        /**
+         * Writes the data to the request body.
+         *
+         * @param outputStream The {@code OutputStream} to write the data to. It must not be closed.
+         * @throws IOException when an I/O operation fails
+         * @throws CursorIsNullException when the data could not be loaded from the database
+         */
+        void writeTo(@NonNull OutputStream outputStream) throws IOException, CursorIsNullException;
+    }
+}
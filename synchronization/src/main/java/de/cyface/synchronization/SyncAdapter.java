@@ -27,6 +27,8 @@ import static de.cyface.synchronization.ErrorHandler.ErrorCode.SYNCHRONIZATION_I
 import static java.lang.Thread.interrupted;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -56,10 +58,11 @@ import de.cyface.persistence.NoSuchMeasurementException;
 import de.cyface.persistence.PersistenceLayer;
 import de.cyface.persistence.model.GeoLocation;
 import de.cyface.persistence.model.Measurement;
+import de.cyface.persistence.model.MeasurementStatistics;
 import de.cyface.persistence.model.MeasurementStatus;
 import de.cyface.persistence.model.Modality;
-import de.cyface.persistence.model.Track;
 import de.cyface.persistence.serialization.EventsFileSerializerStrategy;
+import de.cyface.persistence.serialization.FileSerializerStrategy;
 import de.cyface.persistence.serialization.MeasurementFileSerializerStrategy;
 import de.cyface.persistence.serialization.MeasurementSerializer;
 import de.cyface.utils.CursorIsNullException;
@@ -70,7 +73,7 @@ import de.cyface.utils.Validate;
  *
  * @author Armin Schnabel
  * @author Klemens Muthmann
- * @version 2.6.13
+ * @version 2.9.1
  * @since 2.0.0
  */
 public final class SyncAdapter extends AbstractThreadedSyncAdapter {
@@ -83,6 +86,11 @@ public final class SyncAdapter extends AbstractThreadedSyncAdapter {
      * method returns true;
      */
     static final String MOCK_IS_CONNECTED_TO_RETURN_TRUE = "mocked_periodic_sync_check_false";
+    /**
+     * The maximal number of threads used to compress a {@code Measurement} for the transfer. The synchronization
+     * usually runs while the device is charging, so the compression may use multiple cores to finish sooner.
+     */
+    private static final int MAX_COMPRESSION_THREADS = 4;
     private final Collection<ConnectionStatusListener> progressListener;
     private final Http http;
     /**
@@ -135,11 +143,14 @@ public final class SyncAdapter extends AbstractThreadedSyncAdapter {
 
         Log.d(TAG, "Sync started");
         final Context context = getContext();
-        final MeasurementSerializer serializer = new MeasurementSerializer();
+        final MeasurementSerializer serializer = new MeasurementSerializer(
+                Math.min(Runtime.getRuntime().availableProcessors(), MAX_COMPRESSION_THREADS));
         final PersistenceLayer<DefaultPersistenceBehaviour> persistence = new PersistenceLayer<>(context,
                 context.getContentResolver(), authority, new DefaultPersistenceBehaviour());
         final CyfaceAuthenticator authenticator = new CyfaceAuthenticator(context);
         final SyncPerformer syncPerformer = new SyncPerformer(context);
+        boolean streamingUpload = PreferenceManager.getDefaultSharedPreferences(context)
+                .getBoolean(SyncService.SYNC_STREAMING_UPLOAD_SETTINGS_KEY, false);
 
         try {
             // Ensure user is authorized before starting synchronization
@@ -167,14 +178,25 @@ public final class SyncAdapter extends AbstractThreadedSyncAdapter {
                         measurement.getIdentifier(), provider, authority);
                 final MetaData metaData = loadMetaData(measurement, persistence, deviceId, context);
 
+                final UploadProgressListener uploadProgressListener = new UploadProgressListener() {
+                    @Override
+                    public void updatedProgress(float percent) {
+                        for (final ConnectionStatusListener listener : progressListener) {
+                            listener.onProgress(percent, measurement.getIdentifier());
+                        }
+                    }
+                };
+
                 // Load, try to sync the file to be transferred and clean it up afterwards
                 File compressedTransferTempFile = null;
-                File compressedEventsTransferTempFile;
+                File compressedEventsTransferTempFile = null;
                 try {
-                    compressedTransferTempFile = serializer.writeSerializedCompressed(loader,
-                            measurement.getIdentifier(), persistence, new MeasurementFileSerializerStrategy());
-                    compressedEventsTransferTempFile = serializer.writeSerializedCompressed(loader,
-                            measurement.getIdentifier(), persistence, new EventsFileSerializerStrategy());
+                    if (!streamingUpload) {
+                        compressedTransferTempFile = serializer.writeSerializedCompressed(loader,
+                                measurement.getIdentifier(), persistence, new MeasurementFileSerializerStrategy());
+                        compressedEventsTransferTempFile = serializer.writeSerializedCompressed(loader,
+                                measurement.getIdentifier(), persistence, new EventsFileSerializerStrategy());
+                    }
 
                     // Acquire new auth token before each synchronization (old one could be expired)
                     final String jwtAuthToken = getAuthToken(authenticator, account);
@@ -186,16 +208,32 @@ public final class SyncAdapter extends AbstractThreadedSyncAdapter {
                     }
 
                     // Synchronize measurement
-                    final boolean transmissionSuccessful = syncPerformer.sendData(http, syncResult, endPointUrl,
-                            metaData, compressedTransferTempFile, compressedEventsTransferTempFile,
-                            new UploadProgressListener() {
-                                @Override
-                                public void updatedProgress(float percent) {
-                                    for (final ConnectionStatusListener listener : progressListener) {
-                                        listener.onProgress(percent, measurement.getIdentifier());
-                                    }
-                                }
-                            }, jwtAuthToken);
+                    boolean transmissionSuccessful = false;
+                    if (streamingUpload) {
+                        try {
+                            transmissionSuccessful = syncPerformer.sendData(http, syncResult, endPointUrl, metaData,
+                                    serializedContent(serializer, loader, measurement, persistence,
+                                            new MeasurementFileSerializerStrategy()),
+                                    serializedContent(serializer, loader, measurement, persistence,
+                                            new EventsFileSerializerStrategy()),
+                                    uploadProgressListener, jwtAuthToken);
+                        } catch (final LengthRequiredException e) {
+                            // Fall back to temp files for this and the following measurements of this sync
+                            Log.w(TAG, "Server requires fixed length uploads: " + e.getMessage());
+                            streamingUpload = false;
+                            compressedTransferTempFile = serializer.writeSerializedCompressed(loader,
+                                    measurement.getIdentifier(), persistence, new MeasurementFileSerializerStrategy());
+                            compressedEventsTransferTempFile = serializer.writeSerializedCompressed(loader,
+                                    measurement.getIdentifier(), persistence, new EventsFileSerializerStrategy());
+                        }
+                    }
+                    if (!streamingUpload) {
+                        Validate.notNull(compressedTransferTempFile);
+                        Validate.notNull(compressedEventsTransferTempFile);
+                        transmissionSuccessful = syncPerformer.sendData(http, syncResult, endPointUrl, metaData,
+                                compressedTransferTempFile, compressedEventsTransferTempFile, uploadProgressListener,
+                                jwtAuthToken);
+                    }
                     if (!transmissionSuccessful) {
                         break;
                     }
@@ -212,6 +250,9 @@ public final class SyncAdapter extends AbstractThreadedSyncAdapter {
                     if (compressedTransferTempFile != null && compressedTransferTempFile.exists()) {
                         Validate.isTrue(compressedTransferTempFile.delete());
                     }
+                    if (compressedEventsTransferTempFile != null && compressedEventsTransferTempFile.exists()) {
+                        Validate.isTrue(compressedEventsTransferTempFile.delete());
+                    }
                 }
             }
         } catch (final CursorIsNullException e) {
@@ -238,6 +279,30 @@ public final class SyncAdapter extends AbstractThreadedSyncAdapter {
         }
     }
 
+    /**
+     * Creates the source of a part of the upload request which writes the serialized and compressed
+     * {@link Measurement} data directly to the request body.
+     *
+     * @param serializer The {@link MeasurementSerializer} to serialize and compress the data with
+     * @param loader The {@link MeasurementContentProviderClient} to load the {@code Measurement} data from the database
+     * @param measurement The {@code Measurement} to upload
+     * @param persistence The {@link PersistenceLayer} to load the file based {@code Measurement} data from
+     * @param fileSerializerStrategy The {@link FileSerializerStrategy} which selects the data of the part
+     * @return The source of the part
+     */
+    private StreamingPart.Content serializedContent(@NonNull final MeasurementSerializer serializer,
+            @NonNull final MeasurementContentProviderClient loader, @NonNull final Measurement measurement,
+            @NonNull final PersistenceLayer<DefaultPersistenceBehaviour> persistence,
+            @NonNull final FileSerializerStrategy fileSerializerStrategy) {
+        return new StreamingPart.Content() {
+            @Override
+            public void writeTo(@NonNull final OutputStream outputStream) throws IOException, CursorIsNullException {
+                serializer.writeSerializedCompressed(outputStream, loader, measurement.getIdentifier(), persistence,
+                        fileSerializerStrategy);
+            }
+        };
+    }
+
     /**
      * Gets the authentication token from the {@link CyfaceAuthenticator}.
      *
@@ -326,19 +391,17 @@ public final class SyncAdapter extends AbstractThreadedSyncAdapter {
             PersistenceLayer<DefaultPersistenceBehaviour> persistence, @NonNull final String deviceId,
             @NonNull final Context context) throws CursorIsNullException {
 
+        // Like before, the locations between pause and resume are not counted as they are not part of the Tracks.
+        // The Tracks are only visited when the measurement was resumed, else the statistics of the database are used.
         // If there is only one location captured, start and end locations are identical
-        final List<Track> tracks = persistence.loadTracks(measurement.getIdentifier());
-        int locationCount = 0;
-        for (final Track track : tracks) {
-            locationCount += track.getGeoLocations().size();
-        }
-        Validate.isTrue(tracks.size() == 0 || (tracks.get(0).getGeoLocations().size() > 0
-                && tracks.get(tracks.size() - 1).getGeoLocations().size() > 0));
-        final List<GeoLocation> lastTrack = tracks.size() > 0 ? tracks.get(tracks.size() - 1).getGeoLocations() : null;
+        final MeasurementStatistics statistics = persistence.loadTrackStatistics(measurement.getIdentifier());
+        Validate.notNull(statistics);
+        final int locationCount = statistics.getLocationCount();
         @Nullable
-        final GeoLocation startLocation = tracks.size() > 0 ? tracks.get(0).getGeoLocations().get(0) : null;
+        final GeoLocation startLocation = statistics.getFirstLocation();
         @Nullable
-        final GeoLocation endLocation = lastTrack != null ? lastTrack.get(lastTrack.size() - 1) : null;
+        final GeoLocation endLocation = statistics.getLastLocation();
+        Validate.isTrue(locationCount == 0 || (startLocation != null && endLocation != null));
 
         // Non location meta data
         final String deviceType = android.os.Build.MODEL;
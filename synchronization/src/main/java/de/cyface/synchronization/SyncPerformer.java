@@ -48,12 +48,15 @@ import android.content.SyncResult;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import de.cyface.persistence.Constants;
 import de.cyface.persistence.DefaultFileAccess;
 import de.cyface.persistence.model.Event;
 import de.cyface.persistence.model.Measurement;
 import de.cyface.synchronization.exception.HostUnresolvable;
+import de.cyface.utils.CursorIsNullException;
+import de.cyface.utils.Validate;
 
 /**
  * Performs the actual synchronisation with a provided server, by uploading meta data and a file containing
@@ -61,7 +64,7 @@ import de.cyface.synchronization.exception.HostUnresolvable;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 5.0.2
+ * @version 5.1.0
  * @since 2.0.0
  */
 class SyncPerformer {
@@ -124,12 +127,77 @@ class SyncPerformer {
                 DefaultFileAccess.humanReadableByteCount(compressedTransferTempFile.length(), true)));
         Log.d(Constants.TAG, String.format("Transferring compressed events (%s)",
                 DefaultFileAccess.humanReadableByteCount(compressedEventsTransferTempFile.length(), true)));
+        final FilePart[] fileParts = new FilePart[] {
+                new FilePart(transferFileName(metaData), compressedTransferTempFile, "fileToUpload"),
+                new FilePart(eventsTransferFileName(metaData), compressedEventsTransferTempFile, "eventsFile")};
+        try {
+            return sendData(http, syncResult, dataServerUrl, metaData, progressListener, jwtAuthToken, fileParts,
+                    null);
+        } catch (final LengthRequiredException | CursorIsNullException e) {
+            throw new IllegalStateException(e); // Only thrown for StreamingParts
+        }
+    }
+
+    /**
+     * Triggers the data transmission to a Cyface server API like
+     * {@link #sendData(Http, SyncResult, String, SyncAdapter.MetaData, File, File, UploadProgressListener, String)}
+     * but writes the data to the request body while it is generated, without temp files.
+     * <p>
+     * The request is sent with chunked transfer encoding. If the server does not accept this, a
+     * {@link LengthRequiredException} is thrown and the data needs to be transmitted via temp files.
+     *
+     * @param http The {@link Http} connection to use for transmission
+     * @param syncResult The {@link SyncResult} used to store sync error information.
+     * @param dataServerUrl The server URL to send the data to.
+     * @param metaData The {@link SyncAdapter.MetaData} required for the Multipart request.
+     * @param transferContent The {@link Measurement} data to transmit
+     * @param eventsTransferContent The {@link Event} data of the {@link Measurement} to transmit
+     * @param progressListener The {@link UploadProgressListener} to be informed about the upload progress.
+     * @param jwtAuthToken A valid JWT auth token to authenticate the transmission
+     * @return True of the transmission was successful.
+     * @throws LengthRequiredException When the server requires the length of the data up front
+     * @throws CursorIsNullException When the data could not be loaded from the database
+     */
+    boolean sendData(@NonNull final Http http, @NonNull final SyncResult syncResult,
+            @NonNull final String dataServerUrl, @NonNull final SyncAdapter.MetaData metaData,
+            @NonNull final StreamingPart.Content transferContent,
+            @NonNull final StreamingPart.Content eventsTransferContent,
+            @NonNull final UploadProgressListener progressListener, @NonNull final String jwtAuthToken)
+            throws LengthRequiredException, CursorIsNullException {
+
+        Log.d(Constants.TAG, "Transferring compressed measurement and events while they are generated");
+        final StreamingPart[] streamingParts = new StreamingPart[] {
+                new StreamingPart(transferFileName(metaData), transferContent, "fileToUpload"),
+                new StreamingPart(eventsTransferFileName(metaData), eventsTransferContent, "eventsFile")};
+        return sendData(http, syncResult, dataServerUrl, metaData, progressListener, jwtAuthToken, null,
+                streamingParts);
+    }
+
+    /**
+     * Transmits either the {@code fileParts} or the {@code streamingParts} and handles the sync errors.
+     *
+     * @param http The {@link Http} connection to use for transmission
+     * @param syncResult The {@link SyncResult} used to store sync error information.
+     * @param dataServerUrl The server URL to send the data to.
+     * @param metaData The {@link SyncAdapter.MetaData} required for the Multipart request.
+     * @param progressListener The {@link UploadProgressListener} to be informed about the upload progress.
+     * @param jwtAuthToken A valid JWT auth token to authenticate the transmission
+     * @param fileParts The data to transmit with a fixed length or {@code null} if {@code streamingParts} are passed
+     * @param streamingParts The data to transmit with chunked transfer encoding or {@code null}
+     * @return True of the transmission was successful.
+     * @throws LengthRequiredException When the server requires the length of the {@code streamingParts} up front
+     * @throws CursorIsNullException When the {@code streamingParts} could not be loaded from the database
+     */
+    private boolean sendData(@NonNull final Http http, @NonNull final SyncResult syncResult,
+            @NonNull final String dataServerUrl, @NonNull final SyncAdapter.MetaData metaData,
+            @NonNull final UploadProgressListener progressListener, @NonNull final String jwtAuthToken,
+            @Nullable final FilePart[] fileParts, @Nullable final StreamingPart[] streamingParts)
+            throws LengthRequiredException, CursorIsNullException {
+
         HttpURLConnection.setFollowRedirects(false);
         HttpURLConnection connection = null;
-        final String fileName = String.format(Locale.US, "%s_%d." + Constants.TRANSFER_FILE_EXTENSION,
-                metaData.deviceId, metaData.measurementId);
-        final String eventsFileName = String.format(Locale.US, "%s_%d." + Constants.EVENTS_TRANSFER_FILE_EXTENSION,
-                metaData.deviceId, metaData.measurementId);
+        final String fileName = transferFileName(metaData);
+        final String eventsFileName = eventsTransferFileName(metaData);
 
         try {
             final URL url = new URL(String.format("%s/measurements", dataServerUrl));
@@ -137,9 +205,12 @@ class SyncPerformer {
                     url.toString()));
             try {
                 connection = http.openHttpConnection(url, sslContext, true, jwtAuthToken);
-                http.post(connection, metaData, progressListener,
-                        new FilePart(fileName, compressedTransferTempFile, "fileToUpload"),
-                        new FilePart(eventsFileName, compressedEventsTransferTempFile, "eventsFile"));
+                if (streamingParts != null) {
+                    http.post(connection, metaData, progressListener, streamingParts);
+                } else {
+                    Validate.notNull(fileParts);
+                    http.post(connection, metaData, progressListener, fileParts);
+                }
             } finally {
                 if (connection != null) {
                     connection.disconnect();
@@ -202,4 +273,22 @@ class SyncPerformer {
         syncResult.stats.numUpdates++; // Upload was successful, measurement can be marked as synced
         return true;
     }
+
+    /**
+     * @param metaData The {@link SyncAdapter.MetaData} of the {@link Measurement} to transmit
+     * @return The multipart name of the transferred {@code Measurement} data
+     */
+    private String transferFileName(@NonNull final SyncAdapter.MetaData metaData) {
+        return String.format(Locale.US, "%s_%d." + Constants.TRANSFER_FILE_EXTENSION, metaData.deviceId,
+                metaData.measurementId);
+    }
+
+    /**
+     * @param metaData The {@link SyncAdapter.MetaData} of the {@link Measurement} to transmit
+     * @return The multipart name of the transferred {@link Event} data
+     */
+    private String eventsTransferFileName(@NonNull final SyncAdapter.MetaData metaData) {
+        return String.format(Locale.US, "%s_%d." + Constants.EVENTS_TRANSFER_FILE_EXTENSION, metaData.deviceId,
+                metaData.measurementId);
+    }
 }
@@ -14,7 +14,7 @@ import android.util.Log;
  *
  * @author Armin Schnabel
  * @author Klemens Muthmann
- * @version 1.0.8
+ * @version 1.1.0
  * @since 2.0.0
  */
 public final class SyncService extends Service {
@@ -28,6 +28,13 @@ public final class SyncService extends Service {
      * The settings key used to identify the settings storing the URL of the server to upload data to.
      */
     public static final String SYNC_ENDPOINT_URL_SETTINGS_KEY = "de.cyface.sync.endpoint";
+    /**
+     * The settings key used to identify the settings storing whether the data is written to the upload request while
+     * it is generated, with chunked transfer encoding, instead of being written to temp files first.
+     * <p>
+     * If the server does not accept chunked transfer encoding, the data is uploaded via temp files.
+     */
+    public static final String SYNC_STREAMING_UPLOAD_SETTINGS_KEY = "de.cyface.sync.streaming_upload";
     /**
      * The synchronisation adapter this service is supposed to call.
      * <p>
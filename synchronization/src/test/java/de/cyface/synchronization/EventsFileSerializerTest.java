@@ -24,11 +24,11 @@ import static de.cyface.persistence.serialization.ByteSizes.LONG_BYTES;
 import static de.cyface.persistence.serialization.ByteSizes.SHORT_BYTES;
 import static de.cyface.persistence.serialization.EventsFileSerializer.BYTES_IN_EVENT_FILE_HEADER;
 import static de.cyface.persistence.serialization.EventsFileSerializer.deserializeEventType;
-import static de.cyface.synchronization.TestUtils.AUTHORITY;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
 
 import java.io.BufferedOutputStream;
@@ -53,13 +53,11 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import android.database.Cursor;
-import android.net.Uri;
 import android.os.RemoteException;
 
 import de.cyface.persistence.DefaultFileAccess;
 import de.cyface.persistence.EventTable;
 import de.cyface.persistence.MeasurementContentProviderClient;
-import de.cyface.persistence.Utils;
 import de.cyface.persistence.model.Event;
 import de.cyface.persistence.model.Modality;
 import de.cyface.persistence.serialization.EventsFileSerializer;
@@ -70,7 +68,7 @@ import de.cyface.utils.Validate;
 /**
  *
  * @author Armin Schnabel
- * @version 1.1.0
+ * @version 1.1.2
  * @since 5.0.0-beta1
  */
 @RunWith(RobolectricTestRunner.class)
@@ -107,10 +105,9 @@ public class EventsFileSerializerTest {
     public void setUp() throws RemoteException, CursorIsNullException {
 
         // Mock Event database access
-        Uri eventUri = Utils.getEventUri(AUTHORITY);
-        when(loader.createEventTableUri()).thenReturn(eventUri);
-        when(loader.countData(eventUri, EventTable.COLUMN_MEASUREMENT_FK)).thenReturn(SAMPLE_EVENTS);
-        when(loader.loadEvents(anyInt(), anyInt())).thenReturn(eventsCursor);
+        when(loader.loadEventCount()).thenReturn(SAMPLE_EVENTS);
+        when(loader.loadEvents(anyLong(), anyLong(), anyInt())).thenReturn(eventsCursor);
+        when(eventsCursor.getCount()).thenReturn(SAMPLE_EVENTS);
 
         // Mock insert of 5 Events
         when(eventsCursor.moveToNext()).thenReturn(true).thenReturn(true).thenReturn(true).thenReturn(true)
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2021 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.synchronization;
+
+import static de.cyface.synchronization.HttpConnection.TAIL;
+import static de.cyface.testutils.SharedTestUtils.generateGeoLocation;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.net.ssl.SSLContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import de.cyface.persistence.model.Modality;
+import de.cyface.utils.CursorIsNullException;
+
+/**
+ * Tests the upload of a {@code Measurement} by the {@link HttpConnection} against a local HTTP stub, with a fixed
+ * length from temp files as well as with chunked transfer encoding while the data is generated.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 6.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+// Config.NONE: To avoid warning
+// sdk: To be able to execute tests with Java 8 (instead of 9)
+@Config(manifest = Config.NONE, sdk = Build.VERSION_CODES.O_MR1)
+public class HttpConnectionUploadTest {
+
+    /**
+     * The path of the upload endpoint of the stub.
+     */
+    private final static String ENDPOINT = "/api/v2/measurements";
+    /**
+     * The data of the measurement part, large enough to be sent in multiple chunks.
+     */
+    private final static byte[] TRANSFER_DATA = data(300_000);
+    /**
+     * The data of the events part.
+     */
+    private final static byte[] EVENTS_DATA = data(100);
+    /**
+     * Used to create the temp files of the fixed length upload.
+     */
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+    /**
+     * The local HTTP stub which receives the uploads.
+     */
+    private HttpServer server;
+    /**
+     * The status code returned by the {@link #server}.
+     */
+    private int responseCode;
+    /**
+     * {@code false} if the {@link #server} answers without reading the request body, like a server which rejects
+     * chunked requests right away.
+     */
+    private boolean readRequestBody;
+    /**
+     * The headers of the last request received by the {@link #server}.
+     */
+    private final AtomicReference<Headers> requestHeaders = new AtomicReference<>();
+    /**
+     * The body of the last request received by the {@link #server}, with the chunked transfer encoding removed.
+     */
+    private final AtomicReference<byte[]> requestBody = new AtomicReference<>();
+    /**
+     * The progress reported to the {@link UploadProgressListener}.
+     */
+    private List<Float> progress;
+    private HttpConnection oocut;
+
+    @Before
+    public void setUp() throws IOException {
+        responseCode = HttpURLConnection.HTTP_CREATED;
+        readRequestBody = true;
+        progress = new ArrayList<>();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(ENDPOINT, new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                requestHeaders.set(exchange.getRequestHeaders());
+                if (readRequestBody) {
+                    requestBody.set(readFully(exchange.getRequestBody()));
+                }
+                exchange.sendResponseHeaders(responseCode, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        oocut = new HttpConnection();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Tests that the temp files are uploaded with a fixed length.
+     */
+    @Test
+    public void testPost_withFileParts() throws Exception {
+
+        // Arrange
+        final FilePart transferPart = new FilePart("test-did_78.ccyf", writeTempFile(TRANSFER_DATA),
+                "fileToUpload");
+        final FilePart eventsPart = new FilePart("test-did_78.ccyfe", writeTempFile(EVENTS_DATA), "eventsFile");
+
+        // Act
+        final HttpResponse response = oocut.post(openConnection(), metaData(), progressListener(), transferPart,
+                eventsPart);
+
+        // Assert
+        assertThat(response.getResponseCode(), is(equalTo(HttpURLConnection.HTTP_CREATED)));
+        assertThat(requestHeaders.get().getFirst("Transfer-Encoding"), is(nullValue()));
+        assertThat(requestHeaders.get().getFirst("Content-Length"),
+                is(equalTo(String.valueOf(requestBody.get().length))));
+        assertThat(requestBody.get(), is(equalTo(expectedBody())));
+    }
+
+    /**
+     * Tests that the data is uploaded with chunked transfer encoding and that the server receives the same body as
+     * from the temp files.
+     */
+    @Test
+    public void testPost_withStreamingParts() throws Exception {
+
+        // Arrange
+        final StreamingPart transferPart = new StreamingPart("test-did_78.ccyf", content(TRANSFER_DATA),
+                "fileToUpload");
+        final StreamingPart eventsPart = new StreamingPart("test-did_78.ccyfe", content(EVENTS_DATA), "eventsFile");
+
+        // Act
+        final HttpResponse response = oocut.post(openConnection(), metaData(), progressListener(), transferPart,
+                eventsPart);
+
+        // Assert
+        assertThat(response.getResponseCode(), is(equalTo(HttpURLConnection.HTTP_CREATED)));
+        assertThat(requestHeaders.get().getFirst("Transfer-Encoding"), is(equalTo("chunked")));
+        assertThat(requestHeaders.get().getFirst("Content-Length"), is(nullValue()));
+        assertThat(requestBody.get(), is(equalTo(expectedBody())));
+        assertThat(progress, is(equalTo(Arrays.asList(50.0f, 100.0f))));
+    }
+
+    /**
+     * Tests that a server which requires the length of the request up front is reported, so that the data can be
+     * uploaded from temp files instead.
+     */
+    @Test(expected = LengthRequiredException.class)
+    public void testPost_withStreamingParts_lengthRequired() throws Exception {
+
+        // Arrange
+        responseCode = HttpURLConnection.HTTP_LENGTH_REQUIRED;
+        final StreamingPart transferPart = new StreamingPart("test-did_78.ccyf", content(TRANSFER_DATA),
+                "fileToUpload");
+        final StreamingPart eventsPart = new StreamingPart("test-did_78.ccyfe", content(EVENTS_DATA), "eventsFile");
+
+        // Act
+        oocut.post(openConnection(), metaData(), progressListener(), transferPart, eventsPart);
+    }
+
+    /**
+     * Tests that a server which requires the length of the request up front is reported, even when it answers and
+     * closes the connection before the request body is written completely.
+     */
+    @Test(expected = LengthRequiredException.class)
+    public void testPost_withStreamingParts_lengthRequiredBeforeBodyIsRead() throws Exception {
+
+        // Arrange
+        responseCode = HttpURLConnection.HTTP_LENGTH_REQUIRED;
+        readRequestBody = false;
+        // Large enough to not fit into the socket buffers, so writing fails after the server closed the connection
+        final StreamingPart transferPart = new StreamingPart("test-did_78.ccyf", repeatedContent(40),
+                "fileToUpload");
+        final StreamingPart eventsPart = new StreamingPart("test-did_78.ccyfe", content(EVENTS_DATA), "eventsFile");
+
+        // Act
+        oocut.post(openConnection(), metaData(), progressListener(), transferPart, eventsPart);
+    }
+
+    /**
+     * @return A connection to the upload endpoint of the {@link #server}
+     */
+    private HttpURLConnection openConnection() throws SynchronisationException, NoSuchAlgorithmException,
+            IOException {
+        final URL url = new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(),
+                ENDPOINT);
+        return oocut.openHttpConnection(url, SSLContext.getDefault(), true, "test-token");
+    }
+
+    /**
+     * @return The {@link SyncAdapter.MetaData} of the uploaded {@code Measurement}
+     */
+    private SyncAdapter.MetaData metaData() {
+        return new SyncAdapter.MetaData(generateGeoLocation(0), generateGeoLocation(10), "test-did", 78,
+                "test_deviceType", "test_osVersion", "test_appVersion", 10.0, 5, Modality.BICYCLE);
+    }
+
+    /**
+     * @return The body of the upload request of the {@link #metaData()}, {@link #TRANSFER_DATA} and
+     *         {@link #EVENTS_DATA}
+     */
+    private byte[] expectedBody() throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(oocut.generateHeader(metaData()).getBytes());
+        body.write(FilePart.generateHeaderPart("test-did_78.ccyf", "fileToUpload").getBytes());
+        body.write(TRANSFER_DATA);
+        body.write(Http.LINE_FEED.getBytes());
+        body.write(FilePart.generateHeaderPart("test-did_78.ccyfe", "eventsFile").getBytes());
+        body.write(EVENTS_DATA);
+        body.write(Http.LINE_FEED.getBytes());
+        body.write(TAIL.getBytes());
+        return body.toByteArray();
+    }
+
+    /**
+     * @return A listener which collects the reported {@link #progress}
+     */
+    private UploadProgressListener progressListener() {
+        return new UploadProgressListener() {
+            @Override
+            public void updatedProgress(final float percent) {
+                progress.add(percent);
+            }
+        };
+    }
+
+    /**
+     * @param data The data to write to the request body
+     * @return A {@link StreamingPart.Content} which writes the data in small pieces, like a compressing stream does
+     */
+    private StreamingPart.Content content(@NonNull final byte[] data) {
+        return new StreamingPart.Content() {
+            @Override
+            public void writeTo(@NonNull final OutputStream outputStream) throws IOException, CursorIsNullException {
+                final int pieceSize = 1_000;
+                for (int offset = 0; offset < data.length; offset += pieceSize) {
+                    outputStream.write(data, offset, Math.min(pieceSize, data.length - offset));
+                }
+            }
+        };
+    }
+
+    /**
+     * @param repetitions The number of times the {@link #TRANSFER_DATA} is written
+     * @return A {@link StreamingPart.Content} which writes the {@code TRANSFER_DATA} repeatedly
+     */
+    private StreamingPart.Content repeatedContent(final int repetitions) {
+        return new StreamingPart.Content() {
+            @Override
+            public void writeTo(@NonNull final OutputStream outputStream) throws IOException, CursorIsNullException {
+                for (int i = 0; i < repetitions; i++) {
+                    outputStream.write(TRANSFER_DATA);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param data The content of the file
+     * @return A temp file with the provided content
+     */
+    private File writeTempFile(@NonNull final byte[] data) throws IOException {
+        final File file = tempFolder.newFile();
+        try (final FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(data);
+        }
+        return file;
+    }
+
+    /**
+     * @param inputStream The stream to read
+     * @return All bytes of the stream
+     */
+    private static byte[] readFully(@NonNull final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8_192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param size The number of bytes to generate
+     * @return Deterministic test data of the provided size
+     */
+    private static byte[] data(final int size) {
+        final byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte)(i * 31 + i / 256);
+        }
+        return data;
+    }
+}
@@ -24,8 +24,8 @@ import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN
 import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_GEO_LOCATION_ENTRY;
 import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY;
 import static de.cyface.persistence.serialization.MeasurementSerializer.COMPRESSION_NOWRAP;
+import static de.cyface.persistence.serialization.MeasurementSerializer.LEGACY_PERSISTENCE_FILE_FORMAT_VERSION;
 import static de.cyface.persistence.serialization.MeasurementSerializer.serialize;
-import static de.cyface.synchronization.TestUtils.AUTHORITY;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -65,15 +65,12 @@ import org.robolectric.annotation.Config;
 import android.content.ContentProvider;
 import android.content.Context;
 import android.database.Cursor;
-import android.net.Uri;
 import android.os.RemoteException;
 
 import de.cyface.persistence.DefaultFileAccess;
 import de.cyface.persistence.FileAccessLayer;
-import de.cyface.persistence.GeoLocationsTable;
 import de.cyface.persistence.MeasurementContentProviderClient;
 import de.cyface.persistence.PersistenceLayer;
-import de.cyface.persistence.Utils;
 import de.cyface.persistence.model.GeoLocation;
 import de.cyface.persistence.model.Measurement;
 import de.cyface.persistence.model.Modality;
@@ -89,7 +86,7 @@ import de.cyface.utils.Validate;
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 2.4.0
+ * @version 2.4.3
  * @since 2.0.0
  */
 @RunWith(RobolectricTestRunner.class)
@@ -146,15 +143,13 @@ public class MeasurementSerializerTest {
     public void setUp() throws RemoteException, CursorIsNullException {
 
         // Mock GeoLocation database access
-        Uri geoLocationUri = Utils.getGeoLocationsUri(AUTHORITY);
-        when(loader.createGeoLocationTableUri()).thenReturn(geoLocationUri);
-        when(loader.countData(geoLocationUri, GeoLocationsTable.COLUMN_MEASUREMENT_FK))
-                .thenReturn(SAMPLE_GEO_LOCATIONS);
-        when(loader.loadGeoLocations(anyInt(), anyInt())).thenReturn(geoLocationsCursor);
+        when(loader.loadGeoLocationCount()).thenReturn(SAMPLE_GEO_LOCATIONS);
+        when(loader.loadGeoLocations(anyLong(), anyLong(), anyInt())).thenReturn(geoLocationsCursor);
 
         // Mock point counters
+        // The mocked files are copied as they are, which is only the case for the legacy format
         final Measurement measurement = new Measurement(1L, OPEN, Modality.UNKNOWN,
-                MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION, 0.0, 123L);
+                LEGACY_PERSISTENCE_FILE_FORMAT_VERSION, 0.0, 123L);
         when(persistence.loadMeasurement(anyLong())).thenReturn(measurement);
         when(persistence.getContext()).thenReturn(mockedContext);
         when(geoLocationsCursor.getCount()).thenReturn(SAMPLE_GEO_LOCATIONS);
@@ -186,11 +181,11 @@ public class MeasurementSerializerTest {
             directions.add(new Point3d((float)SAMPLE_DOUBLE_VALUE, (float)SAMPLE_DOUBLE_VALUE,
                     (float)SAMPLE_DOUBLE_VALUE, SAMPLE_LONG_VALUE));
         }
-        final byte[] serializedAccelerations = serialize(accelerations);
+        final byte[] serializedAccelerations = serialize(accelerations, LEGACY_PERSISTENCE_FILE_FORMAT_VERSION);
         Validate.notNull(serializedAccelerations);
-        final byte[] serializedRotations = serialize(rotations);
+        final byte[] serializedRotations = serialize(rotations, LEGACY_PERSISTENCE_FILE_FORMAT_VERSION);
         Validate.notNull(serializedRotations);
-        final byte[] serializedDirections = serialize(directions);
+        final byte[] serializedDirections = serialize(directions, LEGACY_PERSISTENCE_FILE_FORMAT_VERSION);
         Validate.notNull(serializedDirections);
 
         // Mock persistence
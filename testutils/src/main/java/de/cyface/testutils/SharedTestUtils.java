@@ -24,7 +24,11 @@ import static de.cyface.persistence.Utils.getGeoLocationsUri;
 import static de.cyface.persistence.Utils.getMeasurementUri;
 import static de.cyface.persistence.model.MeasurementStatus.FINISHED;
 import static de.cyface.persistence.model.MeasurementStatus.SYNCED;
-import static de.cyface.persistence.serialization.MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY;
+import static de.cyface.persistence.serialization.MeasurementSerializer.BLOCK_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.COMPRESSION_NOWRAP;
+import static de.cyface.persistence.serialization.MeasurementSerializer.LEGACY_PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.PERSISTENCE_FILE_FORMAT_VERSION;
+import static de.cyface.persistence.serialization.MeasurementSerializer.bytesInOnePoint3dEntry;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
@@ -34,7 +38,11 @@ import java.io.File;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 import android.accounts.Account;
 import android.accounts.AccountManager;
@@ -62,6 +70,7 @@ import de.cyface.persistence.model.Modality;
 import de.cyface.persistence.model.Point3d;
 import de.cyface.persistence.model.Track;
 import de.cyface.persistence.serialization.MeasurementSerializer;
+import de.cyface.persistence.serialization.Point3dBlockFormat;
 import de.cyface.persistence.serialization.Point3dFile;
 import de.cyface.utils.CursorIsNullException;
 import de.cyface.utils.Validate;
@@ -71,7 +80,7 @@ import de.cyface.utils.Validate;
  * It's located in the main folder to be compiled and imported as dependency in the testImplementations.
  *
  * @author Armin Schnabel
- * @version 5.0.0
+ * @version 5.3.0
  * @since 3.0.0
  */
 public class SharedTestUtils {
@@ -180,7 +189,67 @@ public class SharedTestUtils {
     }
 
     /**
-     * This deserializes a {@link File} for testing.
+     * Generates {@link Point3d}s with distinct values and increasing timestamps for testing.
+     *
+     * @param first The index of the first point, used to generate distinct values
+     * @param count The number of points to generate
+     * @return The generated points
+     */
+    public static List<Point3d> generatePoint3ds(final int first, final int count) {
+        final List<Point3d> points = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            points.add(new Point3d(i * 0.1f, -i * 0.2f, 9.81f, 1_000_000_000L + i * 10L));
+        }
+        return points;
+    }
+
+    /**
+     * Generates accelerations with the noise of real sensor data for testing.
+     * <p>
+     * Use this when the compression ratio matters, as the values of {@link #generatePoint3ds(int, int)} compress too
+     * well.
+     *
+     * @param count The number of points to generate
+     * @param random The source of the noise
+     * @return The generated points
+     */
+    public static List<Point3d> generateNoisyPoint3ds(final int count, @NonNull final Random random) {
+        final List<Point3d> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(new Point3d((float)(random.nextGaussian() * 0.5), (float)(random.nextGaussian() * 0.5),
+                    (float)(9.81 + random.nextGaussian() * 0.5), 1_551_431_485_000L + i * 10L + random.nextInt(2)));
+        }
+        return points;
+    }
+
+    /**
+     * Decompresses a raw deflate stream like the server does.
+     *
+     * @param compressed The compressed bytes
+     * @param size The number of decompressed bytes
+     * @return The decompressed bytes
+     * @throws DataFormatException if the compressed bytes are not a valid deflate stream
+     */
+    public static byte[] inflate(@NonNull final byte[] compressed, final int size) throws DataFormatException {
+        final Inflater inflater = new Inflater(COMPRESSION_NOWRAP);
+        inflater.setInput(compressed);
+        final byte[] decompressed = new byte[size + 1];
+        int length = 0;
+        while (!inflater.finished() && length < decompressed.length) {
+            final int inflated = inflater.inflate(decompressed, length, decompressed.length - length);
+            if (inflated == 0 && inflater.needsInput()) {
+                break;
+            }
+            length += inflated;
+        }
+        assertThat(inflater.finished(), is(equalTo(true)));
+        inflater.end();
+        return Arrays.copyOf(decompressed, length);
+    }
+
+    /**
+     * This deserializes a {@link File} in the current {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION}
+     * for testing.
      *
      * @param fileAccessLayer The {@link FileAccessLayer} used to access the files.
      * @param file The {@link File} to access
@@ -189,19 +258,41 @@ public class SharedTestUtils {
      */
     public static List<Point3d> deserialize(@NonNull final FileAccessLayer fileAccessLayer, @NonNull File file,
             final int pointCount) {
+        return deserialize(fileAccessLayer, file, pointCount, PERSISTENCE_FILE_FORMAT_VERSION);
+    }
+
+    /**
+     * This deserializes a {@link File} for testing.
+     *
+     * @param fileAccessLayer The {@link FileAccessLayer} used to access the files.
+     * @param file The {@link File} to access
+     * @param pointCount The number of points in this file. This number is stored in the associated measurement
+     * @param persistenceFileFormatVersion The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} of the file
+     * @return the {@link Point3d} data restored from the {@code Point3dFile}
+     */
+    public static List<Point3d> deserialize(@NonNull final FileAccessLayer fileAccessLayer, @NonNull File file,
+            final int pointCount, final short persistenceFileFormatVersion) {
         final byte[] bytes = fileAccessLayer.loadBytes(file);
-        return deserializePoint3dData(bytes, pointCount);
+        return deserializePoint3dData(bytes, pointCount, persistenceFileFormatVersion);
     }
 
     /**
      * Deserialized {@link Point3d} data.
      *
      * @param point3dFileBytes The bytes loaded from the {@link Point3dFile}
+     * @param persistenceFileFormatVersion The {@link MeasurementSerializer#PERSISTENCE_FILE_FORMAT_VERSION} of the file
      * @return The {@link Point3d} loaded from the file
      */
-    private static List<Point3d> deserializePoint3dData(final byte[] point3dFileBytes, final int pointCount) {
+    private static List<Point3d> deserializePoint3dData(final byte[] point3dFileBytes, final int pointCount,
+            final short persistenceFileFormatVersion) {
 
-        Validate.isTrue(point3dFileBytes.length == pointCount * BYTES_IN_ONE_POINT_3D_ENTRY);
+        if (persistenceFileFormatVersion == BLOCK_PERSISTENCE_FILE_FORMAT_VERSION) {
+            final List<Point3d> points = Point3dBlockFormat.decode(ByteBuffer.wrap(point3dFileBytes));
+            Validate.isTrue(points.size() == pointCount);
+            return points;
+        }
+        Validate.isTrue(
+                point3dFileBytes.length == pointCount * bytesInOnePoint3dEntry(persistenceFileFormatVersion));
         if (pointCount == 0) {
             return new ArrayList<>();
         }
@@ -211,11 +302,17 @@ public class SharedTestUtils {
         final ByteBuffer buffer = ByteBuffer.wrap(point3dFileBytes);
         for (int i = 0; i < pointCount; i++) {
             final long timestamp = buffer.order(ByteOrder.BIG_ENDIAN).getLong();
-            final double x = buffer.order(ByteOrder.BIG_ENDIAN).getDouble();
-            final double y = buffer.order(ByteOrder.BIG_ENDIAN).getDouble();
-            final double z = buffer.order(ByteOrder.BIG_ENDIAN).getDouble();
-            // final long timestamp = buffer.order(ByteOrder.BIG_ENDIAN).getLong();
-            points.add(new Point3d((float)x, (float)y, (float)z, timestamp));
+            if (persistenceFileFormatVersion == LEGACY_PERSISTENCE_FILE_FORMAT_VERSION) {
+                final double x = buffer.order(ByteOrder.BIG_ENDIAN).getDouble();
+                final double y = buffer.order(ByteOrder.BIG_ENDIAN).getDouble();
+                final double z = buffer.order(ByteOrder.BIG_ENDIAN).getDouble();
+                points.add(new Point3d((float)x, (float)y, (float)z, timestamp));
+            } else {
+                final float x = buffer.order(ByteOrder.BIG_ENDIAN).getFloat();
+                final float y = buffer.order(ByteOrder.BIG_ENDIAN).getFloat();
+                final float z = buffer.order(ByteOrder.BIG_ENDIAN).getFloat();
+                points.add(new Point3d(x, y, z, timestamp));
+            }
         }
 
         Log.d(TAG, "Deserialized Points: " + points.size());
@@ -363,12 +460,11 @@ public class SharedTestUtils {
         // Check the sensor data (must be before measurements are marked as sync which deletes the data)
         // noinspection ConstantConditions - we may add tests with a 0 count later
         if (point3dCount > 0) {
-            assertThat((int)(accelerationsFile.getFile().length() / MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY),
-                    is(equalTo(point3dCount)));
-            assertThat((int)(rotationsFile.getFile().length() / MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY),
-                    is(equalTo(point3dCount)));
-            assertThat((int)(directionsFile.getFile().length() / MeasurementSerializer.BYTES_IN_ONE_POINT_3D_ENTRY),
+            final int bytesInOnePoint3dEntry = bytesInOnePoint3dEntry(PERSISTENCE_FILE_FORMAT_VERSION);
+            assertThat((int)(accelerationsFile.getFile().length() / bytesInOnePoint3dEntry),
                     is(equalTo(point3dCount)));
+            assertThat((int)(rotationsFile.getFile().length() / bytesInOnePoint3dEntry), is(equalTo(point3dCount)));
+            assertThat((int)(directionsFile.getFile().length() / bytesInOnePoint3dEntry), is(equalTo(point3dCount)));
         }
 
         if (status == SYNCED) {